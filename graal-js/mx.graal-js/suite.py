@@ -293,6 +293,20 @@ suite = {
       "testProject" : True,
     },
 
+    "com.oracle.truffle.js.test.jdk11" : {
+      "subDir" : "src",
+      "sourceDirs" : ["src"],
+      "dependencies" : [
+        "com.oracle.truffle.js.test",
+      ],
+      "overlayTarget" : "com.oracle.truffle.js.test",
+      "multiReleaseJarVersion" : "11",
+      "checkstyle" : "com.oracle.truffle.js",
+      "javaCompliance" : "11+",
+      "workingSets" : "Truffle,JavaScript",
+      "testProject" : True,
+    },
+
     "com.oracle.truffle.js.test.instrumentation" : {
       "subDir" : "src",
       "sourceDirs" : ["src"],
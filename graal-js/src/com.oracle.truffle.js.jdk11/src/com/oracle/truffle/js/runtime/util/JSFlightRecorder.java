@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.runtime.util;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Emits JDK Flight Recorder events for runtime activity like parsing, module linking and promise
+ * job processing, so that JavaScript latency can be correlated with GC and compilation activity.
+ * Events are in the {@code JavaScript} category and named {@code com.oracle.truffle.js.*}.
+ */
+public final class JSFlightRecorder {
+    /** Event types by {@link RuntimeEventType} ordinal, to check if an event is enabled. */
+    private static final EventType[] EVENT_TYPES;
+
+    static {
+        RuntimeEventType[] types = RuntimeEventType.values();
+        EVENT_TYPES = new EventType[types.length];
+        for (RuntimeEventType type : types) {
+            EVENT_TYPES[type.ordinal()] = EventType.getEventType(create(type).getClass());
+        }
+    }
+
+    private JSFlightRecorder() {
+    }
+
+    /**
+     * Starts an event of the given type. Returns {@code null} if the event is not being recorded,
+     * in which case no event object is allocated.
+     */
+    @TruffleBoundary
+    public static Object begin(RuntimeEventType type) {
+        if (!EVENT_TYPES[type.ordinal()].isEnabled()) {
+            return null;
+        }
+        JSEvent event = create(type);
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends and commits an event returned by {@link #begin}; does nothing if it is {@code null}.
+     * A {@link Class} subject is recorded by its simple name.
+     */
+    @TruffleBoundary
+    public static void commit(Object event, Object subject, long value) {
+        if (event == null) {
+            return;
+        }
+        JSEvent jsEvent = (JSEvent) event;
+        jsEvent.end();
+        if (jsEvent.shouldCommit()) {
+            String subjectString = subject instanceof Class ? ((Class<?>) subject).getSimpleName() : (subject == null ? null : subject.toString());
+            jsEvent.set(subjectString, value);
+            jsEvent.commit();
+        }
+    }
+
+    private static JSEvent create(RuntimeEventType type) {
+        switch (type) {
+            case PARSE:
+                return new ParseEvent();
+            case TRANSLATE:
+                return new TranslateEvent();
+            case MODULE_LOAD:
+                return new ModuleLoadEvent();
+            case MODULE_LINK:
+                return new ModuleLinkEvent();
+            case PROMISE_JOBS:
+                return new PromiseJobsEvent();
+            case FINALIZATION_REGISTRY_CLEANUP:
+                return new FinalizationRegistryCleanupEvent();
+            case REGEX_COMPILE:
+                return new RegexCompileEvent();
+            case ARRAY_REALLOCATION:
+                return new ArrayReallocationEvent();
+            default:
+                throw new IllegalArgumentException(type.name());
+        }
+    }
+
+    @Category("JavaScript")
+    public abstract static class JSEvent extends Event {
+        abstract void set(String subject, long value);
+    }
+
+    @Name("com.oracle.truffle.js.Parse")
+    @Label("Parse")
+    @Description("Parsing of a script or module")
+    public static final class ParseEvent extends JSEvent {
+        @Label("Source") String source;
+        @Label("Length") long length;
+
+        @Override
+        void set(String subject, long value) {
+            source = subject;
+            length = value;
+        }
+    }
+
+    @Name("com.oracle.truffle.js.Translate")
+    @Label("Translate")
+    @Description("Translation of a parsed script or module to a Truffle AST")
+    public static final class TranslateEvent extends JSEvent {
+        @Label("Source") String source;
+        @Label("Length") long length;
+
+        @Override
+        void set(String subject, long value) {
+            source = subject;
+            length = value;
+        }
+    }
+
+    @Name("com.oracle.truffle.js.ModuleLoad")
+    @Label("Module Load")
+    @Description("Reading and parsing of a module")
+    public static final class ModuleLoadEvent extends JSEvent {
+        @Label("Specifier") String specifier;
+
+        @Override
+        void set(String subject, long value) {
+            specifier = subject;
+        }
+    }
+
+    @Name("com.oracle.truffle.js.ModuleLink")
+    @Label("Module Link")
+    @Description("Linking of a module and its dependencies")
+    public static final class ModuleLinkEvent extends JSEvent {
+        @Label("Module") String module;
+
+        @Override
+        void set(String subject, long value) {
+            module = subject;
+        }
+    }
+
+    @Name("com.oracle.truffle.js.PromiseJobs")
+    @Label("Promise Jobs")
+    @Description("Draining of the promise job queue")
+    public static final class PromiseJobsEvent extends JSEvent {
+        @Label("Jobs") long jobs;
+
+        @Override
+        void set(String subject, long value) {
+            jobs = value;
+        }
+    }
+
+    @Name("com.oracle.truffle.js.FinalizationRegistryCleanup")
+    @Label("FinalizationRegistry Cleanup")
+    @Description("Cleanup of FinalizationRegistries after promise jobs")
+    public static final class FinalizationRegistryCleanupEvent extends JSEvent {
+        @Label("Registries") long registries;
+
+        @Override
+        void set(String subject, long value) {
+            registries = value;
+        }
+    }
+
+    @Name("com.oracle.truffle.js.RegexCompile")
+    @Label("RegExp Compile")
+    @Description("Compilation of a regular expression")
+    public static final class RegexCompileEvent extends JSEvent {
+        @Label("RegExp") String regex;
+
+        @Override
+        void set(String subject, long value) {
+            regex = subject;
+        }
+    }
+
+    @Name("com.oracle.truffle.js.ArrayReallocation")
+    @Label("Array Reallocation")
+    @Description("Reallocation of a large array backing store")
+    public static final class ArrayReallocationEvent extends JSEvent {
+        @Label("Array Type") String arrayType;
+        @Label("New Capacity") long capacity;
+
+        @Override
+        void set(String subject, long value) {
+            arrayType = subject;
+            capacity = value;
+        }
+    }
+}
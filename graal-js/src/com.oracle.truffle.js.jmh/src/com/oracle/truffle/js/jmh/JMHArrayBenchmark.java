@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.jmh;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Source;
+import org.graalvm.polyglot.Value;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Element reads, writes and appends in JavaScript code for the different dynamic array storage
+ * strategies (int, double, object, holes and sparse arrays).
+ */
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(2)
+public class JMHArrayBenchmark {
+    @State(Scope.Thread)
+    public static class MyState {
+        protected static final int ARRAY_SIZE = 10000;
+
+        @Param({"int", "double", "object", "holes", "sparse"}) String kind;
+
+        Context context;
+        Value array;
+        Value sumElements;
+        Value writeElements;
+        Value pushElements;
+
+        @Setup(Level.Trial)
+        public void doSetup() {
+            context = Context.create("js");
+            context.eval(Source.create("js", "" +
+                            "function createArray(kind, size) {\n" +
+                            "  let a;\n" +
+                            "  switch (kind) {\n" +
+                            "    case 'int': a = []; for (let i = 0; i < size; i++) a.push(i); break;\n" +
+                            "    case 'double': a = []; for (let i = 0; i < size; i++) a.push(i + 0.5); break;\n" +
+                            "    case 'object': a = []; for (let i = 0; i < size; i++) a.push(i % 2 === 0 ? i : {valueOf() { return 1; }}); break;\n" +
+                            "    case 'holes': a = []; for (let i = 0; i < size; i++) a.push(i); for (let i = 0; i < size; i += 8) delete a[i]; break;\n" +
+                            "    case 'sparse': a = []; a[size * 1000] = 0; for (let i = 0; i < size; i++) a[i * 7] = i; break;\n" +
+                            "  }\n" +
+                            "  return a;\n" +
+                            "}\n" +
+                            "function sumElements(a, size) {\n" +
+                            "  let sum = 0;\n" +
+                            "  for (let i = 0; i < size; i++) {\n" +
+                            "    const v = a[i];\n" +
+                            "    if (v !== undefined) sum += +v;\n" +
+                            "  }\n" +
+                            "  return sum;\n" +
+                            "}\n" +
+                            "function writeElements(a, size) {\n" +
+                            "  for (let i = 0; i < size; i++) {\n" +
+                            "    a[i] = a[size - 1 - i];\n" +
+                            "  }\n" +
+                            "  return a;\n" +
+                            "}\n" +
+                            "function pushElements(kind, size) {\n" +
+                            "  const a = createArray(kind, 16);\n" +
+                            "  for (let i = 0; i < size; i++) {\n" +
+                            "    a.push(kind === 'double' ? i + 0.5 : i);\n" +
+                            "  }\n" +
+                            "  return a.length;\n" +
+                            "}\n"));
+            Value bindings = context.getBindings("js");
+            array = bindings.getMember("createArray").execute(kind, ARRAY_SIZE);
+            sumElements = bindings.getMember("sumElements");
+            writeElements = bindings.getMember("writeElements");
+            pushElements = bindings.getMember("pushElements");
+        }
+
+        @TearDown(Level.Trial)
+        public void doTearDown() {
+            context.close();
+        }
+    }
+
+    @Benchmark
+    public Value testReadElements(MyState state) {
+        return state.sumElements.execute(state.array, MyState.ARRAY_SIZE);
+    }
+
+    @Benchmark
+    public Value testWriteElements(MyState state) {
+        return state.writeElements.execute(state.array, MyState.ARRAY_SIZE);
+    }
+
+    @Benchmark
+    public Value testPushElements(MyState state) {
+        return state.pushElements.execute(state.kind, MyState.ARRAY_SIZE);
+    }
+}
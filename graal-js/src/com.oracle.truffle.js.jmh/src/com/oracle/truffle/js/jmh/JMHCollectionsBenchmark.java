@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.jmh;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Source;
+import org.graalvm.polyglot.Value;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@code Map} and {@code Set} insertion, lookup, deletion and iteration.
+ */
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(2)
+public class JMHCollectionsBenchmark {
+    @State(Scope.Thread)
+    public static class MyState {
+        @Param({"100", "100000"}) int size;
+        @Param({"int", "string", "object"}) String keyKind;
+
+        Context context;
+        Value keys;
+        Value map;
+        Value mapSetDelete;
+        Value mapGet;
+        Value mapIterate;
+        Value setAddHas;
+
+        @Setup(Level.Trial)
+        public void doSetup() {
+            context = Context.create("js");
+            context.eval(Source.create("js", "" +
+                            "function createKeys(kind, size) {\n" +
+                            "  const keys = [];\n" +
+                            "  for (let i = 0; i < size; i++) {\n" +
+                            "    keys.push(kind === 'int' ? i : kind === 'string' ? 'key' + i : {i});\n" +
+                            "  }\n" +
+                            "  return keys;\n" +
+                            "}\n" +
+                            "function createMap(keys) {\n" +
+                            "  const map = new Map();\n" +
+                            "  for (const key of keys) map.set(key, key);\n" +
+                            "  return map;\n" +
+                            "}\n" +
+                            "function mapSetDelete(keys) {\n" +
+                            "  const map = new Map();\n" +
+                            "  for (const key of keys) map.set(key, 1);\n" +
+                            "  for (let i = 0; i < keys.length; i += 2) map.delete(keys[i]);\n" +
+                            "  return map.size;\n" +
+                            "}\n" +
+                            "function mapGet(map, keys) {\n" +
+                            "  let count = 0;\n" +
+                            "  for (const key of keys) if (map.get(key) === key) count++;\n" +
+                            "  return count;\n" +
+                            "}\n" +
+                            "function mapIterate(map) {\n" +
+                            "  let count = 0;\n" +
+                            "  for (const [key, value] of map) if (key === value) count++;\n" +
+                            "  map.forEach((value, key) => { if (key === value) count++; });\n" +
+                            "  return count;\n" +
+                            "}\n" +
+                            "function setAddHas(keys) {\n" +
+                            "  const set = new Set();\n" +
+                            "  for (const key of keys) set.add(key);\n" +
+                            "  let count = 0;\n" +
+                            "  for (const key of keys) if (set.has(key)) count++;\n" +
+                            "  return count;\n" +
+                            "}\n"));
+            Value bindings = context.getBindings("js");
+            keys = bindings.getMember("createKeys").execute(keyKind, size);
+            map = bindings.getMember("createMap").execute(keys);
+            mapSetDelete = bindings.getMember("mapSetDelete");
+            mapGet = bindings.getMember("mapGet");
+            mapIterate = bindings.getMember("mapIterate");
+            setAddHas = bindings.getMember("setAddHas");
+        }
+
+        @TearDown(Level.Trial)
+        public void doTearDown() {
+            context.close();
+        }
+    }
+
+    @Benchmark
+    public Value testMapSetDelete(MyState state) {
+        return state.mapSetDelete.execute(state.keys);
+    }
+
+    @Benchmark
+    public Value testMapGet(MyState state) {
+        return state.mapGet.execute(state.map, state.keys);
+    }
+
+    @Benchmark
+    public Value testMapIterate(MyState state) {
+        return state.mapIterate.execute(state.map);
+    }
+
+    @Benchmark
+    public Value testSetAddHas(MyState state) {
+        return state.setAddHas.execute(state.keys);
+    }
+}
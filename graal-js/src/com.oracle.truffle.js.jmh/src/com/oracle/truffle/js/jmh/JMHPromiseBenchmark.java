@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.jmh;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Source;
+import org.graalvm.polyglot.Value;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Promise job scheduling and draining of the job queue, which happens when the call from Java
+ * into JavaScript returns.
+ */
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(2)
+public class JMHPromiseBenchmark {
+    @State(Scope.Thread)
+    public static class MyState {
+        @Param({"1000"}) int jobs;
+
+        Context context;
+        Value thenChain;
+        Value resolvedFanOut;
+        Value asyncAwait;
+
+        @Setup(Level.Trial)
+        public void doSetup() {
+            context = Context.create("js");
+            context.eval(Source.create("js", "" +
+                            "var result = 0;\n" +
+                            "function thenChain(jobs) {\n" +
+                            "  let p = Promise.resolve(0);\n" +
+                            "  for (let i = 0; i < jobs; i++) {\n" +
+                            "    p = p.then(v => v + 1);\n" +
+                            "  }\n" +
+                            "  p.then(v => { result = v; });\n" +
+                            "}\n" +
+                            "function resolvedFanOut(jobs) {\n" +
+                            "  const promises = [];\n" +
+                            "  for (let i = 0; i < jobs; i++) {\n" +
+                            "    promises.push(new Promise(resolve => resolve(i)));\n" +
+                            "  }\n" +
+                            "  Promise.all(promises).then(values => { result = values.length; });\n" +
+                            "}\n" +
+                            "async function asyncAwait(jobs) {\n" +
+                            "  let sum = 0;\n" +
+                            "  for (let i = 0; i < jobs; i++) {\n" +
+                            "    sum += await i;\n" +
+                            "  }\n" +
+                            "  result = sum;\n" +
+                            "}\n"));
+            Value bindings = context.getBindings("js");
+            thenChain = bindings.getMember("thenChain");
+            resolvedFanOut = bindings.getMember("resolvedFanOut");
+            asyncAwait = bindings.getMember("asyncAwait");
+        }
+
+        @TearDown(Level.Trial)
+        public void doTearDown() {
+            context.close();
+        }
+    }
+
+    @Benchmark
+    public Value testThenChain(MyState state) {
+        return state.thenChain.execute(state.jobs);
+    }
+
+    @Benchmark
+    public Value testResolvedFanOut(MyState state) {
+        return state.resolvedFanOut.execute(state.jobs);
+    }
+
+    @Benchmark
+    public Value testAsyncAwait(MyState state) {
+        return state.asyncAwait.execute(state.jobs);
+    }
+}
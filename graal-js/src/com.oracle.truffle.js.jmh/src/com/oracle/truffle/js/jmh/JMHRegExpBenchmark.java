@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.jmh;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Source;
+import org.graalvm.polyglot.Value;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Regular expression matching via TRegex: {@code test}, {@code exec} with capture groups, global
+ * {@code replace}, and creation of regular expressions from strings.
+ */
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(2)
+public class JMHRegExpBenchmark {
+    @State(Scope.Thread)
+    public static class MyState {
+        protected static final int LINES = 1000;
+
+        Context context;
+        Value input;
+        Value test;
+        Value exec;
+        Value replace;
+        Value compile;
+
+        @Setup(Level.Trial)
+        public void doSetup() {
+            context = Context.create("js");
+            context.eval(Source.create("js", "" +
+                            "function createInput(lines) {\n" +
+                            "  const result = [];\n" +
+                            "  for (let i = 0; i < lines; i++) {\n" +
+                            "    result.push('2021-03-' + (10 + i % 20) + ' user' + i + '@example.com GET /index.html ' + (200 + i % 3));\n" +
+                            "  }\n" +
+                            "  return result;\n" +
+                            "}\n" +
+                            "function test(lines) {\n" +
+                            "  let count = 0;\n" +
+                            "  for (const line of lines) {\n" +
+                            "    if (/GET \\/\\w+\\.html 20[01]$/.test(line)) count++;\n" +
+                            "  }\n" +
+                            "  return count;\n" +
+                            "}\n" +
+                            "function exec(lines) {\n" +
+                            "  let sum = 0;\n" +
+                            "  for (const line of lines) {\n" +
+                            "    const m = /^(\\d+)-(\\d+)-(\\d+) (\\w+)@([\\w.]+)/.exec(line);\n" +
+                            "    sum += m[3].length + m[4].length;\n" +
+                            "  }\n" +
+                            "  return sum;\n" +
+                            "}\n" +
+                            "function replace(lines) {\n" +
+                            "  let length = 0;\n" +
+                            "  for (const line of lines) {\n" +
+                            "    length += line.replace(/[aeiou]/g, '_').length;\n" +
+                            "  }\n" +
+                            "  return length;\n" +
+                            "}\n" +
+                            "function compile(lines) {\n" +
+                            "  let count = 0;\n" +
+                            "  for (let i = 0; i < lines.length; i++) {\n" +
+                            "    if (new RegExp('user' + (i % 16) + '@').test(lines[i])) count++;\n" +
+                            "  }\n" +
+                            "  return count;\n" +
+                            "}\n"));
+            Value bindings = context.getBindings("js");
+            input = bindings.getMember("createInput").execute(LINES);
+            test = bindings.getMember("test");
+            exec = bindings.getMember("exec");
+            replace = bindings.getMember("replace");
+            compile = bindings.getMember("compile");
+        }
+
+        @TearDown(Level.Trial)
+        public void doTearDown() {
+            context.close();
+        }
+    }
+
+    @Benchmark
+    public Value testTest(MyState state) {
+        return state.test.execute(state.input);
+    }
+
+    @Benchmark
+    public Value testExec(MyState state) {
+        return state.exec.execute(state.input);
+    }
+
+    @Benchmark
+    public Value testReplace(MyState state) {
+        return state.replace.execute(state.input);
+    }
+
+    @Benchmark
+    public Value testCompile(MyState state) {
+        return state.compile.execute(state.input);
+    }
+}
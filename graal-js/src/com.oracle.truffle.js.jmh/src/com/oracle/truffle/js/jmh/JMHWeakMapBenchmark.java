@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.jmh;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Source;
+import org.graalvm.polyglot.Value;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@code WeakMap} usage as a memoization cache: populating maps with fresh keys and looking up
+ * existing keys, with every key contained in one or in several weak maps.
+ */
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(2)
+public class JMHWeakMapBenchmark {
+    @State(Scope.Thread)
+    public static class MyState {
+        protected static final int KEY_COUNT = 10000;
+
+        /** Number of weak maps each key is added to. */
+        @Param({"1", "3"}) int maps;
+
+        Context context;
+        Value createKeys;
+        Value keys;
+        Value populatedMaps;
+        Value populate;
+        Value lookup;
+
+        @Setup(Level.Trial)
+        public void doSetup() {
+            context = Context.create("js");
+            context.eval(Source.create("js", "" +
+                            "function createKeys(count) {\n" +
+                            "  const keys = [];\n" +
+                            "  for (let i = 0; i < count; i++) keys.push({i});\n" +
+                            "  return keys;\n" +
+                            "}\n" +
+                            "function populate(keys, maps) {\n" +
+                            "  const result = [];\n" +
+                            "  for (let m = 0; m < maps; m++) {\n" +
+                            "    const map = new WeakMap();\n" +
+                            "    for (const key of keys) map.set(key, key.i);\n" +
+                            "    result.push(map);\n" +
+                            "  }\n" +
+                            "  return result;\n" +
+                            "}\n" +
+                            "function lookup(keys, maps) {\n" +
+                            "  let sum = 0;\n" +
+                            "  for (const map of maps) {\n" +
+                            "    for (const key of keys) if (map.has(key)) sum += map.get(key);\n" +
+                            "  }\n" +
+                            "  return sum;\n" +
+                            "}\n"));
+            Value bindings = context.getBindings("js");
+            createKeys = bindings.getMember("createKeys");
+            keys = createKeys.execute(KEY_COUNT);
+            populate = bindings.getMember("populate");
+            lookup = bindings.getMember("lookup");
+            populatedMaps = populate.execute(keys, maps);
+        }
+
+        @TearDown(Level.Trial)
+        public void doTearDown() {
+            context.close();
+        }
+    }
+
+    @Benchmark
+    public Value testPopulateFreshKeys(MyState state) {
+        return state.populate.execute(state.createKeys.execute(MyState.KEY_COUNT), state.maps);
+    }
+
+    @Benchmark
+    public Value testLookup(MyState state) {
+        return state.lookup.execute(state.keys, state.populatedMaps);
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.parser;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.TruffleFile;
+import com.oracle.truffle.api.source.Source;
+import com.oracle.truffle.js.nodes.JSNodeDecoder;
+import com.oracle.truffle.js.nodes.NodeFactory;
+import com.oracle.truffle.js.nodes.function.FunctionRootNode;
+import com.oracle.truffle.js.runtime.JSContext;
+import com.oracle.truffle.js.runtime.JSParserOptions;
+
+/**
+ * Persistent code cache of pre-translated scripts.
+ *
+ * Entries are binary snapshots (see {@link BinarySnapshotProvider}) stored in the directory given
+ * by the {@code js.code-cache-dir} option. The file name of an entry is a content hash of the
+ * source code, the prolog and epilog, the parser options, and the node decoder checksum, so that
+ * changes to any of these simply cause a cache miss. Entries are produced by the snapshot tool.
+ */
+public final class CodeCache {
+    public static final String FILE_SUFFIX = ".bin";
+
+    private CodeCache() {
+    }
+
+    /**
+     * Computes the name of the cache entry for the given script.
+     */
+    @TruffleBoundary
+    public static String computeKey(CharSequence code, String prolog, String epilog, JSParserOptions parserOptions) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        digest.update(intToBytes(JSNodeDecoder.getChecksum()));
+        digest.update(intToBytes(parserOptions.hashCode()));
+        digest.update(intToBytes(prolog.length()));
+        digest.update(prolog.getBytes(StandardCharsets.UTF_8));
+        digest.update(intToBytes(epilog.length()));
+        digest.update(epilog.getBytes(StandardCharsets.UTF_8));
+        digest.update(code.toString().getBytes(StandardCharsets.UTF_8));
+        byte[] hash = digest.digest();
+        StringBuilder sb = new StringBuilder(hash.length * 2 + FILE_SUFFIX.length());
+        for (byte b : hash) {
+            sb.append(Character.forDigit((b >> 4) & 0xf, 16));
+            sb.append(Character.forDigit(b & 0xf, 16));
+        }
+        return sb.append(FILE_SUFFIX).toString();
+    }
+
+    private static byte[] intToBytes(int value) {
+        return new byte[]{(byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value};
+    }
+
+    /**
+     * Looks up the given script in the code cache directory and decodes it.
+     *
+     * @return the decoded function root, or {@code null} if there is no usable cache entry
+     */
+    @TruffleBoundary
+    public static FunctionRootNode load(JSContext context, Source source, String prolog, String epilog) {
+        String cacheDir = context.getContextOptions().getCodeCacheDir();
+        if (cacheDir.isEmpty() || !source.hasCharacters()) {
+            return null;
+        }
+        byte[] bytes;
+        try {
+            String key = computeKey(source.getCharacters(), prolog, epilog, context.getParserOptions());
+            TruffleFile file = context.getRealm().getEnv().getPublicTruffleFile(cacheDir).resolve(key);
+            if (!file.isRegularFile()) {
+                return null;
+            }
+            bytes = file.readAllBytes();
+        } catch (IOException | SecurityException | UnsupportedOperationException e) {
+            return null;
+        }
+        try {
+            return (FunctionRootNode) new BinarySnapshotProvider(bytes).apply(NodeFactory.getInstance(context), context, source);
+        } catch (IllegalArgumentException | BufferUnderflowException e) {
+            // stale or truncated entry: fall back to parsing
+            return null;
+        }
+    }
+}
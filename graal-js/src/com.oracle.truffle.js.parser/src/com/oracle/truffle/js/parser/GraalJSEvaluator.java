@@ -57,6 +57,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.function.Supplier;
 
+import com.oracle.js.parser.Lexer.RegexToken;
 import com.oracle.js.parser.ir.Expression;
 import com.oracle.js.parser.ir.Module;
 import com.oracle.js.parser.ir.Module.ExportEntry;
@@ -111,7 +112,9 @@ import com.oracle.truffle.js.runtime.objects.JSObjectUtil;
 import com.oracle.truffle.js.runtime.objects.PromiseCapabilityRecord;
 import com.oracle.truffle.js.runtime.objects.ScriptOrModule;
 import com.oracle.truffle.js.runtime.objects.Undefined;
+import com.oracle.truffle.js.runtime.util.JSFlightRecorder;
 import com.oracle.truffle.js.runtime.util.Pair;
+import com.oracle.truffle.js.runtime.util.RuntimeEventType;
 
 /**
  * This is the main external entry into the GraalJS parser.
@@ -255,6 +258,12 @@ public final class GraalJSEvaluator implements JSParser {
         if (MODULE_MIME_TYPE.equals(mimeType) || (mimeType == null && source.getName().endsWith(MODULE_SOURCE_NAME_SUFFIX))) {
             return fakeScriptForModule(context, source);
         }
+        if (argumentNames == null) {
+            FunctionRootNode cached = CodeCache.load(context, source, prolog, epilog);
+            if (cached != null) {
+                return ScriptNode.fromFunctionRoot(context, cached);
+            }
+        }
         try {
             return JavaScriptTranslator.translateScript(NodeFactory.getInstance(context), context, source, context.getParserOptions().isStrict(), prolog, epilog, argumentNames);
         } catch (com.oracle.js.parser.ParserException e) {
@@ -369,6 +378,41 @@ public final class GraalJSEvaluator implements JSParser {
         }
     }
 
+    @Override
+    public Object preparseModule(JSContext context, Source source) {
+        List<RegexToken> regexLiterals = new ArrayList<>();
+        com.oracle.js.parser.ir.FunctionNode parsed = GraalJSParserHelper.preparseModule(context, source, context.getParserOptions().putStrict(true), regexLiterals);
+        return parsed == null ? null : new PreparsedModule(parsed, regexLiterals);
+    }
+
+    @Override
+    public List<String> getRequestedModules(Object preparsed) {
+        return ((PreparsedModule) preparsed).parsed.getModule().getRequestedModules();
+    }
+
+    @TruffleBoundary
+    @Override
+    public JSModuleRecord parseModule(JSContext context, Source source, Object preparsed, JSModuleLoader moduleLoader) {
+        if (preparsed instanceof PreparsedModule) {
+            PreparsedModule preparsedModule = (PreparsedModule) preparsed;
+            if (GraalJSParserHelper.validateRegexLiterals(context, context.getParserOptions(), preparsedModule.regexLiterals)) {
+                return JavaScriptTranslator.translateModule(NodeFactory.getInstance(context), context, source, preparsedModule.parsed, moduleLoader);
+            }
+        }
+        // parse again in order to report the syntax error
+        return parseModule(context, source, moduleLoader);
+    }
+
+    private static final class PreparsedModule {
+        final com.oracle.js.parser.ir.FunctionNode parsed;
+        final List<RegexToken> regexLiterals;
+
+        PreparsedModule(com.oracle.js.parser.ir.FunctionNode parsed, List<RegexToken> regexLiterals) {
+            this.parsed = parsed;
+            this.regexLiterals = regexLiterals;
+        }
+    }
+
     @TruffleBoundary
     @Override
     public JSModuleRecord hostResolveImportedModule(JSContext context, ScriptOrModule referrer, String specifier) {
@@ -517,8 +561,10 @@ public final class GraalJSEvaluator implements JSParser {
         assert moduleRecord.getStatus() != Status.Linking && moduleRecord.getStatus() != Status.Evaluating;
         Deque<JSModuleRecord> stack = new ArrayDeque<>(4);
 
+        Object event = JSFlightRecorder.begin(RuntimeEventType.MODULE_LINK);
         try {
             innerModuleInstantiation(realm, moduleRecord, stack, 0);
+            JSFlightRecorder.commit(event, moduleRecord.getSource().getName(), 0);
         } catch (GraalJSException e) {
             for (JSModuleRecord m : stack) {
                 assert m.getStatus() == Status.Linking;
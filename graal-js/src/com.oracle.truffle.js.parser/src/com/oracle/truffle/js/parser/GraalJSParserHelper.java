@@ -41,6 +41,7 @@
 package com.oracle.truffle.js.parser;
 
 import java.io.PrintWriter;
+import java.util.List;
 import java.util.function.Function;
 
 import com.oracle.js.parser.ErrorManager;
@@ -91,6 +92,47 @@ public final class GraalJSParserHelper {
         return parseSource(context, truffleSource, parserOptions, true, false, false, null, "", "", null);
     }
 
+    /**
+     * Parses a module without accessing the realm, so that it can be called from a thread that has
+     * not entered the context. Regular expression literals are not validated but collected in
+     * {@code regexLiterals}; they have to be checked with {@link #validateRegexLiterals} before the
+     * result is used.
+     *
+     * @return the parsed module, or {@code null} if the source contains syntax errors
+     */
+    public static FunctionNode preparseModule(JSContext context, com.oracle.truffle.api.source.Source truffleSource, JSParserOptions parserOptions, List<RegexToken> regexLiterals) {
+        com.oracle.js.parser.Source source = com.oracle.js.parser.Source.sourceFor(truffleSource.getName(), truffleSource.getCharacters(), false);
+        ScriptEnvironment env = makeScriptEnvironment(parserOptions);
+        ErrorManager errors = new ErrorManager.StringBuilderErrorManager();
+        errors.setLimit(0);
+        try {
+            FunctionNode parsed = createParser(context, env, source, errors, parserOptions, regexLiterals).parseModule(":module");
+            return errors.hasErrors() ? null : parsed;
+        } catch (ParserException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Validates the regular expression literals collected by {@link #preparseModule}.
+     *
+     * @return {@code false} if any of the literals is invalid
+     */
+    public static boolean validateRegexLiterals(JSContext context, JSParserOptions parserOptions, List<RegexToken> regexLiterals) {
+        CompilerAsserts.neverPartOfCompilation(NEVER_PART_OF_COMPILATION_MESSAGE);
+        if (!context.getContextOptions().isValidateRegExpLiterals()) {
+            return true;
+        }
+        for (RegexToken regex : regexLiterals) {
+            try {
+                RegexCompilerInterface.validate(context, regex.getExpression(), regex.getOptions(), parserOptions.getEcmaScriptVersion());
+            } catch (JSException e) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private static FunctionNode parseSource(JSContext context, com.oracle.truffle.api.source.Source truffleSource, JSParserOptions parserOptions,
                     boolean parseModule, boolean eval, boolean evalInFunction, Scope evalScope, String prologue, String epilogue, String[] argumentNames) {
         CompilerAsserts.neverPartOfCompilation(NEVER_PART_OF_COMPILATION_MESSAGE);
@@ -153,13 +195,21 @@ public final class GraalJSParserHelper {
     }
 
     private static Parser createParser(JSContext context, ScriptEnvironment env, com.oracle.js.parser.Source source, ErrorManager errors, JSParserOptions parserOptions) {
+        return createParser(context, env, source, errors, parserOptions, null);
+    }
+
+    private static Parser createParser(JSContext context, ScriptEnvironment env, com.oracle.js.parser.Source source, ErrorManager errors, JSParserOptions parserOptions,
+                    List<RegexToken> deferredRegexLiterals) {
         return new Parser(env, source, errors) {
             @Override
             protected void validateLexerToken(LexerToken lexerToken) {
                 if (lexerToken instanceof RegexToken) {
                     final RegexToken regex = (RegexToken) lexerToken;
-                    // validate regular expression
-                    if (context.getContextOptions().isValidateRegExpLiterals()) {
+                    if (deferredRegexLiterals != null) {
+                        // validated later in the context's thread
+                        deferredRegexLiterals.add(regex);
+                    } else if (context.getContextOptions().isValidateRegExpLiterals()) {
+                        // validate regular expression
                         try {
                             RegexCompilerInterface.validate(context, regex.getExpression(), regex.getOptions(), parserOptions.getEcmaScriptVersion());
                         } catch (JSException e) {
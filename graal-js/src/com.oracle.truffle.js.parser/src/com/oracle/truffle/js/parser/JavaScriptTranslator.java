@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2018, 2020, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2018, 2021, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * The Universal Permissive License (UPL), Version 1.0
@@ -54,6 +54,8 @@ import com.oracle.truffle.js.parser.env.EvalEnvironment;
 import com.oracle.truffle.js.runtime.JSContext;
 import com.oracle.truffle.js.runtime.objects.JSModuleLoader;
 import com.oracle.truffle.js.runtime.objects.JSModuleRecord;
+import com.oracle.truffle.js.runtime.util.JSFlightRecorder;
+import com.oracle.truffle.js.runtime.util.RuntimeEventType;
 
 public final class JavaScriptTranslator extends GraalJSTranslator {
 
@@ -89,14 +91,19 @@ public final class JavaScriptTranslator extends GraalJSTranslator {
     private static ScriptNode translateScript(NodeFactory nodeFactory, JSContext context, Environment env, Source source, boolean isParentStrict,
                     boolean isEval, boolean evalInFunction, DirectEvalContext directEval, String prologue, String epilogue, String[] argumentNames) {
         Scope parentScope = directEval == null ? null : directEval.scope;
+        Object parseEvent = JSFlightRecorder.begin(RuntimeEventType.PARSE);
         FunctionNode parserFunctionNode = GraalJSParserHelper.parseScript(context, source, context.getParserOptions().putStrict(isParentStrict), isEval, evalInFunction, parentScope, prologue,
                         epilogue, argumentNames);
+        JSFlightRecorder.commit(parseEvent, source.getName(), source.getLength());
+        Object translateEvent = JSFlightRecorder.begin(RuntimeEventType.TRANSLATE);
         Source src = applyExplicitSourceURL(source, parserFunctionNode);
         LexicalContext lc = new LexicalContext();
         if (directEval != null && directEval.enclosingClass != null) {
             lc.push(directEval.enclosingClass);
         }
-        return new JavaScriptTranslator(lc, nodeFactory, context, src, argumentNames, prologue.length(), env, isParentStrict).translateScript(parserFunctionNode);
+        ScriptNode script = new JavaScriptTranslator(lc, nodeFactory, context, src, argumentNames, prologue.length(), env, isParentStrict).translateScript(parserFunctionNode);
+        JSFlightRecorder.commit(translateEvent, source.getName(), source.getLength());
+        return script;
     }
 
     private static Source applyExplicitSourceURL(Source source, FunctionNode parserFunctionNode) {
@@ -118,9 +125,17 @@ public final class JavaScriptTranslator extends GraalJSTranslator {
     }
 
     public static JSModuleRecord translateModule(NodeFactory factory, JSContext context, Source source, JSModuleLoader moduleLoader) {
+        Object parseEvent = JSFlightRecorder.begin(RuntimeEventType.PARSE);
         FunctionNode parsed = GraalJSParserHelper.parseModule(context, source, context.getParserOptions().putStrict(true));
+        JSFlightRecorder.commit(parseEvent, source.getName(), source.getLength());
+        return translateModule(factory, context, source, parsed, moduleLoader);
+    }
+
+    public static JSModuleRecord translateModule(NodeFactory factory, JSContext context, Source source, FunctionNode parsed, JSModuleLoader moduleLoader) {
+        Object translateEvent = JSFlightRecorder.begin(RuntimeEventType.TRANSLATE);
         JavaScriptTranslator translator = new JavaScriptTranslator(factory, context, source, 0, null, true);
         FunctionRootNode functionRoot = translator.translateModule(parsed);
+        JSFlightRecorder.commit(translateEvent, source.getName(), source.getLength());
         JSModuleRecord moduleRecord = new JSModuleRecord(parsed.getModule(), context, moduleLoader, source);
         moduleRecord.setFunctionData(functionRoot.getFunctionData());
         moduleRecord.setFrameDescriptor(functionRoot.getFrameDescriptor());
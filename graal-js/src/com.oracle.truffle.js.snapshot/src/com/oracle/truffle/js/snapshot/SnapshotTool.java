@@ -53,6 +53,7 @@ import org.graalvm.polyglot.Context;
 
 import com.oracle.truffle.api.source.Source;
 import com.oracle.truffle.js.lang.JavaScriptLanguage;
+import com.oracle.truffle.js.parser.CodeCache;
 import com.oracle.truffle.js.runtime.JSContext;
 import com.oracle.truffle.js.runtime.JSContextOptions;
 import com.oracle.truffle.js.runtime.JSRealm;
@@ -68,6 +69,7 @@ public class SnapshotTool {
         boolean wrapped = false;
         String outDir = null;
         String inDir = null;
+        String codeCacheDir = null;
         List<String> srcFiles = new ArrayList<>();
         for (String arg : args) {
             if (arg.startsWith("--")) {
@@ -83,29 +85,35 @@ public class SnapshotTool {
                     outDir = requireDirectory(arg.substring(arg.indexOf('=') + 1));
                 } else if (arg.startsWith("--indir=")) {
                     inDir = requireDirectory(arg.substring(arg.indexOf('=') + 1));
+                } else if (arg.startsWith("--code-cache=")) {
+                    codeCacheDir = requireDirectory(arg.substring(arg.indexOf('=') + 1));
                 }
             }
         }
 
         SnapshotTool snapshotTool = new SnapshotTool();
-        if (!srcFiles.isEmpty() && outDir != null) {
-            try (Context polyglotContext = Context.newBuilder(JavaScriptLanguage.ID).allowIO(true).allowExperimentalOptions(true).option(JSContextOptions.CLASS_FIELDS_NAME, "true").option(
-                            JSContextOptions.LAZY_TRANSLATION_NAME, "false").build()) {
+        if (!srcFiles.isEmpty() && (outDir != null || codeCacheDir != null)) {
+            Context.Builder contextBuilder = Context.newBuilder(JavaScriptLanguage.ID).allowIO(true).allowExperimentalOptions(true).option(JSContextOptions.LAZY_TRANSLATION_NAME, "false");
+            if (codeCacheDir == null) {
+                contextBuilder.option(JSContextOptions.CLASS_FIELDS_NAME, "true");
+            }
+            try (Context polyglotContext = contextBuilder.build()) {
                 polyglotContext.initialize(JavaScriptLanguage.ID);
                 polyglotContext.enter();
                 for (String srcFile : srcFiles) {
                     File sourceFile = inDir == null ? new File(srcFile) : Paths.get(inDir, srcFile).toFile();
-                    File outputFile = Paths.get(outDir, srcFile + (binary ? ".bin" : ".java")).toFile();
+                    File outputFile = codeCacheDir != null ? null : Paths.get(outDir, srcFile + (binary ? ".bin" : ".java")).toFile();
                     if (!sourceFile.isFile()) {
                         throw new IllegalArgumentException("Not a file: " + sourceFile);
                     }
-                    snapshotTool.snapshotScriptFileTo(srcFile, sourceFile, outputFile, binary, wrapped);
+                    snapshotTool.snapshotScriptFileTo(srcFile, sourceFile, outputFile, codeCacheDir, binary || codeCacheDir != null, wrapped);
                 }
                 snapshotTool.timeStats.print();
                 polyglotContext.leave();
             }
         } else {
             System.out.println("Usage: [--java|--binary] --outdir=DIR [--indir=DIR] --file=FILE [--file=FILE ...]");
+            System.out.println("       --code-cache=DIR [--indir=DIR] --file=FILE [--file=FILE ...]");
         }
     }
 
@@ -116,7 +124,7 @@ public class SnapshotTool {
         return dir;
     }
 
-    private void snapshotScriptFileTo(String fileName, File sourceFile, File outputFile, boolean binary, boolean wrapped) throws IOException {
+    private void snapshotScriptFileTo(String fileName, File sourceFile, File outputFile, String codeCacheDir, boolean binary, boolean wrapped) throws IOException {
         JSRealm realm = JavaScriptLanguage.getCurrentJSRealm();
         JSContext context = realm.getContext();
         Recording.logv("recording snapshot of %s", fileName);
@@ -139,6 +147,10 @@ public class SnapshotTool {
             prefix = "";
             suffix = "";
         }
+        if (codeCacheDir != null) {
+            // cache entries are looked up by content hash, see CodeCache
+            outputFile = Paths.get(codeCacheDir, CodeCache.computeKey(source.getCharacters(), prefix, suffix, context.getParserOptions())).toFile();
+        }
         try (TimerCloseable timer = timeStats.file(fileName)) {
             final Recording rec = Recording.recordSource(source, context, false, prefix, suffix);
             outputFile.getParentFile().mkdirs();
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2019, 2020, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2019, 2021, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * The Universal Permissive License (UPL), Version 1.0
@@ -49,6 +49,7 @@ import org.graalvm.polyglot.Value;
 import org.junit.Test;
 
 import com.oracle.truffle.js.lang.JavaScriptLanguage;
+import com.oracle.truffle.js.runtime.JSContextOptions;
 import com.oracle.truffle.js.test.JSTest;
 
 public class ArrayBufferViewTest {
@@ -84,4 +85,37 @@ public class ArrayBufferViewTest {
         }
     }
 
+    private static final String BULK_OPERATIONS_TEST = "function check(T, n) {\n" +
+                    "  var a = new T(n);\n" +
+                    "  a.fill(7, 1, n - 1);\n" +
+                    "  if (a[0] !== 0 || a[1] !== 7 || a[n - 2] !== 7 || a[n - 1] !== 0) return 'fill ' + T.name;\n" +
+                    "  for (var i = 0; i < n; i++) a[i] = i % 100;\n" +
+                    "  a[n - 3] = 101;\n" +
+                    "  for (var last = n - 1; a[last] !== 99; last--);\n" +
+                    "  if (a.indexOf(101) !== n - 3 || a.lastIndexOf(99) !== last || a.indexOf(101, n - 2) !== -1 || !a.includes(101) || a.includes(102)) return 'indexOf ' + T.name;\n" +
+                    "  a.reverse();\n" +
+                    "  if (a[2] !== 101 || a[n - 1] !== 0 || a[n - 2] !== 1) return 'reverse ' + T.name;\n" +
+                    "  a.copyWithin(1, 0, n - 1);\n" +
+                    "  if (a[1] !== a[0] || a[3] !== 101 || a[n - 1] !== 1) return 'copyWithin ' + T.name;\n" +
+                    "  var b = new T(n); b.set(a);\n" +
+                    "  if (b[3] !== 101 || b[n - 1] !== 1) return 'set ' + T.name;\n" +
+                    "  return 'ok';\n" +
+                    "}\n" +
+                    "[check(Int8Array, N), check(Uint16Array, N), check(Int32Array, N), check(Float32Array, N), check(Float64Array, N)].join();";
+
+    @Test
+    public void testBulkOperations() {
+        try (Context context = JSTest.newContextBuilder().build()) {
+            Value value = context.eval(JavaScriptLanguage.ID, "var N = 1000;" + BULK_OPERATIONS_TEST);
+            assertEquals("ok,ok,ok,ok,ok", value.asString());
+        }
+    }
+
+    @Test
+    public void testParallelBulkOperations() {
+        try (Context context = JSTest.newContextBuilder().option(JSContextOptions.TYPED_ARRAY_PARALLEL_THRESHOLD_NAME, "1").build()) {
+            Value value = context.eval(JavaScriptLanguage.ID, "var N = 3 << 20;" + BULK_OPERATIONS_TEST);
+            assertEquals("ok,ok,ok,ok,ok", value.asString());
+        }
+    }
 }
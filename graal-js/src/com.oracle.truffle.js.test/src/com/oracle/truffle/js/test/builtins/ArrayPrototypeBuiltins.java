@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2019, 2020, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2019, 2021, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * The Universal Permissive License (UPL), Version 1.0
@@ -81,4 +81,38 @@ public class ArrayPrototypeBuiltins {
         }
     }
 
+    @Test
+    public void testSortIntArray() {
+        try (Context context = JSTest.newContextBuilder().build()) {
+            String code = "var a = []; for (var i = 0; i < 1000; i++) { a.push(((i * 7919) % 2003) - 1000); }\n" +
+                            "a.push(-2147483648, 2147483647, 0, 10, 1, 100);\n" +
+                            "var byString = a.slice().sort((x, y) => { var s = String(x), t = String(y); return s < t ? -1 : s > t ? 1 : 0; });\n" +
+                            "var byNumber = a.slice().sort((x, y) => { return x < y ? -1 : x > y ? 1 : 0; });\n" +
+                            "[a.slice().sort().join() === byString.join(),\n" +
+                            " a.slice().sort((x, y) => x - y).join() === byNumber.join(),\n" +
+                            " a.slice().sort(function(x, y) { return y - x; }).join() === byNumber.reverse().join()].join();";
+            assertEquals("true,true,true", context.eval(JavaScriptLanguage.ID, code).asString());
+        }
+    }
+
+    @Test
+    public void testSortDoubleArray() {
+        try (Context context = JSTest.newContextBuilder().build()) {
+            String code = "var a = []; for (var i = 0; i < 1000; i++) { a.push(((i * 7919) % 2003) / 7 - 100); }\n" +
+                            "var byNumber = a.slice().sort((x, y) => { return x < y ? -1 : x > y ? 1 : 0; });\n" +
+                            "var z = [1.5, 0, -0, 0.5, -0, 0].sort((x, y) => x - y).map(x => Object.is(x, -0) ? '-0' : String(x));\n" +
+                            "[a.slice().sort((x, y) => x - y).join() === byNumber.join(), z.join()].join(';');";
+            assertEquals("true;0,-0,-0,0,0.5,1.5", context.eval(JavaScriptLanguage.ID, code).asString());
+        }
+    }
+
+    @Test
+    public void testSortTypedArray() {
+        try (Context context = JSTest.newContextBuilder().build()) {
+            Value result = context.eval(JavaScriptLanguage.ID, "[new Uint32Array([4294967295, 1, 2147483648, 0]).sort().join(),\n" +
+                            " new Int8Array([5, -3, 127, -128]).sort((a, b) => b - a).join(),\n" +
+                            " Array.from(new Float64Array([NaN, 1, -0, 0, -Infinity]).sort(), x => Object.is(x, -0) ? '-0' : String(x)).join()].join(';');");
+            assertEquals("0,1,2147483648,4294967295;127,5,-3,-128;-Infinity,-0,0,1,NaN", result.asString());
+        }
+    }
 }
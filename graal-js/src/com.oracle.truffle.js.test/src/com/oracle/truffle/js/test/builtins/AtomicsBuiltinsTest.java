@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2019, 2020, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2019, 2021, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * The Universal Permissive License (UPL), Version 1.0
@@ -40,12 +40,15 @@
  */
 package com.oracle.truffle.js.test.builtins;
 
+import java.util.concurrent.TimeUnit;
+
 import org.graalvm.polyglot.Context;
 import org.graalvm.polyglot.Value;
 import org.junit.Assert;
 import org.junit.Test;
 
 import com.oracle.truffle.js.lang.JavaScriptLanguage;
+import com.oracle.truffle.js.runtime.JSAgent;
 import com.oracle.truffle.js.runtime.JSContextOptions;
 import com.oracle.truffle.js.test.JSTest;
 
@@ -80,4 +83,125 @@ public class AtomicsBuiltinsTest {
         }
     }
 
+    @Test
+    public void testConcurrentUpdates() {
+        int agentCount = 4;
+        int iterations = 200;
+        try (Context context = JSTest.newContextBuilder().option(JSContextOptions.TEST262_MODE_NAME, "true").build()) {
+            // the odd buffer length leaves a partial word at the end that is updated under a lock
+            String code = "const agentCount = " + agentCount + ", iterations = " + iterations + ";\n" //
+                            + "for (let i = 0; i < agentCount; i++) {\n" //
+                            + "  $262.agent.start(`\n" //
+                            + "    $262.agent.receiveBroadcast(function(sab) {\n" //
+                            + "      const u8a = new Uint8Array(sab, 0, 4);\n" //
+                            + "      const i16a = new Int16Array(sab, 4, 2);\n" //
+                            + "      const i32a = new Int32Array(sab, 8, 2);\n" //
+                            + "      const i64a = new BigInt64Array(sab, 16, 1);\n" //
+                            + "      const tail = new Uint8Array(sab, 32, 3);\n" //
+                            + "      const id = Atomics.add(i32a, 0, 1);\n" //
+                            + "      for (let j = 0; j < ${iterations}; j++) {\n" //
+                            + "        Atomics.add(u8a, id, 1);\n" //
+                            + "        Atomics.add(i16a, 0, 1);\n" //
+                            + "        let old;\n" //
+                            + "        do {\n" //
+                            + "          old = Atomics.load(i16a, 1);\n" //
+                            + "        } while (Atomics.compareExchange(i16a, 1, old, old + 1) !== old);\n" //
+                            + "        Atomics.sub(i32a, 1, 1);\n" //
+                            + "        Atomics.add(i64a, 0, 1n);\n" //
+                            + "        Atomics.add(tail, 1, 1);\n" //
+                            + "      }\n" //
+                            + "      $262.agent.report('done');\n" //
+                            + "      $262.agent.leaving();\n" //
+                            + "    });\n" //
+                            + "  `);\n" //
+                            + "}\n" //
+                            + "const sab = new SharedArrayBuffer(35);\n" //
+                            + "$262.agent.broadcast(sab);\n" //
+                            + "let reports = 0;\n" //
+                            + "while (reports < agentCount) {\n" //
+                            + "  if ($262.agent.getReport() !== null) {\n" //
+                            + "    reports++;\n" //
+                            + "  } else {\n" //
+                            + "    $262.agent.sleep(1);\n" //
+                            + "  }\n" //
+                            + "}\n" //
+                            + "[...new Uint8Array(sab, 0, 4), ...new Int16Array(sab, 4, 2), ...new Int32Array(sab, 8, 2),\n" //
+                            + "  Number(new BigInt64Array(sab, 16, 1)[0]), ...new Uint8Array(sab, 32, 3)].join();";
+            Value result = context.eval(JavaScriptLanguage.ID, code);
+            int total = agentCount * iterations;
+            StringBuilder expected = new StringBuilder();
+            for (int i = 0; i < agentCount; i++) {
+                expected.append(iterations).append(',');
+            }
+            expected.append(total).append(',').append(total).append(',');
+            expected.append(agentCount).append(',').append(-total).append(',');
+            expected.append(total).append(',');
+            expected.append(0).append(',').append(total & 0xFF).append(',').append(0);
+            Assert.assertEquals(expected.toString(), result.asString());
+        }
+    }
+
+    @Test
+    public void testWaitAsync() {
+        try (Context context = JSTest.newContextBuilder().option(JSContextOptions.TEST262_MODE_NAME, "true").option(JSContextOptions.ECMASCRIPT_VERSION_NAME, "2022").build()) {
+            String code = "$262.agent.start(`\n" //
+                            + "  $262.agent.receiveBroadcast(function(sab) {\n" //
+                            + "    const i32a = new Int32Array(sab);\n" //
+                            + "    Atomics.store(i32a, 0, 1);\n" //
+                            + "    while (Atomics.notify(i32a, 0) === 0) {\n" //
+                            + "      $262.agent.sleep(1);\n" //
+                            + "    }\n" //
+                            + "    $262.agent.report('notified');\n" //
+                            + "    $262.agent.leaving();\n" //
+                            + "  });\n" //
+                            + "`);\n" //
+                            + "const sab = new SharedArrayBuffer(Int32Array.BYTES_PER_ELEMENT * 2);\n" //
+                            + "const i32a = new Int32Array(sab);\n" //
+                            + "var results = [];\n" //
+                            + "const notEqual = Atomics.waitAsync(i32a, 0, 42);\n" //
+                            + "results.push(notEqual.async, notEqual.value);\n" //
+                            + "const immediate = Atomics.waitAsync(i32a, 0, 0, 0);\n" //
+                            + "results.push(immediate.async, immediate.value);\n" //
+                            + "const notified = Atomics.waitAsync(i32a, 0, 0);\n" //
+                            + "notified.value.then(v => results.push('notified:' + v));\n" //
+                            + "const timed = Atomics.waitAsync(i32a, 1, 0, 1);\n" //
+                            + "timed.value.then(v => results.push('timed:' + v));\n" //
+                            + "results.push(notified.async, timed.async);\n" //
+                            + "$262.agent.broadcast(sab);\n" //
+                            + "while ($262.agent.getReport() === null) {\n" //
+                            + "  $262.agent.sleep(1);\n" //
+                            + "}\n" //
+                            + "$262.agent.sleep(10);\n";
+            context.eval(JavaScriptLanguage.ID, code);
+            // the promises are settled by jobs of the main agent
+            Value result = context.eval(JavaScriptLanguage.ID, "results.join()");
+            Assert.assertEquals("false,not-equal,false,timed-out,true,true,notified:ok,timed:timed-out", result.asString());
+        }
+    }
+
+    /**
+     * The timeout of {@code Atomics.waitAsync} expires after the last evaluation: the timer hands
+     * the settlement over to the agent without any further evaluation, and the next call into the
+     * context runs it.
+     */
+    @Test
+    public void testWaitAsyncTimeoutAfterLastEval() throws InterruptedException {
+        try (Context context = JSTest.newContextBuilder().option(JSContextOptions.ECMASCRIPT_VERSION_NAME, "2022").build()) {
+            String code = "var result = 'pending';\n" //
+                            + "const i32a = new Int32Array(new SharedArrayBuffer(Int32Array.BYTES_PER_ELEMENT));\n" //
+                            + "Atomics.waitAsync(i32a, 0, 0, 10).value.then(v => { result = v; });\n" //
+                            + "(function noop() {});\n";
+            Value noop = context.eval(JavaScriptLanguage.ID, code);
+            JSAgent agent = JavaScriptLanguage.getJSRealm(context).getAgent();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (!agent.hasPendingJobs()) {
+                Assert.assertTrue("waitAsync timeout was not delivered to the agent", System.nanoTime() < deadline);
+                Thread.sleep(1);
+            }
+            Assert.assertEquals("pending", context.getBindings(JavaScriptLanguage.ID).getMember("result").asString());
+            noop.executeVoid();
+            Assert.assertEquals("timed-out", context.getBindings(JavaScriptLanguage.ID).getMember("result").asString());
+            Assert.assertFalse(agent.hasPendingAsyncWaiters());
+        }
+    }
 }
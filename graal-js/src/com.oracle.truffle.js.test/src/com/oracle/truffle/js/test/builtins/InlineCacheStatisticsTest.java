@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.test.builtins;
+
+import static com.oracle.truffle.js.lang.JavaScriptLanguage.ID;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.PolyglotException;
+import org.graalvm.polyglot.Source;
+import org.graalvm.polyglot.Value;
+import org.junit.Test;
+
+import com.oracle.truffle.js.runtime.JSContextOptions;
+import com.oracle.truffle.js.test.JSTest;
+
+public class InlineCacheStatisticsTest {
+
+    private static final String CODE = "function getX(o) { return o.x; }\n" +
+                    "function getY(o) { return o.y; }\n" +
+                    "function apply(f, o) { return f(o); }\n" +
+                    "for (var i = 0; i < 10; i++) {\n" +
+                    "  var o = { y: i };\n" +
+                    "  o['p' + i] = i;\n" +
+                    "  o.x = i;\n" +
+                    "  getX(o);\n" +
+                    "  getY({ y: i });\n" +
+                    "  apply(i % 2 ? String : Number, i);\n" +
+                    "}\n";
+
+    private static Value findSite(Context context, String kind, String key, int line) {
+        Value sites = context.eval(ID, "Graal.inlineCacheStatistics()");
+        for (int i = 0; i < sites.getArraySize(); i++) {
+            Value site = sites.getArrayElement(i);
+            Value location = site.getMember("location");
+            if (kind.equals(site.getMember("kind").asString()) && (key == null || key.equals(site.getMember("key").asString())) && !location.isNull() &&
+                            location.asString().startsWith("ic.js:" + line + ":")) {
+                return site;
+            }
+        }
+        fail("site not found: " + kind + " " + key + " at line " + line);
+        return null;
+    }
+
+    @Test
+    public void testStates() {
+        try (Context context = JSTest.newContextBuilder().option(JSContextOptions.INLINE_CACHE_STATISTICS_NAME, "true").build()) {
+            context.eval(Source.newBuilder(ID, CODE, "ic.js").buildLiteral());
+
+            Value getX = findSite(context, "propertyGet", "x", 1);
+            assertEquals("megamorphic", getX.getMember("state").asString());
+            assertEquals("cache limit reached", getX.getMember("reason").asString());
+            assertEquals(1, getX.getMember("megamorphicRewrites").asInt());
+
+            Value getY = findSite(context, "propertyGet", "y", 2);
+            assertEquals("monomorphic", getY.getMember("state").asString());
+            assertEquals(1, getY.getMember("depth").asInt());
+
+            Value call = findSite(context, "call", null, 3);
+            assertEquals("polymorphic", call.getMember("state").asString());
+            assertEquals(2, call.getMember("depth").asInt());
+
+            Value json = context.eval(ID, "JSON.parse(JSON.stringify(Graal.inlineCacheStatistics()))[0]");
+            assertEquals("megamorphic", json.getMember("state").asString());
+        }
+    }
+
+    @Test
+    public void testNotEnabled() {
+        try (Context context = JSTest.newContextBuilder().build()) {
+            context.eval(ID, "Graal.inlineCacheStatistics()");
+            fail("TypeError expected");
+        } catch (PolyglotException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("TypeError"));
+        }
+    }
+}
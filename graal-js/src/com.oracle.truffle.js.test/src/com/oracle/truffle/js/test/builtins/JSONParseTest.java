@@ -44,7 +44,12 @@ import static com.oracle.truffle.js.lang.JavaScriptLanguage.ID;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
 import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.HostAccess;
 import org.graalvm.polyglot.PolyglotException;
 import org.graalvm.polyglot.Value;
 import org.junit.Assert;
@@ -73,4 +78,49 @@ public class JSONParseTest {
         }
     }
 
+    @Test
+    public void testJSONParseRecords() {
+        try (Context context = JSTest.newContextBuilder().build()) {
+            String records = "'[{\"a\":1,\"b\":\"x\"},{\"a\":2.5,\"b\":\"y\"},{\"a\":{\"c\":3},\"b\":null},{\"a\":3,\"a\":4,\"b\":5},{\"b\":6,\"a\":7},{\"a\":8,\"b\":9,\"0\":10}]'";
+            String expected = "[{\"a\":1,\"b\":\"x\"},{\"a\":2.5,\"b\":\"y\"},{\"a\":{\"c\":3},\"b\":null},{\"a\":4,\"b\":5},{\"b\":6,\"a\":7},{\"0\":10,\"a\":8,\"b\":9}]";
+            assertEquals(expected, context.eval(ID, "JSON.stringify(JSON.parse(" + records + "))").asString());
+            assertEquals(expected, context.eval(ID, "var t = " + records + "; JSON.stringify(Graal.jsonParseFrom(new Uint8Array(t.split('').map(c => c.charCodeAt(0)))))").asString());
+        }
+    }
+
+    @Test
+    public void testJSONParseFromArrayBuffer() {
+        try (Context context = JSTest.newContextBuilder().build()) {
+            Value result = context.eval(ID, "var text = '{\"a\": [1, -0, 2.5e3, 9007199254740993, \"\\\\u0041\u00e9\u20ac\ud83d\ude00\"], \"b\": {\"c\": null, \"d\": true}}';" +
+                            "var bytes = new Uint8Array(unescape(encodeURIComponent(text)).split('').map(c => c.charCodeAt(0)));" +
+                            "JSON.stringify(Graal.jsonParseFrom(bytes.buffer)) === JSON.stringify(JSON.parse(text)) && Object.is(Graal.jsonParseFrom(bytes).a[1], -0);");
+            assertTrue(result.asBoolean());
+        }
+    }
+
+    @Test
+    public void testJSONParseFromElements() {
+        try (Context context = JSTest.newContextBuilder().allowHostAccess(HostAccess.ALL).build()) {
+            byte[] input = " [ {\"id\": 0}, {\"id\": 1}, {\"id\": 2} ] ".getBytes(StandardCharsets.UTF_8);
+            Value collect = context.eval(ID, "var ids = []; (function(source) { return Graal.jsonParseFrom(source, (element, index) => ids.push(element.id + index)); })");
+            assertEquals(3, collect.execute(new ByteArrayInputStream(input)).asInt());
+            assertEquals("0,2,4", context.eval(ID, "ids.join()").asString());
+            assertEquals(3, collect.execute(ByteBuffer.wrap(input)).asInt());
+            ByteBuffer direct = ByteBuffer.allocateDirect(input.length);
+            direct.put(input);
+            direct.flip();
+            assertEquals(3, collect.execute(direct).asInt());
+        }
+    }
+
+    @Test
+    public void testJSONParseFromFail() {
+        try (Context context = JSTest.newContextBuilder().build()) {
+            context.eval(ID, "Graal.jsonParseFrom(new Uint8Array([0x5b, 0x31, 0x2c]))");
+            Assert.fail("failure expected");
+        } catch (PolyglotException ex) {
+            assertTrue(ex.isSyntaxError());
+            assertTrue(ex.getMessage(), ex.getMessage().contains("Unexpected end of JSON input"));
+        }
+    }
 }
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.test.builtins;
+
+import static com.oracle.truffle.js.lang.JavaScriptLanguage.ID;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.HostAccess;
+import org.graalvm.polyglot.PolyglotException;
+import org.graalvm.polyglot.Value;
+import org.junit.Test;
+
+import com.oracle.truffle.js.test.JSTest;
+
+public class JSONStringifyToTest {
+
+    private static final String LARGE_VALUE = "var value = []; for (var i = 0; i < 10000; i++) { value.push({id: i, name: 'item\\u00e9' + i, tags: ['a', '\\ud83d\\ude00'], ok: i % 2 === 0}); }";
+
+    @Test
+    public void testCallbackSink() {
+        try (Context context = JSTest.newContextBuilder().build()) {
+            context.eval(ID, LARGE_VALUE);
+            Value result = context.eval(ID, "var chunks = []; var written = Graal.jsonStringifyTo(function(chunk) { chunks.push(chunk); }, value, null, 2);" +
+                            "written && chunks.length > 1 && chunks.join('') === JSON.stringify(value, null, 2);");
+            assertTrue(result.asBoolean());
+        }
+    }
+
+    @Test
+    public void testUndefined() {
+        try (Context context = JSTest.newContextBuilder().build()) {
+            Value result = context.eval(ID, "var chunks = []; [Graal.jsonStringifyTo(function(chunk) { chunks.push(chunk); }, undefined), chunks.length];");
+            assertFalse(result.getArrayElement(0).asBoolean());
+            assertEquals(0, result.getArrayElement(1).asInt());
+        }
+    }
+
+    @Test
+    public void testReplacer() {
+        try (Context context = JSTest.newContextBuilder().build()) {
+            Value result = context.eval(ID, "var out = ''; Graal.jsonStringifyTo(function(chunk) { out += chunk; }, {a: 1, b: 2, c: {a: 3, d: 4}}, ['a', 'c']); out;");
+            assertEquals("{\"a\":1,\"c\":{\"a\":3}}", result.asString());
+            result = context.eval(ID, "out = ''; Graal.jsonStringifyTo(function(chunk) { out += chunk; }, {a: 1, b: 2}, (k, v) => typeof v === 'number' ? v * 2 : v, '--'); out;");
+            assertEquals("{\n--\"a\": 2,\n--\"b\": 4\n}", result.asString());
+        }
+    }
+
+    @Test
+    public void testHostSinks() {
+        try (Context context = JSTest.newContextBuilder().allowHostAccess(HostAccess.ALL).build()) {
+            context.eval(ID, LARGE_VALUE);
+            String expected = context.eval(ID, "JSON.stringify(value)").asString();
+            Value stringifyTo = context.eval(ID, "Graal.jsonStringifyTo");
+            Value value = context.getBindings(ID).getMember("value");
+
+            StringWriter writer = new StringWriter();
+            assertTrue(stringifyTo.execute(writer, value).asBoolean());
+            assertEquals(expected, writer.toString());
+
+            ByteArrayOutputStream stream = new ByteArrayOutputStream();
+            assertTrue(stringifyTo.execute(stream, value).asBoolean());
+            assertEquals(expected, new String(stream.toByteArray(), StandardCharsets.UTF_8));
+
+            byte[] expectedBytes = expected.getBytes(StandardCharsets.UTF_8);
+            ByteBuffer buffer = ByteBuffer.allocate(expectedBytes.length);
+            assertTrue(stringifyTo.execute(buffer, value).asBoolean());
+            assertEquals(ByteBuffer.wrap(expectedBytes), buffer.flip());
+
+            try {
+                stringifyTo.execute(ByteBuffer.allocate(16), value);
+                fail("should have thrown");
+            } catch (PolyglotException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains("overflow"));
+            }
+        }
+    }
+
+    @Test
+    public void testInvalidSink() {
+        try (Context context = JSTest.newContextBuilder().build()) {
+            context.eval(ID, "Graal.jsonStringifyTo({}, 42)");
+            fail("should have thrown");
+        } catch (PolyglotException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("TypeError"));
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.test.builtins;
+
+import static com.oracle.truffle.js.lang.JavaScriptLanguage.ID;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.HostAccess;
+import org.graalvm.polyglot.PolyglotException;
+import org.graalvm.polyglot.Value;
+import org.junit.Test;
+
+import com.oracle.truffle.js.test.JSTest;
+
+public class MapFileTest {
+
+    private static Path createFile(byte[] content) throws IOException {
+        Path file = Files.createTempFile("mapfile", ".bin");
+        file.toFile().deleteOnExit();
+        Files.write(file, content);
+        return file;
+    }
+
+    private static String pathLiteral(Path file) {
+        return "'" + file.toAbsolutePath().toString().replace("\\", "\\\\") + "'";
+    }
+
+    @Test
+    public void testReadOnly() throws IOException {
+        Path file = createFile(new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        try (Context context = JSTest.newContextBuilder().allowIO(true).build()) {
+            Value result = context.eval(ID, "var buffer = Graal.mapFile(" + pathLiteral(file) + ");" +
+                            "var bytes = new Uint8Array(buffer);" +
+                            "[buffer.byteLength, Array.from(bytes).join(), new DataView(buffer).getInt16(2), Array.from(new Uint8Array(Graal.mapFile(" + pathLiteral(file) +
+                            ", {offset: 2, length: 3}))).join(), Array.from(new Uint8Array(buffer.slice(6))).join()];");
+            assertEquals(8, result.getArrayElement(0).asInt());
+            assertEquals("1,2,3,4,5,6,7,8", result.getArrayElement(1).asString());
+            assertEquals(0x0304, result.getArrayElement(2).asInt());
+            assertEquals("3,4,5", result.getArrayElement(3).asString());
+            assertEquals("7,8", result.getArrayElement(4).asString());
+
+            assertTypeError(context, "bytes[0] = 42");
+            assertTypeError(context, "'use strict'; new Float64Array(buffer)[0] = 1.5");
+            assertTypeError(context, "new BigInt64Array(buffer)[0] = 1n");
+            assertTypeError(context, "new DataView(buffer).setInt32(0, 42)");
+            assertTypeError(context, "bytes.fill(0)");
+            assertTypeError(context, "bytes.set(new Uint8Array(2))");
+            assertTypeError(context, "bytes.set([1, 2])");
+            assertTypeError(context, "bytes.reverse()");
+            assertTypeError(context, "bytes.sort()");
+            context.eval(ID, "var ints = new Int32Array(Graal.mapFile(" + pathLiteral(file) + ", {shared: true}));");
+            assertEquals(context.eval(ID, "ints[1]").asInt(), context.eval(ID, "Atomics.load(ints, 1)").asInt());
+            assertTypeError(context, "Atomics.store(ints, 0, 1)");
+            assertTypeError(context, "Atomics.add(ints, 0, 1)");
+        }
+        assertArrayEquals(new byte[]{1, 2, 3, 4, 5, 6, 7, 8}, Files.readAllBytes(file));
+    }
+
+    @Test
+    public void testReadOnlyFile() throws IOException {
+        Path file = createFile(new byte[]{1, 2, 3, 4});
+        file.toFile().setWritable(false);
+        try (Context context = JSTest.newContextBuilder().allowIO(true).build()) {
+            assertEquals("1,2,3,4", context.eval(ID, "Array.from(new Uint8Array(Graal.mapFile(" + pathLiteral(file) + "))).join()").asString());
+            if (!Files.isWritable(file)) {
+                // not enforced when running as root
+                assertError(context, "Graal.mapFile(" + pathLiteral(file) + ", {writable: true})", "Error");
+            }
+        } finally {
+            file.toFile().setWritable(true);
+        }
+        assertArrayEquals(new byte[]{1, 2, 3, 4}, Files.readAllBytes(file));
+    }
+
+    @Test
+    public void testWritable() throws IOException {
+        Path file = createFile(new byte[16]);
+        try (Context context = JSTest.newContextBuilder().allowIO(true).build()) {
+            context.eval(ID, "var buffer = Graal.mapFile(" + pathLiteral(file) + ", {writable: true});" +
+                            "new Uint8Array(buffer).fill(7, 0, 4); new DataView(buffer).setInt32(4, 0x01020304);" +
+                            "Graal.syncMappedBuffer(buffer);");
+            assertArrayEquals(new byte[]{7, 7, 7, 7, 1, 2, 3, 4, 0, 0, 0, 0, 0, 0, 0, 0}, Files.readAllBytes(file));
+
+            Value result = context.eval(ID, "var view = new Uint8Array(buffer); view[15] = 9; Graal.unmapFile(buffer); [buffer.byteLength, view.length];");
+            assertEquals(0, result.getArrayElement(0).asInt());
+            assertEquals(0, result.getArrayElement(1).asInt());
+            assertEquals(9, Files.readAllBytes(file)[15]);
+        }
+    }
+
+    @Test
+    public void testShared() throws IOException {
+        Path file = createFile(new byte[]{1, 0, 0, 0, 2, 0, 0, 0});
+        try (Context context = JSTest.newContextBuilder().allowIO(true).build()) {
+            Value result = context.eval(ID, "var buffer = Graal.mapFile(" + pathLiteral(file) + ", {writable: true, shared: true});" +
+                            "Atomics.add(new Int32Array(buffer), 1, 40); Graal.syncMappedBuffer(buffer);" +
+                            "buffer instanceof SharedArrayBuffer;");
+            assertTrue(result.asBoolean());
+            ByteBuffer expected = ByteBuffer.allocate(8).order(ByteOrder.nativeOrder()).putInt(1).putInt(42);
+            assertArrayEquals(expected.array(), Files.readAllBytes(file));
+            assertTypeError(context, "Graal.unmapFile(buffer)");
+        }
+    }
+
+    @Test
+    public void testHostSharedByteBuffer() {
+        try (Context context = JSTest.newContextBuilder().allowHostAccess(HostAccess.ALL).build()) {
+            ByteBuffer byteBuffer = ByteBuffer.allocateDirect(8);
+            Value buffer = context.eval(ID, "(function(b) { var sab = new SharedArrayBuffer(b); new Uint8Array(sab)[3] = 5; return sab; })").execute(byteBuffer);
+            assertTrue(context.eval(ID, "(function(sab) { return sab instanceof SharedArrayBuffer; })").execute(buffer).asBoolean());
+            assertEquals(5, byteBuffer.get(3));
+        }
+    }
+
+    @Test
+    public void testErrors() throws IOException {
+        Path file = createFile(new byte[4]);
+        try (Context context = JSTest.newContextBuilder().allowIO(true).build()) {
+            assertTypeError(context, "Graal.syncMappedBuffer(new ArrayBuffer(4))");
+            assertTypeError(context, "Graal.unmapFile({})");
+            assertError(context, "Graal.mapFile(" + pathLiteral(file) + ", {length: 8})", "RangeError");
+            assertError(context, "Graal.mapFile(" + pathLiteral(file) + ", {offset: -1})", "RangeError");
+            assertError(context, "Graal.mapFile(" + pathLiteral(file) + ", {writable: true, offset: 2 ** 63, length: 8})", "RangeError");
+            assertError(context, "Graal.mapFile(" + pathLiteral(file.resolveSibling("does-not-exist.bin")) + ")", "Error");
+        }
+        try (Context context = JSTest.newContextBuilder().build()) {
+            assertError(context, "Graal.mapFile(" + pathLiteral(file) + ")", "Error");
+        }
+    }
+
+    private static void assertTypeError(Context context, String code) {
+        assertError(context, code, "TypeError");
+    }
+
+    private static void assertError(Context context, String code, String errorType) {
+        try {
+            context.eval(ID, code);
+            fail("should have thrown");
+        } catch (PolyglotException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith(errorType));
+        }
+    }
+}
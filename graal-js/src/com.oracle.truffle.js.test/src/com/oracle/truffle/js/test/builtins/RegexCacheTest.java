@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.test.builtins;
+
+import static com.oracle.truffle.js.lang.JavaScriptLanguage.ID;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.PolyglotException;
+import org.graalvm.polyglot.Value;
+import org.junit.Test;
+
+import com.oracle.truffle.js.runtime.JSContextOptions;
+import com.oracle.truffle.js.test.JSTest;
+
+public class RegexCacheTest {
+
+    private static final String CODE = "var matched = 0;\n" +
+                    "for (var round = 0; round < 3; round++) {\n" +
+                    "  for (var i = 0; i < 10; i++) {\n" +
+                    "    if (new RegExp('^a' + i + '$', 'i').test('A' + i)) matched++;\n" +
+                    "  }\n" +
+                    "}\n" +
+                    "matched;";
+
+    @Test
+    public void testHitsAndMisses() {
+        try (Context context = JSTest.newContextBuilder().build()) {
+            assertEquals(30, context.eval(ID, CODE).asInt());
+            Value statistics = context.eval(ID, "Graal.regexCacheStatistics()");
+            assertEquals(10, statistics.getMember("size").asInt());
+            assertEquals(64, statistics.getMember("capacity").asInt());
+            assertEquals(10, statistics.getMember("misses").asInt());
+            assertEquals(20, statistics.getMember("hits").asInt());
+        }
+    }
+
+    @Test
+    public void testEviction() {
+        try (Context context = JSTest.newContextBuilder().option(JSContextOptions.REGEX_CACHE_SIZE_NAME, "4").build()) {
+            assertEquals(30, context.eval(ID, CODE).asInt());
+            Value statistics = context.eval(ID, "Graal.regexCacheStatistics()");
+            assertEquals(4, statistics.getMember("size").asInt());
+            assertEquals(4, statistics.getMember("capacity").asInt());
+            // Cycling through more patterns than the cache holds always misses.
+            assertEquals(0, statistics.getMember("hits").asInt());
+            assertEquals(30, statistics.getMember("misses").asInt());
+        }
+    }
+
+    @Test
+    public void testSyntaxErrorNotCached() {
+        try (Context context = JSTest.newContextBuilder().build()) {
+            for (int i = 0; i < 2; i++) {
+                try {
+                    context.eval(ID, "new RegExp('(' + " + i + ");");
+                    fail("should have thrown");
+                } catch (PolyglotException e) {
+                    assertTrue(e.getMessage(), e.getMessage().startsWith("SyntaxError"));
+                }
+            }
+            assertEquals(0, context.eval(ID, "Graal.regexCacheStatistics().size").asInt());
+        }
+    }
+
+    @Test
+    public void testDisabled() {
+        try (Context context = JSTest.newContextBuilder().option(JSContextOptions.REGEX_CACHE_SIZE_NAME, "0").build()) {
+            assertEquals(30, context.eval(ID, CODE).asInt());
+            context.eval(ID, "Graal.regexCacheStatistics()");
+            fail("should have thrown");
+        } catch (PolyglotException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("TypeError"));
+        }
+    }
+}
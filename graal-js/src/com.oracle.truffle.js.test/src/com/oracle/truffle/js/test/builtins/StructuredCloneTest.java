@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.test.builtins;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Value;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.truffle.js.lang.JavaScriptLanguage;
+import com.oracle.truffle.js.runtime.JSContextOptions;
+import com.oracle.truffle.js.test.JSTest;
+
+public class StructuredCloneTest {
+
+    private static Context newContext() {
+        return JSTest.newContextBuilder().option(JSContextOptions.STRUCTURED_CLONE_NAME, "true").build();
+    }
+
+    private static String eval(String code) {
+        try (Context context = newContext()) {
+            return context.eval(JavaScriptLanguage.ID, code).toString();
+        }
+    }
+
+    @Test
+    public void testNotAvailableByDefault() {
+        try (Context context = JSTest.newContextBuilder().build()) {
+            Value result = context.eval(JavaScriptLanguage.ID, "typeof structuredClone");
+            Assert.assertEquals("undefined", result.asString());
+        }
+    }
+
+    @Test
+    public void testCycles() {
+        String code = "var o = { a: [1, 'x'] };\n" +
+                        "o.self = o;\n" +
+                        "o.a.push(o.a);\n" +
+                        "var c = structuredClone(o);\n" +
+                        "[c !== o, c.self === c, c.a !== o.a, c.a[2] === c.a, c.a[1]].join();";
+        Assert.assertEquals("true,true,true,true,x", eval(code));
+    }
+
+    @Test
+    public void testBuiltinTypes() {
+        String code = "var key = {};\n" +
+                        "var m = structuredClone(new Map([[key, 1], ['k', key]]));\n" +
+                        "var s = structuredClone(new Set([1, 'a']));\n" +
+                        "var d = structuredClone(new Date(42));\n" +
+                        "var r = structuredClone(/ab+c/gi);\n" +
+                        "var e = structuredClone(new RangeError('oops'));\n" +
+                        "var n = structuredClone(new Number(3));\n" +
+                        "var mk = m.keys().next().value;\n" +
+                        "[m.size, m.get(mk), m.get('k') === mk, s.has('a'), d.getTime(), r.source, r.flags,\n" +
+                        " e instanceof RangeError, e.message, typeof n, n.valueOf()].join();";
+        Assert.assertEquals("2,1,true,true,42,ab+c,gi,true,oops,object,3", eval(code));
+    }
+
+    @Test
+    public void testTypedArrays() {
+        String code = "var buffer = new ArrayBuffer(8);\n" +
+                        "var a = new Int16Array(buffer, 2, 2);\n" +
+                        "a[0] = 7;\n" +
+                        "var c = structuredClone({ a, v: new DataView(buffer, 4) });\n" +
+                        "a[0] = 8;\n" +
+                        "[c.a instanceof Int16Array, c.a[0], c.a.byteOffset, c.a.length, c.a.buffer === c.v.buffer, c.v.byteLength].join();";
+        Assert.assertEquals("true,7,2,2,true,4", eval(code));
+    }
+
+    @Test
+    public void testTransfer() {
+        String code = "var buffer = new Uint8Array([1, 2, 3]).buffer;\n" +
+                        "var c = structuredClone(buffer, { transfer: [buffer] });\n" +
+                        "[buffer.byteLength, c.byteLength, new Uint8Array(c)[2]].join();";
+        Assert.assertEquals("0,3,3", eval(code));
+    }
+
+    @Test
+    public void testNotCloneable() {
+        String code = "var result = [];\n" +
+                        "try { structuredClone(function() {}); } catch (e) { result.push(e instanceof TypeError); }\n" +
+                        "try { structuredClone(Symbol()); } catch (e) { result.push(e instanceof TypeError); }\n" +
+                        "try { structuredClone(1, 2); } catch (e) { result.push(e instanceof TypeError); }\n" +
+                        "result.join();";
+        Assert.assertEquals("true,true,true", eval(code));
+    }
+}
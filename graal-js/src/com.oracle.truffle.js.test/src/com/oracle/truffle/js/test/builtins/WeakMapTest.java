@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.test.builtins;
+
+import static org.junit.Assert.assertEquals;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Value;
+import org.junit.Test;
+
+import com.oracle.truffle.js.lang.JavaScriptLanguage;
+import com.oracle.truffle.js.test.JSTest;
+
+public class WeakMapTest {
+
+    @Test
+    public void testKeyInMultipleMaps() {
+        try (Context context = JSTest.newContextBuilder().build()) {
+            Value value = context.eval(JavaScriptLanguage.ID, "" +
+                            "var key = {};\n" +
+                            "var m1 = new WeakMap(), m2 = new WeakMap(), m3 = new WeakMap();\n" +
+                            "m1.set(key, 1);\n" +
+                            "var r = [m1.get(key), m2.has(key)];\n" +
+                            "m2.set(key, 2);\n" +
+                            "m3.set(key, 3);\n" +
+                            "m1.set(key, 4);\n" +
+                            "r.push(m1.get(key), m2.get(key), m3.get(key));\n" +
+                            "m2.delete(key);\n" +
+                            "r.push(m1.get(key), m2.has(key), m3.get(key));\n" +
+                            "r.join();");
+            assertEquals("1,false,4,2,3,4,false,3", value.asString());
+        }
+    }
+
+    @Test
+    public void testDeleteAndReAdd() {
+        try (Context context = JSTest.newContextBuilder().build()) {
+            Value value = context.eval(JavaScriptLanguage.ID, "" +
+                            "var key = {};\n" +
+                            "var m1 = new WeakMap(), m2 = new WeakMap();\n" +
+                            "m1.set(key, 1);\n" +
+                            "var r = [m1.delete(key), m1.has(key), m1.delete(key)];\n" +
+                            "m2.set(key, 2);\n" +
+                            "m1.set(key, undefined);\n" +
+                            "r.push(m1.has(key), m1.get(key), m2.get(key));\n" +
+                            "var s = new WeakSet();\n" +
+                            "s.add(key);\n" +
+                            "r.push(s.has(key), m1.has(key), m2.has(key));\n" +
+                            "r.join();");
+            assertEquals("true,false,false,true,,2,true,true,true", value.asString());
+        }
+    }
+}
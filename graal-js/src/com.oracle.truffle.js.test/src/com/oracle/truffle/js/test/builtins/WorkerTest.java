@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.test.builtins;
+
+import java.util.concurrent.TimeUnit;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.PolyglotException;
+import org.graalvm.polyglot.Value;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.truffle.js.lang.JavaScriptLanguage;
+import com.oracle.truffle.js.runtime.JSContextOptions;
+import com.oracle.truffle.js.test.JSTest;
+
+public class WorkerTest {
+
+    private static Context newContext() {
+        return JSTest.newContextBuilder().option(JSContextOptions.WORKER_NAME, "true").build();
+    }
+
+    @Test
+    public void testWorkerNotAvailableByDefault() {
+        try (Context context = JSTest.newContextBuilder().build()) {
+            Value result = context.eval(JavaScriptLanguage.ID, "typeof Worker");
+            Assert.assertEquals("undefined", result.asString());
+        }
+    }
+
+    @Test
+    public void testMessages() {
+        try (Context context = newContext()) {
+            String code = "var worker = new Worker(`\n" +
+                            "  onmessage = function(e) {\n" +
+                            "    const i32a = new Int32Array(e.data.sab);\n" +
+                            "    Atomics.add(i32a, 0, e.data.n);\n" +
+                            "    postMessage({ doubled: e.data.n * 2, byteLength: e.data.buffer.byteLength, list: e.data.list });\n" +
+                            "    close();\n" +
+                            "  };\n" +
+                            "`);\n" +
+                            "var sab = new SharedArrayBuffer(4);\n" +
+                            "var buffer = new ArrayBuffer(8);\n" +
+                            "var list = [1, 'two'];\n" +
+                            "list.push(list);\n" +
+                            "worker.postMessage({ sab, n: 21, buffer, list }, [buffer]);\n" +
+                            "var reply = worker.receiveMessage();\n" +
+                            "[reply.doubled, reply.byteLength, buffer.byteLength, new Int32Array(sab)[0], reply.list[1], reply.list[2] === reply.list, worker.receiveMessage()].join();";
+            Value result = context.eval(JavaScriptLanguage.ID, code);
+            Assert.assertEquals("42,8,0,21,two,true,", result.asString());
+        }
+    }
+
+    @Test
+    public void testNotCloneable() {
+        try (Context context = newContext()) {
+            String code = "var worker = new Worker('');\n" +
+                            "var passed = false;\n" +
+                            "try { worker.postMessage(function() {}); } catch (e) { passed = e instanceof TypeError; }\n" +
+                            "worker.terminate();\n" +
+                            "passed;";
+            Value result = context.eval(JavaScriptLanguage.ID, code);
+            Assert.assertTrue(result.asBoolean());
+        }
+    }
+
+    @Test
+    public void testUncaughtException() {
+        try (Context context = newContext()) {
+            context.eval(JavaScriptLanguage.ID, "var worker = new Worker(\"throw new Error('boom')\");");
+            try {
+                context.eval(JavaScriptLanguage.ID, "worker.receiveMessage()");
+                Assert.fail("exception expected");
+            } catch (PolyglotException ex) {
+                Assert.assertTrue(ex.getMessage(), ex.getMessage().contains("boom"));
+            }
+        }
+    }
+
+    @Test
+    public void testTerminateBusyWorker() throws InterruptedException {
+        try (Context context = newContext()) {
+            context.eval(JavaScriptLanguage.ID, "var worker = new Worker(\"postMessage('started'); while (true) {}\");\n" +
+                            "worker.receiveMessage();\n" +
+                            "worker.terminate();");
+            assertWorkerThreadsFinish();
+        }
+    }
+
+    @Test
+    public void testTerminateWaitingWorker() throws InterruptedException {
+        try (Context context = newContext()) {
+            context.eval(JavaScriptLanguage.ID, "var worker = new Worker(`\n" +
+                            "  onmessage = function(e) {\n" +
+                            "    postMessage('waiting');\n" +
+                            "    Atomics.wait(new Int32Array(e.data), 0, 0);\n" +
+                            "  };\n" +
+                            "`);\n" +
+                            "worker.postMessage(new SharedArrayBuffer(4));\n" +
+                            "worker.receiveMessage();\n" +
+                            "worker.terminate();");
+            assertWorkerThreadsFinish();
+        }
+    }
+
+    private static void assertWorkerThreadsFinish() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (Thread.getAllStackTraces().keySet().stream().anyMatch(t -> t.getName().startsWith("JS-Worker-"))) {
+            Assert.assertTrue("worker thread still running", System.nanoTime() < deadline);
+            Thread.sleep(10);
+        }
+    }
+}
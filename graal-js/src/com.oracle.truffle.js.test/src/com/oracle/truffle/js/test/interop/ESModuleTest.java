@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2020, 2021, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * The Universal Permissive License (UPL), Version 1.0
@@ -43,13 +43,16 @@ package com.oracle.truffle.js.test.interop;
 import static com.oracle.truffle.js.lang.JavaScriptLanguage.ID;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.PolyglotException;
 import org.graalvm.polyglot.Source;
 import org.graalvm.polyglot.Value;
 import org.graalvm.polyglot.io.FileSystem;
 import org.junit.Test;
 
+import com.oracle.truffle.js.runtime.JSContextOptions;
 import com.oracle.truffle.js.test.JSTest;
 
 import java.io.BufferedReader;
@@ -61,6 +64,7 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.URI;
 import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.AccessMode;
 import java.nio.file.DirectoryStream;
 import java.nio.file.FileSystems;
@@ -73,6 +77,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Various tests for EcmaScript 6 module loading via {@link Source}.
@@ -401,4 +406,80 @@ public class ESModuleTest {
             deleteFiles(allFilesArray);
         }
     }
+
+    /**
+     * Test that imported modules parsed on background threads are linked as usual.
+     */
+    @Test
+    public void testBackgroundModuleParsing() throws IOException {
+        File[] allFilesArray = null;
+        try (Context context = JSTest.newContextBuilder().allowIO(true).option(JSContextOptions.MODULE_PARSER_THREADS_NAME, "2").build()) {
+            allFilesArray = prepareTestFileAndModules("resources/classexporttest.js", "resources/classexportmodule.js");
+            Source mainSource = Source.newBuilder(ID, allFilesArray[0]).mimeType("application/javascript+module").build();
+            Value v = context.eval(mainSource);
+            commonCheck(v);
+        } finally {
+            deleteFiles(allFilesArray);
+        }
+    }
+
+    /**
+     * Test that syntax errors in modules parsed on background threads are reported on import.
+     */
+    @Test
+    public void testBackgroundModuleParsingSyntaxError() throws IOException {
+        File moduleFile = File.createTempFile("syntaxerrormodule", ".mjs");
+        moduleFile.deleteOnExit();
+        try (Context context = JSTest.newContextBuilder().allowIO(true).option(JSContextOptions.MODULE_PARSER_THREADS_NAME, "2").build()) {
+            Files.write(moduleFile.toPath(), "export const re = /(/;".getBytes(StandardCharsets.UTF_8));
+            String mainCode = "import {re} from '" + moduleFile.getName() + "'; re;";
+            File mainFile = new File(moduleFile.getParentFile(), "main" + moduleFile.getName());
+            mainFile.deleteOnExit();
+            Files.write(mainFile.toPath(), mainCode.getBytes(StandardCharsets.UTF_8));
+            try {
+                context.eval(Source.newBuilder(ID, mainFile).build());
+                fail("expected SyntaxError");
+            } catch (PolyglotException e) {
+                assertTrue(e.isSyntaxError());
+            } finally {
+                mainFile.delete();
+            }
+        } finally {
+            moduleFile.delete();
+        }
+    }
+
+    /**
+     * Test that the imports of modules parsed on background threads are prefetched as well, and
+     * that the background threads are stopped when the context is closed.
+     */
+    @Test
+    public void testBackgroundModuleParsingTransitive() throws IOException, InterruptedException {
+        Path dir = Files.createTempDirectory("transitive");
+        int depth = 5;
+        try {
+            for (int i = 0; i < depth; i++) {
+                String code = i == depth - 1 ? "export const depth = 1;" : "import {depth as d} from './chain" + (i + 1) + ".mjs'; export const depth = d + 1;";
+                Files.write(dir.resolve("chain" + i + ".mjs"), code.getBytes(StandardCharsets.UTF_8));
+            }
+            try (Context context = JSTest.newContextBuilder().allowIO(true).option(JSContextOptions.MODULE_PARSER_THREADS_NAME, "2").build()) {
+                Path main = dir.resolve("main.mjs");
+                Files.write(main, "import {depth} from './chain0.mjs'; depth;".getBytes(StandardCharsets.UTF_8));
+                Value v = context.eval(Source.newBuilder(ID, main.toFile()).build());
+                assertEquals(depth, v.asInt());
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (Thread.getAllStackTraces().keySet().stream().anyMatch(t -> t.getName().equals("graaljs-module-parser"))) {
+                assertTrue("module parser threads still running", System.nanoTime() < deadline);
+                Thread.sleep(10);
+            }
+        } finally {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+                for (Path file : files) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(dir);
+        }
+    }
 }
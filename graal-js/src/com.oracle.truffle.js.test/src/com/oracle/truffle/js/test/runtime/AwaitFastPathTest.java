@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.test.runtime;
+
+import static com.oracle.truffle.js.lang.JavaScriptLanguage.ID;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.graalvm.polyglot.Context;
+import org.junit.Test;
+
+import com.oracle.truffle.js.runtime.JSContextOptions;
+import com.oracle.truffle.js.test.JSTest;
+
+/**
+ * Tests that await on primitives and already fulfilled promises keeps the job order of the spec.
+ */
+public class AwaitFastPathTest {
+
+    @Test
+    public void testJobOrder() {
+        try (Context context = JSTest.newContextBuilder().build()) {
+            context.eval(ID, "var log = [];" +
+                            "(async function() { log.push('a1'); await 1; log.push('a2'); await Promise.resolve(2); log.push('a3'); })();" +
+                            "Promise.resolve().then(() => log.push('p1')).then(() => log.push('p2')).then(() => log.push('p3'));" +
+                            "log.push('sync');");
+            assertEquals("a1,sync,a2,p1,a3,p2,p3", context.eval(ID, "log.join()").asString());
+        }
+    }
+
+    @Test
+    public void testAwaitedValues() {
+        try (Context context = JSTest.newContextBuilder().build()) {
+            context.eval(ID, "var r = []; class P extends Promise {}" +
+                            "(async function() {" +
+                            "  r.push(await 1, await 'x', await undefined, await Promise.resolve(2), await P.resolve(3), await {then(f) { f(4); }});" +
+                            "  try { await Promise.reject(new Error('rejected')); } catch (e) { r.push(e.message); }" +
+                            "})();");
+            assertEquals("1,x,,2,3,4,rejected", context.eval(ID, "r.join()").asString());
+        }
+    }
+
+    @Test
+    public void testAsyncGenerator() {
+        try (Context context = JSTest.newContextBuilder().build()) {
+            context.eval(ID, "var r = [];" +
+                            "async function* g() { yield 1; yield await 2; yield Promise.resolve(3); }" +
+                            "(async function() { for await (const v of g()) { r.push(v); } })();");
+            assertEquals("1,2,3", context.eval(ID, "r.join()").asString());
+        }
+    }
+
+    @Test
+    public void testAsyncStackTrace() {
+        try (Context context = JSTest.newContextBuilder().option(JSContextOptions.ASYNC_STACK_TRACES_NAME, "true").build()) {
+            context.eval(ID, "var stack;" +
+                            "async function inner() { await 1; throw new Error('boom'); }" +
+                            "async function outer() { await inner(); }" +
+                            "outer().catch(e => { stack = e.stack; });");
+            String stack = context.eval(ID, "stack").asString();
+            assertTrue(stack, stack.contains("inner"));
+            assertTrue(stack, stack.contains("outer"));
+        }
+    }
+}
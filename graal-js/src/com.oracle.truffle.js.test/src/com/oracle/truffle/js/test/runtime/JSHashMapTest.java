@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.test.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.oracle.truffle.js.runtime.util.JSHashMap;
+
+public class JSHashMapTest {
+
+    private static List<Object> keys(JSHashMap.Cursor cursor) {
+        List<Object> keys = new ArrayList<>();
+        while (cursor.advance()) {
+            keys.add(cursor.getKey());
+        }
+        return keys;
+    }
+
+    @Test
+    public void testPutGetRemove() {
+        JSHashMap map = new JSHashMap();
+        for (int i = 0; i < 1000; i++) {
+            map.put(i, "v" + i);
+            map.put("k" + i, i);
+        }
+        assertEquals(2000, map.size());
+        map.put(7, "seven");
+        assertEquals(2000, map.size());
+        assertEquals("seven", map.get(7));
+        assertEquals(42, map.get("k42"));
+        assertNull(map.get(1000));
+        for (int i = 0; i < 1000; i += 2) {
+            assertTrue(map.remove(i));
+            assertFalse(map.remove(i));
+        }
+        assertEquals(1500, map.size());
+        assertFalse(map.has(0));
+        assertTrue(map.has(1));
+        map.put(Double.NaN, "nan");
+        assertEquals("nan", map.get(Double.NaN));
+    }
+
+    @Test
+    public void testInsertionOrder() {
+        JSHashMap map = new JSHashMap();
+        for (int i = 0; i < 100; i++) {
+            map.put(i, i);
+        }
+        for (int i = 0; i < 100; i++) {
+            if (i % 3 != 0) {
+                map.remove(i);
+            }
+        }
+        map.put(1, 1);
+        List<Object> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i += 3) {
+            expected.add(i);
+        }
+        expected.add(1);
+        assertEquals(expected, keys(map.getEntries()));
+    }
+
+    @Test
+    public void testCursorSurvivesRehash() {
+        JSHashMap map = new JSHashMap();
+        for (int i = 0; i < 8; i++) {
+            map.put(i, i);
+        }
+        JSHashMap.Cursor cursor = map.getEntries();
+        assertTrue(cursor.advance());
+        assertTrue(cursor.advance());
+        assertEquals(1, cursor.getKey());
+        // remove the current and previous entries and shrink the table
+        for (int i = 0; i < 6; i++) {
+            map.remove(i);
+        }
+        // grow the table
+        for (int i = 100; i < 200; i++) {
+            map.put(i, i);
+        }
+        List<Object> rest = keys(cursor);
+        assertEquals(102, rest.size());
+        assertEquals(6, rest.get(0));
+        assertEquals(7, rest.get(1));
+        assertEquals(100, rest.get(2));
+        assertFalse(cursor.advance());
+    }
+
+    @Test
+    public void testCursorSurvivesClear() {
+        JSHashMap map = new JSHashMap();
+        map.put("a", 1);
+        map.put("b", 2);
+        JSHashMap.Cursor cursor = map.getEntries();
+        assertTrue(cursor.advance());
+        JSHashMap.Cursor copy = cursor.copy();
+        map.clear();
+        assertEquals(0, map.size());
+        map.put("c", 3);
+        assertTrue(cursor.advance());
+        assertEquals("c", cursor.getKey());
+        assertEquals(3, cursor.getValue());
+        assertFalse(cursor.advance());
+        assertEquals(1, keys(copy).size());
+    }
+}
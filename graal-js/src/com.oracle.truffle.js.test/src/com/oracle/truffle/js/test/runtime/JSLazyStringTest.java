@@ -40,13 +40,20 @@
  */
 package com.oracle.truffle.js.test.runtime;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Iterator;
 
 import org.junit.Test;
 
+import com.oracle.truffle.js.builtins.helper.JSONStringifyStringNode;
 import com.oracle.truffle.js.lang.JavaScriptLanguage;
 import com.oracle.truffle.js.runtime.JSConfig;
 import com.oracle.truffle.js.runtime.objects.JSLazyString;
+import com.oracle.truffle.js.runtime.util.StringBuilderProfile;
 import com.oracle.truffle.js.test.JSTest;
 
 public class JSLazyStringTest extends JSTest {
@@ -117,4 +124,90 @@ public class JSLazyStringTest extends JSTest {
         assertSame(expected, actual);
     }
 
+    private static String repeat(char c, int count) {
+        StringBuilder sb = new StringBuilder(count);
+        for (int i = 0; i < count; i++) {
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void testDeepRope() {
+        String leaf = repeat('x', JSConfig.MinLazyStringLength);
+        CharSequence str = leaf;
+        StringBuilder expected = new StringBuilder();
+        expected.append(leaf);
+        int count = JSConfig.MaxLazyStringDepth * 4;
+        for (int i = 0; i < count; i++) {
+            String next = leaf.substring(0, JSConfig.MinLazyStringLength - 1) + (char) ('a' + i % 26);
+            str = JSLazyString.create(str, next);
+            expected.append(next);
+        }
+        assertTrue(str instanceof JSLazyString);
+        JSLazyString lazy = (JSLazyString) str;
+
+        StringBuilder appended = new StringBuilder();
+        lazy.appendTo(appended);
+        assertFalse(lazy.isFlat());
+        assertEquals(expected.toString(), appended.toString());
+
+        int leafCount = 0;
+        int leafLength = 0;
+        for (Iterator<String> it = lazy.leafIterator(); it.hasNext();) {
+            String next = it.next();
+            leafLength += next.length();
+            leafCount++;
+        }
+        assertEquals(expected.length(), leafLength);
+        assertTrue(leafCount < count);
+
+        assertEquals(expected.toString(), lazy.toString());
+        assertTrue(lazy.isFlat());
+    }
+
+    @Test
+    public void testDeepRopeMixed() {
+        // prepends and appends, with some leaves longer than a chunk
+        String leaf = repeat('x', JSConfig.MinLazyStringLength);
+        String longLeaf = repeat('y', JSConfig.LazyStringChunkLength + 1);
+        CharSequence str = leaf;
+        StringBuilder expected = new StringBuilder(leaf);
+        for (int i = 0; i < JSConfig.MaxLazyStringDepth * 8; i++) {
+            String next = i % 1000 == 999 ? longLeaf : leaf.substring(1) + (char) ('a' + i % 26);
+            if (i % 3 == 0) {
+                str = JSLazyString.create(next, str);
+                expected.insert(0, next);
+            } else {
+                str = JSLazyString.create(str, next);
+                expected.append(next);
+            }
+        }
+        JSLazyString lazy = (JSLazyString) str;
+        StringBuilder appended = new StringBuilder();
+        lazy.appendTo(appended);
+        assertFalse(lazy.isFlat());
+        assertEquals(expected.toString(), appended.toString());
+    }
+
+    @Test
+    public void testJSONQuoteSplitSurrogates() {
+        String prefix = repeat('x', JSConfig.MinLazyStringLength);
+        StringBuilderProfile profile = StringBuilderProfile.create(Integer.MAX_VALUE);
+        String[][] cases = new String[][]{
+                        {prefix + "\uD83D", "\uDE00" + prefix},
+                        {prefix + "\uD83D", "y" + prefix},
+                        {prefix + "\uDE00", "\uDE00" + prefix},
+                        {prefix + "\"\n", "\\\uD83D"},
+        };
+        for (String[] parts : cases) {
+            JSLazyString lazy = (JSLazyString) JSLazyString.create(parts[0], parts[1]);
+            StringBuilder actual = new StringBuilder();
+            JSONStringifyStringNode.jsonQuote(profile, actual, lazy);
+            assertFalse(lazy.isFlat());
+            StringBuilder expected = new StringBuilder();
+            JSONStringifyStringNode.jsonQuote(profile, expected, parts[0] + parts[1]);
+            assertEquals(expected.toString(), actual.toString());
+        }
+    }
 }
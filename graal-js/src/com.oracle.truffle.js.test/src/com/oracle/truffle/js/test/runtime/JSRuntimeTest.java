@@ -597,4 +597,16 @@ public class JSRuntimeTest extends JSTest {
         JSRuntime.requireObjectCoercible(ForeignBoxedObject.createNew("bar"), context);
     }
 
+    @Test
+    public void testCharToString() {
+        for (char ch = 0; ch < 0x300; ch++) {
+            String str = JSRuntime.charToString(ch);
+            assertEquals(String.valueOf(ch), str);
+            if (ch <= 0xFF) {
+                assertSame(str, JSRuntime.charToString(ch));
+            }
+        }
+        assertEquals("\uD83D", JSRuntime.charToString('\uD83D'));
+    }
+
 }
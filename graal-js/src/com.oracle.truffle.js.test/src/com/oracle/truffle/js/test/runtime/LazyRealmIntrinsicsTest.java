@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.test.runtime;
+
+import static com.oracle.truffle.js.lang.JavaScriptLanguage.ID;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Engine;
+import org.junit.Test;
+
+import com.oracle.truffle.js.runtime.JSContextOptions;
+import com.oracle.truffle.js.test.JSTest;
+
+/**
+ * Intrinsics that are created on first access must behave like eagerly created ones.
+ */
+public class LazyRealmIntrinsicsTest {
+
+    private static boolean evalBoolean(Context context, String code) {
+        return context.eval(ID, code).asBoolean();
+    }
+
+    @Test
+    public void testPropertyDescriptors() {
+        try (Context context = JSTest.newContextBuilder().build()) {
+            for (String name : new String[]{"Intl", "Reflect", "Atomics", "Int8Array", "Float64Array", "BigUint64Array"}) {
+                assertTrue(name, evalBoolean(context, "var d = Object.getOwnPropertyDescriptor(globalThis, '" + name + "');" +
+                                "d.writable && d.configurable && !d.enumerable && (typeof d.value === 'object' || typeof d.value === 'function')"));
+            }
+            assertTrue(evalBoolean(context, "Object.getOwnPropertyDescriptor(globalThis, 'Int8Array').value === Int8Array"));
+        }
+    }
+
+    @Test
+    public void testPropertyOrder() {
+        try (Context context = JSTest.newContextBuilder().build()) {
+            String before = context.eval(ID, "Object.getOwnPropertyNames(globalThis).join()").asString();
+            context.eval(ID, "Intl; Reflect; Atomics; Uint8Array;");
+            String after = context.eval(ID, "Object.getOwnPropertyNames(globalThis).join()").asString();
+            assertEquals(before, after);
+        }
+    }
+
+    @Test
+    public void testWriteBeforeRead() {
+        try (Context context = JSTest.newContextBuilder().build()) {
+            assertTrue(evalBoolean(context, "Int16Array = 42; Reflect = 'r'; Int16Array === 42 && Reflect === 'r'"));
+            assertTrue(evalBoolean(context, "Object.defineProperty(globalThis, 'Intl', {value: 1, enumerable: true}); Intl === 1 && Object.keys(globalThis).includes('Intl')"));
+            assertTrue(evalBoolean(context, "delete globalThis.Atomics && typeof Atomics === 'undefined'"));
+        }
+    }
+
+    @Test
+    public void testInternalUseBeforeGlobalAccess() {
+        try (Context context = JSTest.newContextBuilder().build()) {
+            // creates Intl objects internally, before the Intl global has been read
+            assertTrue(evalBoolean(context, "typeof new Date(0).toLocaleString('en') === 'string' && (1234.5).toLocaleString('en') === '1,234.5'"));
+            assertTrue(evalBoolean(context, "Object.getPrototypeOf(new Intl.DateTimeFormat('en')) === Intl.DateTimeFormat.prototype"));
+            assertTrue(evalBoolean(context, "var u = new Uint8Array(8).subarray(1); Object.getPrototypeOf(u) === Uint8Array.prototype &&" +
+                            "Object.getPrototypeOf(Uint8Array) === Object.getPrototypeOf(BigInt64Array) && Object.getPrototypeOf(Uint8Array.prototype).constructor.name === 'TypedArray'"));
+            assertTrue(evalBoolean(context, "Reflect.apply(Math.max, null, [1, 3, 2]) === 3 && Reflect.ownKeys(Reflect).includes(Symbol.toStringTag)"));
+        }
+    }
+
+    @Test
+    public void testFrozenGlobal() {
+        try (Context context = JSTest.newContextBuilder().build()) {
+            assertTrue(evalBoolean(context, "Object.freeze(globalThis); var d = Object.getOwnPropertyDescriptor(globalThis, 'Intl');" +
+                            "!d.writable && !d.configurable && d.value === Intl && typeof Intl.Collator === 'function'"));
+        }
+    }
+
+    @Test
+    public void testSeparateRealms() {
+        try (Context context = JSTest.newContextBuilder().option(JSContextOptions.V8_REALM_BUILTIN_NAME, "true").build()) {
+            assertTrue(evalBoolean(context, "var id = Realm.create(); var other = Realm.global(id);" +
+                            "other.Int8Array !== Int8Array && other.Intl !== Intl && other.Reflect !== Reflect &&" +
+                            "Realm.eval(id, 'Object.getPrototypeOf(new Int8Array(1)) === Int8Array.prototype')"));
+        }
+    }
+
+    @Test
+    public void testSharedEngine() {
+        try (Engine engine = JSTest.newEngineBuilder().build()) {
+            for (int i = 0; i < 3; i++) {
+                try (Context context = JSTest.newContextBuilder().engine(engine).build()) {
+                    assertTrue(evalBoolean(context, i == 1 ? "typeof Float32Array === 'function'" : "Intl.Collator.name === 'Collator' && new Float32Array([1.5])[0] === 1.5"));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.test.runtime;
+
+import static org.junit.Assert.assertEquals;
+
+import org.graalvm.polyglot.Context;
+import org.junit.Test;
+
+import com.oracle.truffle.js.lang.JavaScriptLanguage;
+import com.oracle.truffle.js.runtime.JSContextOptions;
+import com.oracle.truffle.js.test.JSTest;
+
+/**
+ * Property lookups that go through the megamorphic property cache must observe changes to the
+ * objects on the prototype chain.
+ */
+public class MegamorphicPropertyCacheTest {
+
+    private static String eval(String code) {
+        // a property cache limit of 0 makes every property access megamorphic
+        try (Context context = JSTest.newContextBuilder().option(JSContextOptions.PROPERTY_CACHE_LIMIT_NAME, "0").build()) {
+            return context.eval(JavaScriptLanguage.ID, code).toString();
+        }
+    }
+
+    @Test
+    public void testOwnAndInherited() {
+        String code = "var proto = { inherited: 'p' };\n" +
+                        "var objects = [];\n" +
+                        "for (var i = 0; i < 20; i++) { var o = Object.create(proto); o['k' + i] = i; o.own = i; objects.push(o); }\n" +
+                        "function read(o) { return o.own + o.inherited; }\n" +
+                        "var result = [];\n" +
+                        "for (var j = 0; j < 3; j++) { result.push(objects.map(read).join('')); }\n" +
+                        "result[0] === result[2] ? result[0] : 'mismatch';";
+        assertEquals("0p1p2p3p4p5p6p7p8p9p10p11p12p13p14p15p16p17p18p19p", eval(code));
+    }
+
+    @Test
+    public void testPrototypeChanges() {
+        String code = "var grand = { x: 'grand' };\n" +
+                        "var parent = Object.create(grand);\n" +
+                        "var child = Object.create(parent);\n" +
+                        "function read(o) { return o.x; }\n" +
+                        "var result = [read(child), read(child)];\n" +
+                        "parent.x = 'parent';\n" +
+                        "result.push(read(child));\n" +
+                        "delete parent.x;\n" +
+                        "result.push(read(child));\n" +
+                        "grand.x = 'changed';\n" +
+                        "result.push(read(child));\n" +
+                        "Object.setPrototypeOf(parent, { x: 'other' });\n" +
+                        "result.push(read(child));\n" +
+                        "Object.defineProperty(parent, 'x', { get() { return this === child ? 'getter' : 'wrong receiver'; }, configurable: true });\n" +
+                        "result.push(read(child));\n" +
+                        "result.join();";
+        assertEquals("grand,grand,parent,grand,changed,other,getter", eval(code));
+    }
+
+    @Test
+    public void testBuiltinPrototypes() {
+        String code = "function len(o) { return o.length; }\n" +
+                        "var a = [1, 2, 3];\n" +
+                        "var result = [len(a), len('abcd'), len(function(x, y) {}), a.join === Array.prototype.join, 'x'.charAt === String.prototype.charAt];\n" +
+                        "a.push(4);\n" +
+                        "result.push(len(a));\n" +
+                        "var join = Array.prototype.join;\n" +
+                        "Array.prototype.join = function() { return 'patched'; };\n" +
+                        "result.push(a.join());\n" +
+                        "Array.prototype.join = join;\n" +
+                        "result.join();";
+        assertEquals("3,4,2,true,true,4,patched", eval(code));
+    }
+
+    @Test
+    public void testSetAndHas() {
+        String code = "var log = [];\n" +
+                        "var proto = { set s(v) { log.push(this.name + '=' + v); } };\n" +
+                        "Object.defineProperty(proto, 'ro', { value: 1, writable: false });\n" +
+                        "function make(n) { var o = Object.create(proto); o.name = n; o.w = 0; return o; }\n" +
+                        "function write(o, v) { o.w = v; o.s = v; o.ro = v; }\n" +
+                        "var a = make('a'), b = make('b'), frozen = Object.freeze(make('f'));\n" +
+                        "write(a, 1); write(a, 2); write(b, 3); write(frozen, 4);\n" +
+                        "var result = [a.w, b.w, a.ro, a.hasOwnProperty('ro'), frozen.w, log.join(' ')];\n" +
+                        "result.push((function() { 'use strict'; try { frozen.w = 5; } catch (e) { return e instanceof TypeError; } })());\n" +
+                        "result.push('s' in a, 'w' in a, 'missing' in a);\n" +
+                        "delete a.w;\n" +
+                        "result.push('w' in a);\n" +
+                        "result.join();";
+        assertEquals("2,3,1,false,0,a=1 a=2 b=3 f=4,true,true,true,false,false", eval(code));
+    }
+}
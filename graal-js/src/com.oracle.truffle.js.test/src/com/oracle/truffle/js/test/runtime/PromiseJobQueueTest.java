@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.test.runtime;
+
+import static com.oracle.truffle.js.lang.JavaScriptLanguage.ID;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.graalvm.polyglot.Context;
+import org.junit.Test;
+
+import com.oracle.truffle.api.object.DynamicObject;
+import com.oracle.truffle.js.lang.JavaScriptLanguage;
+import com.oracle.truffle.js.runtime.JSAgent;
+import com.oracle.truffle.js.runtime.JSRealm;
+import com.oracle.truffle.js.runtime.objects.JSObject;
+import com.oracle.truffle.js.test.JSTest;
+
+/**
+ * Tests for the job budget and the host job lanes of {@link JSAgent}.
+ */
+public class PromiseJobQueueTest {
+
+    private static final String CHAIN = "var log = []; Promise.resolve().then(() => log.push(1)).then(() => log.push(2)).then(() => log.push(3)); " +
+                    "Promise.resolve().then(() => log.push('a'));";
+
+    @Test
+    public void testReactionJobOrder() {
+        try (Context context = JSTest.newContextBuilder().build()) {
+            context.eval(ID, CHAIN);
+            assertEquals("1,a,2,3", context.eval(ID, "log.join()").asString());
+            context.eval(ID, "var r = []; Promise.reject(new Error('error')).catch(e => r.push(e.message)).then(() => r.push('handled'));");
+            assertEquals("error,handled", context.eval(ID, "r.join()").asString());
+        }
+    }
+
+    @Test
+    public void testJobBudget() {
+        try (Context context = JSTest.newContextBuilder().build()) {
+            JSAgent agent = JavaScriptLanguage.getJSRealm(context).getAgent();
+            agent.setJobBudget(2);
+            context.eval(ID, CHAIN);
+            assertTrue(agent.hasPendingJobs());
+            assertEquals("1,a", context.eval(ID, "log.join()").asString());
+            assertEquals("1,a,2,3", context.eval(ID, "log.join()").asString());
+            assertFalse(agent.hasPendingJobs());
+
+            agent.setJobBudget(0);
+            context.eval(ID, CHAIN);
+            assertEquals("1,a,2,3", context.eval(ID, "log.join()").asString());
+        }
+    }
+
+    @Test
+    public void testHostJobPriorities() {
+        try (Context context = JSTest.newContextBuilder().build()) {
+            JSRealm realm = JavaScriptLanguage.getJSRealm(context);
+            context.eval(ID, "var log = []; function low() { log.push('low'); } function normal() { log.push('normal'); } function high() { log.push('high'); }");
+            DynamicObject global = realm.getGlobalObject();
+            realm.getContext().enqueueHostJob(realm, (DynamicObject) JSObject.get(global, "low"), JSAgent.JobPriority.LOW);
+            realm.getContext().enqueueHostJob(realm, (DynamicObject) JSObject.get(global, "normal"), JSAgent.JobPriority.NORMAL);
+            realm.getContext().enqueueHostJob(realm, (DynamicObject) JSObject.get(global, "high"), JSAgent.JobPriority.HIGH);
+            context.eval(ID, "Promise.resolve().then(() => log.push('p1')).then(() => log.push('p2'));");
+            assertEquals("high,normal,p1,p2,low", context.eval(ID, "log.join()").asString());
+        }
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.test.runtime;
+
+import static com.oracle.truffle.js.lang.JavaScriptLanguage.ID;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.PolyglotException;
+import org.graalvm.polyglot.Source;
+import org.graalvm.polyglot.Value;
+import org.junit.Test;
+
+import com.oracle.truffle.js.runtime.JSContextOptions;
+import com.oracle.truffle.js.test.JSTest;
+
+/**
+ * Tests for {@code Graal.snapshotRealm()} and {@code Graal.resetRealm()}.
+ */
+public class RealmSnapshotTest {
+
+    private static final String WARMUP = "var shared = {n: 1}; var list = [1, 2, 3]; function Foo() {} function helper() { return shared.n; }";
+
+    private static Context newContext() {
+        return JSTest.newContextBuilder().option(JSContextOptions.REALM_SNAPSHOT_NAME, "true").build();
+    }
+
+    private static Value snapshot(Context context, String warmup) {
+        context.eval(ID, warmup);
+        assertTrue(context.eval(ID, "Graal.snapshotRealm()").asInt() > 0);
+        return context.eval(ID, "Graal.resetRealm");
+    }
+
+    private static Source module(String name, String code) {
+        return Source.newBuilder(ID, code, name).mimeType("application/javascript+module").buildLiteral();
+    }
+
+    private static boolean evalBoolean(Context context, String code) {
+        return context.eval(ID, code).asBoolean();
+    }
+
+    @Test
+    public void testGlobals() {
+        try (Context context = newContext()) {
+            Value reset = snapshot(context, WARMUP);
+            context.eval(ID, "var leak = 1; let x = 2; const y = 3; shared.n = 5; shared.extra = 1; globalThis.helper = null;");
+            reset.execute();
+            assertTrue(evalBoolean(context, "typeof leak === 'undefined' && typeof x === 'undefined' && typeof y === 'undefined'"));
+            assertTrue(evalBoolean(context, "shared.n === 1 && !('extra' in shared) && helper() === 1"));
+            // lexical declarations can be repeated after a reset
+            context.eval(ID, "let x = 4; const y = 5;");
+            reset.execute();
+            context.eval(ID, "let x = 6; const y = 7;");
+        }
+    }
+
+    @Test
+    public void testIntrinsics() {
+        try (Context context = newContext()) {
+            Value reset = snapshot(context, WARMUP);
+            context.eval(ID, "Array.prototype.evil = 1; Object.prototype[0] = 'x'; Object.freeze(Math); delete globalThis.JSON; " +
+                            "String.prototype.trim = null; Object.setPrototypeOf(Map.prototype, null);");
+            reset.execute();
+            assertTrue(evalBoolean(context, "!('evil' in []) && ({})[0] === undefined && Object.isExtensible(Math) && typeof JSON.parse === 'function'"));
+            assertTrue(evalBoolean(context, "' a '.trim() === 'a' && Object.getPrototypeOf(Map.prototype) === Object.prototype && new Map([[1, 2]]).get(1) === 2"));
+        }
+    }
+
+    @Test
+    public void testArraysAndFunctions() {
+        try (Context context = newContext()) {
+            Value reset = snapshot(context, WARMUP);
+            context.eval(ID, "list.push(4); list[0] = 'a'; list.length = 10; Foo.prototype.x = 1;");
+            reset.execute();
+            assertTrue(evalBoolean(context, "list.length === 3 && list.join() === '1,2,3' && new Foo().x === undefined"));
+            context.eval(ID, "Foo.prototype = {y: 1}; list.length = 0;");
+            reset.execute();
+            assertTrue(evalBoolean(context, "list.join() === '1,2,3' && new Foo().y === undefined && Object.getPrototypeOf(new Foo()).constructor === Foo"));
+        }
+    }
+
+    @Test
+    public void testLazyIntrinsics() {
+        try (Context context = newContext()) {
+            Value reset = snapshot(context, WARMUP);
+            context.eval(ID, "Intl.foo = 1; Int8Array.prototype.bar = 2; Reflect.baz = 3;");
+            reset.execute();
+            assertTrue(evalBoolean(context, "Intl.foo === undefined && new Int8Array(1).bar === undefined && Reflect.baz === undefined"));
+            assertTrue(evalBoolean(context, "Object.getPrototypeOf(new Intl.NumberFormat()) === Intl.NumberFormat.prototype && new Int8Array(2) instanceof Int8Array"));
+        }
+    }
+
+    @Test
+    public void testOnlyModifiedObjectsAreRestored() {
+        try (Context context = newContext()) {
+            Value reset = snapshot(context, WARMUP);
+            int unmodified = reset.execute().asInt();
+            context.eval(ID, "shared.n = 2; Math.x = 1; Array.prototype.y = 1;");
+            assertEquals(unmodified + 3, reset.execute().asInt());
+            assertEquals(unmodified, reset.execute().asInt());
+        }
+    }
+
+    @Test
+    public void testClosures() {
+        try (Context context = newContext()) {
+            Value reset = snapshot(context, "var counter = (function() { let n = 0; return () => ++n; })();" +
+                            "var cache = (function() { const c = {}; return { put(k, v) { c[k] = v; }, get(k) { return c[k]; } }; })();");
+            context.eval(ID, "counter(); counter(); cache.put('secret', 42);");
+            reset.execute();
+            assertTrue(evalBoolean(context, "counter() === 1 && cache.get('secret') === undefined"));
+        }
+    }
+
+    @Test
+    public void testCollections() {
+        try (Context context = newContext()) {
+            Value reset = snapshot(context, "var map = new Map([[1, 'a']]); var set = new Set([1]); var key = {}; var weak = new WeakMap([[key, 1]]);" +
+                            "var buffer = new Uint8Array([1, 2, 3]); var date = new Date(0); var re = /a/;");
+            context.eval(ID, "map.set(2, 'b'); map.delete(1); set.add(2); weak.set(key, 2); weak.set(map, 3);" +
+                            "buffer[0] = 9; date.setTime(1000); re.compile('b');");
+            reset.execute();
+            assertTrue(evalBoolean(context, "map.size === 1 && map.get(1) === 'a' && set.size === 1 && set.has(1) && weak.get(key) === 1 && !weak.has(map)"));
+            assertTrue(evalBoolean(context, "buffer.join() === '1,2,3' && date.getTime() === 0 && re.test('a') && !re.test('b')"));
+        }
+    }
+
+    @Test
+    public void testModules() {
+        try (Context context = newContext()) {
+            Source warmup = module("warmup.mjs", "globalThis.warm = (globalThis.warm || 0) + 1;");
+            Source tenant = module("tenant.mjs", "globalThis.tenant = (globalThis.tenant || 0) + 1;");
+            context.eval(warmup);
+            Value reset = snapshot(context, WARMUP);
+            context.eval(tenant);
+            reset.execute();
+            // modules loaded after the snapshot are forgotten, warmup modules are kept
+            context.eval(tenant);
+            context.eval(warmup);
+            assertTrue(evalBoolean(context, "tenant === 1 && warm === 1"));
+        }
+    }
+
+    @Test
+    public void testIrreversibleChanges() {
+        String[] changes = {"resolve(1);", "pending.then(() => {});", "revoke();"};
+        for (String change : changes) {
+            try (Context context = newContext()) {
+                Value reset = snapshot(context, "var resolve; var pending = new Promise(r => { resolve = r; }); var {proxy, revoke} = Proxy.revocable({}, {});");
+                context.eval(ID, change);
+                reset.execute();
+                fail("should have thrown after " + change);
+            } catch (PolyglotException e) {
+                assertTrue(e.getMessage(), e.getMessage().startsWith("TypeError: Cannot reset the realm"));
+            }
+        }
+    }
+
+    @Test
+    public void testTamperedGraalObject() {
+        try (Context context = newContext()) {
+            Value reset = snapshot(context, WARMUP);
+            context.eval(ID, "Graal.resetRealm = function() { return -1; }; delete globalThis.Graal;");
+            reset.execute();
+            assertTrue(evalBoolean(context, "typeof Graal.resetRealm === 'function' && Graal.resetRealm() >= 0"));
+        }
+    }
+
+    @Test
+    public void testSnapshotOnlyOnce() {
+        try (Context context = newContext()) {
+            snapshot(context, WARMUP);
+            context.eval(ID, "Graal.snapshotRealm()");
+            fail("should have thrown");
+        } catch (PolyglotException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("TypeError"));
+        }
+    }
+
+    @Test
+    public void testDisabled() {
+        try (Context context = JSTest.newContextBuilder().build()) {
+            context.eval(ID, "Graal.snapshotRealm()");
+            fail("should have thrown");
+        } catch (PolyglotException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("TypeError"));
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.test.tools;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.oracle.truffle.api.source.Source;
+import com.oracle.truffle.js.lang.JavaScriptLanguage;
+import com.oracle.truffle.js.nodes.ScriptNode;
+import com.oracle.truffle.js.parser.CodeCache;
+import com.oracle.truffle.js.runtime.JSContext;
+import com.oracle.truffle.js.runtime.JSContextOptions;
+import com.oracle.truffle.js.snapshot.Recording;
+import com.oracle.truffle.js.test.JSTest;
+import com.oracle.truffle.js.test.TestHelper;
+
+public class CodeCacheTest {
+
+    private Path cacheDir;
+    private TestHelper testHelper;
+
+    @Before
+    public void setup() throws IOException {
+        cacheDir = Files.createTempDirectory("js-code-cache");
+        testHelper = new TestHelper(JSTest.newContextBuilder().allowIO(true).option(JSContextOptions.CODE_CACHE_DIR_NAME, cacheDir.toString()));
+        testHelper.enterContext();
+    }
+
+    @After
+    public void close() throws IOException {
+        testHelper.leaveContext();
+        testHelper.close();
+        for (Path file : Files.newDirectoryStream(cacheDir)) {
+            Files.delete(file);
+        }
+        Files.delete(cacheDir);
+    }
+
+    private static Source createSource(String code) {
+        return Source.newBuilder(JavaScriptLanguage.ID, code, "codeCacheTest.js").build();
+    }
+
+    private Path entryPath(JSContext context, Source source) {
+        return cacheDir.resolve(CodeCache.computeKey(source.getCharacters(), "", "", context.getParserOptions()));
+    }
+
+    @Test
+    public void testCacheHit() throws IOException {
+        JSContext context = testHelper.getJSContext();
+        Source source = createSource("function f(n) { return n * 6; } f(7);");
+        Recording rec = Recording.recordSource(source, context, false, "", "");
+        try (FileOutputStream outs = new FileOutputStream(entryPath(context, source).toFile())) {
+            rec.saveToStream(source.getName(), outs, true);
+        }
+
+        assertNotNull(CodeCache.load(context, source, "", ""));
+        ScriptNode script = context.getEvaluator().parseScript(context, source);
+        assertEquals(42, script.run(testHelper.getRealm()));
+    }
+
+    @Test
+    public void testCacheMiss() {
+        JSContext context = testHelper.getJSContext();
+        Source source = createSource("6 * 7");
+        assertNull(CodeCache.load(context, source, "", ""));
+        assertEquals(42, context.getEvaluator().parseScript(context, source).run(testHelper.getRealm()));
+    }
+
+    @Test
+    public void testStaleEntry() throws IOException {
+        JSContext context = testHelper.getJSContext();
+        Source source = createSource("6 * 7");
+        Files.write(entryPath(context, source), new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        assertNull(CodeCache.load(context, source, "", ""));
+        assertEquals(42, context.getEvaluator().parseScript(context, source).run(testHelper.getRealm()));
+    }
+}
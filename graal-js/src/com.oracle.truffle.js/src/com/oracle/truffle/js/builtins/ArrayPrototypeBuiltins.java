@@ -50,10 +50,13 @@ import java.util.EnumSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.RootCallTarget;
 import com.oracle.truffle.api.Truffle;
 import com.oracle.truffle.api.dsl.Cached;
 import com.oracle.truffle.api.dsl.Cached.Shared;
@@ -75,6 +78,7 @@ import com.oracle.truffle.api.object.DynamicObject;
 import com.oracle.truffle.api.profiles.BranchProfile;
 import com.oracle.truffle.api.profiles.ConditionProfile;
 import com.oracle.truffle.api.profiles.ValueProfile;
+import com.oracle.truffle.api.source.SourceSection;
 import com.oracle.truffle.js.builtins.ArrayPrototypeBuiltinsFactory.DeleteAndSetLengthNodeGen;
 import com.oracle.truffle.js.builtins.ArrayPrototypeBuiltinsFactory.FlattenIntoArrayNodeGen;
 import com.oracle.truffle.js.builtins.ArrayPrototypeBuiltinsFactory.JSArrayAtNodeGen;
@@ -162,6 +166,7 @@ import com.oracle.truffle.js.runtime.Symbol;
 import com.oracle.truffle.js.runtime.array.ScriptArray;
 import com.oracle.truffle.js.runtime.array.SparseArray;
 import com.oracle.truffle.js.runtime.array.TypedArray;
+import com.oracle.truffle.js.runtime.array.TypedArrayBulkOperations;
 import com.oracle.truffle.js.runtime.array.dyn.AbstractDoubleArray;
 import com.oracle.truffle.js.runtime.array.dyn.AbstractIntArray;
 import com.oracle.truffle.js.runtime.array.dyn.ConstantByteArray;
@@ -177,10 +182,12 @@ import com.oracle.truffle.js.runtime.builtins.JSProxy;
 import com.oracle.truffle.js.runtime.builtins.JSSlowArray;
 import com.oracle.truffle.js.runtime.interop.JSInteropUtil;
 import com.oracle.truffle.js.runtime.objects.JSDynamicObject;
+import com.oracle.truffle.js.runtime.objects.JSLazyString;
 import com.oracle.truffle.js.runtime.objects.JSObject;
 import com.oracle.truffle.js.runtime.objects.Null;
 import com.oracle.truffle.js.runtime.objects.Undefined;
 import com.oracle.truffle.js.runtime.util.Pair;
+import com.oracle.truffle.js.runtime.util.PrimitiveArraySort;
 import com.oracle.truffle.js.runtime.util.SimpleArrayList;
 import com.oracle.truffle.js.runtime.util.StringBuilderProfile;
 
@@ -389,6 +396,17 @@ public final class ArrayPrototypeBuiltins extends JSBuiltinsContainer.SwitchEnum
             }
         }
 
+        /**
+         * Whether the typed array can be searched for the given value by
+         * {@link TypedArrayBulkOperations#indexOf} instead of reading its elements one by one.
+         */
+        protected final boolean isBulkSearchSupported(Object thisObj, Object searchElement, long len) {
+            assert isTypedArrayImplementation;
+            DynamicObject view = (DynamicObject) thisObj;
+            return len >= TypedArrayBulkOperations.MIN_BULK_LENGTH && !JSArrayBufferView.hasDetachedBuffer(view, getContext()) &&
+                            TypedArrayBulkOperations.isSearchSupported(JSArrayBufferView.typedArrayGetArrayType(view), searchElement);
+        }
+
         protected final boolean isCallable(Object callback) {
             if (isCallableNode == null) {
                 CompilerDirectives.transferToInterpreterAndInvalidate();
@@ -1522,6 +1540,7 @@ public final class ArrayPrototypeBuiltins extends JSBuiltinsContainer.SwitchEnum
         @Child private JSToIntegerAsLongNode toIntegerNode;
         private final BranchProfile arrayWithContentBranch = BranchProfile.create();
         private final BranchProfile fromConversionBranch = BranchProfile.create();
+        private final ConditionProfile isBulkSearch = ConditionProfile.createBinaryProfile();
 
         public JSArrayIndexOfNode(JSContext context, JSBuiltin builtin, boolean isTypedArrayImplementation, boolean isForward) {
             super(context, builtin, isTypedArrayImplementation);
@@ -1543,6 +1562,16 @@ public final class ArrayPrototypeBuiltins extends JSBuiltinsContainer.SwitchEnum
             if (fromIndexValue < 0) {
                 return -1;
             }
+            if (isTypedArrayImplementation && isBulkSearch.profile(isBulkSearchSupported(thisJSObject, searchElement, len))) {
+                int parallelThreshold = getContext().getContextOptions().getTypedArrayParallelThreshold();
+                DynamicObject view = (DynamicObject) thisJSObject;
+                TypedArray typedArray = JSArrayBufferView.typedArrayGetArrayType(view);
+                if (isForward()) {
+                    return TypedArrayBulkOperations.indexOf(view, typedArray, searchElement, (int) fromIndexValue, (int) len, true, false, parallelThreshold);
+                } else {
+                    return TypedArrayBulkOperations.indexOf(view, typedArray, searchElement, 0, (int) fromIndexValue + 1, false, false, parallelThreshold);
+                }
+            }
             return forEachIndexCall(thisJSObject, Undefined.instance, searchElement, fromIndexValue, len, -1);
         }
 
@@ -1620,6 +1649,7 @@ public final class ArrayPrototypeBuiltins extends JSBuiltinsContainer.SwitchEnum
         private final ConditionProfile isOne = ConditionProfile.createBinaryProfile();
         private final ConditionProfile isTwo = ConditionProfile.createBinaryProfile();
         private final ConditionProfile isSparse = ConditionProfile.createBinaryProfile();
+        private final ConditionProfile isLazyString = ConditionProfile.createBinaryProfile();
         private final BranchProfile growProfile = BranchProfile.create();
         private final BranchProfile stackGrowProfile = BranchProfile.create();
         private final StringBuilderProfile stringBuilderProfile;
@@ -1701,8 +1731,12 @@ public final class ArrayPrototypeBuiltins extends JSBuiltinsContainer.SwitchEnum
                     stringBuilderProfile.append(res, joinSeparator);
                 }
                 Object value = read(thisJSObject, i);
-                String str = toStringOrEmpty(value);
-                stringBuilderProfile.append(res, str);
+                if (isLazyString.profile(value instanceof JSLazyString)) {
+                    // append the rope leaf by leaf instead of flattening it first
+                    stringBuilderProfile.append(res, (JSLazyString) value);
+                } else {
+                    stringBuilderProfile.append(res, toStringOrEmpty(value));
+                }
 
                 if (appendSep) {
                     i++;
@@ -1732,7 +1766,7 @@ public final class ArrayPrototypeBuiltins extends JSBuiltinsContainer.SwitchEnum
             while (i < length) {
                 Object value = read(thisObject, i);
                 if (isValidEntry(value)) {
-                    String string = elementToStringNode.executeString(value);
+                    CharSequence string = isLazyString.profile(value instanceof JSLazyString) ? (JSLazyString) value : elementToStringNode.executeString(value);
                     int stringLength = string.length();
                     if (stringLength > 0) {
                         calculatedLength += stringLength;
@@ -1754,13 +1788,17 @@ public final class ArrayPrototypeBuiltins extends JSBuiltinsContainer.SwitchEnum
             long lastIndex = 0;
             for (int j = 0; j < converted.size(); j += 2) {
                 long index = (long) converted.get(j);
-                String value = (String) converted.get(j + 1);
+                Object value = converted.get(j + 1);
                 if (appendSep) {
                     for (long k = lastIndex; k < index; k++) {
                         stringBuilderProfile.append(res, joinSeparator);
                     }
                 }
-                stringBuilderProfile.append(res, value);
+                if (isLazyString.profile(value instanceof JSLazyString)) {
+                    stringBuilderProfile.append(res, (JSLazyString) value);
+                } else {
+                    stringBuilderProfile.append(res, (String) value);
+                }
                 lastIndex = index;
             }
             if (appendSep) {
@@ -2610,9 +2648,19 @@ public final class ArrayPrototypeBuiltins extends JSBuiltinsContainer.SwitchEnum
         private final BranchProfile hasCompareFnBranch = BranchProfile.create();
         private final BranchProfile noCompareFnBranch = BranchProfile.create();
         private final BranchProfile growProfile = BranchProfile.create();
+        private final ConditionProfile isPrimitiveSort = ConditionProfile.create();
         @Child private InteropLibrary interopNode;
         @Child private ImportValueNode importValueNode;
 
+        /**
+         * Matches comparators of the form {@code (a, b) => a - b}, {@code (a, b) => b - a}, and
+         * equivalent function expressions.
+         */
+        private static final Pattern NUMERIC_COMPARATOR_PATTERN = Pattern.compile(
+                        "(?:function(?:\\s+[\\w$]+)?\\s*)?\\(\\s*([\\w$]+)\\s*,\\s*([\\w$]+)\\s*\\)\\s*(?:=>\\s*)?" +
+                                        "(?:\\{\\s*return\\s+)?([\\w$]+)\\s*-\\s*([\\w$]+)\\s*;?\\s*\\}?");
+        private static final int MAX_NUMERIC_COMPARATOR_LENGTH = 100;
+
         public JSArraySortNode(JSContext context, JSBuiltin builtin, boolean isTypedArrayImplementation) {
             super(context, builtin, isTypedArrayImplementation);
         }
@@ -2630,6 +2678,10 @@ public final class ArrayPrototypeBuiltins extends JSBuiltinsContainer.SwitchEnum
             }
 
             ScriptArray scriptArray = arrayGetArrayType(thisObj);
+            if (isPrimitiveSort.profile(sortPrimitiveArray(thisObj, scriptArray, compare, len))) {
+                reportLoopCount(len);
+                return thisObj;
+            }
             Object[] array = arrayToObjectArrayNode.executeObjectArray(thisObj, scriptArray, len);
 
             sortIntl(getComparator(thisObj, compare), array);
@@ -2674,6 +2726,12 @@ public final class ArrayPrototypeBuiltins extends JSBuiltinsContainer.SwitchEnum
                 return thisJSObj;
             }
 
+            if (isTypedArrayImplementation && JSArrayBufferView.isJSArrayBufferView(thisJSObj) &&
+                            isPrimitiveSort.profile(sortPrimitiveTypedArray(thisJSObj, comparefn, len, getContext().getContextOptions().getTypedArrayParallelThreshold()))) {
+                reportLoopCount(len);
+                return thisJSObj;
+            }
+
             Iterable<Object> keys = getKeys(thisJSObj);
             Object[] array = jsobjectToArray(thisJSObj, len, keys);
 
@@ -2756,6 +2814,113 @@ public final class ArrayPrototypeBuiltins extends JSBuiltinsContainer.SwitchEnum
             }
         }
 
+        /**
+         * Sorts the int or double backing array of a dense array in place if the order does not
+         * depend on user code, i.e., for the default comparator of int arrays and for numeric
+         * {@code a - b} or {@code b - a} comparators. Returns {@code false} if the generic sort has
+         * to be used instead.
+         */
+        @TruffleBoundary
+        private static boolean sortPrimitiveArray(DynamicObject thisObj, ScriptArray scriptArray, Object compare, long len) {
+            if (!(scriptArray instanceof AbstractIntArray || scriptArray instanceof AbstractDoubleArray) || scriptArray.isHolesType() || scriptArray.isFrozen() ||
+                            len > Integer.MAX_VALUE || scriptArray.firstElementIndex(thisObj) != 0 || scriptArray.lastElementIndex(thisObj) != len - 1) {
+                return false;
+            }
+            if (compare == Undefined.instance) {
+                if (scriptArray instanceof AbstractIntArray) {
+                    ((AbstractIntArray) scriptArray).sortAsStrings(thisObj, (int) len);
+                    return true;
+                }
+                return false;
+            }
+            int order = getNumericComparatorOrder(compare);
+            if (order == 0) {
+                return false;
+            } else if (scriptArray instanceof AbstractIntArray) {
+                ((AbstractIntArray) scriptArray).sortNumeric(thisObj, (int) len, order < 0);
+                return true;
+            } else {
+                return ((AbstractDoubleArray) scriptArray).sortNumeric(thisObj, (int) len, order < 0);
+            }
+        }
+
+        /**
+         * Sorts the elements of an integer or float typed array without boxing them if the
+         * comparator is the default comparator or a numeric {@code a - b} or {@code b - a}
+         * comparator. Returns {@code false} if the generic sort has to be used instead.
+         */
+        @TruffleBoundary
+        private static boolean sortPrimitiveTypedArray(DynamicObject thisObj, Object compare, long len, int parallelThreshold) {
+            TypedArray typedArray = JSArrayBufferView.typedArrayGetArrayType(thisObj);
+            if (!(typedArray instanceof TypedArray.TypedIntArray || typedArray instanceof TypedArray.TypedFloatArray) || JSArrayBufferView.hasDetachedBuffer(thisObj)) {
+                return false;
+            }
+            int order = compare == Undefined.instance ? 1 : getNumericComparatorOrder(compare);
+            if (order == 0) {
+                return false;
+            }
+            int length = (int) len;
+            boolean parallel = parallelThreshold > 0 && len * typedArray.bytesPerElement() >= parallelThreshold;
+            if (typedArray instanceof TypedArray.TypedIntArray) {
+                TypedArray.TypedIntArray<?> intArray = (TypedArray.TypedIntArray<?>) typedArray;
+                int[] values = new int[length];
+                for (int i = 0; i < length; i++) {
+                    values[i] = intArray.getInt(thisObj, i);
+                }
+                if (typedArray instanceof TypedArray.AbstractUint32Array) {
+                    PrimitiveArraySort.sortUnsigned(values, 0, length, order < 0, parallel);
+                } else {
+                    PrimitiveArraySort.sort(values, 0, length, order < 0, parallel);
+                }
+                for (int i = 0; i < length; i++) {
+                    intArray.setInt(thisObj, i, values[i]);
+                }
+            } else {
+                TypedArray.TypedFloatArray<?> floatArray = (TypedArray.TypedFloatArray<?>) typedArray;
+                double[] values = new double[length];
+                for (int i = 0; i < length; i++) {
+                    values[i] = floatArray.getDouble(thisObj, i);
+                }
+                if (compare == Undefined.instance) {
+                    PrimitiveArraySort.sort(values, 0, length, parallel);
+                } else if (!PrimitiveArraySort.sortNumeric(values, 0, length, order < 0, parallel)) {
+                    return false;
+                }
+                for (int i = 0; i < length; i++) {
+                    floatArray.setDouble(thisObj, i, values[i]);
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Recognizes the comparators {@code (a, b) => a - b} and {@code (a, b) => b - a} by their
+         * source text. Returns 1 for the former, -1 for the latter and 0 for any other comparator.
+         */
+        private static int getNumericComparatorOrder(Object compare) {
+            if (!JSFunction.isJSFunction(compare) || JSFunction.isBoundFunction((DynamicObject) compare)) {
+                return 0;
+            }
+            SourceSection ssect = ((RootCallTarget) JSFunction.getCallTarget((DynamicObject) compare)).getRootNode().getSourceSection();
+            if (ssect == null || !ssect.isAvailable() || ssect.getSource().isInternal() || ssect.getCharLength() > MAX_NUMERIC_COMPARATOR_LENGTH) {
+                return 0;
+            }
+            Matcher matcher = NUMERIC_COMPARATOR_PATTERN.matcher(ssect.getCharacters());
+            if (!matcher.matches()) {
+                return 0;
+            }
+            String first = matcher.group(1);
+            String second = matcher.group(2);
+            if (first.equals(second)) {
+                return 0;
+            } else if (first.equals(matcher.group(3)) && second.equals(matcher.group(4))) {
+                return 1;
+            } else if (second.equals(matcher.group(3)) && first.equals(matcher.group(4))) {
+                return -1;
+            }
+            return 0;
+        }
+
         /**
          * In a generic JSObject, this deletes all elements between the actual "size" (i.e., number
          * of non-empty elements) and the "length" (value of the property). I.e., it cleans up
@@ -3042,6 +3207,16 @@ public final class ArrayPrototypeBuiltins extends JSBuiltinsContainer.SwitchEnum
             }
             long count = Math.min(finalIdx - from, len - to);
             long expectedCount = count;
+            if (isTypedArrayImplementation) {
+                if (count > 0) {
+                    if (JSArrayBufferView.hasDetachedBuffer((DynamicObject) obj, getContext())) {
+                        errorBranch.enter();
+                        throw Errors.createTypeErrorDetachedBuffer();
+                    }
+                    TypedArrayBulkOperations.copyWithin((DynamicObject) obj, JSArrayBufferView.typedArrayGetArrayType((DynamicObject) obj), (int) to, (int) from, (int) count);
+                }
+                return obj;
+            }
 
             long direction;
             if (from < to && to < (from + count)) {
@@ -3069,6 +3244,7 @@ public final class ArrayPrototypeBuiltins extends JSBuiltinsContainer.SwitchEnum
     }
 
     public abstract static class JSArrayIncludesNode extends JSArrayOperationWithToInt {
+        private final ConditionProfile isBulkSearch = ConditionProfile.createBinaryProfile();
 
         public JSArrayIncludesNode(JSContext context, JSBuiltin builtin, boolean isTypedArrayImplementation) {
             super(context, builtin, isTypedArrayImplementation);
@@ -3098,6 +3274,12 @@ public final class ArrayPrototypeBuiltins extends JSBuiltinsContainer.SwitchEnum
                 return true;
             }
 
+            if (isTypedArrayImplementation && k < len && isBulkSearch.profile(isBulkSearchSupported(thisObj, searchElement, len))) {
+                DynamicObject view = (DynamicObject) thisObj;
+                return TypedArrayBulkOperations.indexOf(view, JSArrayBufferView.typedArrayGetArrayType(view), searchElement, (int) k, (int) len, true, true,
+                                getContext().getContextOptions().getTypedArrayParallelThreshold()) >= 0;
+            }
+
             long startIdx = k;
             while (k < len) {
                 Object currentElement = read(thisObj, k);
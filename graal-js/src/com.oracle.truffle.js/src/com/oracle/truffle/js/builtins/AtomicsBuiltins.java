@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2018, 2020, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2018, 2021, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * The Universal Permissive License (UPL), Version 1.0
@@ -55,9 +55,11 @@ import com.oracle.truffle.js.builtins.AtomicsBuiltinsFactory.AtomicsComputeNodeG
 import com.oracle.truffle.js.builtins.AtomicsBuiltinsFactory.AtomicsIsLockFreeNodeGen;
 import com.oracle.truffle.js.builtins.AtomicsBuiltinsFactory.AtomicsLoadNodeGen;
 import com.oracle.truffle.js.builtins.AtomicsBuiltinsFactory.AtomicsStoreNodeGen;
+import com.oracle.truffle.js.builtins.AtomicsBuiltinsFactory.AtomicsWaitAsyncNodeGen;
 import com.oracle.truffle.js.builtins.AtomicsBuiltinsFactory.AtomicsWaitNodeGen;
 import com.oracle.truffle.js.builtins.AtomicsBuiltinsFactory.AtomicsWakeNodeGen;
 import com.oracle.truffle.js.builtins.helper.SharedMemorySync;
+import com.oracle.truffle.js.nodes.access.CreateDataPropertyNode;
 import com.oracle.truffle.js.nodes.cast.JSToBigIntNode;
 import com.oracle.truffle.js.nodes.cast.JSToIndexNode;
 import com.oracle.truffle.js.nodes.cast.JSToInt32Node;
@@ -65,9 +67,11 @@ import com.oracle.truffle.js.nodes.cast.JSToIntegerAsLongNode;
 import com.oracle.truffle.js.nodes.cast.JSToNumberNode;
 import com.oracle.truffle.js.nodes.function.JSBuiltin;
 import com.oracle.truffle.js.nodes.function.JSBuiltinNode;
+import com.oracle.truffle.js.nodes.promise.NewPromiseCapabilityNode;
 import com.oracle.truffle.js.runtime.BigInt;
 import com.oracle.truffle.js.runtime.Errors;
 import com.oracle.truffle.js.runtime.JSAgentWaiterList.JSAgentWaiterListEntry;
+import com.oracle.truffle.js.runtime.JSAgentWaiterList.WaiterRecord;
 import com.oracle.truffle.js.runtime.JSConfig;
 import com.oracle.truffle.js.runtime.JSContext;
 import com.oracle.truffle.js.runtime.JSException;
@@ -77,8 +81,10 @@ import com.oracle.truffle.js.runtime.SafeInteger;
 import com.oracle.truffle.js.runtime.array.TypedArray;
 import com.oracle.truffle.js.runtime.builtins.BuiltinEnum;
 import com.oracle.truffle.js.runtime.builtins.JSArrayBufferView;
+import com.oracle.truffle.js.runtime.builtins.JSOrdinary;
 import com.oracle.truffle.js.runtime.builtins.JSSharedArrayBuffer;
 import com.oracle.truffle.js.runtime.objects.JSDynamicObject;
+import com.oracle.truffle.js.runtime.objects.PromiseCapabilityRecord;
 import com.oracle.truffle.js.runtime.objects.Undefined;
 
 /**
@@ -107,7 +113,10 @@ public final class AtomicsBuiltins extends JSBuiltinsContainer.SwitchEnum<Atomic
         isLockFree(1),
 
         // ES9?
-        notify(3);
+        notify(3),
+
+        // ES2022
+        waitAsync(4);
 
         private final int length;
 
@@ -124,6 +133,8 @@ public final class AtomicsBuiltins extends JSBuiltinsContainer.SwitchEnum<Atomic
         public int getECMAScriptVersion() {
             if (this.equals(notify)) {
                 return JSConfig.ECMAScript2019;
+            } else if (this.equals(waitAsync)) {
+                return JSConfig.ECMAScript2022;
             }
             return JSConfig.ECMAScript2017;
         }
@@ -156,6 +167,8 @@ public final class AtomicsBuiltins extends JSBuiltinsContainer.SwitchEnum<Atomic
                 return AtomicsWakeNodeGen.create(context, builtin, args().fixedArgs(3).createArgumentNodes(context));
             case wait:
                 return AtomicsWaitNodeGen.create(context, builtin, args().fixedArgs(4).createArgumentNodes(context));
+            case waitAsync:
+                return AtomicsWaitAsyncNodeGen.create(context, builtin, args().fixedArgs(4).createArgumentNodes(context));
             case isLockFree:
                 return AtomicsIsLockFreeNodeGen.create(context, builtin, args().fixedArgs(1).createArgumentNodes(context));
         }
@@ -810,7 +823,7 @@ public final class AtomicsBuiltins extends JSBuiltinsContainer.SwitchEnum<Atomic
 
             SharedMemorySync.enterCriticalSection(getContext(), wl);
             try {
-                int[] waiters = SharedMemorySync.removeWaiters(getContext(), wl, c);
+                WaiterRecord[] waiters = SharedMemorySync.removeWaiters(getContext(), wl, c);
                 int n;
                 for (n = 0; n < waiters.length; n++) {
                     SharedMemorySync.wakeWaiter(getContext(), waiters[n]);
@@ -823,18 +836,18 @@ public final class AtomicsBuiltins extends JSBuiltinsContainer.SwitchEnum<Atomic
     }
 
     /**
-     * Thread Sleep.
+     * Common parts of Atomics.wait and Atomics.waitAsync.
      */
-    public abstract static class AtomicsWaitNode extends AtomicsOperationNode {
+    public abstract static class AtomicsAbstractWaitNode extends AtomicsOperationNode {
 
-        private static final String OK = "ok";
-        private static final String NOT_EQUAL = "not-equal";
-        private static final String TIMED_OUT = "timed-out";
+        protected static final String OK = "ok";
+        protected static final String NOT_EQUAL = "not-equal";
+        protected static final String TIMED_OUT = "timed-out";
 
         @Child private JSToBigIntNode toBigIntNode;
         @Child private JSToInt32Node toInt32Node;
 
-        public AtomicsWaitNode(JSContext context, JSBuiltin builtin) {
+        public AtomicsAbstractWaitNode(JSContext context, JSBuiltin builtin) {
             super(context, builtin);
         }
 
@@ -842,10 +855,52 @@ public final class AtomicsBuiltins extends JSBuiltinsContainer.SwitchEnum<Atomic
             return AtomicsLoadNodeGen.create(getContext(), getBuiltin(), args().fixedArgs(4).createArgumentNodes(getContext()));
         }
 
+        protected static boolean isNotEqual(Object w, long v, boolean isInt32) {
+            return isInt32 ? !(w instanceof Integer) || (int) w != (int) v
+                            : !(w instanceof BigInt) || ((BigInt) w).longValue() != v;
+        }
+
+        /**
+         * Converts the timeout argument to milliseconds; NaN and undefined wait forever.
+         */
+        protected static double toTimeout(Object timeout, JSToNumberNode timeToNumberNode) {
+            Number tmp = timeToNumberNode.executeNumber(timeout);
+            if (JSRuntime.isNaN(tmp)) {
+                return Double.POSITIVE_INFINITY;
+            }
+            return Math.max(JSRuntime.doubleValue(tmp), 0);
+        }
+
+        protected final int toInt32(Object v) {
+            if (toInt32Node == null) {
+                CompilerDirectives.transferToInterpreterAndInvalidate();
+                toInt32Node = insert(JSToInt32Node.create());
+            }
+            return toInt32Node.executeInt(v);
+        }
+
+        protected final BigInt toBigInt(Object v) {
+            if (toBigIntNode == null) {
+                CompilerDirectives.transferToInterpreterAndInvalidate();
+                toBigIntNode = insert(JSToBigIntNode.create());
+            }
+            return toBigIntNode.executeBigInteger(v);
+        }
+    }
+
+    /**
+     * Thread Sleep.
+     */
+    public abstract static class AtomicsWaitNode extends AtomicsAbstractWaitNode {
+
+        public AtomicsWaitNode(JSContext context, JSBuiltin builtin) {
+            super(context, builtin);
+        }
+
         @Specialization
         protected Object doGeneric(VirtualFrame frame, Object maybeTarget, Object index, Object value, Object timeout,
                         @Cached("create()") JSToIndexNode toIndexNode,
-                        @Cached("create()") JSToNumberNode timeToInt32Node,
+                        @Cached("create()") JSToNumberNode timeToNumberNode,
                         @Cached("createHelperNode()") AtomicsLoadNode loadNode) {
 
             DynamicObject target = ensureDynamicObject(maybeTarget);
@@ -855,11 +910,7 @@ public final class AtomicsBuiltins extends JSBuiltinsContainer.SwitchEnum<Atomic
 
             boolean isInt32 = isInt32SharedBufferView(maybeTarget);
             long v = isInt32 ? toInt32(value) : toBigInt(value).longValue();
-            int t = Integer.MAX_VALUE;
-            Number tmp = timeToInt32Node.executeNumber(timeout);
-            if (!JSRuntime.isNaN(tmp)) {
-                t = Integer.max(tmp.intValue(), 0);
-            }
+            double t = toTimeout(timeout, timeToNumberNode);
 
             if (!SharedMemorySync.agentCanSuspend(getContext())) {
                 throw createTypeErrorUnsupported();
@@ -868,43 +919,80 @@ public final class AtomicsBuiltins extends JSBuiltinsContainer.SwitchEnum<Atomic
             SharedMemorySync.enterCriticalSection(getContext(), wl);
             try {
                 Object w = loadNode.executeWithBufferAndIndex(frame, maybeTarget, i);
-                boolean isNotEqual = isInt32 ? !(w instanceof Integer) || (int) w != (int) v
-                                : !(w instanceof BigInt) || ((BigInt) w).longValue() != v;
-                if (isNotEqual) {
+                if (isNotEqual(w, v, isInt32)) {
                     return NOT_EQUAL;
                 }
-                int id = getContext().getJSAgent().getSignifier();
-                SharedMemorySync.addWaiter(getContext(), wl, id);
-                if (t < 0) {
-                    return TIMED_OUT;
-                }
-                boolean awoken = SharedMemorySync.suspendAgent(getContext(), wl, id, t);
+                WaiterRecord waiter = WaiterRecord.createSync(wl, t);
+                SharedMemorySync.addWaiter(getContext(), wl, waiter);
+                boolean awoken = SharedMemorySync.suspendAgent(getContext(), wl, waiter);
                 if (awoken) {
-                    assert !wl.contains(id);
+                    assert !wl.contains(waiter);
                     return OK;
                 } else {
-                    SharedMemorySync.removeWaiter(getContext(), wl, id);
+                    SharedMemorySync.removeWaiter(getContext(), wl, waiter);
                     return TIMED_OUT;
                 }
             } finally {
                 SharedMemorySync.leaveCriticalSection(getContext(), wl);
             }
         }
+    }
 
-        private int toInt32(Object v) {
-            if (toInt32Node == null) {
-                CompilerDirectives.transferToInterpreterAndInvalidate();
-                toInt32Node = insert(JSToInt32Node.create());
-            }
-            return toInt32Node.executeInt(v);
+    /**
+     * Atomics.waitAsync(typedArray, index, value, timeout). Does not block: the notifying agent or
+     * the timeout hands the waiter over to the waiting agent, which settles the returned promise as
+     * a job.
+     */
+    public abstract static class AtomicsWaitAsyncNode extends AtomicsAbstractWaitNode {
+
+        @Child private CreateDataPropertyNode createAsyncPropertyNode;
+        @Child private CreateDataPropertyNode createValuePropertyNode;
+
+        public AtomicsWaitAsyncNode(JSContext context, JSBuiltin builtin) {
+            super(context, builtin);
+            this.createAsyncPropertyNode = CreateDataPropertyNode.create(context, "async");
+            this.createValuePropertyNode = CreateDataPropertyNode.create(context, "value");
         }
 
-        private BigInt toBigInt(Object v) {
-            if (toBigIntNode == null) {
-                CompilerDirectives.transferToInterpreterAndInvalidate();
-                toBigIntNode = insert(JSToBigIntNode.create());
+        @Specialization
+        protected Object doGeneric(VirtualFrame frame, Object maybeTarget, Object index, Object value, Object timeout,
+                        @Cached("create()") JSToIndexNode toIndexNode,
+                        @Cached("create()") JSToNumberNode timeToNumberNode,
+                        @Cached("createHelperNode()") AtomicsLoadNode loadNode) {
+
+            DynamicObject target = ensureDynamicObject(maybeTarget);
+            validateSharedIntegerTypedArray(target, true);
+
+            int i = validateAtomicAccess(target, toIndexNode.executeLong(index), index);
+
+            boolean isInt32 = isInt32SharedBufferView(maybeTarget);
+            long v = isInt32 ? toInt32(value) : toBigInt(value).longValue();
+            double t = toTimeout(timeout, timeToNumberNode);
+
+            JSAgentWaiterListEntry wl = SharedMemorySync.getWaiterList(getContext(), target, i);
+            SharedMemorySync.enterCriticalSection(getContext(), wl);
+            try {
+                Object w = loadNode.executeWithBufferAndIndex(frame, maybeTarget, i);
+                if (isNotEqual(w, v, isInt32)) {
+                    return createResult(false, NOT_EQUAL);
+                }
+                if (t == 0) {
+                    return createResult(false, TIMED_OUT);
+                }
+                PromiseCapabilityRecord promiseCapability = NewPromiseCapabilityNode.createDefault(getContext().getRealm());
+                WaiterRecord waiter = WaiterRecord.createAsync(wl, getContext().getJSAgent(), promiseCapability, t);
+                SharedMemorySync.addWaiter(getContext(), wl, waiter);
+                return createResult(true, promiseCapability.getPromise());
+            } finally {
+                SharedMemorySync.leaveCriticalSection(getContext(), wl);
             }
-            return toBigIntNode.executeBigInteger(v);
+        }
+
+        private DynamicObject createResult(boolean async, Object value) {
+            DynamicObject result = JSOrdinary.create(getContext());
+            createAsyncPropertyNode.executeVoid(result, async);
+            createValuePropertyNode.executeVoid(result, value);
+            return result;
         }
     }
 
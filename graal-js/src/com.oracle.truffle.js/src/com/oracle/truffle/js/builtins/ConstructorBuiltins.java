@@ -111,6 +111,7 @@ import com.oracle.truffle.js.builtins.ConstructorBuiltinsFactory.ConstructSymbol
 import com.oracle.truffle.js.builtins.ConstructorBuiltinsFactory.ConstructIteratorNodeGen;
 import com.oracle.truffle.js.builtins.ConstructorBuiltinsFactory.ConstructWeakMapNodeGen;
 import com.oracle.truffle.js.builtins.ConstructorBuiltinsFactory.ConstructWeakRefNodeGen;
+import com.oracle.truffle.js.builtins.ConstructorBuiltinsFactory.ConstructWorkerNodeGen;
 import com.oracle.truffle.js.builtins.ConstructorBuiltinsFactory.ConstructWeakSetNodeGen;
 import com.oracle.truffle.js.builtins.ConstructorBuiltinsFactory.ConstructWebAssemblyGlobalNodeGen;
 import com.oracle.truffle.js.builtins.ConstructorBuiltinsFactory.ConstructWebAssemblyInstanceNodeGen;
@@ -188,6 +189,7 @@ import com.oracle.truffle.js.runtime.JSRuntime;
 import com.oracle.truffle.js.runtime.PromiseHook;
 import com.oracle.truffle.js.runtime.SafeInteger;
 import com.oracle.truffle.js.runtime.Symbol;
+import com.oracle.truffle.js.runtime.WorkerJSAgent;
 import com.oracle.truffle.js.runtime.array.ArrayAllocationSite;
 import com.oracle.truffle.js.runtime.array.ScriptArray;
 import com.oracle.truffle.js.runtime.array.dyn.AbstractWritableArray;
@@ -294,6 +296,9 @@ public final class ConstructorBuiltins extends JSBuiltinsContainer.SwitchEnum<Co
         SharedArrayBuffer(1),
         AsyncGeneratorFunction(1),
 
+        // Worker API
+        Worker(1),
+
         // WebAssembly
         Global(1),
         Instance(1),
@@ -379,6 +384,13 @@ public final class ConstructorBuiltins extends JSBuiltinsContainer.SwitchEnum<Co
                 } else {
                     return createCallRequiresNew(context, builtin);
                 }
+            case Worker:
+                if (construct) {
+                    return newTarget ? ConstructWorkerNodeGen.create(context, builtin, true, args().newTarget().fixedArgs(1).createArgumentNodes(context))
+                                    : ConstructWorkerNodeGen.create(context, builtin, false, args().function().fixedArgs(1).createArgumentNodes(context));
+                } else {
+                    return createCallRequiresNew(context, builtin);
+                }
             case FinalizationRegistry:
                 if (construct) {
                     return newTarget ? ConstructFinalizationRegistryNodeGen.create(context, builtin, true, args().newTarget().fixedArgs(1).createArgumentNodes(context))
@@ -1187,6 +1199,33 @@ public final class ConstructorBuiltins extends JSBuiltinsContainer.SwitchEnum<Co
         }
     }
 
+    public abstract static class ConstructWorkerNode extends ConstructWithNewTargetNode {
+        public ConstructWorkerNode(JSContext context, JSBuiltin builtin, boolean newTargetCase) {
+            super(context, builtin, newTargetCase);
+        }
+
+        @Specialization
+        protected DynamicObject constructWorker(DynamicObject newTarget, Object source,
+                        @Cached("create()") JSToStringNode toString) {
+            String sourceCode = toString.executeString(source);
+            return swapPrototype(startWorker(sourceCode), newTarget);
+        }
+
+        @TruffleBoundary
+        private DynamicObject startWorker(String sourceCode) {
+            JSRealm realm = getContext().getRealm();
+            WorkerJSAgent workerAgent = new WorkerJSAgent();
+            JSRealm workerRealm = realm.createWorkerRealm(workerAgent);
+            workerAgent.start(realm, workerRealm, sourceCode);
+            return JSWorker.create(getContext(), workerAgent);
+        }
+
+        @Override
+        protected DynamicObject getIntrinsicDefaultProto(JSRealm realm) {
+            return realm.getWorkerPrototype();
+        }
+    }
+
     public abstract static class ConstructFinalizationRegistryNode extends ConstructWithNewTargetNode {
         public ConstructFinalizationRegistryNode(JSContext context, JSBuiltin builtin, boolean newTargetCase) {
             super(context, builtin, newTargetCase);
@@ -1851,6 +1890,9 @@ public final class ConstructorBuiltins extends JSBuiltinsContainer.SwitchEnum<Co
             if (maybeBuffer instanceof ByteBuffer) {
                 ByteBuffer byteBuffer = (ByteBuffer) maybeBuffer;
                 if (isDirect.profile(byteBuffer.isDirect())) {
+                    if (useShared) {
+                        return swapPrototype(JSSharedArrayBuffer.createSharedArrayBuffer(getContext(), byteBuffer), newTarget);
+                    }
                     return swapPrototype(JSArrayBuffer.createDirectArrayBuffer(getContext(), byteBuffer), newTarget);
                 } else {
                     return swapPrototype(JSArrayBuffer.createArrayBuffer(getContext(), Boundaries.byteBufferArray(byteBuffer)), newTarget);
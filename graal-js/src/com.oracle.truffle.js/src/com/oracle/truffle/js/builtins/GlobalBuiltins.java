@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2018, 2020, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2018, 2021, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * The Universal Permissive License (UPL), Version 1.0
@@ -100,6 +100,7 @@ import com.oracle.truffle.js.builtins.GlobalBuiltinsFactory.JSGlobalPrintNodeGen
 import com.oracle.truffle.js.builtins.GlobalBuiltinsFactory.JSGlobalReadBufferNodeGen;
 import com.oracle.truffle.js.builtins.GlobalBuiltinsFactory.JSGlobalReadFullyNodeGen;
 import com.oracle.truffle.js.builtins.GlobalBuiltinsFactory.JSGlobalReadLineNodeGen;
+import com.oracle.truffle.js.builtins.GlobalBuiltinsFactory.JSGlobalStructuredCloneNodeGen;
 import com.oracle.truffle.js.builtins.GlobalBuiltinsFactory.JSGlobalUnEscapeNodeGen;
 import com.oracle.truffle.js.builtins.commonjs.GlobalCommonJSRequireBuiltins;
 import com.oracle.truffle.js.builtins.helper.FloatParser;
@@ -109,9 +110,11 @@ import com.oracle.truffle.js.nodes.JSGuards;
 import com.oracle.truffle.js.nodes.JavaScriptNode;
 import com.oracle.truffle.js.nodes.ScriptNode;
 import com.oracle.truffle.js.nodes.access.JSConstantNode;
+import com.oracle.truffle.js.nodes.access.PropertyGetNode;
 import com.oracle.truffle.js.nodes.cast.JSToDoubleNode;
 import com.oracle.truffle.js.nodes.cast.JSToInt32Node;
 import com.oracle.truffle.js.nodes.cast.JSToNumberNode;
+import com.oracle.truffle.js.nodes.cast.JSToObjectArrayNode;
 import com.oracle.truffle.js.nodes.cast.JSToStringNode;
 import com.oracle.truffle.js.nodes.cast.JSTrimWhitespaceNode;
 import com.oracle.truffle.js.nodes.function.EvalNode;
@@ -145,6 +148,7 @@ import com.oracle.truffle.js.runtime.objects.JSObjectUtil;
 import com.oracle.truffle.js.runtime.objects.Null;
 import com.oracle.truffle.js.runtime.objects.PropertyProxy;
 import com.oracle.truffle.js.runtime.objects.Undefined;
+import com.oracle.truffle.js.runtime.util.StructuredClone;
 
 /**
  * Contains builtins for the global object.
@@ -154,6 +158,7 @@ public class GlobalBuiltins extends JSBuiltinsContainer.SwitchEnum<GlobalBuiltin
     public static final JSBuiltinsContainer GLOBAL_SHELL = new GlobalShellBuiltins();
     public static final JSBuiltinsContainer GLOBAL_NASHORN_EXTENSIONS = new GlobalNashornScriptingBuiltins();
     public static final JSBuiltinsContainer GLOBAL_PRINT = new GlobalPrintBuiltins();
+    public static final JSBuiltinsContainer GLOBAL_STRUCTURED_CLONE = new GlobalStructuredCloneBuiltins();
     public static final JSBuiltinsContainer GLOBAL_LOAD = new GlobalLoadBuiltins();
     public static final JSBuiltinsContainer GLOBAL_COMMONJS_REQUIRE_EXTENSIONS = new GlobalCommonJSRequireBuiltins();
 
@@ -300,6 +305,39 @@ public class GlobalBuiltins extends JSBuiltinsContainer.SwitchEnum<GlobalBuiltin
         }
     }
 
+    /**
+     * Built-ins for structured cloning.
+     */
+    public static final class GlobalStructuredCloneBuiltins extends JSBuiltinsContainer.SwitchEnum<GlobalStructuredCloneBuiltins.GlobalStructuredClone> {
+        protected GlobalStructuredCloneBuiltins() {
+            super(GlobalStructuredClone.class);
+        }
+
+        public enum GlobalStructuredClone implements BuiltinEnum<GlobalStructuredClone> {
+            structuredClone(1);
+
+            private final int length;
+
+            GlobalStructuredClone(int length) {
+                this.length = length;
+            }
+
+            @Override
+            public int getLength() {
+                return length;
+            }
+        }
+
+        @Override
+        protected Object createNode(JSContext context, JSBuiltin builtin, boolean construct, boolean newTarget, GlobalStructuredClone builtinEnum) {
+            switch (builtinEnum) {
+                case structuredClone:
+                    return JSGlobalStructuredCloneNodeGen.create(context, builtin, args().fixedArgs(2).createArgumentNodes(context));
+            }
+            return null;
+        }
+    }
+
     /**
      * Built-ins for load.
      */
@@ -1301,6 +1339,35 @@ public class GlobalBuiltins extends JSBuiltinsContainer.SwitchEnum<GlobalBuiltin
         }
     }
 
+    /**
+     * Implementation of structuredClone(value, options) (HTML Standard). Array buffers listed in
+     * {@code options.transfer} are detached and their contents are moved to the clone.
+     */
+    public abstract static class JSGlobalStructuredCloneNode extends JSBuiltinNode {
+
+        protected static final String TRANSFER = "transfer";
+
+        public JSGlobalStructuredCloneNode(JSContext context, JSBuiltin builtin) {
+            super(context, builtin);
+        }
+
+        @Specialization
+        protected Object structuredClone(Object value, Object options,
+                        @Cached("create(TRANSFER, getContext())") PropertyGetNode getTransfer,
+                        @Cached("create(getContext(), true)") JSToObjectArrayNode toTransferList) {
+            Object transfer;
+            if (options == Undefined.instance || options == Null.instance) {
+                transfer = Undefined.instance;
+            } else if (JSRuntime.isObject(options)) {
+                transfer = getTransfer.getValue(options);
+            } else {
+                throw Errors.createTypeErrorNotAnObject(options);
+            }
+            Object serialized = StructuredClone.serialize(value, toTransferList.executeObjectArray(transfer));
+            return StructuredClone.deserialize(getContext(), serialized);
+        }
+    }
+
     /**
      * Non-standard print()/printErr() method to write to the console.
      */
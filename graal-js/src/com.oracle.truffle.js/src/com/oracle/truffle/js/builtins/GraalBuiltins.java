@@ -0,0 +1,602 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.builtins;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.InvalidPathException;
+import java.nio.file.OpenOption;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.TruffleFile;
+import com.oracle.truffle.api.TruffleLanguage;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.object.DynamicObject;
+import com.oracle.truffle.js.builtins.GraalBuiltinsFactory.GraalInlineCacheStatisticsNodeGen;
+import com.oracle.truffle.js.builtins.GraalBuiltinsFactory.GraalJSONParseFromNodeGen;
+import com.oracle.truffle.js.builtins.GraalBuiltinsFactory.GraalJSONStringifyToNodeGen;
+import com.oracle.truffle.js.builtins.GraalBuiltinsFactory.GraalMapFileNodeGen;
+import com.oracle.truffle.js.builtins.GraalBuiltinsFactory.GraalRegexCacheStatisticsNodeGen;
+import com.oracle.truffle.js.builtins.GraalBuiltinsFactory.GraalSyncMappedBufferNodeGen;
+import com.oracle.truffle.js.builtins.GraalBuiltinsFactory.GraalUnmapFileNodeGen;
+import com.oracle.truffle.js.builtins.JSONBuiltins.JSONStringifyNode;
+import com.oracle.truffle.js.builtins.helper.JSONData;
+import com.oracle.truffle.js.builtins.helper.JSONStringifyStringNode;
+import com.oracle.truffle.js.builtins.helper.TruffleJSONByteParser;
+import com.oracle.truffle.js.nodes.access.CreateDataPropertyNode;
+import com.oracle.truffle.js.nodes.function.JSBuiltin;
+import com.oracle.truffle.js.nodes.function.JSBuiltinNode;
+import com.oracle.truffle.js.runtime.Errors;
+import com.oracle.truffle.js.runtime.JSContext;
+import com.oracle.truffle.js.runtime.JSContextOptions;
+import com.oracle.truffle.js.runtime.JSRealm;
+import com.oracle.truffle.js.runtime.JSRuntime;
+import com.oracle.truffle.js.runtime.RealmSnapshot;
+import com.oracle.truffle.js.runtime.builtins.BuiltinEnum;
+import com.oracle.truffle.js.runtime.builtins.JSAbstractBuffer;
+import com.oracle.truffle.js.runtime.builtins.JSArray;
+import com.oracle.truffle.js.runtime.builtins.JSArrayBuffer;
+import com.oracle.truffle.js.runtime.builtins.JSArrayBufferObject;
+import com.oracle.truffle.js.runtime.builtins.JSArrayBufferView;
+import com.oracle.truffle.js.runtime.builtins.JSOrdinary;
+import com.oracle.truffle.js.runtime.builtins.JSSharedArrayBuffer;
+import com.oracle.truffle.js.runtime.objects.JSAttributes;
+import com.oracle.truffle.js.runtime.objects.JSObject;
+import com.oracle.truffle.js.runtime.objects.JSObjectUtil;
+import com.oracle.truffle.js.runtime.objects.Null;
+import com.oracle.truffle.js.runtime.objects.Undefined;
+import com.oracle.truffle.js.runtime.util.CompiledRegexCache;
+import com.oracle.truffle.js.runtime.util.InlineCacheStatistics;
+
+/**
+ * Contains builtins for the {@code Graal} object.
+ */
+public final class GraalBuiltins extends JSBuiltinsContainer.SwitchEnum<GraalBuiltins.Graal> {
+
+    public static final JSBuiltinsContainer BUILTINS = new GraalBuiltins();
+
+    protected GraalBuiltins() {
+        super(JSRealm.GRAAL_CLASS_NAME, Graal.class);
+    }
+
+    public enum Graal implements BuiltinEnum<Graal> {
+        jsonStringifyTo(4),
+        jsonParseFrom(2),
+        inlineCacheStatistics(0),
+        mapFile(2),
+        syncMappedBuffer(1),
+        unmapFile(1),
+        regexCacheStatistics(0),
+        snapshotRealm(0),
+        resetRealm(0);
+
+        private final int length;
+
+        Graal(int length) {
+            this.length = length;
+        }
+
+        @Override
+        public int getLength() {
+            return length;
+        }
+    }
+
+    @Override
+    protected Object createNode(JSContext context, JSBuiltin builtin, boolean construct, boolean newTarget, Graal builtinEnum) {
+        switch (builtinEnum) {
+            case jsonStringifyTo:
+                return GraalJSONStringifyToNodeGen.create(context, builtin, args().fixedArgs(4).createArgumentNodes(context));
+            case jsonParseFrom:
+                return GraalJSONParseFromNodeGen.create(context, builtin, args().fixedArgs(2).createArgumentNodes(context));
+            case inlineCacheStatistics:
+                return GraalInlineCacheStatisticsNodeGen.create(context, builtin, args().createArgumentNodes(context));
+            case mapFile:
+                return GraalMapFileNodeGen.create(context, builtin, args().fixedArgs(2).createArgumentNodes(context));
+            case syncMappedBuffer:
+                return GraalSyncMappedBufferNodeGen.create(context, builtin, args().fixedArgs(1).createArgumentNodes(context));
+            case unmapFile:
+                return GraalUnmapFileNodeGen.create(context, builtin, args().fixedArgs(1).createArgumentNodes(context));
+            case regexCacheStatistics:
+                return GraalRegexCacheStatisticsNodeGen.create(context, builtin, args().createArgumentNodes(context));
+            case snapshotRealm:
+                return GraalSnapshotRealmNodeGen.create(context, builtin, args().createArgumentNodes(context));
+            case resetRealm:
+                return GraalResetRealmNodeGen.create(context, builtin, args().createArgumentNodes(context));
+        }
+        return null;
+    }
+
+    /**
+     * {@code Graal.jsonStringifyTo(sink, value, replacer, space)}: like {@code JSON.stringify},
+     * but streams the output to the given sink in chunks instead of materializing it as a single
+     * string. The sink can be a JavaScript function (called with every string chunk), or a host
+     * {@link Writer}, {@link OutputStream} or {@link ByteBuffer} (byte sinks receive UTF-8).
+     * Returns {@code false} if the value is not serializable, i.e., if {@code JSON.stringify}
+     * would return {@code undefined}.
+     */
+    public abstract static class GraalJSONStringifyToNode extends JSBuiltinNode {
+
+        public GraalJSONStringifyToNode(JSContext context, JSBuiltin builtin) {
+            super(context, builtin);
+        }
+
+        @Specialization
+        protected boolean stringifyTo(Object sink, Object value, Object replacer, Object space,
+                        @Cached("create(getContext())") JSONStringifyStringNode jsonStringifyStringNode,
+                        @Cached("createWrapperPropertyNode()") CreateDataPropertyNode createWrapperPropertyNode) {
+            JSONData data = createJSONData(toWriter(sink), replacer, space);
+            DynamicObject wrapper = JSOrdinary.create(getContext());
+            createWrapperPropertyNode.executeVoid(wrapper, value);
+            return jsonStringifyStringNode.executeToSink(data, "", wrapper);
+        }
+
+        CreateDataPropertyNode createWrapperPropertyNode() {
+            return CreateDataPropertyNode.create(getContext(), "");
+        }
+
+        @TruffleBoundary
+        private static JSONData createJSONData(Writer writer, Object replacer, Object space) {
+            DynamicObject replacerFnObj = null;
+            List<String> replacerList = null;
+            if (JSRuntime.isCallable(replacer)) {
+                replacerFnObj = (DynamicObject) replacer;
+            } else if (JSRuntime.isArray(replacer)) {
+                replacerList = JSONStringifyNode.toReplacerList((DynamicObject) replacer);
+            }
+            String gap = space == Undefined.instance ? "" : JSONStringifyNode.toGap(space);
+            return new JSONData(gap, replacerFnObj, replacerList, writer);
+        }
+
+        @TruffleBoundary
+        private Writer toWriter(Object sink) {
+            if (JSRuntime.isCallable(sink)) {
+                return new CallbackWriter(sink);
+            }
+            TruffleLanguage.Env env = getContext().getRealm().getEnv();
+            if (env.isHostObject(sink)) {
+                Object hostSink = env.asHostObject(sink);
+                if (hostSink instanceof Writer) {
+                    return (Writer) hostSink;
+                } else if (hostSink instanceof OutputStream) {
+                    return new OutputStreamWriter((OutputStream) hostSink, StandardCharsets.UTF_8);
+                } else if (hostSink instanceof ByteBuffer) {
+                    return new OutputStreamWriter(new ByteBufferOutputStream((ByteBuffer) hostSink), StandardCharsets.UTF_8);
+                }
+            }
+            throw Errors.createTypeError("Function, Writer, OutputStream or ByteBuffer expected as JSON output sink");
+        }
+    }
+
+    /**
+     * {@code Graal.jsonParseFrom(source, callback)}: like {@code JSON.parse}, but parses UTF-8
+     * encoded bytes incrementally from an {@code ArrayBuffer}, a typed array, or a host
+     * {@link InputStream} or {@link ByteBuffer}, without decoding the input to a string first. If
+     * a callback is given, the input must be a JSON array whose elements are passed to the callback
+     * one at a time (together with their index); the number of elements is returned then.
+     */
+    public abstract static class GraalJSONParseFromNode extends JSBuiltinNode {
+
+        public GraalJSONParseFromNode(JSContext context, JSBuiltin builtin) {
+            super(context, builtin);
+        }
+
+        @Specialization
+        protected Object parseFrom(Object source, Object callback) {
+            TruffleJSONByteParser parser = createParser(source);
+            if (JSRuntime.isCallable(callback)) {
+                return JSRuntime.longToIntOrDouble(parser.parseElements(callback));
+            } else {
+                return parser.parse();
+            }
+        }
+
+        @TruffleBoundary
+        private TruffleJSONByteParser createParser(Object source) {
+            JSContext context = getContext();
+            if (JSAbstractBuffer.isJSAbstractBuffer(source)) {
+                DynamicObject arrayBuffer = (DynamicObject) source;
+                if (JSArrayBuffer.isDetachedBuffer(arrayBuffer)) {
+                    throw Errors.createTypeErrorDetachedBuffer();
+                }
+                if (JSArrayBuffer.isJSHeapArrayBuffer(arrayBuffer)) {
+                    byte[] byteArray = JSAbstractBuffer.getByteArray(arrayBuffer);
+                    return TruffleJSONByteParser.create(context, byteArray, 0, byteArray.length);
+                } else {
+                    return TruffleJSONByteParser.create(context, JSArrayBuffer.getDirectByteBuffer(arrayBuffer));
+                }
+            } else if (JSArrayBufferView.isJSArrayBufferView(source)) {
+                DynamicObject view = (DynamicObject) source;
+                if (JSArrayBufferView.hasDetachedBuffer(view, context)) {
+                    throw Errors.createTypeErrorDetachedBuffer();
+                }
+                int offset = JSArrayBufferView.getByteOffset(view, context);
+                int length = JSArrayBufferView.getByteLength(view, context);
+                if (JSArrayBufferView.typedArrayGetArrayType(view).isDirect()) {
+                    ByteBuffer byteBuffer = JSArrayBufferView.typedArrayGetByteBuffer(view).duplicate();
+                    byteBuffer.limit(offset + length);
+                    byteBuffer.position(offset);
+                    return TruffleJSONByteParser.create(context, byteBuffer);
+                } else {
+                    return TruffleJSONByteParser.create(context, JSArrayBufferView.typedArrayGetByteArray(view), offset, length);
+                }
+            }
+            TruffleLanguage.Env env = context.getRealm().getEnv();
+            if (env.isHostObject(source)) {
+                Object hostSource = env.asHostObject(source);
+                if (hostSource instanceof InputStream) {
+                    return TruffleJSONByteParser.create(context, (InputStream) hostSource);
+                } else if (hostSource instanceof ByteBuffer) {
+                    return TruffleJSONByteParser.create(context, (ByteBuffer) hostSource);
+                }
+            }
+            throw Errors.createTypeError("ArrayBuffer, TypedArray, InputStream or ByteBuffer expected as JSON input");
+        }
+    }
+
+    /**
+     * {@code Graal.inlineCacheStatistics()}: returns the inline cache sites recorded with
+     * {@code --js.inline-cache-statistics} as an array of objects with the properties
+     * {@code kind}, {@code key}, {@code location}, {@code state} ({@code "monomorphic"},
+     * {@code "polymorphic"} or {@code "megamorphic"}), {@code depth}, {@code rewrites},
+     * {@code megamorphicRewrites} and {@code reason}. Megamorphic and polymorphic sites with the
+     * most rewrites come first. The result can be serialized with {@code JSON.stringify}.
+     */
+    public abstract static class GraalInlineCacheStatisticsNode extends JSBuiltinNode {
+
+        public GraalInlineCacheStatisticsNode(JSContext context, JSBuiltin builtin) {
+            super(context, builtin);
+        }
+
+        @Specialization
+        protected DynamicObject inlineCacheStatistics() {
+            InlineCacheStatistics statistics = getContext().getInlineCacheStatistics();
+            if (statistics == null) {
+                throw Errors.createTypeError("Inline cache statistics are not enabled, use --" + JSContextOptions.INLINE_CACHE_STATISTICS_NAME);
+            }
+            return toArray(statistics.getSites());
+        }
+
+        @TruffleBoundary
+        private DynamicObject toArray(List<InlineCacheStatistics.Site> sites) {
+            JSContext context = getContext();
+            Object[] elements = new Object[sites.size()];
+            for (int i = 0; i < elements.length; i++) {
+                InlineCacheStatistics.Site site = sites.get(i);
+                String location = site.getLocation();
+                DynamicObject entry = JSOrdinary.create(context);
+                JSObjectUtil.putDataProperty(context, entry, "kind", site.getKind().getName(), JSAttributes.getDefault());
+                JSObjectUtil.putDataProperty(context, entry, "key", site.getKey() == null ? Null.instance : JSRuntime.safeToString(site.getKey()), JSAttributes.getDefault());
+                JSObjectUtil.putDataProperty(context, entry, "location", location == null ? Null.instance : location, JSAttributes.getDefault());
+                JSObjectUtil.putDataProperty(context, entry, "state", site.getState(), JSAttributes.getDefault());
+                JSObjectUtil.putDataProperty(context, entry, "depth", site.getDepth(), JSAttributes.getDefault());
+                JSObjectUtil.putDataProperty(context, entry, "rewrites", site.getRewrites(), JSAttributes.getDefault());
+                JSObjectUtil.putDataProperty(context, entry, "megamorphicRewrites", site.getMegamorphicRewrites(), JSAttributes.getDefault());
+                JSObjectUtil.putDataProperty(context, entry, "reason", site.getReason(), JSAttributes.getDefault());
+                elements[i] = entry;
+            }
+            return JSArray.createConstant(context, elements);
+        }
+    }
+
+    /**
+     * {@code Graal.mapFile(path, options)}: maps a region of a file into memory and returns an
+     * {@code ArrayBuffer} (or, with {@code shared: true}, a {@code SharedArrayBuffer}) backed by
+     * it, so that typed arrays can access the file contents without copying. The mapping is
+     * read-only unless {@code writable: true} is given; writing to a read-only mapping throws a
+     * {@code TypeError}. A read-only mapping only requires read access to the file. The region is
+     * selected with {@code offset} and {@code length} (defaulting to the rest of the file).
+     * Writable mappings extend the file if the region ends beyond it.
+     */
+    public abstract static class GraalMapFileNode extends JSBuiltinNode {
+
+        public GraalMapFileNode(JSContext context, JSBuiltin builtin) {
+            super(context, builtin);
+        }
+
+        @Specialization
+        protected DynamicObject mapFile(Object path, Object options) {
+            String fileName = JSRuntime.toString(path);
+            boolean writable = false;
+            boolean shared = false;
+            long offset = 0;
+            long length = -1;
+            if (JSRuntime.isObject(options)) {
+                DynamicObject optionsObj = (DynamicObject) options;
+                writable = JSRuntime.toBoolean(JSObject.get(optionsObj, "writable"));
+                shared = JSRuntime.toBoolean(JSObject.get(optionsObj, "shared"));
+                Object offsetValue = JSObject.get(optionsObj, "offset");
+                if (offsetValue != Undefined.instance) {
+                    offset = JSRuntime.toInteger(offsetValue);
+                }
+                Object lengthValue = JSObject.get(optionsObj, "length");
+                if (lengthValue != Undefined.instance) {
+                    length = JSRuntime.toLength(lengthValue);
+                }
+            } else if (options != Undefined.instance) {
+                throw Errors.createTypeErrorNotAnObject(options);
+            }
+            if (offset < 0) {
+                throw Errors.createRangeError("Invalid file offset");
+            }
+            MappedByteBuffer buffer = map(fileName, writable, offset, length);
+            if (shared) {
+                return JSSharedArrayBuffer.createMappedSharedArrayBuffer(getContext(), buffer);
+            } else {
+                return JSArrayBuffer.createMappedArrayBuffer(getContext(), buffer);
+            }
+        }
+
+        @TruffleBoundary
+        private MappedByteBuffer map(String fileName, boolean writable, long offset, long length) {
+            try {
+                TruffleFile file = getContext().getRealm().getEnv().getPublicTruffleFile(fileName);
+                Set<OpenOption> openOptions = writable ? EnumSet.of(StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE) : EnumSet.of(StandardOpenOption.READ);
+                try (SeekableByteChannel channel = file.newByteChannel(openOptions)) {
+                    if (!(channel instanceof FileChannel)) {
+                        throw Errors.createTypeError("The file system does not support memory-mapped files");
+                    }
+                    FileChannel fileChannel = (FileChannel) channel;
+                    long fileSize = fileChannel.size();
+                    long size = length < 0 ? Math.max(0, fileSize - offset) : length;
+                    if (!writable && offset + size > fileSize) {
+                        throw Errors.createRangeError("Mapped region exceeds the file size");
+                    }
+                    if (size > getContext().getContextOptions().getMaxTypedArrayLength()) {
+                        throw Errors.createRangeError("Mapped region is too large");
+                    }
+                    MappedByteBuffer buffer = fileChannel.map(writable ? MapMode.READ_WRITE : MapMode.READ_ONLY, offset, size);
+                    buffer.order(ByteOrder.nativeOrder());
+                    return buffer;
+                }
+            } catch (IOException | SecurityException | UnsupportedOperationException | InvalidPathException e) {
+                throw Errors.createErrorFromException(e);
+            } catch (IllegalArgumentException e) {
+                // FileChannel.map rejects a negative offset or a size above Integer.MAX_VALUE
+                throw Errors.createRangeError("Invalid mapped region: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * {@code Graal.syncMappedBuffer(buffer)}: writes changes made to a buffer created by
+     * {@code Graal.mapFile} with {@code writable: true} back to the underlying file.
+     */
+    public abstract static class GraalSyncMappedBufferNode extends JSBuiltinNode {
+
+        public GraalSyncMappedBufferNode(JSContext context, JSBuiltin builtin) {
+            super(context, builtin);
+        }
+
+        @Specialization
+        protected Object sync(Object buffer) {
+            force(checkMappedBuffer(buffer));
+            return Undefined.instance;
+        }
+    }
+
+    /**
+     * {@code Graal.unmapFile(buffer)}: writes back pending changes and detaches an
+     * {@code ArrayBuffer} created by {@code Graal.mapFile}. The mapping itself is released once the
+     * buffer is no longer reachable. A {@code SharedArrayBuffer} cannot be detached.
+     */
+    public abstract static class GraalUnmapFileNode extends JSBuiltinNode {
+
+        public GraalUnmapFileNode(JSContext context, JSBuiltin builtin) {
+            super(context, builtin);
+        }
+
+        @Specialization
+        protected Object unmap(Object buffer) {
+            DynamicObject arrayBuffer = checkMappedBuffer(buffer);
+            if (!JSArrayBuffer.isJSDirectArrayBuffer(arrayBuffer)) {
+                throw Errors.createTypeError("SharedArrayBuffer cannot be unmapped");
+            }
+            force(arrayBuffer);
+            JSArrayBuffer.detachArrayBuffer(arrayBuffer);
+            return Undefined.instance;
+        }
+    }
+
+    private static DynamicObject checkMappedBuffer(Object buffer) {
+        if (JSArrayBuffer.isJSDirectArrayBuffer(buffer) || JSSharedArrayBuffer.isJSSharedArrayBuffer(buffer)) {
+            DynamicObject arrayBuffer = (DynamicObject) buffer;
+            if (JSArrayBufferObject.isFileMapped(arrayBuffer)) {
+                if (JSArrayBuffer.isJSDirectArrayBuffer(arrayBuffer) && JSArrayBuffer.isDetachedBuffer(arrayBuffer)) {
+                    throw Errors.createTypeErrorDetachedBuffer();
+                }
+                return arrayBuffer;
+            }
+        }
+        throw Errors.createTypeError("Memory-mapped ArrayBuffer or SharedArrayBuffer expected");
+    }
+
+    @TruffleBoundary
+    private static void force(DynamicObject arrayBuffer) {
+        ((MappedByteBuffer) ((JSArrayBufferObject.DirectBase) arrayBuffer).getByteBuffer()).force();
+    }
+
+    /**
+     * {@code Graal.regexCacheStatistics()}: returns an object with the {@code size},
+     * {@code capacity}, {@code hits} and {@code misses} of the context-wide cache of compiled
+     * regular expressions (see {@code --js.regex-cache-size}). Only compilations that are not
+     * served by the cache of their call site reach this cache.
+     */
+    public abstract static class GraalRegexCacheStatisticsNode extends JSBuiltinNode {
+
+        public GraalRegexCacheStatisticsNode(JSContext context, JSBuiltin builtin) {
+            super(context, builtin);
+        }
+
+        @Specialization
+        protected DynamicObject regexCacheStatistics() {
+            CompiledRegexCache cache = getContext().getCompiledRegexCache();
+            if (cache == null) {
+                throw Errors.createTypeError("Regex cache is disabled, use --" + JSContextOptions.REGEX_CACHE_SIZE_NAME);
+            }
+            return toObject(cache);
+        }
+
+        @TruffleBoundary
+        private DynamicObject toObject(CompiledRegexCache cache) {
+            JSContext context = getContext();
+            DynamicObject result = JSOrdinary.create(context);
+            JSObjectUtil.putDataProperty(context, result, "size", cache.getSize(), JSAttributes.getDefault());
+            JSObjectUtil.putDataProperty(context, result, "capacity", cache.getCapacity(), JSAttributes.getDefault());
+            JSObjectUtil.putDataProperty(context, result, "hits", JSRuntime.longToIntOrDouble(cache.getHits()), JSAttributes.getDefault());
+            JSObjectUtil.putDataProperty(context, result, "misses", JSRuntime.longToIntOrDouble(cache.getMisses()), JSAttributes.getDefault());
+            return result;
+        }
+    }
+
+    /**
+     * {@code Graal.snapshotRealm()}: records the state of the global object and the intrinsics of
+     * the current realm (see {@code --js.realm-snapshot}), typically after running warmup scripts.
+     * Can only be called once per realm. Returns the number of recorded objects.
+     */
+    public abstract static class GraalSnapshotRealmNode extends JSBuiltinNode {
+
+        public GraalSnapshotRealmNode(JSContext context, JSBuiltin builtin) {
+            super(context, builtin);
+        }
+
+        @Specialization
+        protected int snapshotRealm() {
+            checkRealmSnapshotEnabled(getContext());
+            return getContext().getRealm().createSnapshot().getObjectCount();
+        }
+    }
+
+    /**
+     * {@code Graal.resetRealm()}: resets the current realm to the state recorded by
+     * {@code Graal.snapshotRealm()}, discarding global variables and changes to the intrinsics.
+     * Returns the number of objects that had to be restored. Throws a TypeError without resetting
+     * anything if the realm was changed in a way that cannot be undone (see {@link RealmSnapshot});
+     * the context should be discarded then. Embedders should keep a reference to this function from
+     * before running untrusted code, since the global {@code Graal} object is itself part of the
+     * state that such code can modify.
+     */
+    public abstract static class GraalResetRealmNode extends JSBuiltinNode {
+
+        public GraalResetRealmNode(JSContext context, JSBuiltin builtin) {
+            super(context, builtin);
+        }
+
+        @Specialization
+        protected int resetRealm() {
+            checkRealmSnapshotEnabled(getContext());
+            RealmSnapshot snapshot = getContext().getRealm().getSnapshot();
+            if (snapshot == null) {
+                throw Errors.createTypeError("No realm snapshot taken, use Graal.snapshotRealm()");
+            }
+            return snapshot.restore();
+        }
+    }
+
+    private static void checkRealmSnapshotEnabled(JSContext context) {
+        if (!context.getContextOptions().isRealmSnapshot()) {
+            throw Errors.createTypeError("Realm snapshots are disabled, use --" + JSContextOptions.REALM_SNAPSHOT_NAME);
+        }
+    }
+
+    /**
+     * Passes every chunk of output to a JavaScript callback.
+     */
+    private static final class CallbackWriter extends Writer {
+        private final Object callback;
+
+        CallbackWriter(Object callback) {
+            this.callback = callback;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            JSRuntime.call(callback, Undefined.instance, new Object[]{new String(cbuf, off, len)});
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Writes to the remaining space of a {@link ByteBuffer}, advancing its position.
+     */
+    private static final class ByteBufferOutputStream extends OutputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferOutputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len > buffer.remaining()) {
+                throw new IOException("ByteBuffer overflow");
+            }
+            buffer.put(b, off, len);
+        }
+    }
+}
@@ -242,6 +242,11 @@ public final class JSONBuiltins extends JSBuiltinsContainer.SwitchEnum<JSONBuilt
 
         @Specialization(guards = "isArray(replacerObj)")
         protected Object stringifyReplacerArray(Object value, DynamicObject replacerObj, Object spaceParam) {
+            return stringifyIntl(value, spaceParam, null, toReplacerList(replacerObj));
+        }
+
+        @TruffleBoundary
+        static List<String> toReplacerList(DynamicObject replacerObj) {
             int len = (int) JSRuntime.toLength(JSObject.get(replacerObj, JSArray.LENGTH));
             List<String> replacerList = new ArrayList<>();
             for (int i = 0; i < len; i++) {
@@ -251,13 +256,13 @@ public final class JSONBuiltins extends JSBuiltinsContainer.SwitchEnum<JSONBuilt
                 if (JSRuntime.isString(v)) {
                     item = JSRuntime.toStringIsString(v);
                 } else if (JSRuntime.isNumber(v) || JSNumber.isJSNumber(v) || JSString.isJSString(v)) {
-                    item = toString(v);
+                    item = JSRuntime.toString(v);
                 }
                 if (item != null) { // If item is not undefined ...
                     addToReplacer(replacerList, item);
                 }
             }
-            return stringifyIntl(value, spaceParam, null, replacerList);
+            return replacerList;
         }
 
         @TruffleBoundary
@@ -324,6 +329,26 @@ public final class JSONBuiltins extends JSBuiltinsContainer.SwitchEnum<JSONBuilt
             }
         }
 
+        /**
+         * Uncached variant of {@link #getGap}.
+         */
+        @TruffleBoundary
+        static String toGap(Object spaceParam) {
+            Object space = spaceParam;
+            if (JSNumber.isJSNumber(space)) {
+                space = JSRuntime.toNumber(space);
+            } else if (JSString.isJSString(space)) {
+                space = JSRuntime.toString(space);
+            }
+            if (JSRuntime.isNumber(space)) {
+                return makeGap((int) Math.max(0, Math.min(10, JSRuntime.toInteger(space))));
+            } else if (JSRuntime.isString(space)) {
+                return makeGap(JSRuntime.toStringIsString(space));
+            } else {
+                return "";
+            }
+        }
+
         @TruffleBoundary
         private static String makeGap(String spaceStr) {
             if (spaceStr.length() <= 10) {
@@ -139,7 +139,7 @@ public final class StringFunctionBuiltins extends JSBuiltinsContainer.SwitchEnum
 
         @Specialization(guards = "args.length == 1")
         protected String fromCharCodeOneArg(Object[] args) {
-            return String.valueOf(toChar(args[0]));
+            return JSRuntime.charToString(toChar(args[0]));
         }
 
         @Specialization(guards = "args.length >= 2")
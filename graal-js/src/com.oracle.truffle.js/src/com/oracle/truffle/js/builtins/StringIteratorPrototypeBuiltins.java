@@ -56,6 +56,7 @@ import com.oracle.truffle.js.nodes.function.JSBuiltinNode;
 import com.oracle.truffle.js.runtime.Boundaries;
 import com.oracle.truffle.js.runtime.Errors;
 import com.oracle.truffle.js.runtime.JSContext;
+import com.oracle.truffle.js.runtime.JSRuntime;
 import com.oracle.truffle.js.runtime.builtins.BuiltinEnum;
 import com.oracle.truffle.js.runtime.builtins.JSString;
 import com.oracle.truffle.js.runtime.objects.Undefined;
@@ -134,13 +135,13 @@ public final class StringIteratorPrototypeBuiltins extends JSBuiltinsContainer.S
             char first = string.charAt(index);
             String result;
             if (isSingleChar.profile(!Character.isHighSurrogate(first) || index + 1 == length)) {
-                result = String.valueOf(first);
+                result = JSRuntime.charToString(first);
             } else {
                 char second = string.charAt(index + 1);
                 if (isLowSurrogate.profile(Character.isLowSurrogate(second))) {
                     result = Boundaries.stringValueOf(new char[]{first, second});
                 } else {
-                    result = String.valueOf(first);
+                    result = JSRuntime.charToString(first);
                 }
             }
             setNextIndexNode.setValue(iterator, index + result.length());
@@ -551,7 +551,7 @@ public final class StringPrototypeBuiltins extends JSBuiltinsContainer.SwitchEnu
             if (indexOutOfBounds.profile(pos < 0 || pos >= thisStr.length())) {
                 return "";
             } else {
-                return String.valueOf(thisStr.charAt(pos));
+                return JSRuntime.charToString(thisStr.charAt(pos));
             }
         }
 
@@ -1059,7 +1059,7 @@ public final class StringPrototypeBuiltins extends JSBuiltinsContainer.SwitchEnu
                 int len = Math.min(input.length(), limit);
                 Object[] array = new Object[len];
                 for (int i = 0; i < len; i++) {
-                    array[i] = String.valueOf(input.charAt(i));
+                    array[i] = JSRuntime.charToString(input.charAt(i));
                 }
                 return array;
             }
@@ -2888,7 +2888,7 @@ public final class StringPrototypeBuiltins extends JSBuiltinsContainer.SwitchEnu
             if (k < 0 || k >= thisStr.length()) {
                 return Undefined.instance;
             }
-            return String.valueOf(thisStr.charAt(k));
+            return JSRuntime.charToString(thisStr.charAt(k));
         }
     }
 }
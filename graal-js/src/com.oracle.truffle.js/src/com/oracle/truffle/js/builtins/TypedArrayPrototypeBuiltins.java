@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2018, 2020, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2018, 2021, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * The Universal Permissive License (UPL), Version 1.0
@@ -90,7 +90,6 @@ import com.oracle.truffle.js.nodes.array.JSGetLengthNode;
 import com.oracle.truffle.js.nodes.cast.JSToBigIntNode;
 import com.oracle.truffle.js.nodes.cast.JSToNumberNode;
 import com.oracle.truffle.js.nodes.cast.JSToObjectNode;
-import com.oracle.truffle.js.nodes.control.DeletePropertyNode;
 import com.oracle.truffle.js.nodes.function.JSBuiltin;
 import com.oracle.truffle.js.nodes.function.JSBuiltinNode;
 import com.oracle.truffle.js.runtime.BigInt;
@@ -101,6 +100,7 @@ import com.oracle.truffle.js.runtime.JSContext;
 import com.oracle.truffle.js.runtime.JSRuntime;
 import com.oracle.truffle.js.runtime.array.ScriptArray;
 import com.oracle.truffle.js.runtime.array.TypedArray;
+import com.oracle.truffle.js.runtime.array.TypedArrayBulkOperations;
 import com.oracle.truffle.js.runtime.builtins.BuiltinEnum;
 import com.oracle.truffle.js.runtime.builtins.JSArray;
 import com.oracle.truffle.js.runtime.builtins.JSArrayBuffer;
@@ -457,13 +457,19 @@ public final class TypedArrayPrototypeBuiltins extends JSBuiltinsContainer.Switc
                         int targetOffset, int targetByteOffset, int sourceLength, int sourceByteIndex) {
             Object targetBackingBuffer = isDirectProf.profile(targetType.isDirect()) ? JSArrayBuffer.getDirectByteBuffer(targetBuffer) : JSArrayBuffer.getByteArray(targetBuffer);
             Object sourceBackingBuffer = isDirectProf.profile(sourceType.isDirect()) ? JSArrayBuffer.getDirectByteBuffer(sourceBuffer) : JSArrayBuffer.getByteArray(sourceBuffer);
+            if (isDirectProf.profile(targetType.isDirect()) && ((ByteBuffer) targetBackingBuffer).isReadOnly()) {
+                throw Errors.createTypeErrorReadOnlyBuffer();
+            }
             int targetElementSize = targetType.bytesPerElement();
             int sourceElementSize = sourceType.bytesPerElement();
             int targetByteIndex = targetByteOffset + targetOffset * targetElementSize;
             if (sourceType == targetType) {
                 // same element type => bulk copy
                 int sourceByteLength = sourceLength * sourceElementSize;
-                if (isDirectProf.profile(targetType.isDirect())) {
+                int parallelThreshold = getContext().getContextOptions().getTypedArrayParallelThreshold();
+                if (parallelThreshold > 0 && sourceByteLength >= parallelThreshold) {
+                    TypedArrayBulkOperations.copy(sourceBackingBuffer, sourceByteIndex, targetBackingBuffer, targetByteIndex, sourceByteLength, parallelThreshold);
+                } else if (isDirectProf.profile(targetType.isDirect())) {
                     Boundaries.byteBufferPutSlice((ByteBuffer) targetBackingBuffer, targetByteIndex, (ByteBuffer) sourceBackingBuffer, sourceByteIndex, sourceByteIndex + sourceByteLength);
                 } else {
                     System.arraycopy(sourceBackingBuffer, sourceByteIndex, targetBackingBuffer, targetByteIndex, sourceByteLength);
@@ -581,45 +587,10 @@ public final class TypedArrayPrototypeBuiltins extends JSBuiltinsContainer.Switc
         }
 
         @Specialization(guards = "isJSArrayBufferView(thisObj)")
-        protected DynamicObject reverse(DynamicObject thisObj,
-                        @Cached("create(THROW_ERROR, getContext())") DeletePropertyNode deletePropertyNode) {
+        protected DynamicObject reverse(DynamicObject thisObj) {
             checkHasDetachedBuffer(thisObj);
-            long len = getLength(thisObj);
-            long middle = len / 2L;
-            long lower = 0;
-
-            while (lower != middle) {
-                long upper = len - lower - 1;
-                Object lowerValue = null;
-                Object upperValue = null;
-                boolean lowerExists = hasProperty(thisObj, lower);
-                if (lowerExists) {
-                    lowerValue = read(thisObj, lower);
-                }
-                boolean upperExists = hasProperty(thisObj, upper);
-                if (upperExists) {
-                    upperValue = read(thisObj, upper);
-                }
-
-                if (lowerExists && upperExists) {
-                    write(thisObj, lower, upperValue);
-                    write(thisObj, upper, lowerValue);
-                } else if (upperExists) {
-                    write(thisObj, lower, upperValue);
-                    deletePropertyNode.executeEvaluated(thisObj, upper);
-                } else if (lowerExists) {
-                    deletePropertyNode.executeEvaluated(thisObj, lower);
-                    write(thisObj, upper, lowerValue);
-                }
-
-                long nextLower = nextElementIndex(thisObj, lower, len);
-                long nextUpper = previousElementIndex(thisObj, upper);
-                if ((len - nextLower - 1) >= nextUpper) {
-                    lower = nextLower;
-                } else {
-                    lower = len - nextUpper - 1;
-                }
-            }
+            TypedArray typedArray = typedArrayGetArrayType(thisObj);
+            TypedArrayBulkOperations.reverse(thisObj, typedArray, typedArray.lengthInt(thisObj), getContext().getContextOptions().getTypedArrayParallelThreshold());
             return thisObj;
         }
 
@@ -633,6 +604,7 @@ public final class TypedArrayPrototypeBuiltins extends JSBuiltinsContainer.Switc
     public abstract static class JSArrayBufferViewFillNode extends JSArrayOperationWithToInt {
         private final ConditionProfile offsetProfile1 = ConditionProfile.createBinaryProfile();
         private final ConditionProfile offsetProfile2 = ConditionProfile.createBinaryProfile();
+        private final ConditionProfile isBulkFill = ConditionProfile.createBinaryProfile();
         @Child private JSToNumberNode toNumberNode;
         @Child private JSToBigIntNode toBigIntNode;
 
@@ -649,8 +621,12 @@ public final class TypedArrayPrototypeBuiltins extends JSBuiltinsContainer.Switc
             long lStart = JSRuntime.getOffset(toIntegerAsLong(start), len, offsetProfile1);
             long lEnd = end == Undefined.instance ? len : JSRuntime.getOffset(toIntegerAsLong(end), len, offsetProfile2);
             checkHasDetachedBuffer(thisJSObj);
-            for (long idx = lStart; idx < lEnd; idx++) {
-                write(thisJSObj, idx, convValue);
+            if (isBulkFill.profile(lEnd - lStart >= TypedArrayBulkOperations.MIN_BULK_LENGTH)) {
+                TypedArrayBulkOperations.fill(thisJSObj, typedArrayGetArrayType(thisJSObj), (int) lStart, (int) lEnd, convValue, getContext().getContextOptions().getTypedArrayParallelThreshold());
+            } else {
+                for (long idx = lStart; idx < lEnd; idx++) {
+                    write(thisJSObj, idx, convValue);
+                }
             }
             return thisJSObj;
         }
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2018, 2020, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2018, 2021, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * The Universal Permissive License (UPL), Version 1.0
@@ -40,9 +40,6 @@
  */
 package com.oracle.truffle.js.builtins;
 
-import java.util.WeakHashMap;
-
-import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.dsl.Cached;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.object.DynamicObject;
@@ -176,9 +173,7 @@ public final class WeakMapPrototypeBuiltins extends JSBuiltinsContainer.SwitchEn
             WeakMap map = (WeakMap) JSWeakMap.getInternalWeakMap(thisObj);
             if (hasInvertedProfile.profile(invertedHas.executeHasHiddenKey(key))) {
                 Object inverted = invertedKlassProfile.profile(invertedGetter.getValue(key));
-                @SuppressWarnings("unchecked")
-                WeakHashMap<WeakMap, Object> invertedMap = (WeakHashMap<WeakMap, Object>) inverted;
-                Object value = mapGet(map, invertedMap);
+                Object value = map.invertedGet(inverted);
                 if (value != null) {
                     return value;
                 }
@@ -207,11 +202,6 @@ public final class WeakMapPrototypeBuiltins extends JSBuiltinsContainer.SwitchEn
         protected static boolean notWeakMap(Object thisObj, Object key) {
             throw typeErrorWeakMapExpected();
         }
-
-        @TruffleBoundary(allowInlining = true)
-        private static Object mapGet(WeakMap map, WeakHashMap<WeakMap, Object> invertedMap) {
-            return invertedMap.get(map);
-        }
     }
 
     /**
@@ -232,9 +222,7 @@ public final class WeakMapPrototypeBuiltins extends JSBuiltinsContainer.SwitchEn
             WeakMap map = (WeakMap) JSWeakMap.getInternalWeakMap(thisObj);
             if (hasInvertedProfile.profile(invertedHas.executeHasHiddenKey(key))) {
                 Object inverted = invertedKlassProfile.profile(invertedGetter.getValue(key));
-                @SuppressWarnings("unchecked")
-                WeakHashMap<WeakMap, Object> invertedMap = (WeakHashMap<WeakMap, Object>) inverted;
-                mapPut(map, invertedMap, value);
+                map.invertedPut(key, inverted, value);
             } else {
                 Boundaries.mapPut(JSWeakMap.getInternalWeakMap(thisObj), key, value);
             }
@@ -258,11 +246,6 @@ public final class WeakMapPrototypeBuiltins extends JSBuiltinsContainer.SwitchEn
         protected static DynamicObject notWeakMap(Object thisObj, Object key, Object value) {
             throw typeErrorWeakMapExpected();
         }
-
-        @TruffleBoundary(allowInlining = true)
-        private static Object mapPut(WeakMap map, WeakHashMap<WeakMap, Object> invertedMap, Object value) {
-            return invertedMap.put(map, value);
-        }
     }
 
     /**
@@ -283,18 +266,11 @@ public final class WeakMapPrototypeBuiltins extends JSBuiltinsContainer.SwitchEn
             WeakMap map = (WeakMap) JSWeakMap.getInternalWeakMap(thisObj);
             if (hasInvertedProfile.profile(invertedHas.executeHasHiddenKey(key))) {
                 Object inverted = invertedKlassProfile.profile(invertedGetter.getValue(key));
-                @SuppressWarnings("unchecked")
-                WeakHashMap<WeakMap, Object> invertedMap = (WeakHashMap<WeakMap, Object>) inverted;
-                return mapHas(map, invertedMap);
+                return map.invertedGet(inverted) != null;
             }
             return false;
         }
 
-        @TruffleBoundary(allowInlining = true)
-        private static boolean mapHas(WeakMap map, WeakHashMap<WeakMap, Object> invertedMap) {
-            return invertedMap.containsKey(map);
-        }
-
         @Specialization(guards = {"isJSWeakMap(thisObj)", "isJSObject(key)"})
         protected static boolean has(DynamicObject thisObj, DynamicObject key) {
             return Boundaries.mapContainsKey(JSWeakMap.getInternalWeakMap(thisObj), key);
@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.builtins;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.object.DynamicObject;
+import com.oracle.truffle.js.builtins.WorkerPrototypeBuiltinsFactory.WorkerCloseNodeGen;
+import com.oracle.truffle.js.builtins.WorkerPrototypeBuiltinsFactory.WorkerGlobalPostMessageNodeGen;
+import com.oracle.truffle.js.builtins.WorkerPrototypeBuiltinsFactory.WorkerPostMessageNodeGen;
+import com.oracle.truffle.js.builtins.WorkerPrototypeBuiltinsFactory.WorkerReceiveMessageNodeGen;
+import com.oracle.truffle.js.builtins.WorkerPrototypeBuiltinsFactory.WorkerTerminateNodeGen;
+import com.oracle.truffle.js.nodes.cast.JSToNumberNode;
+import com.oracle.truffle.js.nodes.cast.JSToObjectArrayNode;
+import com.oracle.truffle.js.nodes.function.JSBuiltin;
+import com.oracle.truffle.js.nodes.function.JSBuiltinNode;
+import com.oracle.truffle.js.runtime.Errors;
+import com.oracle.truffle.js.runtime.JSContext;
+import com.oracle.truffle.js.runtime.WorkerJSAgent;
+import com.oracle.truffle.js.runtime.builtins.BuiltinEnum;
+import com.oracle.truffle.js.runtime.builtins.JSWorker;
+import com.oracle.truffle.js.runtime.objects.Undefined;
+import com.oracle.truffle.js.runtime.util.StructuredClone;
+
+/**
+ * Contains builtins for {@linkplain JSWorker}.prototype and for the global scope of a worker.
+ */
+public final class WorkerPrototypeBuiltins extends JSBuiltinsContainer.SwitchEnum<WorkerPrototypeBuiltins.WorkerPrototype> {
+
+    public static final JSBuiltinsContainer BUILTINS = new WorkerPrototypeBuiltins();
+    public static final JSBuiltinsContainer WORKER_GLOBAL_SCOPE = new WorkerGlobalScopeBuiltins();
+
+    protected WorkerPrototypeBuiltins() {
+        super(JSWorker.PROTOTYPE_NAME, WorkerPrototype.class);
+    }
+
+    public enum WorkerPrototype implements BuiltinEnum<WorkerPrototype> {
+        postMessage(1),
+        receiveMessage(0),
+        terminate(0);
+
+        private final int length;
+
+        WorkerPrototype(int length) {
+            this.length = length;
+        }
+
+        @Override
+        public int getLength() {
+            return length;
+        }
+    }
+
+    @Override
+    protected Object createNode(JSContext context, JSBuiltin builtin, boolean construct, boolean newTarget, WorkerPrototype builtinEnum) {
+        switch (builtinEnum) {
+            case postMessage:
+                return WorkerPostMessageNodeGen.create(context, builtin, args().withThis().fixedArgs(2).createArgumentNodes(context));
+            case receiveMessage:
+                return WorkerReceiveMessageNodeGen.create(context, builtin, args().withThis().fixedArgs(1).createArgumentNodes(context));
+            case terminate:
+                return WorkerTerminateNodeGen.create(context, builtin, args().withThis().createArgumentNodes(context));
+        }
+        return null;
+    }
+
+    /**
+     * Built-ins of the global object of a worker.
+     */
+    public static final class WorkerGlobalScopeBuiltins extends JSBuiltinsContainer.SwitchEnum<WorkerGlobalScopeBuiltins.WorkerGlobalScope> {
+        protected WorkerGlobalScopeBuiltins() {
+            super(WorkerGlobalScope.class);
+        }
+
+        public enum WorkerGlobalScope implements BuiltinEnum<WorkerGlobalScope> {
+            postMessage(1),
+            close(0);
+
+            private final int length;
+
+            WorkerGlobalScope(int length) {
+                this.length = length;
+            }
+
+            @Override
+            public int getLength() {
+                return length;
+            }
+        }
+
+        @Override
+        protected Object createNode(JSContext context, JSBuiltin builtin, boolean construct, boolean newTarget, WorkerGlobalScope builtinEnum) {
+            switch (builtinEnum) {
+                case postMessage:
+                    return WorkerGlobalPostMessageNodeGen.create(context, builtin, args().fixedArgs(2).createArgumentNodes(context));
+                case close:
+                    return WorkerCloseNodeGen.create(context, builtin, args().createArgumentNodes(context));
+            }
+            return null;
+        }
+    }
+
+    public abstract static class WorkerOperation extends JSBuiltinNode {
+        public WorkerOperation(JSContext context, JSBuiltin builtin) {
+            super(context, builtin);
+        }
+
+        protected static WorkerJSAgent getWorkerAgent(Object thisObj) {
+            if (!JSWorker.isJSWorker(thisObj)) {
+                throw Errors.createTypeErrorIncompatibleReceiver(thisObj);
+            }
+            return JSWorker.getAgent((DynamicObject) thisObj);
+        }
+    }
+
+    /**
+     * Implementation of Worker.prototype.postMessage(message, transfer).
+     */
+    public abstract static class WorkerPostMessageNode extends WorkerOperation {
+
+        public WorkerPostMessageNode(JSContext context, JSBuiltin builtin) {
+            super(context, builtin);
+        }
+
+        @Specialization
+        protected Object postMessage(Object thisObj, Object message, Object transfer,
+                        @Cached("create(getContext(), true)") JSToObjectArrayNode toTransferList) {
+            WorkerJSAgent agent = getWorkerAgent(thisObj);
+            agent.postMessageToWorker(StructuredClone.serialize(message, toTransferList.executeObjectArray(transfer)));
+            return Undefined.instance;
+        }
+    }
+
+    /**
+     * Implementation of Worker.prototype.receiveMessage(timeout). Blocks until the worker posts a
+     * message; returns undefined on timeout or once the worker has finished.
+     */
+    public abstract static class WorkerReceiveMessageNode extends WorkerOperation {
+
+        public WorkerReceiveMessageNode(JSContext context, JSBuiltin builtin) {
+            super(context, builtin);
+        }
+
+        @Specialization
+        protected Object receiveMessage(Object thisObj, Object timeout,
+                        @Cached("create()") JSToNumberNode toNumber) {
+            WorkerJSAgent agent = getWorkerAgent(thisObj);
+            long timeoutMillis = timeout == Undefined.instance ? -1 : toTimeoutMillis(toNumber.executeNumber(timeout).doubleValue());
+            Object message = agent.receiveMessageFromWorker(timeoutMillis);
+            if (message == null) {
+                return Undefined.instance;
+            }
+            return StructuredClone.deserialize(getContext(), message);
+        }
+
+        private static long toTimeoutMillis(double timeout) {
+            if (Double.isNaN(timeout) || timeout == Double.POSITIVE_INFINITY) {
+                return -1;
+            }
+            return (long) Math.max(timeout, 0);
+        }
+    }
+
+    /**
+     * Implementation of Worker.prototype.terminate().
+     */
+    public abstract static class WorkerTerminateNode extends WorkerOperation {
+
+        public WorkerTerminateNode(JSContext context, JSBuiltin builtin) {
+            super(context, builtin);
+        }
+
+        @Specialization
+        protected Object terminate(Object thisObj) {
+            getWorkerAgent(thisObj).terminate(0);
+            return Undefined.instance;
+        }
+    }
+
+    /**
+     * Implementation of the global postMessage(message, transfer) of a worker.
+     */
+    public abstract static class WorkerGlobalPostMessageNode extends JSBuiltinNode {
+
+        public WorkerGlobalPostMessageNode(JSContext context, JSBuiltin builtin) {
+            super(context, builtin);
+        }
+
+        @Specialization
+        protected Object postMessage(Object message, Object transfer,
+                        @Cached("create(getContext(), true)") JSToObjectArrayNode toTransferList) {
+            Object serialized = StructuredClone.serialize(message, toTransferList.executeObjectArray(transfer));
+            getWorkerAgent().postMessageToOwner(serialized);
+            return Undefined.instance;
+        }
+
+        @TruffleBoundary
+        private WorkerJSAgent getWorkerAgent() {
+            return (WorkerJSAgent) getContext().getJSAgent();
+        }
+    }
+
+    /**
+     * Implementation of the global close() of a worker.
+     */
+    public abstract static class WorkerCloseNode extends JSBuiltinNode {
+
+        public WorkerCloseNode(JSContext context, JSBuiltin builtin) {
+            super(context, builtin);
+        }
+
+        @Specialization
+        protected Object close() {
+            ((WorkerJSAgent) getContext().getJSAgent()).close();
+            return Undefined.instance;
+        }
+    }
+}
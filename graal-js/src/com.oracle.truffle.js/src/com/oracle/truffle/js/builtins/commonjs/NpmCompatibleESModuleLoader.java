@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2020, 2021, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * The Universal Permissive License (UPL), Version 1.0
@@ -114,6 +114,23 @@ public final class NpmCompatibleESModuleLoader extends DefaultESModuleLoader {
         }
     }
 
+    /**
+     * The resolution reads {@code package.json} files with the JSON parser of the realm, which must
+     * not be used on the module parser threads.
+     */
+    @Override
+    protected boolean canResolveConcurrently() {
+        return false;
+    }
+
+    @Override
+    protected TruffleFile resolveModuleFile(ScriptOrModule referencingModule, String specifier) {
+        if (isCoreModule(specifier)) {
+            return null;
+        }
+        return resolveURL(referencingModule, specifier);
+    }
+
     private JSModuleRecord loadCoreModule(ScriptOrModule referencingModule, String specifier) {
         log("IMPORT resolve built-in ", specifier);
         JSModuleRecord existingModule = moduleMap.get(specifier);
@@ -165,6 +182,7 @@ public final class NpmCompatibleESModuleLoader extends DefaultESModuleLoader {
         }
         JSModuleRecord record = realm.getContext().getEvaluator().parseModule(realm.getContext(), src, this);
         moduleMap.put(specifier, record);
+        prefetchRequestedModules(record);
         return record;
     }
 
@@ -40,10 +40,14 @@
  */
 package com.oracle.truffle.js.builtins.helper;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.List;
 
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.object.DynamicObject;
+import com.oracle.truffle.js.runtime.Errors;
 
 public class JSONData {
 
@@ -52,13 +56,25 @@ public class JSONData {
     private final String gap;
     private final List<String> propertyList;
     private final DynamicObject replacerFnObj;
+    private final Writer sink;
+    private char[] sinkBuffer;
 
     private static final int MAX_STACK_SIZE = 1000;
 
+    /**
+     * Number of buffered characters after which the output is written to the sink (if any).
+     */
+    public static final int SINK_CHUNK_SIZE = 8192;
+
     public JSONData(String gap, DynamicObject replacerFnObj, List<String> replacerList) {
+        this(gap, replacerFnObj, replacerList, null);
+    }
+
+    public JSONData(String gap, DynamicObject replacerFnObj, List<String> replacerList, Writer sink) {
         this.gap = gap;
         this.replacerFnObj = replacerFnObj;
         this.propertyList = replacerList;
+        this.sink = sink;
     }
 
     public String getGap() {
@@ -92,4 +108,41 @@ public class JSONData {
     public void popStack() {
         stack.remove(stack.size() - 1);
     }
+
+    /**
+     * Returns the sink the output is streamed to, or {@code null} if the result is to be
+     * materialized as a single string.
+     */
+    public Writer getSink() {
+        return sink;
+    }
+
+    /**
+     * Moves the content of the builder to the sink. A trailing high surrogate is kept in the
+     * builder so that surrogate pairs are never split between two chunks.
+     */
+    @TruffleBoundary
+    public void writeToSink(StringBuilder builder, boolean last) {
+        assert sink != null;
+        int length = builder.length();
+        if (!last && length > 0 && Character.isHighSurrogate(builder.charAt(length - 1))) {
+            length--;
+        }
+        if (sinkBuffer == null) {
+            sinkBuffer = new char[SINK_CHUNK_SIZE];
+        }
+        try {
+            for (int start = 0; start < length; start += sinkBuffer.length) {
+                int end = Math.min(length, start + sinkBuffer.length);
+                builder.getChars(start, end, sinkBuffer, 0);
+                sink.write(sinkBuffer, 0, end - start);
+            }
+            if (last) {
+                sink.flush();
+            }
+        } catch (IOException e) {
+            throw Errors.createError("Cannot write JSON output: " + e.getMessage(), e);
+        }
+        builder.delete(0, length);
+    }
 }
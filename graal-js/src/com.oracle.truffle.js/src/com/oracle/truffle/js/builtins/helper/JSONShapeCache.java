@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.builtins.helper;
+
+import java.util.List;
+
+import com.oracle.truffle.api.object.DynamicObject;
+import com.oracle.truffle.api.object.Property;
+import com.oracle.truffle.api.object.Shape;
+import com.oracle.truffle.js.runtime.JSContext;
+import com.oracle.truffle.js.runtime.JSRuntime;
+import com.oracle.truffle.js.runtime.builtins.JSOrdinary;
+import com.oracle.truffle.js.runtime.objects.JSProperty;
+import com.oracle.truffle.js.runtime.objects.JSShape;
+
+/**
+ * Speeds up the creation of JSON objects with recurring key sequences (e.g., arrays of records).
+ * For every nesting depth, remembers the keys of the last object parsed at that depth together
+ * with the shape transitions taken when its members were added. Subsequent objects with the same
+ * keys are then populated by storing the values directly into the cached property locations,
+ * without any property lookup or shape transition search.
+ */
+final class JSONShapeCache {
+
+    private static final int MAX_DEPTH = 16;
+    private static final int MAX_MEMBERS = 64;
+
+    private final JSContext context;
+    private final ShapeTemplate[] templates = new ShapeTemplate[MAX_DEPTH];
+
+    JSONShapeCache(JSContext context) {
+        this.context = context;
+    }
+
+    /**
+     * Creates an ordinary object from the members in {@code members}, starting at index
+     * {@code start}; keys and values alternate.
+     */
+    DynamicObject createObject(int depth, List<Object> members, int start) {
+        DynamicObject object = JSOrdinary.create(context);
+        int size = (members.size() - start) / 2;
+        if (depth >= MAX_DEPTH || size > MAX_MEMBERS) {
+            for (int i = start; i < members.size(); i += 2) {
+                JSRuntime.createDataProperty(object, members.get(i), members.get(i + 1));
+            }
+            return object;
+        }
+        ShapeTemplate template = templates[depth];
+        if (template != null && template.matches(object, members, start, size)) {
+            template.populate(object, members, start);
+        } else {
+            templates[depth] = ShapeTemplate.populateAndCreate(object, members, start, size);
+        }
+        return object;
+    }
+
+    private static final class ShapeTemplate {
+        private final String[] keys;
+        /** {@code shapes[i]} is the shape before and {@code shapes[i + 1]} after adding key i. */
+        private final Shape[] shapes;
+        private final Property[] properties;
+
+        private ShapeTemplate(String[] keys, Shape[] shapes, Property[] properties) {
+            this.keys = keys;
+            this.shapes = shapes;
+            this.properties = properties;
+        }
+
+        /**
+         * Adds the members to the object and records the shape transitions. Returns {@code null}
+         * if the transitions cannot be replayed (e.g., due to duplicate keys).
+         */
+        static ShapeTemplate populateAndCreate(DynamicObject object, List<Object> members, int start, int size) {
+            String[] keys = new String[size];
+            Shape[] shapes = new Shape[size + 1];
+            Property[] properties = new Property[size];
+            boolean cacheable = true;
+            shapes[0] = object.getShape();
+            for (int i = 0; i < size; i++) {
+                String key = (String) members.get(start + 2 * i);
+                JSRuntime.createDataProperty(object, key, members.get(start + 2 * i + 1));
+                Shape newShape = object.getShape();
+                Property property = newShape.getProperty(key);
+                if (newShape == shapes[i] || property == null || !JSProperty.isData(property) || JSProperty.isProxy(property)) {
+                    cacheable = false;
+                }
+                keys[i] = key;
+                shapes[i + 1] = newShape;
+                properties[i] = property;
+            }
+            if (!cacheable || JSShape.getJSClass(shapes[size]) != JSOrdinary.INSTANCE) {
+                return null;
+            }
+            return new ShapeTemplate(keys, shapes, properties);
+        }
+
+        boolean matches(DynamicObject object, List<Object> members, int start, int size) {
+            if (size != keys.length || object.getShape() != shapes[0]) {
+                return false;
+            }
+            for (int i = 0; i < size; i++) {
+                if (!shapes[i + 1].isValid() || !keys[i].equals(members.get(start + 2 * i)) || !properties[i].getLocation().canStore(members.get(start + 2 * i + 1))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void populate(DynamicObject object, List<Object> members, int start) {
+            for (int i = 0; i < keys.length; i++) {
+                properties[i].setSafe(object, members.get(start + 2 * i + 1), shapes[i], shapes[i + 1]);
+            }
+            assert object.getShape() == shapes[keys.length];
+        }
+    }
+}
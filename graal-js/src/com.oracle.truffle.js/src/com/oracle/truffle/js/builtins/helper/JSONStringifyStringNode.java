@@ -40,6 +40,7 @@
  */
 package com.oracle.truffle.js.builtins.helper;
 
+import java.util.Iterator;
 import java.util.List;
 
 import com.oracle.truffle.api.CompilerDirectives;
@@ -68,6 +69,7 @@ import com.oracle.truffle.js.runtime.builtins.JSNumber;
 import com.oracle.truffle.js.runtime.builtins.JSString;
 import com.oracle.truffle.js.runtime.interop.JSInteropUtil;
 import com.oracle.truffle.js.runtime.objects.JSDynamicObject;
+import com.oracle.truffle.js.runtime.objects.JSLazyString;
 import com.oracle.truffle.js.runtime.objects.JSObject;
 import com.oracle.truffle.js.runtime.objects.Null;
 import com.oracle.truffle.js.runtime.objects.Undefined;
@@ -109,6 +111,35 @@ public abstract class JSONStringifyStringNode extends JavaScriptBaseNode {
         }
     }
 
+    /**
+     * Variant of {@link #execute} that streams the output to the sink of the given
+     * {@link JSONData} in chunks of about {@link JSONData#SINK_CHUNK_SIZE} characters instead of
+     * materializing the result as a single string. Returns {@code false} if nothing was written
+     * (i.e., if {@code JSON.stringify} would have returned {@code undefined}).
+     */
+    public boolean executeToSink(JSONData data, String key, DynamicObject holder) {
+        assert data.getSink() != null;
+        try {
+            Object value = jsonStrPrepare(data, key, holder);
+            if (!isStringifyable(value)) {
+                return false;
+            }
+            StringBuilder builder = stringBuilderProfile.newStringBuilder(JSONData.SINK_CHUNK_SIZE * 2);
+            jsonStrExecute(builder, data, value);
+            data.writeToSink(builder, true);
+            return true;
+        } catch (StackOverflowError ex) {
+            throwStackError();
+            return false;
+        }
+    }
+
+    private static void flushToSinkIfNeeded(StringBuilder builder, JSONData data) {
+        if (data.getSink() != null && builder.length() >= JSONData.SINK_CHUNK_SIZE) {
+            data.writeToSink(builder, false);
+        }
+    }
+
     private static boolean isStringifyable(Object value) {
         // values that are not stringifyable are replaced by undefined in jsonStrPrepare()
         return value != Undefined.instance;
@@ -121,6 +152,8 @@ public abstract class JSONStringifyStringNode extends JavaScriptBaseNode {
             stringBuilderProfile.append(builder, Null.NAME);
         } else if (value instanceof Boolean) {
             stringBuilderProfile.append(builder, (boolean) value ? JSBoolean.TRUE_NAME : JSBoolean.FALSE_NAME);
+        } else if (value instanceof JSLazyString) {
+            jsonQuote(stringBuilderProfile, builder, (JSLazyString) value);
         } else if (JSRuntime.isString(value)) {
             jsonQuote(stringBuilderProfile, builder, value.toString());
         } else if (JSRuntime.isNumber(value)) {
@@ -303,6 +336,7 @@ public abstract class JSONStringifyStringNode extends JavaScriptBaseNode {
                 jsonQuote(stringBuilderProfile, builder, name);
                 appendColon(builder, data);
                 jsonStrExecute(builder, data, strPPrepared);
+                flushToSinkIfNeeded(builder, data);
                 hasContent = true;
             }
         }
@@ -346,6 +380,7 @@ public abstract class JSONStringifyStringNode extends JavaScriptBaseNode {
                     jsonQuote(stringBuilderProfile, builder, stringKey);
                     appendColon(builder, data);
                     jsonStrExecute(builder, data, strPPrepared);
+                    flushToSinkIfNeeded(builder, data);
                     hasContent = true;
                 }
             }
@@ -377,8 +412,9 @@ public abstract class JSONStringifyStringNode extends JavaScriptBaseNode {
             isForeign = true;
         }
         // output will reach maximum length in at most in StringLengthLimit steps
+        // (unless it is streamed to a sink, then only the buffered chunk is limited)
         long length = JSRuntime.toLength(lenObject);
-        if (length > context.getStringLengthLimit()) {
+        if (length > (data.getSink() == null ? context.getStringLengthLimit() : Integer.MAX_VALUE)) {
             throw Errors.createRangeErrorInvalidStringLength();
         }
         int len = (int) length;
@@ -402,6 +438,7 @@ public abstract class JSONStringifyStringNode extends JavaScriptBaseNode {
             } else {
                 stringBuilderProfile.append(builder, Null.NAME);
             }
+            flushToSinkIfNeeded(builder, data);
         }
 
         concatEnd(builder, data, stepback, ']', len > 0);
@@ -464,7 +501,48 @@ public abstract class JSONStringifyStringNode extends JavaScriptBaseNode {
     @TruffleBoundary
     public static void jsonQuote(StringBuilderProfile stringBuilderProfile, StringBuilder builder, String value) {
         stringBuilderProfile.append(builder, '"');
-        for (int i = 0; i < value.length();) {
+        char pendingHighSurrogate = jsonQuoteChars(stringBuilderProfile, builder, value, NO_PENDING_SURROGATE);
+        jsonQuoteEnd(stringBuilderProfile, builder, pendingHighSurrogate);
+    }
+
+    /**
+     * Quotes a lazy string leaf by leaf, without flattening it first.
+     */
+    @TruffleBoundary
+    public static void jsonQuote(StringBuilderProfile stringBuilderProfile, StringBuilder builder, JSLazyString value) {
+        if (value.isFlat()) {
+            jsonQuote(stringBuilderProfile, builder, value.getFlattenedString());
+            return;
+        }
+        stringBuilderProfile.append(builder, '"');
+        char pendingHighSurrogate = NO_PENDING_SURROGATE;
+        for (Iterator<String> leaves = value.leafIterator(); leaves.hasNext();) {
+            pendingHighSurrogate = jsonQuoteChars(stringBuilderProfile, builder, leaves.next(), pendingHighSurrogate);
+        }
+        jsonQuoteEnd(stringBuilderProfile, builder, pendingHighSurrogate);
+    }
+
+    private static final char NO_PENDING_SURROGATE = 0;
+
+    /**
+     * Quotes the characters of a string chunk. A high surrogate at the end of the chunk is not
+     * written but returned, so that it can be paired with a low surrogate at the start of the next
+     * chunk.
+     */
+    private static char jsonQuoteChars(StringBuilderProfile stringBuilderProfile, StringBuilder builder, String value, char pendingHighSurrogate) {
+        int i = 0;
+        if (pendingHighSurrogate != NO_PENDING_SURROGATE) {
+            if (value.length() > 0 && Character.isLowSurrogate(value.charAt(0))) {
+                // paired surrogates
+                stringBuilderProfile.append(builder, pendingHighSurrogate);
+                stringBuilderProfile.append(builder, value.charAt(0));
+                i++;
+            } else {
+                // unpaired high surrogate
+                jsonQuoteSurrogate(stringBuilderProfile, builder, pendingHighSurrogate);
+            }
+        }
+        for (; i < value.length();) {
             char ch = value.charAt(i);
             if (ch < ' ') {
                 if (ch == '\b') {
@@ -488,7 +566,10 @@ public abstract class JSONStringifyStringNode extends JavaScriptBaseNode {
                 } else if (Character.isSurrogate(ch)) {
                     if (Character.isHighSurrogate(ch)) {
                         char nextCh;
-                        if (i + 1 < value.length() && (Character.isLowSurrogate(nextCh = value.charAt(i + 1)))) {
+                        if (i + 1 == value.length()) {
+                            // might be paired with the start of the next chunk
+                            return ch;
+                        } else if (Character.isLowSurrogate(nextCh = value.charAt(i + 1))) {
                             // paired surrogates
                             stringBuilderProfile.append(builder, ch);
                             stringBuilderProfile.append(builder, nextCh);
@@ -507,6 +588,14 @@ public abstract class JSONStringifyStringNode extends JavaScriptBaseNode {
             }
             i++;
         }
+        return NO_PENDING_SURROGATE;
+    }
+
+    private static void jsonQuoteEnd(StringBuilderProfile stringBuilderProfile, StringBuilder builder, char pendingHighSurrogate) {
+        if (pendingHighSurrogate != NO_PENDING_SURROGATE) {
+            // unpaired high surrogate
+            jsonQuoteSurrogate(stringBuilderProfile, builder, pendingHighSurrogate);
+        }
         stringBuilderProfile.append(builder, '"');
     }
 
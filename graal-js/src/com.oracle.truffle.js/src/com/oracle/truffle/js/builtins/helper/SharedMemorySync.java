@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2018, 2020, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2018, 2021, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * The Universal Permissive License (UPL), Version 1.0
@@ -42,16 +42,23 @@ package com.oracle.truffle.js.builtins.helper;
 
 import static com.oracle.truffle.js.runtime.builtins.JSArrayBufferView.typedArrayGetArrayType;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.locks.LockSupport;
+
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.object.DynamicObject;
 import com.oracle.truffle.js.runtime.BigInt;
 import com.oracle.truffle.js.runtime.JSAgentWaiterList;
 import com.oracle.truffle.js.runtime.JSAgentWaiterList.JSAgentWaiterListEntry;
+import com.oracle.truffle.js.runtime.JSAgentWaiterList.WaiterRecord;
+import com.oracle.truffle.js.runtime.JSCancelledExecutionException;
 import com.oracle.truffle.js.runtime.JSContext;
 import com.oracle.truffle.js.runtime.JSRuntime;
 import com.oracle.truffle.js.runtime.array.TypedArray;
 import com.oracle.truffle.js.runtime.builtins.JSArrayBufferView;
 import com.oracle.truffle.js.runtime.builtins.JSSharedArrayBuffer;
+import com.oracle.truffle.js.runtime.util.ByteBufferAtomics;
 import com.oracle.truffle.js.runtime.util.Fences;
 
 /**
@@ -97,9 +104,92 @@ public final class SharedMemorySync {
         Fences.releaseFence();
     }
 
+    // ##### Lock-free access to the elements of shared typed arrays
+
+    private static int elementSize(DynamicObject target) {
+        return typedArrayGetArrayType(target).bytesPerElement();
+    }
+
+    private static int elementByteIndex(DynamicObject target, int index) {
+        return JSArrayBufferView.typedArrayGetOffset(target) + index * elementSize(target);
+    }
+
+    /**
+     * Whether the element can be updated with hardware CAS. Elements narrower than 32 bits are
+     * updated through the aligned int that contains them, so that int has to be accessible, too.
+     */
+    private static boolean isLockFree(DynamicObject target, int index) {
+        int wordSize = Math.max(elementSize(target), Integer.BYTES);
+        int wordIndex = elementByteIndex(target, index) & -wordSize;
+        return ByteBufferAtomics.isLockFree(JSArrayBufferView.typedArrayGetByteBuffer(target), wordIndex, wordSize);
+    }
+
+    /**
+     * Replaces the bits of an 8, 16 or 32-bit integer element with {@code replacement} if they are
+     * equal to {@code expected}. Returns the previous bits of the element, zero-extended.
+     */
+    private static int compareAndExchangeElement(DynamicObject target, int index, int expected, int replacement) {
+        ByteBuffer buffer = JSArrayBufferView.typedArrayGetByteBuffer(target);
+        int size = elementSize(target);
+        int byteIndex = elementByteIndex(target, index);
+        if (size == Integer.BYTES) {
+            return ByteBufferAtomics.compareAndExchangeInt(buffer, byteIndex, expected, replacement);
+        }
+        assert size == Byte.BYTES || size == Short.BYTES;
+        int wordIndex = byteIndex & -Integer.BYTES;
+        int byteInWord = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN ? byteIndex - wordIndex : Integer.BYTES - size - (byteIndex - wordIndex);
+        int shift = byteInWord * Byte.SIZE;
+        int mask = (1 << (size * Byte.SIZE)) - 1;
+        int expectedBits = expected & mask;
+        int replacementBits = (replacement & mask) << shift;
+        int word = ByteBufferAtomics.getIntVolatile(buffer, wordIndex);
+        for (;;) {
+            int current = (word >>> shift) & mask;
+            if (current != expectedBits) {
+                return current;
+            }
+            int witness = ByteBufferAtomics.compareAndExchangeInt(buffer, wordIndex, word, (word & ~(mask << shift)) | replacementBits);
+            if (witness == word) {
+                return current;
+            }
+            word = witness;
+        }
+    }
+
+    private static long compareAndExchangeBigIntElement(DynamicObject target, int index, long expected, long replacement) {
+        ByteBuffer buffer = JSArrayBufferView.typedArrayGetByteBuffer(target);
+        return ByteBufferAtomics.compareAndExchangeLong(buffer, elementByteIndex(target, index), expected, replacement);
+    }
+
+    /**
+     * Converts zero-extended element bits to the value returned by
+     * {@link TypedArray.TypedIntArray#getInt}.
+     */
+    private static int elementBitsToInt(DynamicObject target, int bits) {
+        TypedArray array = typedArrayGetArrayType(target);
+        if (array instanceof TypedArray.DirectInt8Array) {
+            return (byte) bits;
+        } else if (array instanceof TypedArray.DirectInt16Array) {
+            return (short) bits;
+        } else {
+            return bits;
+        }
+    }
+
+    private static BigInt elementBitsToBigInt(DynamicObject target, long bits) {
+        if (typedArrayGetArrayType(target) instanceof TypedArray.DirectBigUint64Array) {
+            return BigInt.valueOfUnsigned(bits);
+        } else {
+            return BigInt.valueOf(bits);
+        }
+    }
+
     // ##### Atomic CAS primitives
     @TruffleBoundary
     public static boolean compareAndSwapInt(JSContext cx, DynamicObject target, int intArrayOffset, int initial, int result) {
+        if (isLockFree(target, intArrayOffset)) {
+            return elementBitsToInt(target, compareAndExchangeElement(target, intArrayOffset, initial, result)) == initial;
+        }
         cx.getJSAgent().atomicSectionEnter(target);
         try {
             int value = doVolatileGet(target, intArrayOffset);
@@ -115,6 +205,10 @@ public final class SharedMemorySync {
 
     @TruffleBoundary
     public static boolean compareAndSwapBigInt(JSContext cx, DynamicObject target, int intArrayOffset, BigInt initial, BigInt result) {
+        if (isLockFree(target, intArrayOffset)) {
+            long expected = initial.longValue();
+            return compareAndExchangeBigIntElement(target, intArrayOffset, expected, result.longValue()) == expected;
+        }
         cx.getJSAgent().atomicSectionEnter(target);
         try {
             BigInt value = doVolatileGetBigInt(target, intArrayOffset);
@@ -131,13 +225,20 @@ public final class SharedMemorySync {
     // ##### Atomic Fetch-or-Get primitives
     @TruffleBoundary
     public static long atomicFetchOrGetUnsigned(JSContext cx, DynamicObject target, int intArrayOffset, Object expected, Object replacement) {
+        if (isLockFree(target, intArrayOffset)) {
+            int read = compareAndExchangeElement(target, intArrayOffset, (int) JSRuntime.toUInt32(expected), (int) JSRuntime.toUInt32(replacement));
+            return read & 0xFFFFFFFFL;
+        }
         cx.getJSAgent().atomicSectionEnter(target);
-        long read = JSRuntime.toUInt32(doVolatileGet(target, intArrayOffset));
-        if (read == JSRuntime.toUInt32(expected)) {
-            doVolatilePut(target, intArrayOffset, (int) JSRuntime.toUInt32(replacement));
+        try {
+            long read = JSRuntime.toUInt32(doVolatileGet(target, intArrayOffset));
+            if (read == JSRuntime.toUInt32(expected)) {
+                doVolatilePut(target, intArrayOffset, (int) JSRuntime.toUInt32(replacement));
+            }
+            return read;
+        } finally {
+            cx.getJSAgent().atomicSectionLeave(target);
         }
-        cx.getJSAgent().atomicSectionLeave(target);
-        return read;
     }
 
     @TruffleBoundary
@@ -156,6 +257,9 @@ public final class SharedMemorySync {
 
     @TruffleBoundary
     public static int atomicFetchOrGetInt(JSContext cx, DynamicObject target, int intArrayOffset, int expected, int replacement) {
+        if (isLockFree(target, intArrayOffset)) {
+            return compareAndExchangeElement(target, intArrayOffset, expected, replacement);
+        }
         cx.getJSAgent().atomicSectionEnter(target);
         try {
             int read = doVolatileGet(target, intArrayOffset);
@@ -170,20 +274,31 @@ public final class SharedMemorySync {
 
     @TruffleBoundary
     public static int atomicFetchOrGetShort(JSContext cx, DynamicObject target, int intArrayOffset, int expected, int replacement, boolean sign) {
+        if (isLockFree(target, intArrayOffset)) {
+            int read = compareAndExchangeElement(target, intArrayOffset, expected, replacement);
+            return sign ? (short) read : read;
+        }
         cx.getJSAgent().atomicSectionEnter(target);
-        int read = doVolatileGet(target, intArrayOffset);
-        read = sign ? read : read & 0xFFFF;
-        int expectedChopped = sign ? (short) expected : expected & 0xFFFF;
-        if (read == expectedChopped) {
-            int signed = sign ? replacement : replacement & 0xFFFF;
-            SharedMemorySync.doVolatilePut(target, intArrayOffset, (short) signed);
+        try {
+            int read = doVolatileGet(target, intArrayOffset);
+            read = sign ? read : read & 0xFFFF;
+            int expectedChopped = sign ? (short) expected : expected & 0xFFFF;
+            if (read == expectedChopped) {
+                int signed = sign ? replacement : replacement & 0xFFFF;
+                SharedMemorySync.doVolatilePut(target, intArrayOffset, (short) signed);
+            }
+            return read;
+        } finally {
+            cx.getJSAgent().atomicSectionLeave(target);
         }
-        cx.getJSAgent().atomicSectionLeave(target);
-        return read;
     }
 
     @TruffleBoundary
     public static int atomicFetchOrGetByte(JSContext cx, DynamicObject target, int intArrayOffset, int expected, int replacement, boolean sign) {
+        if (isLockFree(target, intArrayOffset)) {
+            int read = compareAndExchangeElement(target, intArrayOffset, expected, replacement);
+            return sign ? (byte) read : read;
+        }
         cx.getJSAgent().atomicSectionEnter(target);
         try {
             int read = doVolatileGet(target, intArrayOffset);
@@ -201,6 +316,9 @@ public final class SharedMemorySync {
 
     @TruffleBoundary
     public static BigInt atomicFetchOrGetBigInt(JSContext cx, DynamicObject target, int intArrayOffset, BigInt expected, BigInt replacement) {
+        if (isLockFree(target, intArrayOffset)) {
+            return elementBitsToBigInt(target, compareAndExchangeBigIntElement(target, intArrayOffset, expected.longValue(), replacement.longValue()));
+        }
         cx.getJSAgent().atomicSectionEnter(target);
         try {
             BigInt read = doVolatileGetBigInt(target, intArrayOffset);
@@ -215,11 +333,14 @@ public final class SharedMemorySync {
 
     // ##### Thread Wake/Park primitives
 
+    /**
+     * Returns the waiter list of the element, keyed by its byte index into the buffer.
+     */
     @SuppressWarnings("unused")
     public static JSAgentWaiterListEntry getWaiterList(JSContext cx, DynamicObject target, int indexPos) {
         DynamicObject arrayBuffer = JSArrayBufferView.getArrayBuffer(target);
         JSAgentWaiterList waiterList = JSSharedArrayBuffer.getWaiterList(arrayBuffer);
-        return waiterList.getListForIndex(indexPos);
+        return waiterList.getListForIndex(elementByteIndex(target, indexPos));
     }
 
     @TruffleBoundary
@@ -238,51 +359,91 @@ public final class SharedMemorySync {
     }
 
     @TruffleBoundary
-    public static void addWaiter(JSContext cx, JSAgentWaiterListEntry wl, int id) {
+    public static void addWaiter(JSContext cx, JSAgentWaiterListEntry wl, WaiterRecord w) {
         assert cx.getJSAgent().inCriticalSection();
-        assert !wl.contains(id);
-        wl.add(id);
+        assert !wl.contains(w);
+        wl.add(w);
+        if (w.isAsync()) {
+            cx.addAsyncWaiter(w);
+            w.scheduleTimeout();
+        }
     }
 
     @TruffleBoundary
-    public static void removeWaiter(JSContext cx, JSAgentWaiterListEntry wl, int w) {
+    public static void removeWaiter(JSContext cx, JSAgentWaiterListEntry wl, WaiterRecord w) {
         assert cx.getJSAgent().inCriticalSection();
         assert wl.contains(w);
         wl.remove(w);
     }
 
-    /* ECMA2017 24.4.1.9 - Suspend returns true if agent was woken by another agent */
+    /**
+     * ECMA2017 24.4.1.9 - Suspend returns true if agent was woken by another agent.
+     *
+     * The thread is parked outside of the critical section and re-checks whether it has been
+     * notified after every wakeup, so spurious wakeups and interrupts do not end the wait early.
+     * The interrupt status of the thread is preserved. An interrupt of an agent that is being
+     * terminated removes the waiter and cancels the execution of the agent.
+     */
     @TruffleBoundary
-    public static boolean suspendAgent(JSContext cx, JSAgentWaiterListEntry wl, int w, int timeout) {
+    public static boolean suspendAgent(JSContext cx, JSAgentWaiterListEntry wl, WaiterRecord w) {
         assert cx.getJSAgent().inCriticalSection();
         assert wl.contains(w);
-        assert cx.getJSAgent().getSignifier() == w;
+        assert !w.isAsync();
         assert cx.getJSAgent().canBlock();
-        cx.getJSAgent().criticalSectionLeave(wl);
-        boolean interrupt = false;
+        boolean interrupted = false;
         try {
-            Thread.sleep(timeout);
-        } catch (InterruptedException e) {
-            interrupt = true;
+            while (!w.isNotified()) {
+                long remaining = 0;
+                if (w.hasDeadline()) {
+                    remaining = w.remainingNanos();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                }
+                cx.getJSAgent().criticalSectionLeave(wl);
+                try {
+                    if (w.hasDeadline()) {
+                        LockSupport.parkNanos(wl, remaining);
+                    } else {
+                        LockSupport.park(wl);
+                    }
+                    if (Thread.interrupted()) {
+                        interrupted = true;
+                    }
+                } finally {
+                    cx.getJSAgent().criticalSectionEnter(wl);
+                }
+                if (interrupted && cx.getJSAgent().isTerminating() && !w.isNotified()) {
+                    wl.remove(w);
+                    throw new JSCancelledExecutionException("Agent was terminated.", null);
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
         }
-        cx.getJSAgent().criticalSectionEnter(wl);
-        return interrupt;
+        return w.isNotified();
     }
 
     /* ECMA2017 24.4.1.10 - Wake up another agent */
     @TruffleBoundary
-    public static void wakeWaiter(JSContext cx, int w) {
+    public static void wakeWaiter(JSContext cx, WaiterRecord w) {
         assert cx.getJSAgent().inCriticalSection();
-        cx.getJSAgent().wakeAgent(w);
+        w.notifyWaiter();
     }
 
+    /**
+     * Removes up to {@code count} waiters from the list, in the order in which they started to
+     * wait.
+     */
     @TruffleBoundary
-    public static int[] removeWaiters(JSContext cx, JSAgentWaiterListEntry wl, int count) {
+    public static WaiterRecord[] removeWaiters(JSContext cx, JSAgentWaiterListEntry wl, int count) {
         assert cx.getJSAgent().inCriticalSection();
         int c = Integer.min(wl.size(), count);
-        int[] removed = new int[c];
-        while (c-- > 0) {
-            removed[c] = wl.poll();
+        WaiterRecord[] removed = new WaiterRecord[c];
+        for (int i = 0; i < c; i++) {
+            removed[i] = wl.poll();
         }
         return removed;
     }
@@ -0,0 +1,553 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.builtins.helper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.object.DynamicObject;
+import com.oracle.truffle.js.runtime.Errors;
+import com.oracle.truffle.js.runtime.JSContext;
+import com.oracle.truffle.js.runtime.JSRuntime;
+import com.oracle.truffle.js.runtime.array.ScriptArray;
+import com.oracle.truffle.js.runtime.builtins.JSAbstractArray;
+import com.oracle.truffle.js.runtime.builtins.JSArray;
+import com.oracle.truffle.js.runtime.builtins.JSOrdinary;
+import com.oracle.truffle.js.runtime.objects.Null;
+import com.oracle.truffle.js.runtime.objects.Undefined;
+
+/**
+ * Pull-based JSON parser that consumes UTF-8 encoded bytes incrementally, either from a
+ * {@link ByteBuffer} or from an {@link InputStream}, without decoding the whole input into a
+ * {@link String} first. Produces the same values as {@link TruffleJSONParser}. The elements of a
+ * top-level array can optionally be passed to a callback one by one, so that the array itself is
+ * never materialized.
+ */
+public final class TruffleJSONByteParser {
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final int EOF = -1;
+    private static final char REPLACEMENT_CHARACTER = '\ufffd';
+    private static final int MAX_LONG_DIGITS = 18;
+
+    private final JSContext context;
+    private final InputStream inputStream;
+    private final ByteBuffer directInput;
+    private final StringBuilder stringBuilder = new StringBuilder();
+    /** Keys and values of the members of the objects currently being parsed. */
+    private final List<Object> memberStack = new ArrayList<>();
+    private final JSONShapeCache shapeCache;
+    private byte[] buf;
+    private int bufPos;
+    private int bufEnd;
+    /** Input position corresponding to {@code buf[0]}. */
+    private long bufOffset;
+    private int parseDepth;
+
+    private TruffleJSONByteParser(JSContext context, InputStream inputStream, ByteBuffer directInput) {
+        this.context = context;
+        this.inputStream = inputStream;
+        this.directInput = directInput;
+        this.shapeCache = new JSONShapeCache(context);
+    }
+
+    /**
+     * Creates a parser for the remaining bytes of the buffer. The position of the buffer is not
+     * modified.
+     */
+    public static TruffleJSONByteParser create(JSContext context, ByteBuffer input) {
+        if (input.hasArray()) {
+            TruffleJSONByteParser parser = new TruffleJSONByteParser(context, null, null);
+            int start = input.arrayOffset() + input.position();
+            parser.buf = input.array();
+            parser.bufPos = start;
+            parser.bufEnd = input.arrayOffset() + input.limit();
+            parser.bufOffset = -start;
+            return parser;
+        } else {
+            TruffleJSONByteParser parser = new TruffleJSONByteParser(context, null, input.duplicate());
+            parser.buf = new byte[BUFFER_SIZE];
+            return parser;
+        }
+    }
+
+    public static TruffleJSONByteParser create(JSContext context, byte[] input, int offset, int length) {
+        return create(context, ByteBuffer.wrap(input, offset, length));
+    }
+
+    public static TruffleJSONByteParser create(JSContext context, InputStream input) {
+        TruffleJSONByteParser parser = new TruffleJSONByteParser(context, input, null);
+        parser.buf = new byte[BUFFER_SIZE];
+        return parser;
+    }
+
+    /**
+     * Parses the whole input as a single JSON value.
+     */
+    @TruffleBoundary
+    public Object parse() {
+        try {
+            skipWhitespace();
+            Object result = parseJSONValue();
+            expectEndOfInput();
+            return result;
+        } catch (StackOverflowError ex) {
+            TruffleJSONParser.throwStackError();
+            return null;
+        }
+    }
+
+    /**
+     * Parses a top-level JSON array and passes each element (and its index) to the callback as
+     * soon as it has been parsed. Returns the number of elements.
+     */
+    @TruffleBoundary
+    public long parseElements(Object callback) {
+        try {
+            skipWhitespace();
+            if (peek() != '[') {
+                throw unexpectedToken(peek());
+            }
+            read();
+            incDepth();
+            skipWhitespace();
+            long index = 0;
+            if (peek() == ']') {
+                read();
+            } else {
+                while (true) {
+                    Object element = parseJSONValue();
+                    JSRuntime.call(callback, Undefined.instance, new Object[]{element, JSRuntime.longToIntOrDouble(index)});
+                    index++;
+                    skipWhitespace();
+                    int c = read();
+                    if (c == ']') {
+                        break;
+                    } else if (c != ',') {
+                        throw unexpectedToken(c, position() - 1);
+                    }
+                    skipWhitespace();
+                }
+            }
+            decDepth();
+            expectEndOfInput();
+            return index;
+        } catch (StackOverflowError ex) {
+            TruffleJSONParser.throwStackError();
+            return 0;
+        }
+    }
+
+    private void expectEndOfInput() {
+        skipWhitespace();
+        int c = peek();
+        if (c != EOF) {
+            throw unexpectedToken(c);
+        }
+    }
+
+    private Object parseJSONValue() {
+        int c = peek();
+        switch (c) {
+            case '"':
+                return parseJSONString();
+            case '{':
+                return parseJSONObject();
+            case '[':
+                return parseJSONArray();
+            case 'n':
+                expectLiteral("null");
+                return Null.instance;
+            case 't':
+                expectLiteral("true");
+                return true;
+            case 'f':
+                expectLiteral("false");
+                return false;
+            default:
+                if (c == '-' || isAsciiDigit(c)) {
+                    return parseJSONNumber();
+                }
+                throw unexpectedToken(c);
+        }
+    }
+
+    private DynamicObject parseJSONObject() {
+        read(); // '{'
+        incDepth();
+        skipWhitespace();
+        DynamicObject object;
+        if (peek() == '}') {
+            read();
+            object = JSOrdinary.create(context);
+        } else {
+            int start = memberStack.size();
+            while (true) {
+                if (peek() != '"') {
+                    throw unexpectedToken(peek());
+                }
+                String key = parseJSONString();
+                skipWhitespace();
+                expectChar(':');
+                skipWhitespace();
+                Object value = parseJSONValue();
+                memberStack.add(key);
+                memberStack.add(value);
+                skipWhitespace();
+                int c = read();
+                if (c == '}') {
+                    break;
+                } else if (c != ',') {
+                    throw unexpectedToken(c, position() - 1);
+                }
+                skipWhitespace();
+            }
+            object = shapeCache.createObject(parseDepth, memberStack, start);
+            memberStack.subList(start, memberStack.size()).clear();
+        }
+        decDepth();
+        return object;
+    }
+
+    private DynamicObject parseJSONArray() {
+        read(); // '['
+        incDepth();
+        skipWhitespace();
+        DynamicObject array = JSArray.createEmptyZeroLength(context);
+        if (peek() == ']') {
+            read();
+        } else {
+            ScriptArray scriptArray = JSAbstractArray.arrayGetArrayType(array);
+            int index = 0;
+            while (true) {
+                scriptArray = scriptArray.setElement(array, index, parseJSONValue(), false);
+                index++;
+                skipWhitespace();
+                int c = read();
+                if (c == ']') {
+                    break;
+                } else if (c != ',') {
+                    throw unexpectedToken(c, position() - 1);
+                }
+                skipWhitespace();
+            }
+            JSAbstractArray.arraySetArrayType(array, scriptArray);
+        }
+        decDepth();
+        return array;
+    }
+
+    private String parseJSONString() {
+        read(); // '"'
+        StringBuilder builder = stringBuilder;
+        builder.setLength(0);
+        while (true) {
+            int c = read();
+            if (c == '"') {
+                break;
+            } else if (c == '\\') {
+                parseEscapeSequence(builder);
+            } else if (c < 0x20) {
+                throw unexpectedToken(c, position() - 1);
+            } else if (c < 0x80) {
+                builder.append((char) c);
+            } else {
+                decodeUTF8(c, builder);
+            }
+        }
+        return builder.toString();
+    }
+
+    private void parseEscapeSequence(StringBuilder builder) {
+        int c = read();
+        switch (c) {
+            case '"':
+            case '\\':
+            case '/':
+                builder.append((char) c);
+                break;
+            case 'b':
+                builder.append('\b');
+                break;
+            case 'f':
+                builder.append('\f');
+                break;
+            case 'n':
+                builder.append('\n');
+                break;
+            case 'r':
+                builder.append('\r');
+                break;
+            case 't':
+                builder.append('\t');
+                break;
+            case 'u':
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = read();
+                    int digitValue = digit == EOF ? -1 : JSRuntime.valueInHex((char) digit);
+                    if (digitValue < 0) {
+                        throw unexpectedToken(digit, position() - 1);
+                    }
+                    value = (value << 4) | digitValue;
+                }
+                builder.append((char) value);
+                break;
+            default:
+                throw unexpectedToken(c, position() - 1);
+        }
+    }
+
+    /**
+     * Decodes a multi-byte UTF-8 sequence. Malformed sequences are replaced by U+FFFD.
+     */
+    private void decodeUTF8(int lead, StringBuilder builder) {
+        int continuationBytes;
+        int codePoint;
+        int minCodePoint;
+        if (lead >= 0xC2 && lead <= 0xDF) {
+            continuationBytes = 1;
+            codePoint = lead & 0x1F;
+            minCodePoint = 0x80;
+        } else if (lead >= 0xE0 && lead <= 0xEF) {
+            continuationBytes = 2;
+            codePoint = lead & 0x0F;
+            minCodePoint = 0x800;
+        } else if (lead >= 0xF0 && lead <= 0xF4) {
+            continuationBytes = 3;
+            codePoint = lead & 0x07;
+            minCodePoint = 0x10000;
+        } else {
+            builder.append(REPLACEMENT_CHARACTER);
+            return;
+        }
+        for (int i = 0; i < continuationBytes; i++) {
+            int c = peek();
+            if (c == EOF || (c & 0xC0) != 0x80) {
+                builder.append(REPLACEMENT_CHARACTER);
+                return;
+            }
+            read();
+            codePoint = (codePoint << 6) | (c & 0x3F);
+        }
+        if (codePoint < minCodePoint || codePoint > Character.MAX_CODE_POINT || (codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE)) {
+            builder.append(REPLACEMENT_CHARACTER);
+        } else {
+            builder.appendCodePoint(codePoint);
+        }
+    }
+
+    private Number parseJSONNumber() {
+        StringBuilder builder = stringBuilder;
+        builder.setLength(0);
+        boolean negative = false;
+        if (peek() == '-') {
+            read();
+            builder.append('-');
+            negative = true;
+        }
+        int c = peek();
+        if (!isAsciiDigit(c)) {
+            throw unexpectedToken(c);
+        }
+        long longValue = 0;
+        int digits = 0;
+        if (c == '0') {
+            read();
+            builder.append('0');
+            digits = 1;
+            if (isAsciiDigit(peek())) {
+                throw Errors.createSyntaxError("Unexpected number in JSON at position " + position());
+            }
+        } else {
+            while (isAsciiDigit(c = peek())) {
+                read();
+                builder.append((char) c);
+                longValue = longValue * 10 + (c - '0');
+                digits++;
+                if (digits > MAX_LONG_DIGITS) {
+                    longValue = 0; // value is taken from the string
+                }
+            }
+        }
+        boolean integral = true;
+        if (peek() == '.') {
+            read();
+            builder.append('.');
+            integral = false;
+            readDigits(builder);
+        }
+        c = peek();
+        if (c == 'e' || c == 'E') {
+            read();
+            builder.append('e');
+            integral = false;
+            c = peek();
+            if (c == '+' || c == '-') {
+                read();
+                builder.append((char) c);
+            }
+            readDigits(builder);
+        }
+        if (integral && digits <= MAX_LONG_DIGITS) {
+            if (longValue == 0 && negative) {
+                return -0.0;
+            }
+            long value = negative ? -longValue : longValue;
+            if (JSRuntime.longIsRepresentableAsInt(value)) {
+                return (int) value;
+            }
+            return (double) value;
+        }
+        return Double.parseDouble(builder.toString());
+    }
+
+    private void readDigits(StringBuilder builder) {
+        int c = peek();
+        if (!isAsciiDigit(c)) {
+            throw unexpectedToken(c);
+        }
+        do {
+            read();
+            builder.append((char) c);
+        } while (isAsciiDigit(c = peek()));
+    }
+
+    private static boolean isAsciiDigit(int c) {
+        return '0' <= c && c <= '9';
+    }
+
+    private void expectLiteral(String literal) {
+        for (int i = 0; i < literal.length(); i++) {
+            int c = read();
+            if (c != literal.charAt(i)) {
+                throw unexpectedToken(c, position() - 1);
+            }
+        }
+    }
+
+    private void expectChar(char expected) {
+        int c = read();
+        if (c != expected) {
+            throw unexpectedToken(c, position() - 1);
+        }
+    }
+
+    private void skipWhitespace() {
+        int c = peek();
+        while (c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+            bufPos++;
+            c = peek();
+        }
+    }
+
+    private void incDepth() {
+        parseDepth++;
+        if (parseDepth > TruffleJSONParser.MAX_PARSE_DEPTH) {
+            TruffleJSONParser.throwStackError();
+        }
+    }
+
+    private void decDepth() {
+        parseDepth--;
+    }
+
+    private RuntimeException unexpectedToken(int c) {
+        return unexpectedToken(c, position());
+    }
+
+    private RuntimeException unexpectedToken(int c, long position) {
+        if (c == EOF) {
+            return Errors.createSyntaxError("Unexpected end of JSON input");
+        }
+        return Errors.createSyntaxError("Unexpected token " + (char) c + " in JSON at position " + position);
+    }
+
+    // ************************* Input Buffer ****************************************//
+
+    private long position() {
+        return bufOffset + bufPos;
+    }
+
+    private int peek() {
+        if (bufPos < bufEnd || fill()) {
+            return buf[bufPos] & 0xFF;
+        }
+        return EOF;
+    }
+
+    private int read() {
+        int c = peek();
+        if (c != EOF) {
+            bufPos++;
+        }
+        return c;
+    }
+
+    private boolean fill() {
+        if (inputStream == null && directInput == null) {
+            return false;
+        }
+        bufOffset += bufEnd;
+        bufPos = 0;
+        bufEnd = 0;
+        if (directInput != null) {
+            int count = Math.min(buf.length, directInput.remaining());
+            directInput.get(buf, 0, count);
+            bufEnd = count;
+        } else {
+            try {
+                int count;
+                do {
+                    count = inputStream.read(buf, 0, buf.length);
+                } while (count == 0);
+                bufEnd = Math.max(0, count);
+            } catch (IOException e) {
+                throw Errors.createError("Cannot read JSON input: " + e.getMessage(), e);
+            }
+        }
+        return bufEnd > 0;
+    }
+}
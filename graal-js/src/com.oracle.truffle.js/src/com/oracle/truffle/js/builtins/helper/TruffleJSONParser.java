@@ -40,6 +40,9 @@
  */
 package com.oracle.truffle.js.builtins.helper;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import com.oracle.js.parser.ParserException;
 import com.oracle.truffle.api.object.DynamicObject;
 import com.oracle.truffle.js.runtime.Errors;
@@ -59,6 +62,9 @@ public class TruffleJSONParser {
     protected int len;
     protected String parseStr;
     protected int parseDepth;
+    /** Keys and values of the members of the objects currently being parsed. */
+    private final List<Object> memberStack = new ArrayList<>();
+    private final JSONShapeCache shapeCache;
 
     protected static final char[] NullLiteral = new char[]{'n', 'u', 'l', 'l'};
     protected static final char[] BooleanTrueLiteral = new char[]{'t', 'r', 'u', 'e'};
@@ -69,6 +75,7 @@ public class TruffleJSONParser {
 
     public TruffleJSONParser(JSContext context) {
         this.context = context;
+        this.shapeCache = new JSONShapeCache(context);
     }
 
     public Object parse(String value) {
@@ -94,6 +101,7 @@ public class TruffleJSONParser {
             throwSyntaxError(null);
         } finally {
             parseStr = null;
+            memberStack.clear();
         }
         return null;
     }
@@ -138,9 +146,10 @@ public class TruffleJSONParser {
         incDepth();
         skipChar('{');
         skipWhitespace();
-        DynamicObject object = JSOrdinary.create(context);
+        DynamicObject object;
         if (get() != '}') {
-            parseJSONMemberList(object);
+            int start = memberStack.size();
+            parseJSONMemberList();
             if (get() != '}') {
                 if (get() == '"') {
                     unexpectedString();
@@ -148,6 +157,10 @@ public class TruffleJSONParser {
                     unexpectedToken();
                 }
             }
+            object = shapeCache.createObject(parseDepth, memberStack, start);
+            memberStack.subList(start, memberStack.size()).clear();
+        } else {
+            object = JSOrdinary.create(context);
         }
         skipChar('}');
         skipWhitespace();
@@ -155,17 +168,20 @@ public class TruffleJSONParser {
         return object;
     }
 
-    private void parseJSONMemberList(DynamicObject object) {
-        Member member = parseJSONMember();
-        JSRuntime.createDataProperty(object, member.getKey(), member.getValue());
+    private void parseJSONMemberList() {
+        pushMember(parseJSONMember());
         while (get() == ',') {
             skipChar(',');
             skipWhitespace();
-            member = parseJSONMember();
-            JSRuntime.createDataProperty(object, member.getKey(), member.getValue());
+            pushMember(parseJSONMember());
         }
     }
 
+    private void pushMember(Member member) {
+        memberStack.add(member.getKey());
+        memberStack.add(member.getValue());
+    }
+
     private Member parseJSONMember() {
         String jsonString = parseJSONString();
         expectChar(':');
@@ -401,6 +401,12 @@ public final class JavaScriptLanguage extends AbstractJavaScriptLanguage {
         }
     }
 
+    @Override
+    protected void finalizeContext(JSRealm realm) {
+        realm.terminateWorkers();
+        realm.disposeModuleLoader();
+    }
+
     @Override
     protected void disposeContext(JSRealm realm) {
         CompilerAsserts.neverPartOfCompilation();
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2018, 2020, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2018, 2021, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * The Universal Permissive License (UPL), Version 1.0
@@ -61,6 +61,8 @@ import com.oracle.truffle.js.runtime.java.JavaImporter;
 import com.oracle.truffle.js.runtime.java.JavaPackage;
 import com.oracle.truffle.js.runtime.objects.JSDynamicObject;
 import com.oracle.truffle.js.runtime.objects.JSObject;
+import com.oracle.truffle.js.runtime.objects.MegamorphicPropertyCache;
+import com.oracle.truffle.js.runtime.util.InlineCacheStatistics;
 import com.oracle.truffle.js.runtime.util.JSClassProfile;
 
 /**
@@ -239,7 +241,10 @@ public class HasPropertyCacheNode extends PropertyCacheNode<HasPropertyCacheNode
         protected boolean hasProperty(Object thisObj, HasPropertyCacheNode root) {
             if (JSDynamicObject.isJSDynamicObject(thisObj)) {
                 Object key = root.getKey();
-                if (root.isOwnProperty()) {
+                MegamorphicPropertyCache megamorphicCache = root.getContext().getMegamorphicPropertyCache();
+                if (megamorphicCache != null && megamorphicCache.has((DynamicObject) thisObj, key, root.isOwnProperty())) {
+                    return true;
+                } else if (root.isOwnProperty()) {
                     return JSObject.hasOwnProperty((DynamicObject) thisObj, key, jsclassProfile);
                 } else {
                     return JSObject.hasProperty((DynamicObject) thisObj, key, jsclassProfile);
@@ -360,6 +365,11 @@ public class HasPropertyCacheNode extends PropertyCacheNode<HasPropertyCacheNode
         return hasOwnProperty;
     }
 
+    @Override
+    protected InlineCacheStatistics.Kind getStatisticsKind() {
+        return InlineCacheStatistics.Kind.HAS_PROPERTY;
+    }
+
     @Override
     protected HasCacheNode createTruffleObjectPropertyNode() {
         return new ForeignHasPropertyCacheNode();
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2018, 2020, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2018, 2021, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * The Universal Permissive License (UPL), Version 1.0
@@ -71,6 +71,7 @@ import com.oracle.truffle.js.runtime.builtins.JSString;
 import com.oracle.truffle.js.runtime.interop.JSInteropUtil;
 import com.oracle.truffle.js.runtime.objects.JSDynamicObject;
 import com.oracle.truffle.js.runtime.objects.JSObject;
+import com.oracle.truffle.js.runtime.objects.MegamorphicPropertyCache;
 import com.oracle.truffle.js.runtime.util.JSClassProfile;
 
 /**
@@ -163,7 +164,10 @@ public abstract class JSHasPropertyNode extends JavaScriptBaseNode {
 
     private boolean hasPropertyGeneric(DynamicObject object, Object propertyKey) {
         assert JSRuntime.isPropertyKey(propertyKey);
-        if (hasOwnProperty) {
+        MegamorphicPropertyCache megamorphicCache = JSObject.getJSContext(object).getMegamorphicPropertyCache();
+        if (megamorphicCache != null && megamorphicCache.has(object, propertyKey, hasOwnProperty)) {
+            return true;
+        } else if (hasOwnProperty) {
             return JSObject.hasOwnProperty(object, propertyKey, classProfile);
         } else {
             return JSObject.hasProperty(object, propertyKey, classProfile);
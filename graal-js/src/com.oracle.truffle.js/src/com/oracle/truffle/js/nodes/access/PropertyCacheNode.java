@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2018, 2020, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2018, 2021, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * The Universal Permissive License (UPL), Version 1.0
@@ -83,6 +83,7 @@ import com.oracle.truffle.js.runtime.objects.JSProperty;
 import com.oracle.truffle.js.runtime.objects.JSShape;
 import com.oracle.truffle.js.runtime.objects.Undefined;
 import com.oracle.truffle.js.runtime.util.DebugCounter;
+import com.oracle.truffle.js.runtime.util.InlineCacheStatistics;
 
 /**
  * Common base class for property cache nodes. Unifies the cache handling and receiver checks.
@@ -1288,6 +1289,7 @@ public abstract class PropertyCacheNode<T extends PropertyCacheNode.CacheNode<T>
         if (JSConfig.TracePolymorphicPropertyAccess && cachedCount > 0) {
             System.out.printf("POLYMORPHIC PROPERTY ACCESS key='%s' %s\n%s\n---\n", key, getEncapsulatingSourceSection(), specialized.debugString());
         }
+        recordStatistics(cachedCount + 1, cachedCount == 0 ? "first access" : "new receiver");
         return specialized;
     }
 
@@ -1307,6 +1309,7 @@ public abstract class PropertyCacheNode<T extends PropertyCacheNode.CacheNode<T>
         if (JSConfig.TraceMegamorphicPropertyAccess) {
             System.out.printf("MEGAMORPHIC PROPERTY ACCESS key='%s' %s\n%s\n---\n", key, getEncapsulatingSourceSection(), currentHead.debugString());
         }
+        recordStatistics(0, reason);
         return newNode;
     }
 
@@ -1314,9 +1317,26 @@ public abstract class PropertyCacheNode<T extends PropertyCacheNode.CacheNode<T>
         assert currentHead == this.cacheNode;
         invalidateCache();
         this.cacheNode = newHead;
+        int cachedCount = 0;
+        for (T c = newHead; c != null; c = c.next) {
+            cachedCount++;
+        }
+        recordStatistics(cachedCount, "assumption invalidated");
         return newHead;
     }
 
+    private void recordStatistics(int cachedCount, String reason) {
+        InlineCacheStatistics statistics = context.getInlineCacheStatistics();
+        if (statistics != null) {
+            statistics.record(this, getStatisticsKind(), key, getCost(), cachedCount, reason);
+        }
+    }
+
+    /**
+     * The kind of access reported to {@link InlineCacheStatistics}.
+     */
+    protected abstract InlineCacheStatistics.Kind getStatisticsKind();
+
     /**
      * Does the given map relate to any of the cached maps by upcasting? If so, obsolete the
      * downcast map.
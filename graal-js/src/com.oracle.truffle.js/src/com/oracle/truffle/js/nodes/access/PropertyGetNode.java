@@ -110,9 +110,11 @@ import com.oracle.truffle.js.runtime.objects.JSObject;
 import com.oracle.truffle.js.runtime.objects.JSObjectUtil;
 import com.oracle.truffle.js.runtime.objects.JSProperty;
 import com.oracle.truffle.js.runtime.objects.JSShape;
+import com.oracle.truffle.js.runtime.objects.MegamorphicPropertyCache;
 import com.oracle.truffle.js.runtime.objects.Null;
 import com.oracle.truffle.js.runtime.objects.PropertyProxy;
 import com.oracle.truffle.js.runtime.objects.Undefined;
+import com.oracle.truffle.js.runtime.util.InlineCacheStatistics;
 import com.oracle.truffle.js.runtime.util.JSClassProfile;
 import com.oracle.truffle.js.runtime.util.TRegexUtil;
 import com.oracle.truffle.js.runtime.util.TRegexUtil.TRegexMaterializeResultNode;
@@ -1134,6 +1136,7 @@ public class PropertyGetNode extends PropertyCacheNode<PropertyGetNode.GetCacheN
         private final Object key;
         private final boolean isRequired;
         private final JSContext context;
+        private final MegamorphicPropertyCache megamorphicCache;
         private final BranchProfile nullOrUndefinedBranch = BranchProfile.create();
         private final BranchProfile fallbackBranch = BranchProfile.create();
 
@@ -1141,6 +1144,7 @@ public class PropertyGetNode extends PropertyCacheNode<PropertyGetNode.GetCacheN
             this.key = root.getKey();
             this.isRequired = root.isRequired();
             this.context = root.getContext();
+            this.megamorphicCache = context.getMegamorphicPropertyCache();
         }
 
         public abstract Object executeWithJSObject(DynamicObject thisObj, Object receiver, Object defaultValue, PropertyGetNode root);
@@ -1185,13 +1189,21 @@ public class PropertyGetNode extends PropertyCacheNode<PropertyGetNode.GetCacheN
                 throw Errors.createTypeErrorCannotGetProperty(root.getContext(), key, object, isMethod, this);
             }
 
-            // 1. try to get a JS property
+            // 1. try the megamorphic cache shared by all property accesses of this context
+            if (megamorphicCache != null && !(isMethod && context.isOptionNashornCompatibilityMode())) {
+                Object value = megamorphicCache.get(object, receiver, key, this);
+                if (value != null) {
+                    return value;
+                }
+            }
+
+            // 2. try to get a JS property
             Object value = isMethod ? jsclass.getMethodHelper(object, receiver, key, this) : jsclass.getHelper(object, receiver, key, this);
             if (value != null) {
                 return value;
             }
 
-            // 2. try to call fallback handler or return undefined
+            // 3. try to call fallback handler or return undefined
             fallbackBranch.enter();
             return getNoSuchProperty(object, defaultValue, root);
         }
@@ -1806,6 +1818,11 @@ public class PropertyGetNode extends PropertyCacheNode<PropertyGetNode.GetCacheN
         return getOwnProperty;
     }
 
+    @Override
+    protected InlineCacheStatistics.Kind getStatisticsKind() {
+        return InlineCacheStatistics.Kind.PROPERTY_GET;
+    }
+
     protected boolean isMethod() {
         return isMethod;
     }
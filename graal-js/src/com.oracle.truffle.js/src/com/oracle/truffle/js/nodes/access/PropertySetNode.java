@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2018, 2020, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2018, 2021, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * The Universal Permissive License (UPL), Version 1.0
@@ -94,10 +94,12 @@ import com.oracle.truffle.js.runtime.objects.JSObject;
 import com.oracle.truffle.js.runtime.objects.JSObjectUtil;
 import com.oracle.truffle.js.runtime.objects.JSProperty;
 import com.oracle.truffle.js.runtime.objects.JSShape;
+import com.oracle.truffle.js.runtime.objects.MegamorphicPropertyCache;
 import com.oracle.truffle.js.runtime.objects.Null;
 import com.oracle.truffle.js.runtime.objects.PropertyDescriptor;
 import com.oracle.truffle.js.runtime.objects.PropertyProxy;
 import com.oracle.truffle.js.runtime.objects.Undefined;
+import com.oracle.truffle.js.runtime.util.InlineCacheStatistics;
 import com.oracle.truffle.js.runtime.util.JSClassProfile;
 
 /**
@@ -992,6 +994,7 @@ public class PropertySetNode extends PropertyCacheNode<PropertySetNode.SetCacheN
     public static final class GenericPropertySetNode extends SetCacheNode {
         @Child private JSToObjectNode toObjectNode;
         @Child private ForeignPropertySetNode foreignSetNode;
+        private final MegamorphicPropertyCache megamorphicCache;
         private final JSClassProfile jsclassProfile = JSClassProfile.create();
         private final ConditionProfile isObject = ConditionProfile.createBinaryProfile();
         private final ConditionProfile isStrictSymbol = ConditionProfile.createBinaryProfile();
@@ -1000,6 +1003,7 @@ public class PropertySetNode extends PropertyCacheNode<PropertySetNode.SetCacheN
         public GenericPropertySetNode(JSContext context) {
             super(null);
             this.toObjectNode = JSToObjectNode.createToObjectNoCheck(context);
+            this.megamorphicCache = context.getMegamorphicPropertyCache();
         }
 
         @Override
@@ -1034,7 +1038,7 @@ public class PropertySetNode extends PropertyCacheNode<PropertySetNode.SetCacheN
                 } else {
                     JSObject.defineOwnProperty(thisJSObj, key, PropertyDescriptor.createData(value, root.getAttributeFlags()), root.isStrict());
                 }
-            } else {
+            } else if (megamorphicCache == null || receiver != thisJSObj || !megamorphicCache.set(thisJSObj, key, value, root.isStrict(), root)) {
                 JSObject.setWithReceiver(thisJSObj, key, value, receiver, root.isStrict(), jsclassProfile, root);
             }
         }
@@ -1385,6 +1389,11 @@ public class PropertySetNode extends PropertyCacheNode<PropertySetNode.SetCacheN
         return setOwnProperty;
     }
 
+    @Override
+    protected InlineCacheStatistics.Kind getStatisticsKind() {
+        return InlineCacheStatistics.Kind.PROPERTY_SET;
+    }
+
     protected final boolean isStrict() {
         return this.isStrict;
     }
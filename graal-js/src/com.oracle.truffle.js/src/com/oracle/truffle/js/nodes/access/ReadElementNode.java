@@ -113,6 +113,7 @@ import com.oracle.truffle.js.runtime.objects.JSDynamicObject;
 import com.oracle.truffle.js.runtime.objects.JSLazyString;
 import com.oracle.truffle.js.runtime.objects.JSObject;
 import com.oracle.truffle.js.runtime.objects.Undefined;
+import com.oracle.truffle.js.runtime.util.InlineCacheStatistics;
 import com.oracle.truffle.js.runtime.util.JSClassProfile;
 import com.oracle.truffle.js.runtime.util.TRegexUtil;
 
@@ -416,6 +417,14 @@ public class ReadElementNode extends JSTargetableNode implements ReadNode {
             ReadElementTypeCacheNode newCacheNode = makeTypeCacheNode(target, currentHead);
             insert(newCacheNode);
             typeCacheNode = newCacheNode;
+            InlineCacheStatistics statistics = context.getInlineCacheStatistics();
+            if (statistics != null) {
+                int depth = 0;
+                for (ReadElementTypeCacheNode c = newCacheNode; c != null; c = c.typeCacheNext) {
+                    depth++;
+                }
+                statistics.record(this, InlineCacheStatistics.Kind.ELEMENT_READ, depth, "new receiver type");
+            }
             if (currentHead != null && currentHead.typeCacheNext != null && currentHead.typeCacheNext.typeCacheNext != null) {
                 reportPolymorphicSpecialize();
             }
@@ -548,6 +557,14 @@ public class ReadElementNode extends JSTargetableNode implements ReadNode {
                 ArrayReadElementCacheNode newCacheNode = makeArrayCacheNode(target, array, currentHead);
                 insert(newCacheNode);
                 arrayReadElementNode = newCacheNode;
+                InlineCacheStatistics statistics = JSObject.getJSContext(target).getInlineCacheStatistics();
+                if (statistics != null) {
+                    int depth = 0;
+                    for (ArrayReadElementCacheNode c = newCacheNode; c != null; c = c.arrayCacheNext) {
+                        depth++;
+                    }
+                    statistics.record(this, InlineCacheStatistics.Kind.ELEMENT_READ, depth, "new array type " + array.getClass().getSimpleName());
+                }
                 if (!newCacheNode.guard(target, array)) {
                     throw Errors.shouldNotReachHere();
                 }
@@ -1342,7 +1359,7 @@ public class ReadElementNode extends JSTargetableNode implements ReadNode {
                 int intIndex = ((Long) convertedIndex).intValue();
                 if (stringIndexInBounds.profile(intIndex >= 0 && intIndex < JSRuntime.length(charSequence))) {
                     // charAt needs boundary, SVM thinks it could be any type
-                    return String.valueOf(JSRuntime.charAt(charSequence, intIndex));
+                    return JSRuntime.charToString(JSRuntime.charAt(charSequence, intIndex));
                 }
             }
             return JSObject.getOrDefault(JSString.create(root.context, charSequence), toPropertyKey(index), receiver, defaultValue, jsclassProfile, root);
@@ -1352,7 +1369,7 @@ public class ReadElementNode extends JSTargetableNode implements ReadNode {
         protected Object executeWithTargetAndIndexUnchecked(Object target, int index, Object receiver, Object defaultValue, ReadElementNode root) {
             CharSequence charSequence = (CharSequence) stringClass.cast(target);
             if (stringIndexInBounds.profile(index >= 0 && index < JSRuntime.length(charSequence))) {
-                return String.valueOf(JSRuntime.charAt(charSequence, index));
+                return JSRuntime.charToString(JSRuntime.charAt(charSequence, index));
             } else {
                 return JSObject.getOrDefault(JSString.create(root.context, charSequence), index, receiver, defaultValue, jsclassProfile, root);
             }
@@ -1382,7 +1399,7 @@ public class ReadElementNode extends JSTargetableNode implements ReadNode {
             if (arrayIndexProfile.profile(convertedIndex instanceof Long)) {
                 int intIndex = ((Long) convertedIndex).intValue();
                 if (stringIndexInBounds.profile(intIndex >= 0 && intIndex < str.length())) {
-                    return String.valueOf(str.charAt(intIndex));
+                    return JSRuntime.charToString(str.charAt(intIndex));
                 }
             }
             return JSObject.getOrDefault(JSString.create(root.context, str), toPropertyKey(index), receiver, defaultValue, jsclassProfile, root);
@@ -1392,7 +1409,7 @@ public class ReadElementNode extends JSTargetableNode implements ReadNode {
         protected Object executeWithTargetAndIndexUnchecked(Object target, int index, Object receiver, Object defaultValue, ReadElementNode root) {
             String str = ((JSLazyString) target).toString(isFlatProfile);
             if (stringIndexInBounds.profile(index >= 0 && index < str.length())) {
-                return String.valueOf(str.charAt(index));
+                return JSRuntime.charToString(str.charAt(index));
             } else {
                 return JSObject.getOrDefault(JSString.create(root.context, str), index, receiver, defaultValue, jsclassProfile, root);
             }
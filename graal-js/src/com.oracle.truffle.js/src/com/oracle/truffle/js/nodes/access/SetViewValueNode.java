@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2018, 2020, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2018, 2021, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * The Universal Permissive License (UPL), Version 1.0
@@ -61,6 +61,7 @@ import com.oracle.truffle.js.runtime.builtins.JSArrayBuffer;
 import com.oracle.truffle.js.runtime.builtins.JSDataView;
 import com.oracle.truffle.js.runtime.objects.Undefined;
 
+import java.nio.ReadOnlyBufferException;
 import java.util.Set;
 
 public abstract class SetViewValueNode extends JavaScriptNode {
@@ -128,7 +129,12 @@ public abstract class SetViewValueNode extends JavaScriptNode {
         assert getIndex + viewOffset <= Integer.MAX_VALUE;
         int bufferIndex = (int) (getIndex + viewOffset);
         TypedArray strategy = typeProfile.profile(factory.createArrayType(JSArrayBuffer.isJSDirectOrSharedArrayBuffer(buffer), true));
-        strategy.setBufferElement(buffer, bufferIndex, isLittleEndian, numberValue);
+        try {
+            strategy.setBufferElement(buffer, bufferIndex, isLittleEndian, numberValue);
+        } catch (ReadOnlyBufferException e) {
+            errorBranch.enter();
+            throw Errors.createTypeErrorReadOnlyBuffer();
+        }
         return Undefined.instance;
     }
 
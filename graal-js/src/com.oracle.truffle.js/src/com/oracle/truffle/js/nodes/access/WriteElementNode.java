@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2018, 2020, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2018, 2021, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * The Universal Permissive License (UPL), Version 1.0
@@ -125,6 +125,7 @@ import com.oracle.truffle.js.runtime.builtins.JSString;
 import com.oracle.truffle.js.runtime.builtins.JSSymbol;
 import com.oracle.truffle.js.runtime.objects.JSDynamicObject;
 import com.oracle.truffle.js.runtime.objects.JSObject;
+import com.oracle.truffle.js.runtime.util.InlineCacheStatistics;
 import com.oracle.truffle.js.runtime.util.JSClassProfile;
 import com.oracle.truffle.js.runtime.util.TRegexUtil;
 
@@ -471,6 +472,14 @@ public class WriteElementNode extends JSTargetableNode {
             WriteElementTypeCacheNode newCacheNode = makeTypeCacheNode(target, currentHead);
             insert(newCacheNode);
             typeCacheNode = newCacheNode;
+            InlineCacheStatistics statistics = context.getInlineCacheStatistics();
+            if (statistics != null) {
+                int depth = 0;
+                for (WriteElementTypeCacheNode c = newCacheNode; c != null; c = c.typeCacheNext) {
+                    depth++;
+                }
+                statistics.record(this, InlineCacheStatistics.Kind.ELEMENT_WRITE, depth, "new receiver type");
+            }
             if (!newCacheNode.guard(target)) {
                 throw Errors.shouldNotReachHere();
             }
@@ -634,6 +643,14 @@ public class WriteElementNode extends JSTargetableNode {
                 ArrayWriteElementCacheNode newCacheNode = makeArrayCacheNode(target, array, currentHead);
                 insert(newCacheNode);
                 arrayWriteElementNode = newCacheNode;
+                InlineCacheStatistics statistics = JSObject.getJSContext(target).getInlineCacheStatistics();
+                if (statistics != null) {
+                    int depth = 0;
+                    for (ArrayWriteElementCacheNode c = newCacheNode; c != null; c = c.arrayCacheNext) {
+                        depth++;
+                    }
+                    statistics.record(this, InlineCacheStatistics.Kind.ELEMENT_WRITE, depth, "new array type " + array.getClass().getSimpleName());
+                }
                 if (currentHead != null && currentHead.arrayCacheNext != null && currentHead.arrayCacheNext.arrayCacheNext != null) {
                     reportPolymorphicSpecialize();
                 }
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2018, 2020, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2018, 2021, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * The Universal Permissive License (UPL), Version 1.0
@@ -82,14 +82,18 @@ import com.oracle.truffle.js.runtime.JSArguments;
 import com.oracle.truffle.js.runtime.JSConfig;
 import com.oracle.truffle.js.runtime.JSContext;
 import com.oracle.truffle.js.runtime.JSFrameUtil;
+import com.oracle.truffle.js.runtime.JSRealm;
+import com.oracle.truffle.js.runtime.JSRuntime;
 import com.oracle.truffle.js.runtime.JavaScriptRootNode;
 import com.oracle.truffle.js.runtime.UserScriptException;
 import com.oracle.truffle.js.runtime.builtins.JSFunction;
 import com.oracle.truffle.js.runtime.builtins.JSFunctionData;
 import com.oracle.truffle.js.runtime.builtins.JSPromise;
+import com.oracle.truffle.js.runtime.objects.AwaitContinuationRecord;
 import com.oracle.truffle.js.runtime.objects.Completion;
 import com.oracle.truffle.js.runtime.objects.JSObjectUtil;
 import com.oracle.truffle.js.runtime.objects.PromiseCapabilityRecord;
+import com.oracle.truffle.js.runtime.objects.PromiseReactionJobRecord;
 import com.oracle.truffle.js.runtime.objects.PromiseReactionRecord;
 import com.oracle.truffle.js.runtime.objects.Undefined;
 import com.oracle.truffle.js.runtime.util.SimpleArrayList;
@@ -108,10 +112,13 @@ public class AwaitNode extends JavaScriptNode implements ResumableNode, SuspendN
     @Child private PropertySetNode setAsyncTargetNode;
     @Child private PropertySetNode setAsyncCallNode;
     @Child private PropertySetNode setAsyncGeneratorNode;
+    @Child private PropertyGetNode getPromiseResultNode;
     @Child private JSTargetableNode materializedInputNode;
     protected final JSContext context;
     private final ConditionProfile asyncTypeProf = ConditionProfile.createBinaryProfile();
     private final ConditionProfile resumptionTypeProf = ConditionProfile.createBinaryProfile();
+    private final ConditionProfile primitiveValueProf = ConditionProfile.createBinaryProfile();
+    private final ConditionProfile fulfilledPromiseProf = ConditionProfile.createBinaryProfile();
     private final BranchProfile saveStackBranch = BranchProfile.create();
 
     static final HiddenKey ASYNC_CONTEXT = new HiddenKey("AsyncContext");
@@ -191,7 +198,18 @@ public class AwaitNode extends JavaScriptNode implements ResumableNode, SuspendN
             context.notifyPromiseHook(-1 /* parent info */, (DynamicObject) parentPromise);
         }
 
+        if (primitiveValueProf.profile(isAwaitFastPathAllowed() && JSRuntime.isJSPrimitive(value))) {
+            // a primitive is never a thenable: PromiseResolve would yield a fulfilled promise
+            enqueueAwaitContinuation(frame, resumeTarget, asyncContext, generatorOrCapability, value);
+            throw YieldException.AWAIT_NULL; // value is ignored
+        }
+
         DynamicObject promise = promiseResolve(value);
+        if (fulfilledPromiseProf.profile(isAwaitFastPathAllowed() && JSPromise.isFulfilled(promise))) {
+            enqueueAwaitContinuation(frame, resumeTarget, asyncContext, generatorOrCapability, getPromiseResult(promise));
+            throw YieldException.AWAIT_NULL; // value is ignored
+        }
+
         DynamicObject onFulfilled = createAwaitFulfilledFunction(resumeTarget, asyncContext, generatorOrCapability);
         DynamicObject onRejected = createAwaitRejectedFunction(resumeTarget, asyncContext, generatorOrCapability);
         PromiseCapabilityRecord throwawayCapability = newThrowawayCapability();
@@ -206,11 +224,41 @@ public class AwaitNode extends JavaScriptNode implements ResumableNode, SuspendN
         throw YieldException.AWAIT_NULL; // value is ignored
     }
 
+    /**
+     * PerformPromiseThen on a fulfilled promise enqueues the fulfill reaction job right away, so for
+     * an awaited value that is (or resolves to) a fulfilled promise, we can enqueue the resumption of
+     * the suspended function directly, without handler functions, reaction records and capability.
+     * Not used if the intermediate objects are observable (promise hooks, instrumentation) or needed
+     * (throwaway capability before ES2019).
+     */
+    private boolean isAwaitFastPathAllowed() {
+        return context.getEcmaScriptVersion() >= JSConfig.ECMAScript2019 && materializedInputNode == null && context.getPromiseHookNotUsedAssumption().isValid();
+    }
+
+    private void enqueueAwaitContinuation(VirtualFrame frame, CallTarget resumeTarget, MaterializedFrame asyncContext, Object generatorOrCapability, Object value) {
+        captureAsyncStackTrace(frame);
+        AwaitContinuationRecord continuation = AwaitContinuationRecord.create(resumeTarget, asyncContext, generatorOrCapability);
+        JSRealm realm = context.getRealm();
+        context.promiseEnqueueJob(realm, PromiseReactionJobRecord.create(realm, continuation, value));
+    }
+
+    private Object getPromiseResult(DynamicObject promise) {
+        if (getPromiseResultNode == null) {
+            CompilerDirectives.transferToInterpreterAndInvalidate();
+            getPromiseResultNode = insert(PropertyGetNode.createGetHidden(JSPromise.PROMISE_RESULT, context));
+        }
+        return getPromiseResultNode.getValue(promise);
+    }
+
     private void fillAsyncStackTrace(VirtualFrame frame, DynamicObject onFulfilled, DynamicObject onRejected) {
         if (setAsyncCallNode != null) {
             setAsyncCallNode.setValue(onFulfilled, expression);
             setAsyncCallNode.setValue(onRejected, expression);
         }
+        captureAsyncStackTrace(frame);
+    }
+
+    private void captureAsyncStackTrace(VirtualFrame frame) {
         if (context.isOptionAsyncStackTraces()) {
             Object[] asyncContext = (Object[]) readAsyncContextNode.execute(frame);
             int asyncStackDepth = 0;
@@ -437,6 +485,18 @@ public class AwaitNode extends JavaScriptNode implements ResumableNode, SuspendN
         } while (nextPromise != null);
     }
 
+    public static List<TruffleStackTraceElement> findAsyncStackFramesFromContinuation(AwaitContinuationRecord continuation) {
+        List<TruffleStackTraceElement> stackTrace = new ArrayList<>(4);
+        RootNode rootNode = ((RootCallTarget) continuation.getResumeTarget()).getRootNode();
+        if (rootNode instanceof AsyncRootNode) {
+            DynamicObject promise = ((AsyncRootNode) rootNode).getAsyncFunctionPromise(continuation.getAsyncContext());
+            if (promise != null) {
+                collectAsyncStackFramesFromPromise(promise, stackTrace);
+            }
+        }
+        return stackTrace;
+    }
+
     public static List<TruffleStackTraceElement> findAsyncStackFramesFromHandler(DynamicObject handlerFunction) {
         List<TruffleStackTraceElement> stackTrace = new ArrayList<>(4);
         RootNode rootNode = ((RootCallTarget) JSFunction.getCallTarget(handlerFunction)).getRootNode();
@@ -108,6 +108,7 @@ import com.oracle.truffle.js.runtime.objects.JSDynamicObject;
 import com.oracle.truffle.js.runtime.objects.JSShape;
 import com.oracle.truffle.js.runtime.objects.Undefined;
 import com.oracle.truffle.js.runtime.util.DebugCounter;
+import com.oracle.truffle.js.runtime.util.InlineCacheStatistics;
 import com.oracle.truffle.js.runtime.util.SimpleArrayList;
 
 public abstract class JSFunctionCallNode extends JavaScriptNode implements JavaScriptFunctionCallNode {
@@ -265,7 +266,9 @@ public abstract class JSFunctionCallNode extends JavaScriptNode implements JavaS
                 c = c.nextNode;
             }
             if (c == null) {
-                if (cachedCount < JavaScriptLanguage.getCurrentJSRealm().getContext().getFunctionCacheLimit() && !generic) {
+                JSContext context = JavaScriptLanguage.getCurrentJSRealm().getContext();
+                boolean cacheLimitReached = cachedCount >= context.getFunctionCacheLimit();
+                if (!cacheLimitReached && !generic) {
                     if (JSFunction.isJSFunction(function)) {
                         c = specializeDirectCall((DynamicObject) function, currentHead);
                     }
@@ -285,6 +288,11 @@ public abstract class JSFunctionCallNode extends JavaScriptNode implements JavaS
                     }
                 }
                 assert c.getParent() != null;
+                InlineCacheStatistics statistics = context.getInlineCacheStatistics();
+                if (statistics != null) {
+                    String reason = currentHead == null ? "first call" : (cacheLimitReached ? "cache limit reached" : "new callee");
+                    statistics.record(this, InlineCacheStatistics.Kind.CALL, null, getCost(), getCachedCount(cacheNode), reason);
+                }
             }
         } finally {
             lock.unlock();
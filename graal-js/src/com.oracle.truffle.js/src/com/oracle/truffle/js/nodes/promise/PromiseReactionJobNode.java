@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2018, 2020, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2018, 2021, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * The Universal Permissive License (UPL), Version 1.0
@@ -54,51 +54,49 @@ import com.oracle.truffle.api.instrumentation.StandardTags;
 import com.oracle.truffle.api.instrumentation.Tag;
 import com.oracle.truffle.api.interop.InteropLibrary;
 import com.oracle.truffle.api.object.DynamicObject;
-import com.oracle.truffle.api.object.HiddenKey;
 import com.oracle.truffle.api.profiles.ConditionProfile;
 import com.oracle.truffle.js.nodes.JavaScriptBaseNode;
-import com.oracle.truffle.js.nodes.access.PropertyGetNode;
-import com.oracle.truffle.js.nodes.access.PropertySetNode;
 import com.oracle.truffle.js.nodes.control.AwaitNode;
+import com.oracle.truffle.js.nodes.control.AwaitResumeNode;
 import com.oracle.truffle.js.nodes.control.TryCatchNode;
 import com.oracle.truffle.js.nodes.function.JSFunctionCallNode;
 import com.oracle.truffle.js.runtime.Errors;
 import com.oracle.truffle.js.runtime.JSArguments;
 import com.oracle.truffle.js.runtime.JSConfig;
 import com.oracle.truffle.js.runtime.JSContext;
-import com.oracle.truffle.js.runtime.JSFrameUtil;
 import com.oracle.truffle.js.runtime.JavaScriptRootNode;
 import com.oracle.truffle.js.runtime.PromiseHook;
 import com.oracle.truffle.js.runtime.builtins.JSFunction;
 import com.oracle.truffle.js.runtime.builtins.JSFunctionData;
+import com.oracle.truffle.js.runtime.objects.AwaitContinuationRecord;
 import com.oracle.truffle.js.runtime.objects.PromiseCapabilityRecord;
+import com.oracle.truffle.js.runtime.objects.PromiseReactionJobRecord;
 import com.oracle.truffle.js.runtime.objects.PromiseReactionRecord;
 import com.oracle.truffle.js.runtime.objects.Undefined;
 
 public class PromiseReactionJobNode extends JavaScriptBaseNode {
-    static final HiddenKey REACTION_KEY = new HiddenKey("Reaction");
-    static final HiddenKey ARGUMENT_KEY = new HiddenKey("Argument");
-
     private final JSContext context;
-    @Child private PropertySetNode setReaction;
-    @Child private PropertySetNode setArgument;
 
     protected PromiseReactionJobNode(JSContext context) {
         this.context = context;
-        this.setReaction = PropertySetNode.createSetHidden(REACTION_KEY, context);
-        this.setArgument = PropertySetNode.createSetHidden(ARGUMENT_KEY, context);
     }
 
     public static PromiseReactionJobNode create(JSContext context) {
         return new PromiseReactionJobNode(context);
     }
 
-    public DynamicObject execute(Object reaction, Object argument) {
+    public PromiseReactionJobRecord execute(Object reaction, Object argument) {
+        return PromiseReactionJobRecord.create(context.getRealm(), reaction, argument);
+    }
+
+    /**
+     * Runs a job created by {@link #execute}. The job record is passed as the only argument to the
+     * call target shared by all reaction jobs of the context.
+     */
+    public static Object runJob(PromiseReactionJobRecord job) {
+        JSContext context = job.getRealm().getContext();
         JSFunctionData functionData = context.getOrCreateBuiltinFunctionData(JSContext.BuiltinFunctionKey.PromiseReactionJob, (c) -> createPromiseReactionJobImpl(c));
-        DynamicObject function = JSFunction.create(context.getRealm(), functionData);
-        setReaction.setValue(function, reaction);
-        setArgument.setValue(function, argument);
-        return function;
+        return functionData.getCallTarget().call(JSArguments.createOneArg(Undefined.instance, Undefined.instance, job));
     }
 
     private static JSFunctionData createPromiseReactionJobImpl(JSContext context) {
@@ -108,27 +106,30 @@ public class PromiseReactionJobNode extends JavaScriptBaseNode {
 
     public static class PromiseReactionJobRootNode extends JavaScriptRootNode implements InstrumentableNode {
         private final JSContext context;
-        @Child private PropertyGetNode getReaction;
-        @Child private PropertyGetNode getArgument;
         @Child private JSFunctionCallNode callResolveNode;
         @Child private JSFunctionCallNode callRejectNode;
         @Child private JSFunctionCallNode callHandlerNode;
         @Child private TryCatchNode.GetErrorObjectNode getErrorObjectNode;
         @Child private InteropLibrary exceptions;
+        @Child private AwaitResumeNode awaitResumeNode;
         private final ConditionProfile handlerProf = ConditionProfile.createBinaryProfile();
+        private final ConditionProfile awaitContinuationProf = ConditionProfile.createBinaryProfile();
 
         PromiseReactionJobRootNode(JSContext context) {
             super(context.getLanguage(), null, null);
             this.context = context;
-            this.getReaction = PropertyGetNode.createGetHidden(REACTION_KEY, context);
-            this.getArgument = PropertyGetNode.createGetHidden(ARGUMENT_KEY, context);
         }
 
         @Override
         public Object execute(VirtualFrame frame) {
-            DynamicObject functionObject = JSFrameUtil.getFunctionObject(frame);
-            PromiseReactionRecord reaction = (PromiseReactionRecord) getReaction.getValue(functionObject);
-            Object argument = getArgument.getValue(functionObject);
+            PromiseReactionJobRecord job = (PromiseReactionJobRecord) JSArguments.getUserArgument(frame.getArguments(), 0);
+            Object argument = job.getArgument();
+            if (awaitContinuationProf.profile(job.getReaction() instanceof AwaitContinuationRecord)) {
+                // await fast path: resume the suspended function directly
+                AwaitContinuationRecord continuation = (AwaitContinuationRecord) job.getReaction();
+                return awaitResume().execute(continuation.getResumeTarget(), continuation.getAsyncContext(), continuation.getGeneratorOrCapability(), argument);
+            }
+            PromiseReactionRecord reaction = (PromiseReactionRecord) job.getReaction();
 
             PromiseCapabilityRecord promiseCapability = reaction.getCapability();
             Object handler = reaction.getHandler();
@@ -201,6 +202,14 @@ public class PromiseReactionJobNode extends JavaScriptBaseNode {
             return callRejectNode;
         }
 
+        private AwaitResumeNode awaitResume() {
+            if (awaitResumeNode == null) {
+                CompilerDirectives.transferToInterpreterAndInvalidate();
+                awaitResumeNode = insert(AwaitResumeNode.create(false));
+            }
+            return awaitResumeNode;
+        }
+
         private JSFunctionCallNode callHandler() {
             if (callHandlerNode == null) {
                 CompilerDirectives.transferToInterpreterAndInvalidate();
@@ -220,8 +229,11 @@ public class PromiseReactionJobNode extends JavaScriptBaseNode {
                 return null;
             }
 
-            DynamicObject functionObject = JSFrameUtil.getFunctionObject(frame);
-            PromiseReactionRecord reaction = (PromiseReactionRecord) getReaction.getValue(functionObject);
+            PromiseReactionJobRecord job = (PromiseReactionJobRecord) JSArguments.getUserArgument(frame.getArguments(), 0);
+            if (job.getReaction() instanceof AwaitContinuationRecord) {
+                return AwaitNode.findAsyncStackFramesFromContinuation((AwaitContinuationRecord) job.getReaction());
+            }
+            PromiseReactionRecord reaction = (PromiseReactionRecord) job.getReaction();
             PromiseCapabilityRecord promiseCapability = reaction.getCapability();
             if (promiseCapability != null) {
                 return AwaitNode.findAsyncStackFramesFromPromise(promiseCapability.getPromise());
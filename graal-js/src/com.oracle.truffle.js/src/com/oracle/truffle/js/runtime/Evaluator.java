@@ -40,6 +40,8 @@
  */
 package com.oracle.truffle.js.runtime;
 
+import java.util.List;
+
 import com.oracle.js.parser.ir.Expression;
 import com.oracle.truffle.api.frame.MaterializedFrame;
 import com.oracle.truffle.api.nodes.Node;
@@ -85,6 +87,26 @@ public interface Evaluator {
 
     JSModuleRecord parseModule(JSContext context, Source source, JSModuleLoader moduleLoader);
 
+    /**
+     * Parses a module without translating it. Unlike the other methods of this interface, this
+     * method may be called from a thread that has not entered the context.
+     *
+     * @return the intermediate parse result, or {@code null} if the source could not be parsed
+     */
+    Object preparseModule(JSContext context, Source source);
+
+    /**
+     * Returns the specifiers of the modules requested by a module parsed by
+     * {@link #preparseModule}. Like that method, may be called from any thread.
+     */
+    List<String> getRequestedModules(Object preparsed);
+
+    /**
+     * Translates a module parsed by {@link #preparseModule}. Falls back to a regular parse (and
+     * reports the syntax error) if {@code preparsed} is {@code null} or invalid.
+     */
+    JSModuleRecord parseModule(JSContext context, Source source, Object preparsed, JSModuleLoader moduleLoader);
+
     JSModuleRecord hostResolveImportedModule(JSContext context, ScriptOrModule referencingScriptOrModule, String specifier);
 
     void moduleInstantiation(JSRealm realm, JSModuleRecord moduleRecord);
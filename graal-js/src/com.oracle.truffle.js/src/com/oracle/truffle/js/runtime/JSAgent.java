@@ -44,6 +44,8 @@ import java.lang.ref.WeakReference;
 import java.util.ArrayDeque;
 import java.util.Deque;
 import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.graalvm.collections.EconomicSet;
@@ -51,13 +53,17 @@ import org.graalvm.collections.Equivalence;
 
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.object.DynamicObject;
-import com.oracle.truffle.js.runtime.JSAgentWaiterList.JSAgentWaiterListEntry;
+import com.oracle.truffle.js.nodes.promise.PromiseReactionJobNode;
+import com.oracle.truffle.js.runtime.JSAgentWaiterList.WaiterRecord;
 import com.oracle.truffle.js.runtime.builtins.JSArrayBufferView;
 import com.oracle.truffle.js.runtime.builtins.JSFinalizationRegistry;
 import com.oracle.truffle.js.runtime.builtins.JSFinalizationRegistryObject;
 import com.oracle.truffle.js.runtime.builtins.JSFunction;
 import com.oracle.truffle.js.runtime.builtins.JSSharedArrayBuffer;
+import com.oracle.truffle.js.runtime.objects.PromiseReactionJobRecord;
 import com.oracle.truffle.js.runtime.objects.Undefined;
+import com.oracle.truffle.js.runtime.util.JSFlightRecorder;
+import com.oracle.truffle.js.runtime.util.RuntimeEventType;
 
 /**
  * Base class for ECMA2017 8.7 Agents.
@@ -74,9 +80,22 @@ public abstract class JSAgent implements EcmaAgent {
     private boolean inCriticalSection;
 
     /**
-     * ECMA 8.4 "PromiseJobs" job queue.
+     * ECMA 8.4 "PromiseJobs" job queue. Contains job functions and {@link PromiseReactionJobRecord
+     * reaction jobs}.
      */
-    private final Deque<DynamicObject> promiseJobsQueue;
+    private final Deque<Object> promiseJobsQueue;
+
+    /**
+     * Host jobs that are run before ({@link JobPriority#HIGH}) and after ({@link JobPriority#LOW})
+     * the pending promise jobs.
+     */
+    private final Deque<DynamicObject> highPriorityJobsQueue;
+    private final Deque<DynamicObject> lowPriorityJobsQueue;
+
+    /**
+     * Maximum number of jobs run by one call of {@link #processAllPromises}, 0 for no limit.
+     */
+    private int jobBudget;
 
     /**
      * According to ECMA2017 8.4 the queue of pending jobs (promises reactions) must be processed
@@ -95,15 +114,29 @@ public abstract class JSAgent implements EcmaAgent {
 
     private final Deque<WeakReference<JSFinalizationRegistryObject>> finalizationRegistryQueue;
 
+    /**
+     * Number of {@code Atomics.waitAsync} waiters of this agent whose promises are not settled yet.
+     * Only accessed by the thread of this agent.
+     */
+    private int pendingAsyncWaiters;
+
+    /**
+     * {@code Atomics.waitAsync} waiters of this agent that were notified or timed out. Filled by
+     * the notifying agent or the timer thread and drained by this agent, which settles their
+     * promises.
+     */
+    private final Queue<WaiterRecord> settledAsyncWaiters;
+
     public JSAgent(boolean canBlock) {
         this.signifier = signifierGenerator.incrementAndGet();
         this.canBlock = canBlock;
         this.promiseJobsQueue = new ArrayDeque<>(4);
+        this.highPriorityJobsQueue = new ArrayDeque<>(4);
+        this.lowPriorityJobsQueue = new ArrayDeque<>(4);
         this.finalizationRegistryQueue = new ArrayDeque<>(4);
+        this.settledAsyncWaiters = new ConcurrentLinkedQueue<>();
     }
 
-    public abstract void wakeAgent(int w);
-
     public int getSignifier() {
         return signifier;
     }
@@ -112,6 +145,14 @@ public abstract class JSAgent implements EcmaAgent {
         return canBlock;
     }
 
+    /**
+     * Returns whether the agent has been asked to terminate. Blocking operations of the agent (like
+     * {@code Atomics.wait}) give up once this is set.
+     */
+    public boolean isTerminating() {
+        return false;
+    }
+
     public boolean inCriticalSection() {
         return inCriticalSection;
     }
@@ -146,32 +187,89 @@ public abstract class JSAgent implements EcmaAgent {
         waiterList.unlock();
     }
 
+    /**
+     * Lanes of the job queue for jobs enqueued by the embedder.
+     */
+    public enum JobPriority {
+        /** Run before any pending promise job. */
+        HIGH,
+        /** Run in order with promise jobs. */
+        NORMAL,
+        /** Run only when no other jobs are pending. */
+        LOW
+    }
+
     @TruffleBoundary
     public final void enqueuePromiseJob(DynamicObject job) {
         promiseJobsQueue.push(job);
     }
 
+    @TruffleBoundary
+    public final void enqueuePromiseReactionJob(PromiseReactionJobRecord job) {
+        promiseJobsQueue.push(job);
+    }
+
+    @TruffleBoundary
+    public final void enqueueHostJob(DynamicObject job, JobPriority priority) {
+        switch (priority) {
+            case HIGH:
+                highPriorityJobsQueue.push(job);
+                break;
+            case NORMAL:
+                promiseJobsQueue.push(job);
+                break;
+            case LOW:
+                lowPriorityJobsQueue.push(job);
+                break;
+            default:
+                throw Errors.shouldNotReachHere();
+        }
+    }
+
+    /**
+     * Returns whether there are queued jobs, including the settlement of async waiters that were
+     * notified or timed out since the last job processing.
+     */
+    public final boolean hasPendingJobs() {
+        return !promiseJobsQueue.isEmpty() || !highPriorityJobsQueue.isEmpty() || !lowPriorityJobsQueue.isEmpty() || !settledAsyncWaiters.isEmpty();
+    }
+
+    public final int getJobBudget() {
+        return jobBudget;
+    }
+
+    /**
+     * Limits the number of jobs run by one call of {@link #processAllPromises}, the remaining jobs
+     * stay queued for the next call (see {@link #hasPendingJobs}). This allows the embedder to
+     * interleave other work with long chains of promise jobs. A budget of 0 means no limit.
+     */
+    public final void setJobBudget(int jobBudget) {
+        assert jobBudget >= 0;
+        this.jobBudget = jobBudget;
+    }
+
     @TruffleBoundary
     public final void processAllPromises(boolean processWeakRefs) {
+        Object event = JSFlightRecorder.begin(RuntimeEventType.PROMISE_JOBS);
+        long jobCount = 0;
+        long budget = jobBudget == 0 ? Long.MAX_VALUE : jobBudget;
+        boolean completed = false;
         try {
             interopBoundaryEnter();
-            while (!promiseJobsQueue.isEmpty()) {
-                DynamicObject nextJob = promiseJobsQueue.pollLast();
-                if (JSFunction.isJSFunction(nextJob)) {
-                    JSRealm functionRealm = JSFunction.getRealm(nextJob);
-                    Object prev = functionRealm.getTruffleContext().enter(null);
-                    try {
-                        JSFunction.call(nextJob, Undefined.instance, JSArguments.EMPTY_ARGUMENTS_ARRAY);
-                    } finally {
-                        functionRealm.getTruffleContext().leave(null, prev);
-                    }
-                }
-            }
+            do {
+                jobCount += runJobs(budget - jobCount);
+            } while (jobCount < budget && processAsyncWaiters());
+            completed = true;
         } finally {
             interopBoundaryExit();
-            // Ensure that there are no leftovers when the processing
-            // is terminated by an exception (like ExitException).
-            promiseJobsQueue.clear();
+            JSFlightRecorder.commit(event, null, jobCount);
+            if (!completed) {
+                // Ensure that there are no leftovers when the processing
+                // is terminated by an exception (like ExitException).
+                promiseJobsQueue.clear();
+                highPriorityJobsQueue.clear();
+                lowPriorityJobsQueue.clear();
+            }
             if (processWeakRefs) {
                 if (weakRefTargets != null) {
                     weakRefTargets.clear();
@@ -181,11 +279,126 @@ public abstract class JSAgent implements EcmaAgent {
         }
     }
 
+    /**
+     * Runs up to {@code budget} pending jobs. Consecutive jobs of the same realm are run without
+     * leaving and re-entering the realm's context.
+     */
+    private long runJobs(long budget) {
+        long jobCount = 0;
+        JSRealm enteredRealm = null;
+        Object prev = null;
+        try {
+            while (jobCount < budget) {
+                Object job = pollJob();
+                if (job == null) {
+                    break;
+                }
+                JSRealm jobRealm;
+                if (job instanceof PromiseReactionJobRecord) {
+                    jobRealm = ((PromiseReactionJobRecord) job).getRealm();
+                } else if (JSFunction.isJSFunction(job)) {
+                    jobRealm = JSFunction.getRealm((DynamicObject) job);
+                } else {
+                    continue;
+                }
+                if (jobRealm != enteredRealm) {
+                    if (enteredRealm != null) {
+                        enteredRealm.getTruffleContext().leave(null, prev);
+                        enteredRealm = null;
+                    }
+                    prev = jobRealm.getTruffleContext().enter(null);
+                    enteredRealm = jobRealm;
+                }
+                jobCount++;
+                if (job instanceof PromiseReactionJobRecord) {
+                    PromiseReactionJobNode.runJob((PromiseReactionJobRecord) job);
+                } else {
+                    JSFunction.call((DynamicObject) job, Undefined.instance, JSArguments.EMPTY_ARGUMENTS_ARRAY);
+                }
+            }
+        } finally {
+            if (enteredRealm != null) {
+                enteredRealm.getTruffleContext().leave(null, prev);
+            }
+        }
+        return jobCount;
+    }
+
+    private Object pollJob() {
+        if (!highPriorityJobsQueue.isEmpty()) {
+            return highPriorityJobsQueue.pollLast();
+        } else if (!promiseJobsQueue.isEmpty()) {
+            return promiseJobsQueue.pollLast();
+        } else {
+            return lowPriorityJobsQueue.pollLast();
+        }
+    }
+
+    private static void callInRealm(DynamicObject function, Object[] arguments) {
+        JSRealm functionRealm = JSFunction.getRealm(function);
+        Object prev = functionRealm.getTruffleContext().enter(null);
+        try {
+            JSFunction.call(function, Undefined.instance, arguments);
+        } finally {
+            functionRealm.getTruffleContext().leave(null, prev);
+        }
+    }
+
+    @TruffleBoundary
+    public final void addAsyncWaiter(WaiterRecord waiter) {
+        assert waiter.isAsync();
+        pendingAsyncWaiters++;
+    }
+
+    /**
+     * Returns whether this agent has {@code Atomics.waitAsync} promises that are still pending. An
+     * embedding that runs an event loop should keep processing promise jobs while this is true.
+     */
+    public final boolean hasPendingAsyncWaiters() {
+        return pendingAsyncWaiters > 0;
+    }
+
+    /**
+     * Hands a notified or timed out async waiter of this agent over to this agent. May be called
+     * from any thread; the promise of the waiter is settled by the next
+     * {@link #processAllPromises} of this agent.
+     */
+    @TruffleBoundary
+    public final void enqueueAsyncWaiterSettlement(WaiterRecord waiter) {
+        assert waiter.isAsync();
+        settledAsyncWaiters.add(waiter);
+        asyncWaiterSettled();
+    }
+
+    /**
+     * Called on the notifying thread after an async waiter of this agent was settled. Agents with
+     * an event loop that may be idle should wake it up to process the settlement.
+     */
+    protected void asyncWaiterSettled() {
+    }
+
+    /**
+     * Settles the promises of async waiters that were notified or timed out. Returns whether any
+     * promise was settled, i.e., whether new promise jobs may have been enqueued.
+     */
+    private boolean processAsyncWaiters() {
+        boolean settled = false;
+        WaiterRecord waiter;
+        while ((waiter = settledAsyncWaiters.poll()) != null) {
+            pendingAsyncWaiters--;
+            String result = waiter.isNotified() ? "ok" : "timed-out";
+            callInRealm((DynamicObject) waiter.getPromiseCapability().getResolve(), new Object[]{result});
+            settled = true;
+        }
+        return settled;
+    }
+
     /**
      * Cleanup the finalizationRegistries that are unreferenced; cleanup referenced ones according
      * to 4.1.3 Execution and 4.1.4.1 HostCleanupFinalizatioRegistry.
      */
     private void cleanupFinalizers() {
+        Object event = JSFlightRecorder.begin(RuntimeEventType.FINALIZATION_REGISTRY_CLEANUP);
         for (Iterator<WeakReference<JSFinalizationRegistryObject>> iter = finalizationRegistryQueue.iterator(); iter.hasNext();) {
             WeakReference<JSFinalizationRegistryObject> ref = iter.next();
             JSFinalizationRegistryObject fr = ref.get();
@@ -195,6 +408,7 @@ public abstract class JSAgent implements EcmaAgent {
                 JSFinalizationRegistry.hostCleanupFinalizationRegistry(fr);
             }
         }
+        JSFlightRecorder.commit(event, null, finalizationRegistryQueue.size());
     }
 
     public final void interopBoundaryEnter() {
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2018, 2020, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2018, 2021, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * The Universal Permissive License (UPL), Version 1.0
@@ -40,13 +40,19 @@
  */
 package com.oracle.truffle.js.runtime;
 
-import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import java.util.ArrayDeque;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReentrantLock;
 
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.js.runtime.objects.PromiseCapabilityRecord;
+
 /**
  * Java-based implementation of ECMA2017 WaiterList (24.4.1.2).
  */
@@ -62,10 +68,14 @@ public class JSAgentWaiterList {
         this.globalMonitor = new ReentrantLock();
     }
 
-    public JSAgentWaiterListEntry getListForIndex(int indexPos) {
-        JSAgentWaiterListEntry list = Boundaries.mapPutIfAbsent(waiters, indexPos, new JSAgentWaiterListEntry());
+    /**
+     * Returns the waiter list for the given byte index into the buffer, so that views of different
+     * element types and offsets agree on the list of a location.
+     */
+    public JSAgentWaiterListEntry getListForIndex(int byteIndex) {
+        JSAgentWaiterListEntry list = Boundaries.mapPutIfAbsent(waiters, byteIndex, new JSAgentWaiterListEntry());
         if (list == null) {
-            return Boundaries.mapGet(waiters, indexPos);
+            return Boundaries.mapGet(waiters, byteIndex);
         } else {
             return list;
         }
@@ -79,16 +89,19 @@ public class JSAgentWaiterList {
         globalMonitor.unlock();
     }
 
-    public static final class JSAgentWaiterListEntry extends ConcurrentLinkedQueue<Integer> {
-
-        private static final long serialVersionUID = 2655886588267252886L;
+    /**
+     * FIFO queue of the agents waiting on one location. All accesses have to hold the lock of the
+     * entry (the critical section of the location).
+     */
+    public static final class JSAgentWaiterListEntry {
 
         private final Lock indexMonitor;
+        private final ArrayDeque<WaiterRecord> queue;
 
         @TruffleBoundary
         public JSAgentWaiterListEntry() {
-            super();
             this.indexMonitor = new ReentrantLock();
+            this.queue = new ArrayDeque<>(4);
         }
 
         public void lock() {
@@ -99,6 +112,175 @@ public class JSAgentWaiterList {
             indexMonitor.unlock();
         }
 
+        @TruffleBoundary
+        public void add(WaiterRecord waiter) {
+            queue.addLast(waiter);
+        }
+
+        @TruffleBoundary
+        public boolean remove(WaiterRecord waiter) {
+            return queue.remove(waiter);
+        }
+
+        @TruffleBoundary
+        public boolean contains(WaiterRecord waiter) {
+            return queue.contains(waiter);
+        }
+
+        @TruffleBoundary
+        public WaiterRecord poll() {
+            return queue.pollFirst();
+        }
+
+        public int size() {
+            return queue.size();
+        }
+    }
+
+    /**
+     * A waiter of {@code Atomics.wait} (a suspended thread) or {@code Atomics.waitAsync} (a promise
+     * that is resolved by the waiting agent).
+     *
+     * An async waiter is settled by the side that removes it from the waiter list: either the
+     * notifying agent or the timeout task. That side hands the waiter over to the waiting agent
+     * (see {@link JSAgent#enqueueAsyncWaiterSettlement}), which resolves the promise in its next
+     * round of job processing.
+     */
+    public static final class WaiterRecord {
+
+        private final JSAgentWaiterListEntry list;
+        private final Thread thread;
+        private final JSAgent agent;
+        private final PromiseCapabilityRecord promiseCapability;
+        private final boolean hasDeadline;
+        private final long deadline;
+        private volatile boolean notified;
+        /** Pending timeout of an async waiter. Guarded by the lock of the list. */
+        private ScheduledFuture<?> timeoutTask;
+
+        private WaiterRecord(JSAgentWaiterListEntry list, Thread thread, JSAgent agent, PromiseCapabilityRecord promiseCapability, double timeout) {
+            this.list = list;
+            this.thread = thread;
+            this.agent = agent;
+            this.promiseCapability = promiseCapability;
+            double timeoutNanos = timeout * TimeUnit.MILLISECONDS.toNanos(1);
+            this.hasDeadline = timeoutNanos < Long.MAX_VALUE / 2;
+            this.deadline = hasDeadline ? System.nanoTime() + (long) timeoutNanos : 0;
+        }
+
+        /**
+         * Creates the waiter record of the current thread.
+         *
+         * @param timeout the timeout in milliseconds; not negative, may be infinite
+         */
+        @TruffleBoundary
+        public static WaiterRecord createSync(JSAgentWaiterListEntry list, double timeout) {
+            return new WaiterRecord(list, Thread.currentThread(), null, null, timeout);
+        }
+
+        /**
+         * Creates the waiter record of an asynchronous wait of {@code agent} that settles the given
+         * promise.
+         *
+         * @param timeout the timeout in milliseconds; not negative, may be infinite
+         */
+        @TruffleBoundary
+        public static WaiterRecord createAsync(JSAgentWaiterListEntry list, JSAgent agent, PromiseCapabilityRecord promiseCapability, double timeout) {
+            return new WaiterRecord(list, null, agent, promiseCapability, timeout);
+        }
+
+        public JSAgentWaiterListEntry getList() {
+            return list;
+        }
+
+        public boolean isAsync() {
+            return promiseCapability != null;
+        }
+
+        public PromiseCapabilityRecord getPromiseCapability() {
+            return promiseCapability;
+        }
+
+        public boolean isNotified() {
+            return notified;
+        }
+
+        public boolean hasDeadline() {
+            return hasDeadline;
+        }
+
+        /**
+         * Nanoseconds until the deadline of this waiter; not positive once it has timed out.
+         */
+        public long remainingNanos() {
+            assert hasDeadline;
+            return deadline - System.nanoTime();
+        }
+
+        /**
+         * Schedules the timeout of an async waiter. Has to be called in the critical section of the
+         * waiter list after the waiter was added to it.
+         */
+        @TruffleBoundary
+        public void scheduleTimeout() {
+            assert isAsync();
+            if (hasDeadline) {
+                timeoutTask = AsyncWaiterTimer.EXECUTOR.schedule(this::timeOut, remainingNanos(), TimeUnit.NANOSECONDS);
+            }
+        }
+
+        /**
+         * Runs on the timer thread. The waiter times out only if it is still in the list, i.e., if
+         * no notification has removed it in the meantime.
+         */
+        private void timeOut() {
+            boolean removed;
+            list.lock();
+            try {
+                removed = list.remove(this);
+            } finally {
+                list.unlock();
+            }
+            if (removed) {
+                agent.enqueueAsyncWaiterSettlement(this);
+            }
+        }
+
+        /**
+         * Marks the waiter as notified and unparks its thread if it is suspended, or hands an async
+         * waiter over to its agent. Has to be called in the critical section of the waiter list
+         * after the waiter was removed from it.
+         */
+        @TruffleBoundary
+        public void notifyWaiter() {
+            notified = true;
+            if (thread != null) {
+                LockSupport.unpark(thread);
+            } else {
+                if (timeoutTask != null) {
+                    timeoutTask.cancel(false);
+                    timeoutTask = null;
+                }
+                agent.enqueueAsyncWaiterSettlement(this);
+            }
+        }
     }
 
+    /**
+     * Timer thread for the timeouts of {@code Atomics.waitAsync}, shared by all agents and created
+     * on first use.
+     */
+    private static final class AsyncWaiterTimer {
+        static final ScheduledThreadPoolExecutor EXECUTOR = createExecutor();
+
+        private static ScheduledThreadPoolExecutor createExecutor() {
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, r -> {
+                Thread thread = new Thread(r, "JS-Atomics-waitAsync-Timer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.setRemoveOnCancelPolicy(true);
+            return executor;
+        }
+    }
 }
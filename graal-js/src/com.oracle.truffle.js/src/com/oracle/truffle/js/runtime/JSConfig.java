@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2020, 2021, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * The Universal Permissive License (UPL), Version 1.0
@@ -57,6 +57,7 @@ public final class JSConfig {
     public static final int MaxFlatArraySize = 1000000;
     public static final boolean TrackArrayAllocationSites = Boolean.FALSE;
     public static final int BigArrayThreshold = 10000;
+    public static final int LargeArrayReallocationThreshold = 1 << 20;
     public static final boolean MarkElementsNonNull = true;
 
     // Debug options
@@ -92,11 +93,15 @@ public final class JSConfig {
     public static final int DictionaryObjectThreshold = 256;
     public static final int DictionaryObjectTransitionThreshold = 1024;
     public static final boolean MergeShapes = true;
+    /** Number of entries (power of 2) of the per-context megamorphic property cache; 0 disables. */
+    public static final int MegamorphicPropertyCacheSize = 1024;
 
     // LazyString options
     public static final boolean LazyStrings = true;
     public static final int MinLazyStringLength = 20;
     public static final int ConcatToLeafLimit = MinLazyStringLength / 2;
+    public static final int MaxLazyStringDepth = 1024;
+    public static final int LazyStringChunkLength = 8192;
 
     // Parser options
     public static final boolean ReturnOptimizer = true;
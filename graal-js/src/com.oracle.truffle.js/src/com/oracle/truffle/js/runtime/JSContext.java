@@ -67,6 +67,7 @@ import com.oracle.truffle.api.object.Shape;
 import com.oracle.truffle.js.lang.JavaScriptLanguage;
 import com.oracle.truffle.js.nodes.access.GetPrototypeNode;
 import com.oracle.truffle.js.nodes.cast.JSToObjectNode;
+import com.oracle.truffle.js.runtime.JSAgentWaiterList.WaiterRecord;
 import com.oracle.truffle.js.runtime.array.TypedArray;
 import com.oracle.truffle.js.runtime.array.TypedArrayFactory;
 import com.oracle.truffle.js.runtime.builtins.*;
@@ -92,12 +93,16 @@ import com.oracle.truffle.js.runtime.objects.JSObject;
 import com.oracle.truffle.js.runtime.objects.JSPrototypeData;
 import com.oracle.truffle.js.runtime.objects.JSShape;
 import com.oracle.truffle.js.runtime.objects.JSShapeData;
+import com.oracle.truffle.js.runtime.objects.MegamorphicPropertyCache;
 import com.oracle.truffle.js.runtime.objects.Null;
+import com.oracle.truffle.js.runtime.objects.PromiseReactionJobRecord;
 import com.oracle.truffle.js.runtime.objects.PropertyProxy;
 import com.oracle.truffle.js.runtime.objects.ScriptOrModule;
 import com.oracle.truffle.js.runtime.objects.Undefined;
 import com.oracle.truffle.js.runtime.util.CompilableBiFunction;
 import com.oracle.truffle.js.runtime.util.DebugJSAgent;
+import com.oracle.truffle.js.runtime.util.CompiledRegexCache;
+import com.oracle.truffle.js.runtime.util.InlineCacheStatistics;
 import com.oracle.truffle.js.runtime.util.TRegexUtil;
 import com.oracle.truffle.js.runtime.util.TimeProfiler;
 
@@ -333,6 +338,7 @@ public class JSContext {
     private final JSObjectFactory mapFactory;
     private final JSObjectFactory setFactory;
     private final JSObjectFactory weakRefFactory;
+    private final JSObjectFactory workerFactory;
     private final JSObjectFactory weakMapFactory;
     private final JSObjectFactory weakSetFactory;
     private final JSObjectFactory proxyFactory;
@@ -381,6 +387,15 @@ public class JSContext {
     private final PropertyProxy argumentsPropertyProxy;
     private final PropertyProxy callerPropertyProxy;
 
+    /** Property lookup cache shared by all megamorphic property accesses, or {@code null}. */
+    private final MegamorphicPropertyCache megamorphicPropertyCache;
+
+    /** Inline cache states reported by cache nodes, or {@code null} if not enabled. */
+    private final InlineCacheStatistics inlineCacheStatistics;
+
+    /** Compiled regexes shared by all generic regex compilations, or {@code null}. */
+    private final CompiledRegexCache compiledRegexCache;
+
     /**
      * A shared root node that acts as a parent providing a lock to nodes that are not rooted in a
      * tree but in shared object factories for the purpose of adding properties to newly allocated
@@ -475,6 +490,7 @@ public class JSContext {
         this.mapFactory = builder.create(JSMap.INSTANCE);
         this.setFactory = builder.create(JSSet.INSTANCE);
         this.weakRefFactory = builder.create(JSWeakRef.INSTANCE);
+        this.workerFactory = builder.create(JSWorker.INSTANCE);
         this.weakMapFactory = builder.create(JSWeakMap.INSTANCE);
         this.weakSetFactory = builder.create(JSWeakSet.INSTANCE);
         this.proxyFactory = builder.create(JSProxy.INSTANCE);
@@ -535,6 +551,10 @@ public class JSContext {
         this.argumentsPropertyProxy = new JSFunction.ArgumentsProxyProperty(this);
         this.callerPropertyProxy = new JSFunction.CallerProxyProperty(this);
 
+        this.megamorphicPropertyCache = JSConfig.MegamorphicPropertyCacheSize > 0 ? new MegamorphicPropertyCache(JSConfig.MegamorphicPropertyCacheSize) : null;
+        this.inlineCacheStatistics = contextOptions.isInlineCacheStatistics() ? new InlineCacheStatistics() : null;
+        this.compiledRegexCache = contextOptions.getRegexCacheSize() > 0 ? new CompiledRegexCache(contextOptions.getRegexCacheSize()) : null;
+
         this.regExpGroupsEmptyShape = JSRegExp.makeInitialGroupsObjectShape(this);
 
         this.regexOptions = createRegexOptions(contextOptions);
@@ -594,6 +614,10 @@ public class JSContext {
         return regExpStaticResultUnusedAssumption;
     }
 
+    public final Assumption getPromiseHookNotUsedAssumption() {
+        return promiseHookNotUsedAssumption;
+    }
+
     public static JSContext createContext(Evaluator evaluator, JSContextOptions contextOptions, JavaScriptLanguage lang, TruffleLanguage.Env env) {
         return new JSContext(evaluator, contextOptions, lang, env);
     }
@@ -681,6 +705,22 @@ public class JSContext {
         realm.getAgent().enqueuePromiseJob(job);
     }
 
+    /**
+     * ECMA 8.4.1 EnqueueJob for a PromiseReactionJob, without allocating a job function.
+     */
+    public final void promiseEnqueueJob(JSRealm realm, PromiseReactionJobRecord job) {
+        invalidatePromiseQueueNotUsedAssumption();
+        realm.getAgent().enqueuePromiseReactionJob(job);
+    }
+
+    /**
+     * Enqueues a job of the embedder in the given lane of the agent's job queue.
+     */
+    public final void enqueueHostJob(JSRealm realm, DynamicObject job, JSAgent.JobPriority priority) {
+        invalidatePromiseQueueNotUsedAssumption();
+        realm.getAgent().enqueueHostJob(job, priority);
+    }
+
     private void invalidatePromiseQueueNotUsedAssumption() {
         Assumption promiseJobsQueueEmptyAssumption = language.getPromiseJobsQueueEmptyAssumption();
         if (promiseJobsQueueEmptyAssumption.isValid()) {
@@ -700,6 +740,15 @@ public class JSContext {
         return getJSAgent().addWeakRefTargetToSet(target);
     }
 
+    /**
+     * Registers a pending {@code Atomics.waitAsync} waiter with the current agent. Its promise is
+     * settled by a job of that agent once the waiter is notified or timed out.
+     */
+    public final void addAsyncWaiter(WaiterRecord waiter) {
+        invalidatePromiseQueueNotUsedAssumption();
+        getJSAgent().addAsyncWaiter(waiter);
+    }
+
     public void registerFinalizationRegistry(JSFinalizationRegistryObject finalizationRegistry) {
         invalidatePromiseQueueNotUsedAssumption();
         getJSAgent().registerFinalizationRegistry(finalizationRegistry);
@@ -815,6 +864,10 @@ public class JSContext {
         return weakRefFactory;
     }
 
+    public final JSObjectFactory getWorkerFactory() {
+        return workerFactory;
+    }
+
     public final JSObjectFactory getWeakMapFactory() {
         return weakMapFactory;
     }
@@ -1641,6 +1694,18 @@ public class JSContext {
         return callerPropertyProxy;
     }
 
+    public MegamorphicPropertyCache getMegamorphicPropertyCache() {
+        return megamorphicPropertyCache;
+    }
+
+    public InlineCacheStatistics getInlineCacheStatistics() {
+        return inlineCacheStatistics;
+    }
+
+    public CompiledRegexCache getCompiledRegexCache() {
+        return compiledRegexCache;
+    }
+
     public <T extends Node> T adoptNode(T node) {
         assert node.getParent() == null;
         sharedRootNode.insertAccessor(node);
@@ -414,6 +414,15 @@ public final class JSContextOptions {
     public static final OptionKey<Integer> STRING_LENGTH_LIMIT = new OptionKey<>(JSConfig.StringLengthLimit);
     @CompilationFinal private int stringLengthLimit;
 
+    public static final String MODULE_PARSER_THREADS_NAME = JS_OPTION_PREFIX + "module-parser-threads";
+    @Option(name = MODULE_PARSER_THREADS_NAME, category = OptionCategory.EXPERT, help = "Number of background threads used to read and parse imported ES modules ahead of linking (0 = parse on demand).") //
+    public static final OptionKey<Integer> MODULE_PARSER_THREADS = new OptionKey<>(0);
+    @CompilationFinal private int moduleParserThreads;
+
+    public static final String CODE_CACHE_DIR_NAME = JS_OPTION_PREFIX + "code-cache-dir";
+    @Option(name = CODE_CACHE_DIR_NAME, category = OptionCategory.EXPERT, help = "Directory of pre-translated script snapshots, keyed by source content hash, that are used instead of parsing.") //
+    public static final OptionKey<String> CODE_CACHE_DIR = new OptionKey<>("");
+
     public static final String BIND_MEMBER_FUNCTIONS_NAME = JS_OPTION_PREFIX + "bind-member-functions";
     @Option(name = BIND_MEMBER_FUNCTIONS_NAME, category = OptionCategory.EXPERT, help = "Bind functions returned by Value.getMember to the receiver object.") //
     public static final OptionKey<Boolean> BIND_MEMBER_FUNCTIONS = new OptionKey<>(true);
@@ -497,6 +506,36 @@ public final class JSContextOptions {
     public static final OptionKey<Boolean> WEBASSEMBLY = new OptionKey<>(false);
     @CompilationFinal private boolean webAssembly;
 
+    public static final String WORKER_NAME = JS_OPTION_PREFIX + "worker";
+    @Option(name = WORKER_NAME, category = OptionCategory.EXPERT, help = "Enable the Worker API for running scripts in separate agents on separate threads.") //
+    public static final OptionKey<Boolean> WORKER = new OptionKey<>(false);
+    @CompilationFinal private boolean worker;
+
+    public static final String STRUCTURED_CLONE_NAME = JS_OPTION_PREFIX + "structured-clone";
+    @Option(name = STRUCTURED_CLONE_NAME, category = OptionCategory.EXPERT, help = "Provide the structuredClone() global function.") //
+    public static final OptionKey<Boolean> STRUCTURED_CLONE = new OptionKey<>(false);
+    @CompilationFinal private boolean structuredClone;
+
+    public static final String INLINE_CACHE_STATISTICS_NAME = JS_OPTION_PREFIX + "inline-cache-statistics";
+    @Option(name = INLINE_CACHE_STATISTICS_NAME, category = OptionCategory.EXPERT, help = "Record the state of inline caches, available via Graal.inlineCacheStatistics().") //
+    public static final OptionKey<Boolean> INLINE_CACHE_STATISTICS = new OptionKey<>(false);
+    @CompilationFinal private boolean inlineCacheStatistics;
+
+    public static final String TYPED_ARRAY_PARALLEL_THRESHOLD_NAME = JS_OPTION_PREFIX + "typed-array-parallel-threshold";
+    @Option(name = TYPED_ARRAY_PARALLEL_THRESHOLD_NAME, category = OptionCategory.EXPERT, help = "Minimum number of bytes from which typed array bulk operations are split across the common fork-join pool (0 = never).") //
+    public static final OptionKey<Integer> TYPED_ARRAY_PARALLEL_THRESHOLD = new OptionKey<>(0);
+    @CompilationFinal private int typedArrayParallelThreshold;
+
+    public static final String REGEX_CACHE_SIZE_NAME = JS_OPTION_PREFIX + "regex-cache-size";
+    @Option(name = REGEX_CACHE_SIZE_NAME, category = OptionCategory.EXPERT, help = "Maximum number of compiled regular expressions kept in the context-wide cache (0 = no cache).") //
+    public static final OptionKey<Integer> REGEX_CACHE_SIZE = new OptionKey<>(64);
+    @CompilationFinal private int regexCacheSize;
+
+    public static final String REALM_SNAPSHOT_NAME = JS_OPTION_PREFIX + "realm-snapshot";
+    @Option(name = REALM_SNAPSHOT_NAME, category = OptionCategory.EXPERT, help = "Provide Graal.snapshotRealm() and Graal.resetRealm() to restore the global state of a context between uses.") //
+    public static final OptionKey<Boolean> REALM_SNAPSHOT = new OptionKey<>(false);
+    @CompilationFinal private boolean realmSnapshot;
+
     JSContextOptions(JSParserOptions parserOptions, OptionValues optionValues) {
         this.parserOptions = parserOptions;
         this.optionValues = optionValues;
@@ -568,6 +607,7 @@ public final class JSContextOptions {
         this.testV8Mode = readBooleanOption(TESTV8_MODE);
         this.validateRegExpLiterals = readBooleanOption(VALIDATE_REGEXP_LITERALS);
         this.functionConstructorCacheSize = readIntegerOption(FUNCTION_CONSTRUCTOR_CACHE_SIZE);
+        this.moduleParserThreads = readIntegerOption(MODULE_PARSER_THREADS);
         this.stringLengthLimit = readIntegerOption(STRING_LENGTH_LIMIT);
         this.bindMemberFunctions = readBooleanOption(BIND_MEMBER_FUNCTIONS);
         this.commonJSRequire = readBooleanOption(COMMONJS_REQUIRE);
@@ -583,6 +623,12 @@ public final class JSContextOptions {
         this.topLevelAwait = TOP_LEVEL_AWAIT.hasBeenSet(optionValues) ? readBooleanOption(TOP_LEVEL_AWAIT) : getEcmaScriptVersion() >= JSConfig.ECMAScript2022;
         this.useUTCForLegacyDates = USE_UTC_FOR_LEGACY_DATES.hasBeenSet(optionValues) ? readBooleanOption(USE_UTC_FOR_LEGACY_DATES) : !v8CompatibilityMode;
         this.webAssembly = readBooleanOption(WEBASSEMBLY);
+        this.worker = readBooleanOption(WORKER);
+        this.structuredClone = readBooleanOption(STRUCTURED_CLONE);
+        this.inlineCacheStatistics = readBooleanOption(INLINE_CACHE_STATISTICS);
+        this.typedArrayParallelThreshold = readIntegerOption(TYPED_ARRAY_PARALLEL_THRESHOLD);
+        this.regexCacheSize = readIntegerOption(REGEX_CACHE_SIZE);
+        this.realmSnapshot = readBooleanOption(REALM_SNAPSHOT);
 
         this.propertyCacheLimit = readIntegerOption(PROPERTY_CACHE_LIMIT);
         this.functionCacheLimit = readIntegerOption(FUNCTION_CACHE_LIMIT);
@@ -866,10 +912,19 @@ public final class JSContextOptions {
         return LOCALE.getValue(optionValues);
     }
 
+    public String getCodeCacheDir() {
+        CompilerAsserts.neverPartOfCompilation();
+        return CODE_CACHE_DIR.getValue(optionValues);
+    }
+
     public int getFunctionConstructorCacheSize() {
         return functionConstructorCacheSize;
     }
 
+    public int getModuleParserThreads() {
+        return moduleParserThreads;
+    }
+
     public int getStringLengthLimit() {
         return stringLengthLimit;
     }
@@ -945,6 +1000,30 @@ public final class JSContextOptions {
         return webAssembly;
     }
 
+    public boolean isWorker() {
+        return worker;
+    }
+
+    public boolean isStructuredClone() {
+        return structuredClone;
+    }
+
+    public boolean isInlineCacheStatistics() {
+        return inlineCacheStatistics;
+    }
+
+    public int getTypedArrayParallelThreshold() {
+        return typedArrayParallelThreshold;
+    }
+
+    public int getRegexCacheSize() {
+        return regexCacheSize;
+    }
+
+    public boolean isRealmSnapshot() {
+        return realmSnapshot;
+    }
+
     @Override
     public int hashCode() {
         int hash = 5;
@@ -978,6 +1057,7 @@ public final class JSContextOptions {
         hash = 53 * hash + (this.testV8Mode ? 1 : 0);
         hash = 53 * hash + (this.validateRegExpLiterals ? 1 : 0);
         hash = 53 * hash + this.functionConstructorCacheSize;
+        hash = 53 * hash + this.moduleParserThreads;
         hash = 53 * hash + this.stringLengthLimit;
         hash = 53 * hash + (this.bindMemberFunctions ? 1 : 0);
         hash = 53 * hash + (this.commonJSRequire ? 1 : 0);
@@ -995,6 +1075,12 @@ public final class JSContextOptions {
         hash = 53 * hash + (this.topLevelAwait ? 1 : 0);
         hash = 53 * hash + (this.useUTCForLegacyDates ? 1 : 0);
         hash = 53 * hash + (this.webAssembly ? 1 : 0);
+        hash = 53 * hash + (this.worker ? 1 : 0);
+        hash = 53 * hash + (this.structuredClone ? 1 : 0);
+        hash = 53 * hash + (this.inlineCacheStatistics ? 1 : 0);
+        hash = 53 * hash + this.typedArrayParallelThreshold;
+        hash = 53 * hash + this.regexCacheSize;
+        hash = 53 * hash + (this.realmSnapshot ? 1 : 0);
         return hash;
     }
 
@@ -1097,6 +1183,9 @@ public final class JSContextOptions {
         if (this.functionConstructorCacheSize != other.functionConstructorCacheSize) {
             return false;
         }
+        if (this.moduleParserThreads != other.moduleParserThreads) {
+            return false;
+        }
         if (this.stringLengthLimit != other.stringLengthLimit) {
             return false;
         }
@@ -1148,6 +1237,24 @@ public final class JSContextOptions {
         if (this.webAssembly != other.webAssembly) {
             return false;
         }
+        if (this.worker != other.worker) {
+            return false;
+        }
+        if (this.structuredClone != other.structuredClone) {
+            return false;
+        }
+        if (this.inlineCacheStatistics != other.inlineCacheStatistics) {
+            return false;
+        }
+        if (this.typedArrayParallelThreshold != other.typedArrayParallelThreshold) {
+            return false;
+        }
+        if (this.regexCacheSize != other.regexCacheSize) {
+            return false;
+        }
+        if (this.realmSnapshot != other.realmSnapshot) {
+            return false;
+        }
         return Objects.equals(this.parserOptions, other.parserOptions);
     }
 }
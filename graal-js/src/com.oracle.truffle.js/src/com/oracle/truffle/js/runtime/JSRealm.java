@@ -54,6 +54,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.SplittableRandom;
 import java.util.WeakHashMap;
+import java.util.function.Function;
 
 import com.oracle.truffle.js.runtime.builtins.*;
 import org.graalvm.home.HomeFinder;
@@ -81,6 +82,7 @@ import com.oracle.truffle.js.builtins.ConsoleBuiltins;
 import com.oracle.truffle.js.builtins.ConstructorBuiltins;
 import com.oracle.truffle.js.builtins.DebugBuiltins;
 import com.oracle.truffle.js.builtins.GlobalBuiltins;
+import com.oracle.truffle.js.builtins.GraalBuiltins;
 import com.oracle.truffle.js.builtins.JSBuiltinsContainer;
 import com.oracle.truffle.js.builtins.JavaBuiltins;
 import com.oracle.truffle.js.builtins.MapIteratorPrototypeBuiltins;
@@ -93,6 +95,7 @@ import com.oracle.truffle.js.builtins.RegExpBuiltins;
 import com.oracle.truffle.js.builtins.RegExpStringIteratorPrototypeBuiltins;
 import com.oracle.truffle.js.builtins.SetIteratorPrototypeBuiltins;
 import com.oracle.truffle.js.builtins.StringIteratorPrototypeBuiltins;
+import com.oracle.truffle.js.builtins.WorkerPrototypeBuiltins;
 import com.oracle.truffle.js.builtins.commonjs.CommonJSRequireBuiltin;
 import com.oracle.truffle.js.builtins.commonjs.GlobalCommonJSRequireBuiltins;
 import com.oracle.truffle.js.builtins.commonjs.NpmCompatibleESModuleLoader;
@@ -128,6 +131,8 @@ import com.oracle.truffle.js.runtime.objects.JSDynamicObject;
 import com.oracle.truffle.js.runtime.objects.JSModuleLoader;
 import com.oracle.truffle.js.runtime.objects.JSObject;
 import com.oracle.truffle.js.runtime.objects.JSObjectUtil;
+import com.oracle.truffle.js.runtime.objects.JSProperty;
+import com.oracle.truffle.js.runtime.objects.Null;
 import com.oracle.truffle.js.runtime.objects.PropertyDescriptor;
 import com.oracle.truffle.js.runtime.objects.PropertyProxy;
 import com.oracle.truffle.js.runtime.objects.Undefined;
@@ -141,6 +146,7 @@ import com.oracle.truffle.js.runtime.util.TRegexUtil;
 public class JSRealm {
 
     public static final String POLYGLOT_CLASS_NAME = "Polyglot";
+    public static final String GRAAL_CLASS_NAME = "Graal";
     // used for non-public properties of Polyglot
     public static final String REFLECT_CLASS_NAME = "Reflect";
     public static final String SHARED_ARRAY_BUFFER_CLASS_NAME = "SharedArrayBuffer";
@@ -176,24 +182,24 @@ public class JSRealm {
     private final DynamicObject stringPrototype;
     private final DynamicObject regExpConstructor;
     private final DynamicObject regExpPrototype;
-    private final DynamicObject collatorConstructor;
-    private final DynamicObject collatorPrototype;
-    private final DynamicObject numberFormatConstructor;
-    private final DynamicObject numberFormatPrototype;
-    private final DynamicObject pluralRulesConstructor;
-    private final DynamicObject pluralRulesPrototype;
-    private final DynamicObject listFormatConstructor;
-    private final DynamicObject listFormatPrototype;
-    private final DynamicObject dateTimeFormatConstructor;
-    private final DynamicObject dateTimeFormatPrototype;
-    private final DynamicObject relativeTimeFormatConstructor;
-    private final DynamicObject relativeTimeFormatPrototype;
-    private final DynamicObject segmenterConstructor;
-    private final DynamicObject segmenterPrototype;
-    private final DynamicObject displayNamesConstructor;
-    private final DynamicObject displayNamesPrototype;
-    private final DynamicObject localeConstructor;
-    private final DynamicObject localePrototype;
+    private DynamicObject collatorConstructor;
+    private DynamicObject collatorPrototype;
+    private DynamicObject numberFormatConstructor;
+    private DynamicObject numberFormatPrototype;
+    private DynamicObject pluralRulesConstructor;
+    private DynamicObject pluralRulesPrototype;
+    private DynamicObject listFormatConstructor;
+    private DynamicObject listFormatPrototype;
+    private DynamicObject dateTimeFormatConstructor;
+    private DynamicObject dateTimeFormatPrototype;
+    private DynamicObject relativeTimeFormatConstructor;
+    private DynamicObject relativeTimeFormatPrototype;
+    private DynamicObject segmenterConstructor;
+    private DynamicObject segmenterPrototype;
+    private DynamicObject displayNamesConstructor;
+    private DynamicObject displayNamesPrototype;
+    private DynamicObject localeConstructor;
+    private DynamicObject localePrototype;
     private final DynamicObject dateConstructor;
     private final DynamicObject datePrototype;
     @CompilationFinal(dimensions = 1) private final DynamicObject[] errorConstructors;
@@ -213,6 +219,8 @@ public class JSRealm {
     private final DynamicObject setPrototype;
     private final DynamicObject weakRefConstructor;
     private final DynamicObject weakRefPrototype;
+    private final DynamicObject workerConstructor;
+    private final DynamicObject workerPrototype;
     private final DynamicObject weakMapConstructor;
     private final DynamicObject weakMapPrototype;
     private final DynamicObject weakSetConstructor;
@@ -235,8 +243,8 @@ public class JSRealm {
     private final DynamicObject sharedArrayBufferConstructor;
     private final DynamicObject sharedArrayBufferPrototype;
 
-    @CompilationFinal(dimensions = 1) private final DynamicObject[] typedArrayConstructors;
-    @CompilationFinal(dimensions = 1) private final DynamicObject[] typedArrayPrototypes;
+    private final DynamicObject[] typedArrayConstructors;
+    private final DynamicObject[] typedArrayPrototypes;
     private final DynamicObject dataViewConstructor;
     private final DynamicObject dataViewPrototype;
     private final DynamicObject jsAdapterConstructor;
@@ -255,7 +263,7 @@ public class JSRealm {
     private final DynamicObject arrayIteratorPrototype;
     private final DynamicObject setIteratorPrototype;
     private final DynamicObject mapIteratorPrototype;
-    private final DynamicObject segmentIteratorPrototype;
+    private DynamicObject segmentIteratorPrototype;
     private final DynamicObject stringIteratorPrototype;
     private final DynamicObject regExpStringIteratorPrototype;
     private final DynamicObject enumerateIteratorPrototype;
@@ -284,8 +292,8 @@ public class JSRealm {
     @CompilationFinal private DynamicObject javaPackageToPrimitiveFunction;
 
     private final DynamicObject arrayProtoValuesIterator;
-    @CompilationFinal private DynamicObject typedArrayConstructor;
-    @CompilationFinal private DynamicObject typedArrayPrototype;
+    private DynamicObject typedArrayConstructor;
+    private DynamicObject typedArrayPrototype;
 
     private DynamicObject preinitIntlObject;
     private DynamicObject preinitConsoleBuiltinObject;
@@ -311,6 +319,11 @@ public class JSRealm {
      */
     private Object embedderData;
 
+    /**
+     * State of the global object and the intrinsics to which this realm can be reset.
+     */
+    private RealmSnapshot snapshot;
+
     /** Support for RegExp.$1. */
     private Object staticRegexResult;
     private String staticRegexResultInputString = "";
@@ -379,6 +392,11 @@ public class JSRealm {
      * Current realm (as returned by {@code Realm.current()} V8 built-in).
      */
     private JSRealm v8RealmCurrent = this;
+    /**
+     * Workers started from this realm that are still running (if any). Guarded by this realm, since
+     * workers remove themselves from their own thread.
+     */
+    private List<WorkerJSAgent> workers;
     /**
      * Value shared across V8 realms ({@code Realm.shared}).
      */
@@ -386,6 +404,8 @@ public class JSRealm {
 
     static final ThreadLocal<Boolean> CREATING_CHILD_REALM = new ThreadLocal<>();
 
+    private static final int WORKER_TERMINATION_TIMEOUT_MILLIS = 1000;
+
     /**
      * Used to the pass call site source location for caller sensitive built-in functions.
      */
@@ -517,7 +537,6 @@ public class JSRealm {
         this.arrayBufferPrototype = ctor.getPrototype();
         this.typedArrayConstructors = new DynamicObject[TypedArray.factories(context).length];
         this.typedArrayPrototypes = new DynamicObject[TypedArray.factories(context).length];
-        initializeTypedArrayConstructors();
         ctor = JSDataView.createConstructor(this);
         this.dataViewConstructor = ctor.getFunctionObject();
         this.dataViewPrototype = ctor.getPrototype();
@@ -537,35 +556,6 @@ public class JSRealm {
         this.stringIteratorPrototype = es6 ? createStringIteratorPrototype() : null;
         this.regExpStringIteratorPrototype = context.getContextOptions().getEcmaScriptVersion() >= JSConfig.ECMAScript2019 ? createRegExpStringIteratorPrototype() : null;
 
-        ctor = JSCollator.createConstructor(this);
-        this.collatorConstructor = ctor.getFunctionObject();
-        this.collatorPrototype = ctor.getPrototype();
-        ctor = JSNumberFormat.createConstructor(this);
-        this.numberFormatConstructor = ctor.getFunctionObject();
-        this.numberFormatPrototype = ctor.getPrototype();
-        ctor = JSDateTimeFormat.createConstructor(this);
-        this.dateTimeFormatConstructor = ctor.getFunctionObject();
-        this.dateTimeFormatPrototype = ctor.getPrototype();
-        ctor = JSPluralRules.createConstructor(this);
-        this.pluralRulesConstructor = ctor.getFunctionObject();
-        this.pluralRulesPrototype = ctor.getPrototype();
-        ctor = JSListFormat.createConstructor(this);
-        this.listFormatConstructor = ctor.getFunctionObject();
-        this.listFormatPrototype = ctor.getPrototype();
-        ctor = JSRelativeTimeFormat.createConstructor(this);
-        this.relativeTimeFormatConstructor = ctor.getFunctionObject();
-        this.relativeTimeFormatPrototype = ctor.getPrototype();
-        ctor = JSSegmenter.createConstructor(this);
-        this.segmenterConstructor = ctor.getFunctionObject();
-        this.segmenterPrototype = ctor.getPrototype();
-        this.segmentIteratorPrototype = JSSegmenter.createSegmentIteratorPrototype(context, this);
-        ctor = JSDisplayNames.createConstructor(this);
-        this.displayNamesConstructor = ctor.getFunctionObject();
-        this.displayNamesPrototype = ctor.getPrototype();
-        ctor = JSLocale.createConstructor(this);
-        this.localeConstructor = ctor.getFunctionObject();
-        this.localePrototype = ctor.getPrototype();
-
         if (es6) {
             ctor = JSFunction.createGeneratorFunctionConstructor(this);
             this.generatorFunctionConstructor = ctor.getFunctionObject();
@@ -633,6 +623,15 @@ public class JSRealm {
             this.finalizationRegistryPrototype = null;
         }
 
+        if (context.getContextOptions().isWorker()) {
+            ctor = JSWorker.createConstructor(this);
+            this.workerConstructor = ctor.getFunctionObject();
+            this.workerPrototype = ctor.getPrototype();
+        } else {
+            this.workerConstructor = null;
+            this.workerPrototype = null;
+        }
+
         boolean nashornCompat = context.isOptionNashornCompatibilityMode();
         if (nashornCompat) {
             ctor = JSAdapter.createConstructor(this);
@@ -726,16 +725,60 @@ public class JSRealm {
         }
     }
 
+    /**
+     * Creates the Intl constructors and prototypes on first use.
+     */
+    @TruffleBoundary
+    private void initializeIntlConstructors() {
+        JSConstructor ctor = JSCollator.createConstructor(this);
+        this.collatorConstructor = ctor.getFunctionObject();
+        this.collatorPrototype = ctor.getPrototype();
+        ctor = JSNumberFormat.createConstructor(this);
+        this.numberFormatConstructor = ctor.getFunctionObject();
+        this.numberFormatPrototype = ctor.getPrototype();
+        ctor = JSDateTimeFormat.createConstructor(this);
+        this.dateTimeFormatConstructor = ctor.getFunctionObject();
+        this.dateTimeFormatPrototype = ctor.getPrototype();
+        ctor = JSPluralRules.createConstructor(this);
+        this.pluralRulesConstructor = ctor.getFunctionObject();
+        this.pluralRulesPrototype = ctor.getPrototype();
+        ctor = JSListFormat.createConstructor(this);
+        this.listFormatConstructor = ctor.getFunctionObject();
+        this.listFormatPrototype = ctor.getPrototype();
+        ctor = JSRelativeTimeFormat.createConstructor(this);
+        this.relativeTimeFormatConstructor = ctor.getFunctionObject();
+        this.relativeTimeFormatPrototype = ctor.getPrototype();
+        ctor = JSSegmenter.createConstructor(this);
+        this.segmenterConstructor = ctor.getFunctionObject();
+        this.segmenterPrototype = ctor.getPrototype();
+        this.segmentIteratorPrototype = JSSegmenter.createSegmentIteratorPrototype(context, this);
+        ctor = JSDisplayNames.createConstructor(this);
+        this.displayNamesConstructor = ctor.getFunctionObject();
+        this.displayNamesPrototype = ctor.getPrototype();
+        ctor = JSLocale.createConstructor(this);
+        this.localeConstructor = ctor.getFunctionObject();
+        // assigned last, marks the Intl intrinsics as initialized
+        this.localePrototype = ctor.getPrototype();
+    }
+
+    /**
+     * Creates %TypedArray% and the typed array constructors and prototypes on first use.
+     */
+    @TruffleBoundary
     private void initializeTypedArrayConstructors() {
         JSConstructor taConst = JSArrayBufferView.createTypedArrayConstructor(this);
-        typedArrayConstructor = taConst.getFunctionObject();
-        typedArrayPrototype = taConst.getPrototype();
-
         for (TypedArrayFactory factory : TypedArray.factories(context)) {
             JSConstructor constructor = JSArrayBufferView.createConstructor(this, factory, taConst);
             typedArrayConstructors[factory.getFactoryIndex()] = constructor.getFunctionObject();
             typedArrayPrototypes[factory.getFactoryIndex()] = constructor.getPrototype();
         }
+        if (context.isOptionNashornCompatibilityMode()) {
+            // Nashorn has no join method on TypedArrays
+            JSObject.delete(taConst.getPrototype(), "join");
+        }
+        typedArrayPrototype = taConst.getPrototype();
+        // assigned last, marks the typed array intrinsics as initialized
+        typedArrayConstructor = taConst.getFunctionObject();
     }
 
     private void initializeErrorConstructors() {
@@ -853,50 +896,86 @@ public class JSRealm {
     }
 
     public final DynamicObject getCollatorConstructor() {
+        if (localePrototype == null) {
+            initializeIntlConstructors();
+        }
         return collatorConstructor;
     }
 
     public final DynamicObject getCollatorPrototype() {
+        if (localePrototype == null) {
+            initializeIntlConstructors();
+        }
         return collatorPrototype;
     }
 
     public final DynamicObject getNumberFormatConstructor() {
+        if (localePrototype == null) {
+            initializeIntlConstructors();
+        }
         return numberFormatConstructor;
     }
 
     public final DynamicObject getNumberFormatPrototype() {
+        if (localePrototype == null) {
+            initializeIntlConstructors();
+        }
         return numberFormatPrototype;
     }
 
     public final DynamicObject getPluralRulesConstructor() {
+        if (localePrototype == null) {
+            initializeIntlConstructors();
+        }
         return pluralRulesConstructor;
     }
 
     public final DynamicObject getPluralRulesPrototype() {
+        if (localePrototype == null) {
+            initializeIntlConstructors();
+        }
         return pluralRulesPrototype;
     }
 
     public final DynamicObject getListFormatConstructor() {
+        if (localePrototype == null) {
+            initializeIntlConstructors();
+        }
         return listFormatConstructor;
     }
 
     public final DynamicObject getListFormatPrototype() {
+        if (localePrototype == null) {
+            initializeIntlConstructors();
+        }
         return listFormatPrototype;
     }
 
     public final DynamicObject getRelativeTimeFormatConstructor() {
+        if (localePrototype == null) {
+            initializeIntlConstructors();
+        }
         return relativeTimeFormatConstructor;
     }
 
     public final DynamicObject getRelativeTimeFormatPrototype() {
+        if (localePrototype == null) {
+            initializeIntlConstructors();
+        }
         return relativeTimeFormatPrototype;
     }
 
     public final DynamicObject getDateTimeFormatConstructor() {
+        if (localePrototype == null) {
+            initializeIntlConstructors();
+        }
         return dateTimeFormatConstructor;
     }
 
     public final DynamicObject getDateTimeFormatPrototype() {
+        if (localePrototype == null) {
+            initializeIntlConstructors();
+        }
         return dateTimeFormatPrototype;
     }
 
@@ -909,26 +988,44 @@ public class JSRealm {
     }
 
     public final DynamicObject getSegmenterConstructor() {
+        if (localePrototype == null) {
+            initializeIntlConstructors();
+        }
         return segmenterConstructor;
     }
 
     public final DynamicObject getSegmenterPrototype() {
+        if (localePrototype == null) {
+            initializeIntlConstructors();
+        }
         return segmenterPrototype;
     }
 
     public final DynamicObject getDisplayNamesConstructor() {
+        if (localePrototype == null) {
+            initializeIntlConstructors();
+        }
         return displayNamesConstructor;
     }
 
     public final DynamicObject getDisplayNamesPrototype() {
+        if (localePrototype == null) {
+            initializeIntlConstructors();
+        }
         return displayNamesPrototype;
     }
 
     public final DynamicObject getLocaleConstructor() {
+        if (localePrototype == null) {
+            initializeIntlConstructors();
+        }
         return localeConstructor;
     }
 
     public final DynamicObject getLocalePrototype() {
+        if (localePrototype == null) {
+            initializeIntlConstructors();
+        }
         return localePrototype;
     }
 
@@ -964,6 +1061,14 @@ public class JSRealm {
         return weakRefPrototype;
     }
 
+    public final DynamicObject getWorkerConstructor() {
+        return workerConstructor;
+    }
+
+    public final DynamicObject getWorkerPrototype() {
+        return workerPrototype;
+    }
+
     public final DynamicObject getFinalizationRegistryConstructor() {
         return finalizationRegistryConstructor;
     }
@@ -1011,10 +1116,16 @@ public class JSRealm {
     }
 
     public final DynamicObject getArrayBufferViewConstructor(TypedArrayFactory factory) {
+        if (typedArrayConstructor == null) {
+            initializeTypedArrayConstructors();
+        }
         return typedArrayConstructors[factory.getFactoryIndex()];
     }
 
     public final DynamicObject getArrayBufferViewPrototype(TypedArrayFactory factory) {
+        if (typedArrayConstructor == null) {
+            initializeTypedArrayConstructors();
+        }
         return typedArrayPrototypes[factory.getFactoryIndex()];
     }
 
@@ -1027,10 +1138,16 @@ public class JSRealm {
     }
 
     public final DynamicObject getTypedArrayConstructor() {
+        if (typedArrayConstructor == null) {
+            initializeTypedArrayConstructors();
+        }
         return typedArrayConstructor;
     }
 
     public final DynamicObject getTypedArrayPrototype() {
+        if (typedArrayConstructor == null) {
+            initializeTypedArrayConstructors();
+        }
         return typedArrayPrototype;
     }
 
@@ -1205,6 +1322,9 @@ public class JSRealm {
     }
 
     public DynamicObject getSegmentIteratorPrototype() {
+        if (localePrototype == null) {
+            initializeIntlConstructors();
+        }
         return segmentIteratorPrototype;
     }
 
@@ -1284,7 +1404,7 @@ public class JSRealm {
 
         putGlobalProperty(JSArrayBuffer.CLASS_NAME, getArrayBufferConstructor());
         for (TypedArrayFactory factory : TypedArray.factories(context)) {
-            putGlobalProperty(factory.getName(), getArrayBufferViewConstructor(factory));
+            putLazyGlobalProperty(factory.getName(), LAZY_TYPED_ARRAY_CONSTRUCTORS[factory.ordinal()]);
         }
         putGlobalProperty(JSDataView.CLASS_NAME, getDataViewConstructor());
 
@@ -1294,7 +1414,6 @@ public class JSRealm {
 
         if (context.isOptionNashornCompatibilityMode()) {
             initGlobalNashornExtensions();
-            removeNashornIncompatibleBuiltins();
         }
         if (context.getContextOptions().isScriptEngineGlobalScopeImport()) {
             String builtin = "importScriptEngineGlobalBindings";
@@ -1330,10 +1449,7 @@ public class JSRealm {
             putGlobalProperty(JSSymbol.CLASS_NAME, getSymbolConstructor());
             setupPredefinedSymbols(getSymbolConstructor());
 
-            DynamicObject reflectObject = createReflect();
-            putGlobalProperty(REFLECT_CLASS_NAME, reflectObject);
-            this.reflectApplyFunctionObject = JSObject.get(reflectObject, "apply");
-            this.reflectConstructFunctionObject = JSObject.get(reflectObject, "construct");
+            putLazyGlobalProperty(REFLECT_CLASS_NAME, LAZY_REFLECT);
 
             putGlobalProperty(JSProxy.CLASS_NAME, getProxyConstructor());
             putGlobalProperty(JSPromise.CLASS_NAME, getPromiseConstructor());
@@ -1344,7 +1460,7 @@ public class JSRealm {
             putGlobalProperty(SHARED_ARRAY_BUFFER_CLASS_NAME, getSharedArrayBufferConstructor());
         }
         if (context.isOptionAtomics()) {
-            putGlobalProperty(ATOMICS_CLASS_NAME, createAtomics());
+            putLazyGlobalProperty(ATOMICS_CLASS_NAME, LAZY_ATOMICS);
         }
         if (context.getEcmaScriptVersion() >= JSConfig.ECMAScript2019) {
             putGlobalProperty("globalThis", global);
@@ -1356,6 +1472,9 @@ public class JSRealm {
         if (context.getContextOptions().isGraalBuiltin()) {
             putGraalObject();
         }
+        if (context.getContextOptions().isWorker()) {
+            putGlobalProperty(JSWorker.CLASS_NAME, getWorkerConstructor());
+        }
         if (webassembly) {
             putGlobalProperty(JSWebAssembly.CLASS_NAME, webAssemblyObject);
             JSObjectUtil.putDataProperty(context, webAssemblyObject, JSFunction.getName(webAssemblyGlobalConstructor), webAssemblyGlobalConstructor, JSAttributes.getDefaultNotEnumerable());
@@ -1378,11 +1497,16 @@ public class JSRealm {
         putGlobalProperty("parseToJSON", parseToJSON);
     }
 
-    private void removeNashornIncompatibleBuiltins() {
-        assert getContext().isOptionNashornCompatibilityMode();
+    private void addWorkerGlobals() {
+        putGlobalProperty("postMessage", lookupFunction(WorkerPrototypeBuiltins.WORKER_GLOBAL_SCOPE, "postMessage"));
+        putGlobalProperty("close", lookupFunction(WorkerPrototypeBuiltins.WORKER_GLOBAL_SCOPE, "close"));
+        putGlobalProperty(WorkerJSAgent.ON_MESSAGE, Null.instance);
+    }
 
-        // Nashorn has no join method on TypedArrays
-        JSObject.delete(typedArrayPrototype, "join");
+    private void addStructuredCloneGlobal() {
+        if (context.getContextOptions().isStructuredClone()) {
+            putGlobalProperty("structuredClone", lookupFunction(GlobalBuiltins.GLOBAL_STRUCTURED_CLONE, "structuredClone"));
+        }
     }
 
     private void addPrintGlobals() {
@@ -1469,6 +1593,7 @@ public class JSRealm {
         addConsoleGlobals();
         addPrintGlobals();
         addPerformanceGlobal();
+        addStructuredCloneGlobal();
 
         if (isJavaInteropEnabled()) {
             setupJavaInterop();
@@ -1493,7 +1618,11 @@ public class JSRealm {
 
     private void addIntlGlobal() {
         if (context.isOptionIntl402()) {
-            putGlobalProperty(JSIntl.CLASS_NAME, preinitIntlObject != null ? preinitIntlObject : createIntlObject());
+            if (preinitIntlObject != null) {
+                putGlobalProperty(JSIntl.CLASS_NAME, preinitIntlObject);
+            } else {
+                putLazyGlobalProperty(JSIntl.CLASS_NAME, LAZY_INTL);
+            }
         }
     }
 
@@ -1530,7 +1659,8 @@ public class JSRealm {
         JSObjectUtil.putDataProperty(context, graalObject, "versionGraalVM", GRAALVM_VERSION, flags);
         JSObjectUtil.putDataProperty(context, graalObject, "versionECMAScript", esVersion, flags);
         JSObjectUtil.putDataProperty(context, graalObject, "isGraalRuntime", JSFunction.create(this, isGraalRuntimeFunction(context)), flags);
-        putGlobalProperty("Graal", graalObject);
+        JSObjectUtil.putFunctionsFromContainer(this, graalObject, GraalBuiltins.BUILTINS);
+        putGlobalProperty(GRAAL_CLASS_NAME, graalObject);
     }
 
     private static JSFunctionData isGraalRuntimeFunction(JSContext context) {
@@ -1560,6 +1690,11 @@ public class JSRealm {
         JSObjectUtil.putDataProperty(getContext(), getGlobalObject(), key, value, attributes);
     }
 
+    private void putLazyGlobalProperty(Object key, LazyGlobalPropertyProxy proxy) {
+        assert proxy.key.equals(key);
+        JSObjectUtil.putProxyProperty(getGlobalObject(), key, proxy, JSAttributes.getDefaultNotEnumerable());
+    }
+
     private void putProperty(DynamicObject receiver, Object key, Object value) {
         JSObjectUtil.putDataProperty(getContext(), receiver, key, value, JSAttributes.getDefaultNotEnumerable());
     }
@@ -1709,6 +1844,8 @@ public class JSRealm {
         DynamicObject obj = JSObjectUtil.createOrdinaryPrototypeObject(this, this.getObjectPrototype());
         JSObjectUtil.putToStringTag(obj, REFLECT_CLASS_NAME);
         JSObjectUtil.putFunctionsFromContainer(this, obj, ReflectBuiltins.BUILTINS);
+        this.reflectApplyFunctionObject = JSObject.get(obj, "apply");
+        this.reflectConstructFunctionObject = JSObject.get(obj, "construct");
         return obj;
     }
 
@@ -1955,25 +2092,73 @@ public class JSRealm {
 
     @TruffleBoundary
     public JSRealm createChildRealm() {
+        JSRealm childRealm = createNestedRealm(this.agent);
+        childRealm.parentRealm = this;
+
+        if (getContext().getContextOptions().isV8RealmBuiltin()) {
+            JSRealm topLevelRealm = this;
+            while (topLevelRealm.parentRealm != null) {
+                topLevelRealm = topLevelRealm.parentRealm;
+            }
+            topLevelRealm.addToRealmList(childRealm);
+        }
+
+        return childRealm;
+    }
+
+    /**
+     * Creates the realm of a worker agent. Like child realms, it lives in an inner context that
+     * shares the {@link JSContext} of this realm, but it is owned by the given agent.
+     */
+    @TruffleBoundary
+    public JSRealm createWorkerRealm(WorkerJSAgent workerAgent) {
+        JSRealm workerRealm = createNestedRealm(workerAgent);
+        workerRealm.addWorkerGlobals();
+        synchronized (this) {
+            if (workers == null) {
+                workers = new ArrayList<>();
+            }
+            workers.add(workerAgent);
+        }
+        return workerRealm;
+    }
+
+    /**
+     * Forgets a worker started from this realm. Called on the worker thread when it exits.
+     */
+    public synchronized void removeWorker(WorkerJSAgent workerAgent) {
+        if (workers != null) {
+            workers.remove(workerAgent);
+        }
+    }
+
+    /**
+     * Terminates the workers started from this realm.
+     */
+    @TruffleBoundary
+    public void terminateWorkers() {
+        List<WorkerJSAgent> running;
+        synchronized (this) {
+            running = workers;
+            workers = null;
+        }
+        if (running != null) {
+            for (WorkerJSAgent worker : running) {
+                worker.terminate(WORKER_TERMINATION_TIMEOUT_MILLIS);
+            }
+        }
+    }
+
+    private JSRealm createNestedRealm(JSAgent nestedAgent) {
         assert CREATING_CHILD_REALM.get() != Boolean.TRUE;
         CREATING_CHILD_REALM.set(Boolean.TRUE);
         try {
             TruffleContext nestedContext = getEnv().newContextBuilder().build();
             Object prev = nestedContext.enter(null);
             try {
-                JSRealm childRealm = JavaScriptLanguage.getCurrentJSRealm();
-                childRealm.agent = this.agent;
-                childRealm.parentRealm = this;
-
-                if (getContext().getContextOptions().isV8RealmBuiltin()) {
-                    JSRealm topLevelRealm = this;
-                    while (topLevelRealm.parentRealm != null) {
-                        topLevelRealm = topLevelRealm.parentRealm;
-                    }
-                    topLevelRealm.addToRealmList(childRealm);
-                }
-
-                return childRealm;
+                JSRealm nestedRealm = JavaScriptLanguage.getCurrentJSRealm();
+                nestedRealm.agent = nestedAgent;
+                return nestedRealm;
             } finally {
                 nestedContext.leave(null, prev);
             }
@@ -2002,6 +2187,96 @@ public class JSRealm {
         this.embedderData = embedderData;
     }
 
+    public final RealmSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Captures the current state of the global object and the intrinsics, so that the realm can be
+     * reset to it later. Only one snapshot can be taken per realm.
+     */
+    @TruffleBoundary
+    public final RealmSnapshot createSnapshot() {
+        if (snapshot != null) {
+            throw Errors.createTypeError("Realm snapshot already taken");
+        }
+        // Lazily created intrinsics must exist, so that they are recorded and restored like all
+        // others: their initial shapes are cached in the object factories of the realm.
+        getTypedArrayConstructor();
+        if (context.isOptionIntl402()) {
+            getLocalePrototype();
+        }
+        snapshot = RealmSnapshot.create(this);
+        return snapshot;
+    }
+
+    /**
+     * Adds the objects from which a {@link RealmSnapshot} is taken: the global object and scopes,
+     * and all intrinsics, including those that are not reachable from the global object.
+     */
+    void addSnapshotRoots(List<Object> roots) {
+        Object[] intrinsics = new Object[]{globalObject, globalScope, scriptEngineImportScope,
+                        objectConstructor, objectPrototype, functionConstructor, functionPrototype, arrayConstructor, arrayPrototype,
+                        booleanConstructor, booleanPrototype, numberConstructor, numberPrototype, bigIntConstructor, bigIntPrototype,
+                        stringConstructor, stringPrototype, regExpConstructor, regExpPrototype, dateConstructor, datePrototype,
+                        callSiteConstructor, callSitePrototype, symbolConstructor, symbolPrototype, mapConstructor, mapPrototype,
+                        setConstructor, setPrototype, weakRefConstructor, weakRefPrototype, workerConstructor, workerPrototype,
+                        weakMapConstructor, weakMapPrototype, weakSetConstructor, weakSetPrototype, iteratorConstructor, mathObject,
+                        realmBuiltinObject, arrayBufferConstructor, arrayBufferPrototype, sharedArrayBufferConstructor, sharedArrayBufferPrototype,
+                        dataViewConstructor, dataViewPrototype, jsAdapterConstructor, jsAdapterPrototype, javaImporterConstructor, javaImporterPrototype,
+                        proxyConstructor, proxyPrototype, finalizationRegistryConstructor, finalizationRegistryPrototype,
+                        iteratorPrototype, wrapForValidIteratorPrototype, arrayIteratorPrototype, setIteratorPrototype, mapIteratorPrototype,
+                        stringIteratorPrototype, regExpStringIteratorPrototype, enumerateIteratorPrototype, forInIteratorPrototype,
+                        generatorFunctionConstructor, generatorFunctionPrototype, generatorObjectPrototype, asyncFunctionConstructor, asyncFunctionPrototype,
+                        asyncIteratorPrototype, asyncFromSyncIteratorPrototype, asyncGeneratorObjectPrototype, asyncGeneratorFunctionConstructor,
+                        asyncGeneratorFunctionPrototype, throwerFunction, promiseConstructor, promisePrototype, typedArrayConstructor, typedArrayPrototype,
+                        collatorConstructor, collatorPrototype, numberFormatConstructor, numberFormatPrototype, pluralRulesConstructor, pluralRulesPrototype,
+                        listFormatConstructor, listFormatPrototype, dateTimeFormatConstructor, dateTimeFormatPrototype,
+                        relativeTimeFormatConstructor, relativeTimeFormatPrototype, segmenterConstructor, segmenterPrototype, segmentIteratorPrototype,
+                        displayNamesConstructor, displayNamesPrototype, localeConstructor, localePrototype};
+        addSnapshotRoots(roots, intrinsics);
+        addSnapshotRoots(roots, errorConstructors);
+        addSnapshotRoots(roots, errorPrototypes);
+        addSnapshotRoots(roots, typedArrayConstructors);
+        addSnapshotRoots(roots, typedArrayPrototypes);
+    }
+
+    private static void addSnapshotRoots(List<Object> roots, Object[] intrinsics) {
+        for (Object intrinsic : intrinsics) {
+            // optional and not yet created intrinsics are null
+            if (JSDynamicObject.isJSDynamicObject(intrinsic)) {
+                roots.add(intrinsic);
+            }
+        }
+    }
+
+    /**
+     * Stops the background threads of the module loader, if any.
+     */
+    @TruffleBoundary
+    public final synchronized void disposeModuleLoader() {
+        if (moduleLoader instanceof DefaultESModuleLoader) {
+            ((DefaultESModuleLoader) moduleLoader).dispose();
+        }
+    }
+
+    final JSModuleLoader getModuleLoaderIfCreated() {
+        return moduleLoader;
+    }
+
+    final synchronized void setModuleLoader(JSModuleLoader moduleLoader) {
+        this.moduleLoader = moduleLoader;
+    }
+
+    final void clearStaticRegexResult() {
+        staticRegexResult = null;
+        staticRegexResultInputString = "";
+        staticRegexResultCompiledRegex = null;
+        staticRegexResultInvalidated = false;
+        staticRegexResultFromIndex = 0;
+        staticRegexResultOriginalInputString = null;
+    }
+
     public Object getStaticRegexResult(JSContext ctx, TRegexUtil.TRegexCompiledRegexAccessor compiledRegexAccessor) {
         CompilerAsserts.partialEvaluationConstant(ctx);
         assert ctx.isOptionRegexpStaticResult();
@@ -2265,6 +2540,59 @@ public class JSRealm {
         v8RealmCurrent = realm;
     }
 
+    private static final LazyGlobalPropertyProxy LAZY_INTL = new LazyGlobalPropertyProxy(JSIntl.CLASS_NAME, JSRealm::createIntlObject);
+    private static final LazyGlobalPropertyProxy LAZY_REFLECT = new LazyGlobalPropertyProxy(REFLECT_CLASS_NAME, JSRealm::createReflect);
+    private static final LazyGlobalPropertyProxy LAZY_ATOMICS = new LazyGlobalPropertyProxy(ATOMICS_CLASS_NAME, JSRealm::createAtomics);
+    private static final LazyGlobalPropertyProxy[] LAZY_TYPED_ARRAY_CONSTRUCTORS = createLazyTypedArrayConstructors();
+
+    private static LazyGlobalPropertyProxy[] createLazyTypedArrayConstructors() {
+        TypedArrayFactory[] factories = TypedArrayFactory.values();
+        LazyGlobalPropertyProxy[] proxies = new LazyGlobalPropertyProxy[factories.length];
+        for (TypedArrayFactory factory : factories) {
+            proxies[factory.ordinal()] = new LazyGlobalPropertyProxy(factory.getName(), realm -> realm.getArrayBufferViewConstructor(factory));
+        }
+        return proxies;
+    }
+
+    /**
+     * A global property whose value is only created on first access. On the first read, the proxy
+     * is replaced by an ordinary data property with the same attributes, so that the property is
+     * indistinguishable from an eagerly created one. A write before the first read replaces the
+     * proxy without creating the value.
+     *
+     * The proxy is shared by all realms of an engine (it is a constant in the global object's
+     * shape), the realm is taken from the global object.
+     */
+    private static final class LazyGlobalPropertyProxy implements PropertyProxy {
+        private final Object key;
+        private final Function<JSRealm, Object> initializer;
+
+        LazyGlobalPropertyProxy(Object key, Function<JSRealm, Object> initializer) {
+            this.key = key;
+            this.initializer = initializer;
+        }
+
+        @TruffleBoundary
+        @Override
+        public Object get(DynamicObject store) {
+            Object value = initializer.apply(((JSGlobalObject) store).getRealm());
+            materialize(store, value);
+            return value;
+        }
+
+        @TruffleBoundary
+        @Override
+        public boolean set(DynamicObject store, Object value) {
+            materialize(store, value);
+            return true;
+        }
+
+        private void materialize(DynamicObject store, Object value) {
+            int flags = JSDynamicObject.getPropertyFlags(store, key) & ~JSProperty.PROXY;
+            JSObjectUtil.defineDataProperty(store, key, value, flags);
+        }
+    }
+
     private static final String REALM_SHARED_NAME = "shared";
     private static final PropertyProxy REALM_SHARED_PROXY = new RealmSharedPropertyProxy();
 
@@ -46,6 +46,7 @@ import java.util.List;
 
 import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.TruffleLanguage;
 import com.oracle.truffle.api.interop.InteropException;
@@ -1379,6 +1380,27 @@ public final class JSRuntime {
         return cs.charAt(index);
     }
 
+    @CompilationFinal(dimensions = 1) private static final String[] LATIN1_CHAR_STRINGS = createLatin1CharStrings();
+
+    private static String[] createLatin1CharStrings() {
+        String[] strings = new String[256];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = String.valueOf((char) i);
+        }
+        return strings;
+    }
+
+    /**
+     * Returns a string consisting of the given character. Single-character strings in the Latin-1
+     * range are preallocated and shared, so indexing into (mostly ASCII) strings does not allocate.
+     */
+    public static String charToString(char ch) {
+        if (ch < LATIN1_CHAR_STRINGS.length) {
+            return LATIN1_CHAR_STRINGS[ch];
+        }
+        return String.valueOf(ch);
+    }
+
     public static String javaToString(Object obj) {
         if (obj instanceof String) {
             return (String) obj;
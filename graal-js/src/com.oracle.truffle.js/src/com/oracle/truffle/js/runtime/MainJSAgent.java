@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2018, 2020, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2018, 2021, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * The Universal Permissive License (UPL), Version 1.0
@@ -59,9 +59,4 @@ public final class MainJSAgent extends JSAgent {
         // No-op
     }
 
-    @Override
-    public void wakeAgent(int w) {
-        // No-op
-    }
-
 }
@@ -0,0 +1,794 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.runtime;
+
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+import org.graalvm.collections.EconomicMap;
+import org.graalvm.collections.EconomicSet;
+import org.graalvm.collections.Equivalence;
+import org.graalvm.collections.MapCursor;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.TruffleFile;
+import com.oracle.truffle.api.frame.FrameDescriptor;
+import com.oracle.truffle.api.frame.FrameSlot;
+import com.oracle.truffle.api.frame.FrameSlotKind;
+import com.oracle.truffle.api.frame.MaterializedFrame;
+import com.oracle.truffle.api.object.DynamicObject;
+import com.oracle.truffle.api.object.DynamicObjectLibrary;
+import com.oracle.truffle.api.object.Property;
+import com.oracle.truffle.api.object.Shape;
+import com.oracle.truffle.js.runtime.array.ScriptArray;
+import com.oracle.truffle.js.runtime.array.dyn.AbstractConstantArray;
+import com.oracle.truffle.js.runtime.builtins.FinalizationRecord;
+import com.oracle.truffle.js.runtime.builtins.JSAbstractArray;
+import com.oracle.truffle.js.runtime.builtins.JSArrayBase;
+import com.oracle.truffle.js.runtime.builtins.JSArrayBuffer;
+import com.oracle.truffle.js.runtime.builtins.JSArrayBufferObject;
+import com.oracle.truffle.js.runtime.builtins.JSArrayBufferViewBase;
+import com.oracle.truffle.js.runtime.builtins.JSDateObject;
+import com.oracle.truffle.js.runtime.builtins.JSDictionary;
+import com.oracle.truffle.js.runtime.builtins.JSFinalizationRegistryObject;
+import com.oracle.truffle.js.runtime.builtins.JSFunctionObject;
+import com.oracle.truffle.js.runtime.builtins.JSMapObject;
+import com.oracle.truffle.js.runtime.builtins.JSObjectFactory;
+import com.oracle.truffle.js.runtime.builtins.JSPromise;
+import com.oracle.truffle.js.runtime.builtins.JSPromiseObject;
+import com.oracle.truffle.js.runtime.builtins.JSProxyObject;
+import com.oracle.truffle.js.runtime.builtins.JSRegExpObject;
+import com.oracle.truffle.js.runtime.builtins.JSSetObject;
+import com.oracle.truffle.js.runtime.objects.Accessor;
+import com.oracle.truffle.js.runtime.objects.DefaultESModuleLoader;
+import com.oracle.truffle.js.runtime.objects.JSModuleLoader;
+import com.oracle.truffle.js.runtime.objects.JSModuleRecord;
+import com.oracle.truffle.js.runtime.objects.JSObject;
+import com.oracle.truffle.js.runtime.objects.PropertyDescriptor;
+import com.oracle.truffle.js.runtime.util.JSHashMap;
+import com.oracle.truffle.js.runtime.util.SimpleArrayList;
+import com.oracle.truffle.js.runtime.util.WeakMap;
+
+/**
+ * Snapshot of the global state of a realm: everything reachable from the global object, the global
+ * scope, the intrinsics and the modules loaded so far. This comprises the properties of objects
+ * (including array elements, dictionary contents and the entries of weak maps, which are stored in
+ * their keys), the variables of the scopes captured by closures, the entries of Map and Set
+ * objects, the contents of ArrayBuffers, the internal slots of Date, RegExp and FinalizationRegistry
+ * objects, plus the module map, CommonJS require cache, embedder data and RegExp static result of
+ * the realm.
+ *
+ * Restoring the snapshot reuses the original objects, so shapes, call targets and compiled code
+ * stay valid. Objects are compared with their recorded state first and only the modified ones are
+ * written, so restoring a realm that was barely touched is cheap.
+ *
+ * Some changes cannot be undone: detaching an ArrayBuffer, revoking a Proxy, and settling or adding
+ * reactions to a pending promise. If any of them happened to a recorded object, the realm is not
+ * restored and {@link #restore()} throws instead, so that the embedder discards the context. The
+ * contents of file-mapped ArrayBuffers are external state and are neither recorded nor restored.
+ * Neither is the context-wide symbol registry, which only ever grows and whose contents cannot be
+ * observed: {@code Symbol.for} returns the same symbol whether the key was registered before or
+ * not.
+ */
+public final class RealmSnapshot {
+
+    private final JSRealm realm;
+    private final State[] states;
+    private final JSModuleLoader moduleLoader;
+    private final Map<String, JSModuleRecord> moduleMap;
+    private final Map<TruffleFile, DynamicObject> commonJSRequireCache;
+    private final Object embedderData;
+
+    private RealmSnapshot(JSRealm realm, State[] states, Map<String, JSModuleRecord> moduleMap) {
+        this.realm = realm;
+        this.states = states;
+        this.moduleLoader = realm.getModuleLoaderIfCreated();
+        this.moduleMap = moduleMap;
+        Map<TruffleFile, DynamicObject> requireCache = realm.getCommonJSRequireCache();
+        this.commonJSRequireCache = requireCache == null ? null : new HashMap<>(requireCache);
+        this.embedderData = realm.getEmbedderData();
+    }
+
+    @TruffleBoundary
+    static RealmSnapshot create(JSRealm realm) {
+        List<Object> worklist = new ArrayList<>();
+        realm.addSnapshotRoots(worklist);
+        JSModuleLoader moduleLoader = realm.getModuleLoaderIfCreated();
+        Map<String, JSModuleRecord> moduleMap = null;
+        if (moduleLoader instanceof DefaultESModuleLoader) {
+            moduleMap = ((DefaultESModuleLoader) moduleLoader).copyModuleMap();
+            for (JSModuleRecord module : moduleMap.values()) {
+                addReference(worklist, module.getNamespace());
+                addReference(worklist, module.getEnvironment());
+            }
+        }
+        EconomicSet<Object> visited = EconomicSet.create(Equivalence.IDENTITY);
+        List<State> states = new ArrayList<>();
+        while (!worklist.isEmpty()) {
+            Object value = worklist.remove(worklist.size() - 1);
+            if (visited.add(value)) {
+                State state = value instanceof MaterializedFrame ? new FrameState((MaterializedFrame) value) : new ObjectState((DynamicObject) value);
+                state.addReferences(worklist);
+                states.add(state);
+            }
+        }
+        return new RealmSnapshot(realm, states.toArray(new State[states.size()]), moduleMap);
+    }
+
+    /**
+     * Returns the number of objects and scopes recorded in this snapshot.
+     */
+    public int getObjectCount() {
+        return states.length;
+    }
+
+    /**
+     * Resets the realm to the state of this snapshot. Returns the number of objects and scopes that
+     * had been modified since the snapshot was taken (or since the last reset).
+     *
+     * @throws JSException (TypeError) if a recorded object was changed in a way that cannot be
+     *             undone; the realm is left as it is then and should not be used any more.
+     */
+    @TruffleBoundary
+    public int restore() {
+        for (State state : states) {
+            String change = state.getIrreversibleChange();
+            if (change != null) {
+                throw Errors.createTypeError("Cannot reset the realm, " + change + " since the snapshot was taken");
+            }
+        }
+        int modified = 0;
+        for (State state : states) {
+            if (state.restore()) {
+                modified++;
+            }
+        }
+        realm.setModuleLoader(moduleLoader);
+        if (moduleMap != null) {
+            ((DefaultESModuleLoader) moduleLoader).restoreModuleMap(moduleMap);
+        }
+        if (commonJSRequireCache != null) {
+            Map<TruffleFile, DynamicObject> requireCache = realm.getCommonJSRequireCache();
+            requireCache.clear();
+            requireCache.putAll(commonJSRequireCache);
+        }
+        realm.setEmbedderData(embedderData);
+        realm.clearStaticRegexResult();
+        return modified;
+    }
+
+    private static void addReference(List<Object> worklist, Object value) {
+        if (value instanceof Accessor) {
+            addReference(worklist, ((Accessor) value).getGetter());
+            addReference(worklist, ((Accessor) value).getSetter());
+        } else if (JSObject.isJSObject(value)) {
+            worklist.add(value);
+        } else if (value instanceof MaterializedFrame && value != JSFrameUtil.NULL_MATERIALIZED_FRAME) {
+            worklist.add(value);
+        }
+    }
+
+    private abstract static class State {
+        abstract void addReferences(List<Object> worklist);
+
+        /**
+         * Returns a description of a change since the snapshot that cannot be undone, or
+         * {@code null} if the recorded state can be restored.
+         */
+        String getIrreversibleChange() {
+            return null;
+        }
+
+        /**
+         * Restores the recorded state. Returns whether it had been modified.
+         */
+        abstract boolean restore();
+    }
+
+    private static final class ObjectState extends State {
+        private final DynamicObject object;
+        private final Shape shape;
+        private final Property[] properties;
+        private final Object[] values;
+        private final Object classPrototype;
+        private final EconomicMap<Object, PropertyDescriptor> dictionary;
+        private final InternalState internalState;
+
+        ObjectState(DynamicObject object) {
+            DynamicObjectLibrary lib = DynamicObjectLibrary.getUncached();
+            this.object = object;
+            this.shape = object.getShape();
+            List<Property> propertyList = shape.getPropertyListInternal(true);
+            this.properties = propertyList.toArray(new Property[propertyList.size()]);
+            this.values = new Object[properties.length];
+            for (int i = 0; i < properties.length; i++) {
+                Object value = lib.getOrDefault(object, properties[i].getKey(), null);
+                // the entries of weak maps are modified in place
+                values[i] = WeakMap.isInvertedKey(properties[i].getKey()) ? WeakMap.copyInverted(value) : value;
+            }
+            this.classPrototype = object instanceof JSFunctionObject ? ((JSFunctionObject) object).getClassPrototype() : null;
+            this.dictionary = JSDictionary.isJSDictionaryObject(object) ? JSDictionary.copyHashMap(object) : null;
+            this.internalState = InternalState.create(object);
+        }
+
+        @Override
+        void addReferences(List<Object> worklist) {
+            for (int i = 0; i < properties.length; i++) {
+                if (WeakMap.isInvertedKey(properties[i].getKey())) {
+                    for (Object value : WeakMap.invertedValues(values[i])) {
+                        addReference(worklist, value);
+                    }
+                } else {
+                    addReference(worklist, values[i]);
+                }
+            }
+            addReference(worklist, classPrototype);
+            if (dictionary != null) {
+                MapCursor<Object, PropertyDescriptor> cursor = dictionary.getEntries();
+                while (cursor.advance()) {
+                    PropertyDescriptor desc = cursor.getValue();
+                    if (desc.isAccessorDescriptor()) {
+                        addReference(worklist, desc.getGet());
+                        addReference(worklist, desc.getSet());
+                    } else {
+                        addReference(worklist, desc.getValue());
+                    }
+                }
+            }
+            if (object instanceof JSFunctionObject.Bound) {
+                JSFunctionObject.Bound boundFunction = (JSFunctionObject.Bound) object;
+                addReference(worklist, boundFunction.getBoundTargetFunction());
+                addReference(worklist, boundFunction.getBoundThis());
+                for (Object argument : boundFunction.getBoundArguments()) {
+                    addReference(worklist, argument);
+                }
+            } else if (object instanceof JSFunctionObject) {
+                addReference(worklist, ((JSFunctionObject) object).getEnclosingFrame());
+            }
+            if (object instanceof JSArrayBufferViewBase) {
+                addReference(worklist, ((JSArrayBufferViewBase) object).getArrayBuffer());
+            }
+            if (internalState != null) {
+                internalState.addReferences(worklist);
+            }
+        }
+
+        @Override
+        String getIrreversibleChange() {
+            return internalState == null ? null : internalState.getIrreversibleChange(object);
+        }
+
+        @Override
+        boolean restore() {
+            DynamicObjectLibrary lib = DynamicObjectLibrary.getUncached();
+            boolean modified = false;
+            if (object.getShape() != shape) {
+                restoreShape(lib);
+                modified = true;
+            } else {
+                for (int i = 0; i < properties.length; i++) {
+                    Object key = properties[i].getKey();
+                    Object current = lib.getOrDefault(object, key, null);
+                    if (WeakMap.isInvertedKey(key) ? !WeakMap.invertedEquals(current, values[i]) : !JSRuntime.isSameValue(current, values[i])) {
+                        lib.put(object, key, getRestoredValue(i));
+                        modified = true;
+                    }
+                }
+            }
+            if (object instanceof JSFunctionObject && ((JSFunctionObject) object).getClassPrototype() != classPrototype) {
+                ((JSFunctionObject) object).setClassPrototype(classPrototype);
+                modified = true;
+            }
+            if (dictionary != null) {
+                // modifications are not tracked, always restore the properties
+                JSDictionary.restoreHashMap(object, dictionary);
+                modified = true;
+            }
+            if (internalState != null && internalState.restore(object)) {
+                modified = true;
+            }
+            return modified;
+        }
+
+        private Object getRestoredValue(int i) {
+            // the recorded entries of weak maps must not be modified in place after the reset
+            return WeakMap.isInvertedKey(properties[i].getKey()) ? WeakMap.copyInverted(values[i]) : values[i];
+        }
+
+        /**
+         * Rebuilds the properties of the object in their original order, starting from the root
+         * shape. This follows the existing shape transitions, so the object usually ends up with
+         * the very shape it had when the snapshot was taken.
+         */
+        private void restoreShape(DynamicObjectLibrary lib) {
+            lib.resetShape(object, shape.getRoot());
+            for (int i = 0; i < properties.length; i++) {
+                Property property = properties[i];
+                Object key = property.getKey();
+                Property current = object.getShape().getProperty(key);
+                if (current != null && current.getFlags() == property.getFlags() && current.getLocation().isConstant() == property.getLocation().isConstant() &&
+                                lib.getOrDefault(object, key, null) == values[i]) {
+                    // already present in the root shape
+                    continue;
+                }
+                if (property.getLocation().isConstant()) {
+                    lib.putConstant(object, key, getRestoredValue(i), property.getFlags());
+                } else {
+                    lib.putWithFlags(object, key, getRestoredValue(i), property.getFlags());
+                }
+            }
+            if (object.getShape().getPropertyCount() != properties.length) {
+                // properties of the root shape had been removed before the snapshot was taken
+                for (Object key : object.getShape().getKeyList()) {
+                    if (!shape.hasProperty(key)) {
+                        lib.removeKey(object, key);
+                    }
+                }
+            }
+            if (object.getShape().getFlags() != shape.getFlags()) {
+                lib.setShapeFlags(object, shape.getFlags());
+            }
+        }
+    }
+
+    /**
+     * Variables of a scope that is captured by a closure.
+     */
+    private static final class FrameState extends State {
+        private final MaterializedFrame frame;
+        private final FrameSlot[] slots;
+        private final Object[] values;
+
+        FrameState(MaterializedFrame frame) {
+            this.frame = frame;
+            List<? extends FrameSlot> slotList = frame.getFrameDescriptor().getSlots();
+            this.slots = slotList.toArray(new FrameSlot[slotList.size()]);
+            this.values = new Object[slots.length];
+            for (int i = 0; i < slots.length; i++) {
+                values[i] = frame.getValue(slots[i]);
+            }
+        }
+
+        @Override
+        void addReferences(List<Object> worklist) {
+            // the arguments contain the enclosing frame, the receiver and the function
+            for (Object argument : frame.getArguments()) {
+                addReference(worklist, argument);
+            }
+            for (Object value : values) {
+                addReference(worklist, value);
+            }
+        }
+
+        @Override
+        boolean restore() {
+            boolean modified = false;
+            for (int i = 0; i < slots.length; i++) {
+                if (!JSRuntime.isSameValue(frame.getValue(slots[i]), values[i])) {
+                    setValue(slots[i], values[i]);
+                    modified = true;
+                }
+            }
+            return modified;
+        }
+
+        private void setValue(FrameSlot slot, Object value) {
+            FrameDescriptor descriptor = frame.getFrameDescriptor();
+            FrameSlotKind kind = descriptor.getFrameSlotKind(slot);
+            if (kind == FrameSlotKind.Int && value instanceof Integer) {
+                frame.setInt(slot, (int) value);
+            } else if (kind == FrameSlotKind.Double && value instanceof Double) {
+                frame.setDouble(slot, (double) value);
+            } else if (kind == FrameSlotKind.Long && value instanceof Long) {
+                frame.setLong(slot, (long) value);
+            } else if (kind == FrameSlotKind.Boolean && value instanceof Boolean) {
+                frame.setBoolean(slot, (boolean) value);
+            } else {
+                if (kind != FrameSlotKind.Object) {
+                    // generalize the slot, like the write nodes do for a value of another type
+                    descriptor.setFrameSlotKind(slot, FrameSlotKind.Object);
+                }
+                frame.setObject(slot, value);
+            }
+        }
+    }
+
+    /**
+     * Internal slots of an object that are not stored in properties.
+     */
+    private abstract static class InternalState {
+        static InternalState create(DynamicObject object) {
+            if (object instanceof JSArrayBase) {
+                return new ArrayState(object);
+            } else if (object instanceof JSMapObject) {
+                return new CollectionState(((JSMapObject) object).getMap());
+            } else if (object instanceof JSSetObject) {
+                return new CollectionState(((JSSetObject) object).getMap());
+            } else if (JSArrayBuffer.isJSHeapArrayBuffer(object) || (JSArrayBuffer.isJSDirectOrSharedArrayBuffer(object) && !JSArrayBufferObject.isFileMapped(object))) {
+                return new BufferState(object);
+            } else if (object instanceof JSDateObject) {
+                return new DateState((JSDateObject) object);
+            } else if (object instanceof JSRegExpObject) {
+                return new RegExpState((JSRegExpObject) object);
+            } else if (object instanceof JSFinalizationRegistryObject) {
+                return new FinalizationRegistryState((JSFinalizationRegistryObject) object);
+            } else if (object instanceof JSPromiseObject) {
+                return new PromiseState((JSPromiseObject) object);
+            } else if (object instanceof JSProxyObject) {
+                return new ProxyState((JSProxyObject) object);
+            }
+            return null;
+        }
+
+        void addReferences(@SuppressWarnings("unused") List<Object> worklist) {
+        }
+
+        String getIrreversibleChange(@SuppressWarnings("unused") DynamicObject object) {
+            return null;
+        }
+
+        abstract boolean restore(DynamicObject object);
+    }
+
+    /**
+     * Elements of an array, arguments object or {@code Object.prototype}.
+     */
+    private static final class ArrayState extends InternalState {
+        private final ScriptArray arrayType;
+        private final Object storage;
+        private final long length;
+        private final int usedLength;
+        private final long indexOffset;
+        private final int arrayOffset;
+        private final int holeCount;
+
+        ArrayState(DynamicObject array) {
+            this.arrayType = JSAbstractArray.arrayGetArrayType(array);
+            this.storage = copyStorage(arrayType, JSAbstractArray.arrayGetArray(array));
+            this.length = JSAbstractArray.arrayGetLength(array);
+            this.usedLength = JSAbstractArray.arrayGetUsedLength(array);
+            this.indexOffset = JSAbstractArray.arrayGetIndexOffset(array);
+            this.arrayOffset = JSAbstractArray.arrayGetArrayOffset(array);
+            this.holeCount = JSAbstractArray.arrayGetHoleCount(array);
+        }
+
+        @Override
+        void addReferences(List<Object> worklist) {
+            if (storage instanceof Object[]) {
+                for (Object element : (Object[]) storage) {
+                    addReference(worklist, element);
+                }
+            } else if (storage instanceof TreeMap<?, ?>) {
+                for (Object element : ((TreeMap<?, ?>) storage).values()) {
+                    addReference(worklist, element);
+                }
+            }
+        }
+
+        @Override
+        boolean restore(DynamicObject array) {
+            if (JSAbstractArray.arrayGetArrayType(array) == arrayType && JSAbstractArray.arrayGetLength(array) == length &&
+                            JSAbstractArray.arrayGetUsedLength(array) == usedLength && JSAbstractArray.arrayGetIndexOffset(array) == indexOffset &&
+                            JSAbstractArray.arrayGetArrayOffset(array) == arrayOffset && JSAbstractArray.arrayGetHoleCount(array) == holeCount &&
+                            Objects.deepEquals(JSAbstractArray.arrayGetArray(array), storage)) {
+                return false;
+            }
+            JSAbstractArray.arraySetArrayType(array, arrayType);
+            JSAbstractArray.arraySetArray(array, copyStorage(arrayType, storage));
+            JSAbstractArray.arraySetLength(array, length);
+            JSAbstractArray.arraySetUsedLength(array, usedLength);
+            JSAbstractArray.arraySetIndexOffset(array, indexOffset);
+            JSAbstractArray.arraySetArrayOffset(array, arrayOffset);
+            JSAbstractArray.arraySetHoleCount(array, holeCount);
+            return true;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static Object copyStorage(ScriptArray arrayType, Object storage) {
+            if (arrayType instanceof AbstractConstantArray) {
+                // never modified in place, can be shared
+                return storage;
+            } else if (storage instanceof TreeMap<?, ?>) {
+                return new TreeMap<>((TreeMap<Long, Object>) storage);
+            } else {
+                int storageLength = Array.getLength(storage);
+                Object copy = Array.newInstance(storage.getClass().getComponentType(), storageLength);
+                System.arraycopy(storage, 0, copy, 0, storageLength);
+                return copy;
+            }
+        }
+    }
+
+    /**
+     * Entries of a Map or Set, in insertion order.
+     */
+    private static final class CollectionState extends InternalState {
+        private final JSHashMap map;
+        private final Object[] keys;
+        private final Object[] values;
+
+        CollectionState(JSHashMap map) {
+            this.map = map;
+            this.keys = new Object[map.size()];
+            this.values = new Object[keys.length];
+            JSHashMap.Cursor cursor = map.getEntries();
+            for (int i = 0; cursor.advance(); i++) {
+                keys[i] = cursor.getKey();
+                values[i] = cursor.getValue();
+            }
+        }
+
+        @Override
+        void addReferences(List<Object> worklist) {
+            for (int i = 0; i < keys.length; i++) {
+                addReference(worklist, keys[i]);
+                addReference(worklist, values[i]);
+            }
+        }
+
+        @Override
+        boolean restore(DynamicObject object) {
+            if (!isModified()) {
+                return false;
+            }
+            map.clear();
+            for (int i = 0; i < keys.length; i++) {
+                map.put(keys[i], values[i]);
+            }
+            return true;
+        }
+
+        private boolean isModified() {
+            if (map.size() != keys.length) {
+                return true;
+            }
+            JSHashMap.Cursor cursor = map.getEntries();
+            for (int i = 0; cursor.advance(); i++) {
+                if (!JSRuntime.isSameValue(cursor.getKey(), keys[i]) || !JSRuntime.isSameValue(cursor.getValue(), values[i])) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Contents of an ArrayBuffer or SharedArrayBuffer.
+     */
+    private static final class BufferState extends InternalState {
+        private final byte[] contents;
+
+        BufferState(DynamicObject buffer) {
+            if (JSArrayBuffer.isJSHeapArrayBuffer(buffer)) {
+                byte[] byteArray = JSArrayBufferObject.getByteArray(buffer);
+                this.contents = byteArray == null ? null : byteArray.clone();
+            } else {
+                ByteBuffer byteBuffer = JSArrayBufferObject.getDirectByteBuffer(buffer);
+                if (byteBuffer == null) {
+                    this.contents = null;
+                } else {
+                    this.contents = new byte[byteBuffer.capacity()];
+                    wholeBuffer(byteBuffer).get(contents);
+                }
+            }
+        }
+
+        @Override
+        String getIrreversibleChange(DynamicObject buffer) {
+            if (contents != null && JSArrayBuffer.isDetachedBuffer(buffer)) {
+                return "an ArrayBuffer was detached";
+            }
+            return null;
+        }
+
+        @Override
+        boolean restore(DynamicObject buffer) {
+            if (contents == null) {
+                // detached when the snapshot was taken
+                return false;
+            }
+            if (JSArrayBuffer.isJSHeapArrayBuffer(buffer)) {
+                byte[] byteArray = JSArrayBufferObject.getByteArray(buffer);
+                if (Arrays.equals(byteArray, contents)) {
+                    return false;
+                }
+                System.arraycopy(contents, 0, byteArray, 0, contents.length);
+            } else {
+                ByteBuffer byteBuffer = JSArrayBufferObject.getDirectByteBuffer(buffer);
+                if (wholeBuffer(byteBuffer).equals(ByteBuffer.wrap(contents))) {
+                    return false;
+                }
+                wholeBuffer(byteBuffer).put(contents);
+            }
+            return true;
+        }
+
+        private static ByteBuffer wholeBuffer(ByteBuffer byteBuffer) {
+            ByteBuffer duplicate = byteBuffer.duplicate();
+            duplicate.position(0);
+            duplicate.limit(duplicate.capacity());
+            return duplicate;
+        }
+    }
+
+    private static final class DateState extends InternalState {
+        private final double timeMillis;
+
+        DateState(JSDateObject date) {
+            this.timeMillis = date.getTimeMillis();
+        }
+
+        @Override
+        boolean restore(DynamicObject object) {
+            JSDateObject date = (JSDateObject) object;
+            if (Double.compare(date.getTimeMillis(), timeMillis) == 0) {
+                return false;
+            }
+            date.setTimeMillis(timeMillis);
+            return true;
+        }
+    }
+
+    /**
+     * The compiled regex of a RegExp, which is replaced by {@code RegExp.prototype.compile}.
+     */
+    private static final class RegExpState extends InternalState {
+        private final Object compiledRegex;
+        private final JSObjectFactory groupsFactory;
+
+        RegExpState(JSRegExpObject regExp) {
+            this.compiledRegex = regExp.getCompiledRegex();
+            this.groupsFactory = regExp.getGroupsFactory();
+        }
+
+        @Override
+        boolean restore(DynamicObject object) {
+            JSRegExpObject regExp = (JSRegExpObject) object;
+            if (regExp.getCompiledRegex() == compiledRegex) {
+                return false;
+            }
+            regExp.setCompiledRegex(compiledRegex);
+            regExp.setGroupsFactory(groupsFactory);
+            return true;
+        }
+    }
+
+    private static final class FinalizationRegistryState extends InternalState {
+        private final FinalizationRecord[] cells;
+
+        FinalizationRegistryState(JSFinalizationRegistryObject registry) {
+            List<FinalizationRecord> cellList = registry.getCells();
+            this.cells = cellList.toArray(new FinalizationRecord[cellList.size()]);
+        }
+
+        @Override
+        void addReferences(List<Object> worklist) {
+            for (FinalizationRecord cell : cells) {
+                addReference(worklist, cell.getHeldValue());
+            }
+        }
+
+        @Override
+        boolean restore(DynamicObject object) {
+            List<FinalizationRecord> cellList = ((JSFinalizationRegistryObject) object).getCells();
+            if (cellList.equals(Arrays.asList(cells))) {
+                return false;
+            }
+            cellList.clear();
+            cellList.addAll(Arrays.asList(cells));
+            return true;
+        }
+    }
+
+    /**
+     * A promise cannot be reset to pending once it has been settled, and the reactions of a pending
+     * promise are appended in place, so both changes are only detected.
+     */
+    private static final class PromiseState extends InternalState {
+        private final int promiseState;
+        private final int fulfillReactionCount;
+        private final int rejectReactionCount;
+
+        PromiseState(JSPromiseObject promise) {
+            this.promiseState = promise.getPromiseState();
+            this.fulfillReactionCount = getReactionCount(promise, JSPromise.PROMISE_FULFILL_REACTIONS);
+            this.rejectReactionCount = getReactionCount(promise, JSPromise.PROMISE_REJECT_REACTIONS);
+        }
+
+        private static int getReactionCount(DynamicObject promise, Object key) {
+            Object reactions = DynamicObjectLibrary.getUncached().getOrDefault(promise, key, null);
+            return reactions instanceof SimpleArrayList<?> ? ((SimpleArrayList<?>) reactions).size() : 0;
+        }
+
+        @Override
+        String getIrreversibleChange(DynamicObject object) {
+            JSPromiseObject promise = (JSPromiseObject) object;
+            if (promise.getPromiseState() != promiseState) {
+                return "a pending promise was settled";
+            } else if (getReactionCount(promise, JSPromise.PROMISE_FULFILL_REACTIONS) != fulfillReactionCount ||
+                            getReactionCount(promise, JSPromise.PROMISE_REJECT_REACTIONS) != rejectReactionCount) {
+                return "a reaction was added to a pending promise";
+            }
+            return null;
+        }
+
+        @Override
+        boolean restore(DynamicObject object) {
+            return false;
+        }
+    }
+
+    private static final class ProxyState extends InternalState {
+        private final Object target;
+        private final DynamicObject handler;
+
+        ProxyState(JSProxyObject proxy) {
+            this.target = proxy.getProxyTarget();
+            this.handler = proxy.getProxyHandler();
+        }
+
+        @Override
+        void addReferences(List<Object> worklist) {
+            addReference(worklist, target);
+            addReference(worklist, handler);
+        }
+
+        @Override
+        String getIrreversibleChange(DynamicObject object) {
+            if (((JSProxyObject) object).getProxyTarget() != target) {
+                return "a proxy was revoked";
+            }
+            return null;
+        }
+
+        @Override
+        boolean restore(DynamicObject object) {
+            return false;
+        }
+    }
+}
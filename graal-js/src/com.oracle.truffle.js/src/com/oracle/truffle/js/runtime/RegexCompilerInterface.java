@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2018, 2020, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2018, 2021, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * The Universal Permissive License (UPL), Version 1.0
@@ -46,6 +46,8 @@ import com.oracle.truffle.api.interop.ExceptionType;
 import com.oracle.truffle.api.interop.InteropLibrary;
 import com.oracle.truffle.api.interop.UnsupportedMessageException;
 import com.oracle.truffle.api.source.Source;
+import com.oracle.truffle.js.runtime.util.JSFlightRecorder;
+import com.oracle.truffle.js.runtime.util.RuntimeEventType;
 
 public final class RegexCompilerInterface {
     private static final String REPEATED_REG_EXP_FLAG_MSG = "Repeated RegExp flag: %c";
@@ -59,13 +61,23 @@ public final class RegexCompilerInterface {
         // RegexLanguage does its own validation of the flags. This call to validateFlags only
         // serves the purpose of mimicking the error messages of Nashorn and V8.
         validateFlags(flags, context.getEcmaScriptVersion(), context.isOptionNashornCompatibilityMode());
+        Object event = JSFlightRecorder.begin(RuntimeEventType.REGEX_COMPILE);
         try {
-            return context.getRealm().getEnv().parseInternal(createRegexSource(pattern, flags, context.getRegexOptions())).call();
+            Object compiledRegex = context.getRealm().getEnv().parseInternal(createRegexSource(pattern, flags, context.getRegexOptions())).call();
+            if (event != null) {
+                JSFlightRecorder.commit(event, regexLiteral(pattern, flags), 0);
+            }
+            return compiledRegex;
         } catch (AbstractTruffleException e) {
             throw rethrowAsSyntaxError(e);
         }
     }
 
+    @TruffleBoundary
+    private static String regexLiteral(String pattern, String flags) {
+        return '/' + pattern + '/' + flags;
+    }
+
     @TruffleBoundary
     private static Source createRegexSource(String pattern, String flags, String options) {
         String regexStr = options + '/' + pattern + '/' + flags;
@@ -0,0 +1,254 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.runtime;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.TruffleContext;
+import com.oracle.truffle.api.exception.AbstractTruffleException;
+import com.oracle.truffle.api.object.DynamicObject;
+import com.oracle.truffle.js.runtime.builtins.JSOrdinary;
+import com.oracle.truffle.js.runtime.objects.JSObject;
+import com.oracle.truffle.js.runtime.util.StructuredClone;
+
+/**
+ * Agent of a {@code Worker}. The worker runs in its own realm on its own thread. The realm is
+ * created in an inner context that shares the {@link JSContext} (and therefore the compiled code)
+ * of the realm that started the worker. Messages are exchanged in the serialized form produced by
+ * {@link StructuredClone}.
+ */
+public final class WorkerJSAgent extends JSAgent {
+
+    public static final String ON_MESSAGE = "onmessage";
+
+    /** Marks the end of the message stream of a worker that has finished. */
+    private static final Object END_OF_MESSAGES = new Object();
+    private static final Object TERMINATE = new Object();
+    /** Wakes up the event loop to settle async waiters. */
+    private static final Object ASYNC_WAITER_SETTLED = new Object();
+
+    private final BlockingQueue<Object> incoming;
+    private final BlockingQueue<Object> outgoing;
+    private volatile boolean closing;
+    private volatile boolean terminating;
+    private volatile boolean terminated;
+    private volatile String uncaughtException;
+    private Thread thread;
+    private TruffleContext workerContext;
+
+    public WorkerJSAgent() {
+        super(true);
+        this.incoming = new LinkedBlockingQueue<>();
+        this.outgoing = new LinkedBlockingQueue<>();
+    }
+
+    /**
+     * Starts the worker thread that evaluates {@code sourceCode} in {@code workerRealm} and then
+     * dispatches incoming messages to its {@code onmessage} handler until the worker is closed or
+     * terminated. The worker is removed from {@code ownerRealm} when its thread exits.
+     */
+    @TruffleBoundary
+    public void start(JSRealm ownerRealm, JSRealm workerRealm, String sourceCode) {
+        assert workerRealm.getAgent() == this;
+        workerContext = workerRealm.getTruffleContext();
+        thread = new Thread(() -> run(ownerRealm, workerRealm, sourceCode), "JS-Worker-" + getSignifier());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void run(JSRealm ownerRealm, JSRealm workerRealm, String sourceCode) {
+        try {
+            Object prev = workerContext.enter(null);
+            try {
+                runEventLoop(workerRealm, sourceCode);
+            } catch (AbstractTruffleException ex) {
+                uncaughtException = ex.getMessage();
+            } catch (ThreadDeath ex) {
+                if (!terminating) {
+                    throw ex;
+                }
+            } finally {
+                workerContext.leave(null, prev);
+            }
+        } finally {
+            terminated = true;
+            outgoing.add(END_OF_MESSAGES);
+            ownerRealm.removeWorker(this);
+            workerContext.close();
+        }
+    }
+
+    private void runEventLoop(JSRealm workerRealm, String sourceCode) {
+        JSContext context = workerRealm.getContext();
+        context.getEvaluator().evalCompile(context, sourceCode, "worker-" + getSignifier()).run(workerRealm);
+        processAllPromises(true);
+        while (!closing) {
+            Object message;
+            try {
+                message = incoming.take();
+            } catch (InterruptedException ex) {
+                return;
+            }
+            if (message == TERMINATE) {
+                return;
+            }
+            if (message != ASYNC_WAITER_SETTLED) {
+                dispatchMessage(workerRealm, message);
+            }
+            processAllPromises(true);
+        }
+    }
+
+    private static void dispatchMessage(JSRealm workerRealm, Object message) {
+        DynamicObject global = workerRealm.getGlobalObject();
+        Object handler = JSObject.get(global, ON_MESSAGE);
+        if (JSRuntime.isCallable(handler)) {
+            JSContext context = workerRealm.getContext();
+            DynamicObject event = JSOrdinary.create(context);
+            JSRuntime.createDataProperty(event, "data", StructuredClone.deserialize(context, message));
+            JSRuntime.call(handler, global, new Object[]{event});
+        }
+    }
+
+    /**
+     * Enqueues a serialized message for the worker. Called by the agent that owns the worker.
+     */
+    @TruffleBoundary
+    public void postMessageToWorker(Object serializedMessage) {
+        if (!terminated) {
+            incoming.add(serializedMessage);
+        }
+    }
+
+    /**
+     * Enqueues a serialized message for the owner of the worker. Called by the worker itself.
+     */
+    @TruffleBoundary
+    public void postMessageToOwner(Object serializedMessage) {
+        outgoing.add(serializedMessage);
+    }
+
+    /**
+     * Waits for the next message of the worker. Returns {@code null} if no message arrived within
+     * the timeout or if the worker has finished and all its messages were received.
+     *
+     * @param timeoutMillis the timeout in milliseconds, or a negative value to wait indefinitely
+     */
+    @TruffleBoundary
+    public Object receiveMessageFromWorker(long timeoutMillis) {
+        Object message;
+        try {
+            if (timeoutMillis < 0) {
+                message = outgoing.take();
+            } else {
+                message = outgoing.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        if (message == END_OF_MESSAGES) {
+            // keep the marker for subsequent receivers
+            outgoing.add(END_OF_MESSAGES);
+            String exceptionMessage = uncaughtException;
+            if (exceptionMessage != null) {
+                uncaughtException = null;
+                throw Errors.createError("Worker terminated by an uncaught exception: " + exceptionMessage);
+            }
+            return null;
+        }
+        return message;
+    }
+
+    /**
+     * Lets the worker finish once the current task has completed. Called by the worker itself.
+     */
+    public void close() {
+        closing = true;
+    }
+
+    @Override
+    protected void asyncWaiterSettled() {
+        incoming.add(ASYNC_WAITER_SETTLED);
+    }
+
+    @Override
+    public boolean isTerminating() {
+        return terminating;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return terminated;
+    }
+
+    /**
+     * Terminates the worker. The worker thread is interrupted, which ends a pending
+     * {@code Atomics.wait} and stops interpreted loops, and is given up to {@code timeout}
+     * milliseconds to return to its event loop and finish. If it is still running then, e.g. in a
+     * compiled loop, the context of the worker is closed as cancelled.
+     */
+    @TruffleBoundary
+    @Override
+    public void terminate(int timeout) {
+        closing = true;
+        terminating = true;
+        incoming.add(TERMINATE);
+        Thread workerThread = thread;
+        if (workerThread == null || workerThread == Thread.currentThread()) {
+            return;
+        }
+        workerThread.interrupt();
+        if (timeout > 0) {
+            try {
+                workerThread.join(timeout);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (!terminated) {
+            workerContext.closeCancelled(null, "Worker terminated");
+        }
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2018, 2020, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2018, 2021, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * The Universal Permissive License (UPL), Version 1.0
@@ -46,6 +46,7 @@ import static com.oracle.truffle.js.runtime.builtins.JSArrayBufferView.typedArra
 import static com.oracle.truffle.js.runtime.builtins.JSArrayBufferView.typedArrayGetOffset;
 
 import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
 
 import com.oracle.truffle.api.object.DynamicObject;
 import com.oracle.truffle.js.runtime.BigInt;
@@ -272,7 +273,11 @@ public abstract class TypedArray extends ScriptArray {
         }
 
         public final void setInt(DynamicObject object, int index, int value) {
-            setIntImpl(getBufferFromTypedArrayT(object), getOffset(object), index, value);
+            try {
+                setIntImpl(getBufferFromTypedArrayT(object), getOffset(object), index, value);
+            } catch (ReadOnlyBufferException e) {
+                throw Errors.createTypeErrorReadOnlyBuffer();
+            }
         }
 
         @SuppressWarnings("unchecked")
@@ -781,7 +786,11 @@ public abstract class TypedArray extends ScriptArray {
         }
 
         public final void setBigInt(DynamicObject object, int index, BigInt value) {
-            setBigIntImpl(getBufferFromTypedArrayT(object), getOffset(object), index, value);
+            try {
+                setBigIntImpl(getBufferFromTypedArrayT(object), getOffset(object), index, value);
+            } catch (ReadOnlyBufferException e) {
+                throw Errors.createTypeErrorReadOnlyBuffer();
+            }
         }
 
         @SuppressWarnings("unchecked")
@@ -951,7 +960,11 @@ public abstract class TypedArray extends ScriptArray {
         }
 
         public final void setDouble(DynamicObject object, int index, double value) {
-            setDoubleImpl(getBufferFromTypedArrayT(object), getOffset(object), index, value);
+            try {
+                setDoubleImpl(getBufferFromTypedArrayT(object), getOffset(object), index, value);
+            } catch (ReadOnlyBufferException e) {
+                throw Errors.createTypeErrorReadOnlyBuffer();
+            }
         }
 
         public abstract double getDoubleImpl(T buffer, int offset, int index);
@@ -0,0 +1,297 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.runtime.array;
+
+import java.nio.ByteBuffer;
+import java.util.stream.IntStream;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.object.DynamicObject;
+import com.oracle.truffle.js.runtime.Boundaries;
+import com.oracle.truffle.js.runtime.Errors;
+import com.oracle.truffle.js.runtime.JSRuntime;
+
+/**
+ * Bulk operations on the backing storage of typed arrays. They work on raw bytes or unboxed
+ * elements instead of going through {@link ScriptArray#getElement} and
+ * {@link ScriptArray#setElement} for every element, and none of them calls back into JavaScript.
+ *
+ * Ranges of at least {@code parallelThreshold} bytes are split into chunks that are processed on
+ * the common fork-join pool; a threshold of 0 disables parallel processing.
+ */
+public final class TypedArrayBulkOperations {
+
+    /** Minimum number of elements from which the bulk operations pay off. */
+    public static final int MIN_BULK_LENGTH = 64;
+    /** Size of a chunk processed by one task, in bytes; a multiple of every element size. */
+    private static final int PARALLEL_CHUNK_SIZE = 1 << 20;
+
+    private TypedArrayBulkOperations() {
+    }
+
+    private static boolean isParallel(long byteLength, int parallelThreshold) {
+        return parallelThreshold > 0 && byteLength >= parallelThreshold && byteLength > PARALLEL_CHUNK_SIZE;
+    }
+
+    private static int chunkCount(int length, int chunkLength) {
+        return (int) (((long) length + chunkLength - 1) / chunkLength);
+    }
+
+    private static void checkWritable(Object buffer) {
+        if (buffer instanceof ByteBuffer && ((ByteBuffer) buffer).isReadOnly()) {
+            throw Errors.createTypeErrorReadOnlyBuffer();
+        }
+    }
+
+    /**
+     * Sets the elements {@code [start, end)} to {@code value}, which must already be converted to a
+     * Number or BigInt. Only the first element is converted and written; the remaining bytes are
+     * filled by copying the already filled prefix.
+     */
+    @TruffleBoundary
+    public static void fill(DynamicObject view, TypedArray type, int start, int end, Object value, int parallelThreshold) {
+        if (start >= end) {
+            return;
+        }
+        type.setElement(view, start, value, false);
+        int elementSize = type.bytesPerElement();
+        int from = type.getOffset(view) + start * elementSize;
+        int byteLength = (end - start) * elementSize;
+        Object buffer = type.getBufferFromTypedArray(view);
+        if (isParallel(byteLength, parallelThreshold)) {
+            replicate(buffer, from, elementSize, PARALLEL_CHUNK_SIZE);
+            IntStream.range(1, chunkCount(byteLength, PARALLEL_CHUNK_SIZE)).parallel().forEach(chunk -> {
+                int chunkStart = chunk * PARALLEL_CHUNK_SIZE;
+                copy(buffer, from, buffer, from + chunkStart, Math.min(PARALLEL_CHUNK_SIZE, byteLength - chunkStart));
+            });
+        } else {
+            replicate(buffer, from, elementSize, byteLength);
+        }
+    }
+
+    /**
+     * Fills {@code [from, from + byteLength)} by repeatedly doubling the {@code filled} bytes that
+     * are already set at its start.
+     */
+    private static void replicate(Object buffer, int from, int filled, int byteLength) {
+        int done = filled;
+        while (done < byteLength) {
+            int length = Math.min(done, byteLength - done);
+            copy(buffer, from, buffer, from + done, length);
+            done += length;
+        }
+    }
+
+    /**
+     * Copies bytes between two backing buffers of the same kind ({@code byte[]} or
+     * {@link ByteBuffer}). The source and target ranges must not overlap.
+     */
+    @TruffleBoundary
+    public static void copy(Object source, int sourceIndex, Object target, int targetIndex, int byteLength, int parallelThreshold) {
+        checkWritable(target);
+        if (isParallel(byteLength, parallelThreshold)) {
+            IntStream.range(0, chunkCount(byteLength, PARALLEL_CHUNK_SIZE)).parallel().forEach(chunk -> {
+                int chunkStart = chunk * PARALLEL_CHUNK_SIZE;
+                copy(source, sourceIndex + chunkStart, target, targetIndex + chunkStart, Math.min(PARALLEL_CHUNK_SIZE, byteLength - chunkStart));
+            });
+        } else {
+            copy(source, sourceIndex, target, targetIndex, byteLength);
+        }
+    }
+
+    private static void copy(Object source, int sourceIndex, Object target, int targetIndex, int byteLength) {
+        if (source instanceof byte[]) {
+            System.arraycopy(source, sourceIndex, target, targetIndex, byteLength);
+        } else {
+            Boundaries.byteBufferPutSlice((ByteBuffer) target, targetIndex, (ByteBuffer) source, sourceIndex, sourceIndex + byteLength);
+        }
+    }
+
+    /**
+     * Copies {@code count} elements from index {@code from} to index {@code to} of the same typed
+     * array. The ranges may overlap.
+     */
+    @TruffleBoundary
+    public static void copyWithin(DynamicObject view, TypedArray type, int to, int from, int count) {
+        int elementSize = type.bytesPerElement();
+        int offset = type.getOffset(view);
+        int sourceIndex = offset + from * elementSize;
+        int targetIndex = offset + to * elementSize;
+        int byteLength = count * elementSize;
+        Object buffer = type.getBufferFromTypedArray(view);
+        checkWritable(buffer);
+        if (buffer instanceof byte[]) {
+            System.arraycopy(buffer, sourceIndex, buffer, targetIndex, byteLength);
+        } else {
+            ByteBuffer byteBuffer = (ByteBuffer) buffer;
+            byte[] bytes = new byte[byteLength];
+            Boundaries.byteBufferSlice(byteBuffer, sourceIndex, sourceIndex + byteLength).get(bytes);
+            Boundaries.byteBufferPutSlice(byteBuffer, targetIndex, ByteBuffer.wrap(bytes), 0, byteLength);
+        }
+    }
+
+    /**
+     * Reverses the order of the first {@code length} elements.
+     */
+    @TruffleBoundary
+    public static void reverse(DynamicObject view, TypedArray type, int length, int parallelThreshold) {
+        int elementSize = type.bytesPerElement();
+        int offset = type.getOffset(view);
+        int half = length / 2;
+        Object buffer = type.getBufferFromTypedArray(view);
+        if (half > 0) {
+            checkWritable(buffer);
+        }
+        if (isParallel((long) length * elementSize, parallelThreshold)) {
+            int chunkLength = PARALLEL_CHUNK_SIZE / elementSize;
+            IntStream.range(0, chunkCount(half, chunkLength)).parallel().forEach(chunk -> {
+                int chunkStart = chunk * chunkLength;
+                swapElements(buffer, offset, elementSize, length, chunkStart, Math.min(half, chunkStart + chunkLength));
+            });
+        } else {
+            swapElements(buffer, offset, elementSize, length, 0, half);
+        }
+    }
+
+    /**
+     * Swaps each element {@code i} in {@code [fromIndex, toIndex)} with element
+     * {@code length - 1 - i}.
+     */
+    private static void swapElements(Object buffer, int offset, int elementSize, int length, int fromIndex, int toIndex) {
+        if (buffer instanceof byte[]) {
+            byte[] bytes = (byte[]) buffer;
+            for (int i = fromIndex; i < toIndex; i++) {
+                int lower = offset + i * elementSize;
+                int upper = offset + (length - 1 - i) * elementSize;
+                for (int b = 0; b < elementSize; b++) {
+                    byte tmp = bytes[lower + b];
+                    bytes[lower + b] = bytes[upper + b];
+                    bytes[upper + b] = tmp;
+                }
+            }
+        } else {
+            ByteBuffer byteBuffer = (ByteBuffer) buffer;
+            for (int i = fromIndex; i < toIndex; i++) {
+                int lower = offset + i * elementSize;
+                int upper = offset + (length - 1 - i) * elementSize;
+                for (int b = 0; b < elementSize; b++) {
+                    byte tmp = byteBuffer.get(lower + b);
+                    byteBuffer.put(lower + b, byteBuffer.get(upper + b));
+                    byteBuffer.put(upper + b, tmp);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns whether {@link #indexOf} can search the given typed array for the given value.
+     */
+    public static boolean isSearchSupported(TypedArray type, Object searchElement) {
+        return (type instanceof TypedArray.TypedIntArray || type instanceof TypedArray.TypedFloatArray) && JSRuntime.isNumber(searchElement);
+    }
+
+    /**
+     * Returns the index of the first (or last, if not {@code forward}) element in
+     * {@code [start, end)} that is equal to the number {@code searchElement}, or -1. Equality is
+     * {@code ===}, or SameValueZero if {@code sameValueZero} is set.
+     */
+    @TruffleBoundary
+    public static int indexOf(DynamicObject view, TypedArray type, Object searchElement, int start, int end, boolean forward, boolean sameValueZero, int parallelThreshold) {
+        assert isSearchSupported(type, searchElement);
+        double target = JSRuntime.doubleValue((Number) searchElement);
+        if (Double.isNaN(target) && (!sameValueZero || type instanceof TypedArray.TypedIntArray)) {
+            return -1;
+        }
+        int targetInt = 0;
+        if (type instanceof TypedArray.TypedIntArray) {
+            if (type instanceof TypedArray.AbstractUint32Array) {
+                if (target != (long) target || target < 0 || target > 0xFFFF_FFFFL) {
+                    return -1;
+                }
+                targetInt = (int) (long) target;
+            } else {
+                if (target != (int) target) {
+                    return -1;
+                }
+                targetInt = (int) target;
+            }
+        }
+        Object buffer = type.getBufferFromTypedArray(view);
+        int offset = type.getOffset(view);
+        int length = end - start;
+        if (isParallel((long) length * type.bytesPerElement(), parallelThreshold)) {
+            int chunkLength = PARALLEL_CHUNK_SIZE / type.bytesPerElement();
+            int chunks = chunkCount(length, chunkLength);
+            int expected = targetInt;
+            return IntStream.range(0, chunks).parallel().map(chunk -> {
+                int chunkStart = start + (forward ? chunk : chunks - 1 - chunk) * chunkLength;
+                return scan(type, buffer, offset, chunkStart, Math.min(end, chunkStart + chunkLength), forward, expected, target);
+            }).filter(index -> index >= 0).findFirst().orElse(-1);
+        } else {
+            return scan(type, buffer, offset, start, end, forward, targetInt, target);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int scan(TypedArray type, Object buffer, int offset, int start, int end, boolean forward, int targetInt, double target) {
+        int step = forward ? 1 : -1;
+        int first = forward ? start : end - 1;
+        int last = forward ? end : start - 1;
+        if (type instanceof TypedArray.TypedIntArray) {
+            TypedArray.TypedIntArray<Object> intType = (TypedArray.TypedIntArray<Object>) type;
+            for (int i = first; i != last; i += step) {
+                if (intType.getIntImpl(buffer, offset, i) == targetInt) {
+                    return i;
+                }
+            }
+        } else {
+            TypedArray.TypedFloatArray<Object> floatType = (TypedArray.TypedFloatArray<Object>) type;
+            boolean isNaN = Double.isNaN(target);
+            for (int i = first; i != last; i += step) {
+                double value = floatType.getDoubleImpl(buffer, offset, i);
+                if (value == target || (isNaN && Double.isNaN(value))) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+}
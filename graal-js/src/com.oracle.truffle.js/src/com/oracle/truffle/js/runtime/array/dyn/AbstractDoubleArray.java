@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2018, 2020, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2018, 2021, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * The Universal Permissive License (UPL), Version 1.0
@@ -50,6 +50,7 @@ import com.oracle.truffle.api.object.DynamicObject;
 import com.oracle.truffle.js.runtime.JSConfig;
 import com.oracle.truffle.js.runtime.JSRuntime;
 import com.oracle.truffle.js.runtime.array.ScriptArray;
+import com.oracle.truffle.js.runtime.util.PrimitiveArraySort;
 
 public abstract class AbstractDoubleArray extends AbstractWritableArray {
 
@@ -171,6 +172,17 @@ public abstract class AbstractDoubleArray extends AbstractWritableArray {
         return toHoles(object, index, HolesDoubleArray.HOLE_VALUE).deleteElementImpl(object, index, strict);
     }
 
+    /**
+     * Sorts the elements in place in the order of the comparator {@code (a, b) => a - b} (or
+     * {@code b - a} if descending). The array must not have holes and its elements must occupy the
+     * indices {@code [0, length)}. Returns {@code false}, leaving the array unchanged, if that
+     * order is not well-defined for the elements.
+     */
+    public final boolean sortNumeric(DynamicObject object, int length, boolean descending) {
+        int start = prepareInBoundsFast(object, 0);
+        return PrimitiveArraySort.sortNumeric(getArray(object), start, start + length, descending, false);
+    }
+
     @Override
     protected final void moveRangePrepared(DynamicObject object, int src, int dst, int len) {
         double[] array = getArray(object);
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2018, 2020, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2018, 2021, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * The Universal Permissive License (UPL), Version 1.0
@@ -50,6 +50,7 @@ import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.object.DynamicObject;
 import com.oracle.truffle.js.runtime.JSConfig;
 import com.oracle.truffle.js.runtime.array.ScriptArray;
+import com.oracle.truffle.js.runtime.util.PrimitiveArraySort;
 
 public abstract class AbstractIntArray extends AbstractWritableArray {
 
@@ -193,6 +194,24 @@ public abstract class AbstractIntArray extends AbstractWritableArray {
         return false;
     }
 
+    /**
+     * Sorts the elements in place in numeric order. The array must not have holes and its elements
+     * must occupy the indices {@code [0, length)}.
+     */
+    public final void sortNumeric(DynamicObject object, int length, boolean descending) {
+        int start = prepareInBoundsFast(object, 0);
+        PrimitiveArraySort.sort(getArray(object), start, start + length, descending, false);
+    }
+
+    /**
+     * Sorts the elements in place in the order of their string representations. The array must
+     * not have holes and its elements must occupy the indices {@code [0, length)}.
+     */
+    public final void sortAsStrings(DynamicObject object, int length) {
+        int start = prepareInBoundsFast(object, 0);
+        PrimitiveArraySort.sortAsStrings(getArray(object), start, start + length);
+    }
+
     @Override
     protected final void moveRangePrepared(DynamicObject object, int src, int dst, int len) {
         int[] array = getArray(object);
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2018, 2020, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2018, 2021, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * The Universal Permissive License (UPL), Version 1.0
@@ -62,6 +62,8 @@ import com.oracle.truffle.js.runtime.array.ScriptArray;
 import com.oracle.truffle.js.runtime.array.SparseArray;
 import com.oracle.truffle.js.runtime.builtins.JSAbstractArray;
 import com.oracle.truffle.js.runtime.objects.Undefined;
+import com.oracle.truffle.js.runtime.util.JSFlightRecorder;
+import com.oracle.truffle.js.runtime.util.RuntimeEventType;
 import com.oracle.truffle.js.runtime.util.SimpleArrayList;
 
 /**
@@ -258,7 +260,11 @@ public abstract class AbstractWritableArray extends DynamicArray {
                     offset = (int) indexOffset;
                 }
             }
+            Object event = newCapacity >= JSConfig.LargeArrayReallocationThreshold ? JSFlightRecorder.begin(RuntimeEventType.ARRAY_REALLOCATION) : null;
             resizeArray(object, (int) newCapacity, capacity, offset);
+            if (event != null) {
+                JSFlightRecorder.commit(event, getClass(), newCapacity);
+            }
             return offset;
         }
     }
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2019, 2020, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2019, 2021, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * The Universal Permissive License (UPL), Version 1.0
@@ -88,6 +88,13 @@ public abstract class JSArrayBufferObject extends JSNonProxyObject {
         return DirectByteBufferHelper.cast(((DirectBase) thisObj).getByteBuffer());
     }
 
+    /**
+     * Returns whether the direct or shared buffer is backed by a memory-mapped file.
+     */
+    public static boolean isFileMapped(DynamicObject thisObj) {
+        return ((DirectBase) thisObj).fileMapped;
+    }
+
     public static JSAgentWaiterList getWaiterList(DynamicObject thisObj) {
         return ((Shared) thisObj).getWaiterList();
     }
@@ -116,6 +123,7 @@ public abstract class JSArrayBufferObject extends JSNonProxyObject {
 
     public abstract static class DirectBase extends JSArrayBufferObject {
         ByteBuffer byteBuffer;
+        boolean fileMapped;
 
         protected DirectBase(Shape shape, ByteBuffer byteBuffer) {
             super(shape);
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2018, 2020, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2018, 2021, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * The Universal Permissive License (UPL), Version 1.0
@@ -271,6 +271,40 @@ public final class JSDictionary extends JSNonProxy {
         return (EconomicMap<Object, PropertyDescriptor>) hashMapProperty.get(obj, false);
     }
 
+    /**
+     * Returns a copy of the properties of a dictionary object that is not affected by later
+     * changes to the object.
+     */
+    @TruffleBoundary
+    public static EconomicMap<Object, PropertyDescriptor> copyHashMap(DynamicObject obj) {
+        return copyHashMap(getHashMap(obj));
+    }
+
+    /**
+     * Replaces the properties of a dictionary object with a copy of the given properties.
+     */
+    @TruffleBoundary
+    public static void restoreHashMap(DynamicObject obj, EconomicMap<Object, PropertyDescriptor> hashMap) {
+        assert JSDictionary.isJSDictionaryObject(obj);
+        DynamicObjectLibrary.getUncached().put(obj, HASHMAP_PROPERTY_NAME, copyHashMap(hashMap));
+    }
+
+    private static EconomicMap<Object, PropertyDescriptor> copyHashMap(EconomicMap<Object, PropertyDescriptor> hashMap) {
+        EconomicMap<Object, PropertyDescriptor> copy = EconomicMap.create(hashMap.size());
+        MapCursor<Object, PropertyDescriptor> cursor = hashMap.getEntries();
+        while (cursor.advance()) {
+            PropertyDescriptor desc = cursor.getValue();
+            PropertyDescriptor descCopy;
+            if (desc.isAccessorDescriptor()) {
+                descCopy = PropertyDescriptor.createAccessor((DynamicObject) desc.getGet(), (DynamicObject) desc.getSet(), desc.getEnumerable(), desc.getConfigurable());
+            } else {
+                descCopy = PropertyDescriptor.createData(desc.getValue(), desc.getEnumerable(), desc.getWritable(), desc.getConfigurable());
+            }
+            copy.put(cursor.getKey(), descCopy);
+        }
+        return copy;
+    }
+
     public static void makeDictionaryObject(DynamicObject obj, String reason) {
         CompilerAsserts.neverPartOfCompilation();
         assert JSConfig.DictionaryObject;
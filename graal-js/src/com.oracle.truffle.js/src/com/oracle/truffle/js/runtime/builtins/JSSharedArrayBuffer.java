@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2018, 2020, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2018, 2021, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * The Universal Permissive License (UPL), Version 1.0
@@ -44,6 +44,7 @@ import static com.oracle.truffle.js.runtime.objects.JSObjectUtil.putConstructorP
 import static com.oracle.truffle.js.runtime.objects.JSObjectUtil.putFunctionsFromContainer;
 
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 
 import com.oracle.truffle.api.CallTarget;
 import com.oracle.truffle.api.Truffle;
@@ -87,6 +88,16 @@ public final class JSSharedArrayBuffer extends JSAbstractBuffer implements JSCon
         return context.trackAllocation(obj);
     }
 
+    /**
+     * Creates a SharedArrayBuffer backed by a memory-mapped region of a file. The buffer must be in
+     * native byte order.
+     */
+    public static DynamicObject createMappedSharedArrayBuffer(JSContext context, MappedByteBuffer buffer) {
+        DynamicObject obj = createSharedArrayBuffer(context, buffer);
+        ((JSArrayBufferObject.DirectBase) obj).fileMapped = true;
+        return obj;
+    }
+
     @Override
     public DynamicObject createPrototype(JSRealm realm, DynamicObject ctor) {
         JSContext context = realm.getContext();
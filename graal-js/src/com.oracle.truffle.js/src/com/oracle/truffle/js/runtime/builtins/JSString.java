@@ -143,7 +143,7 @@ public final class JSString extends JSPrimitive implements JSConstructorFactory.
     public Object getOwnHelper(DynamicObject store, Object thisObj, Object key, Node encapsulatingNode) {
         long value = JSRuntime.propertyKeyToArrayIndex(key);
         if (0 <= value && value < getStringLength(store)) {
-            return String.valueOf(getCharSequence(store).charAt((int) value));
+            return JSRuntime.charToString(getCharSequence(store).charAt((int) value));
         }
         return super.getOwnHelper(store, thisObj, key, encapsulatingNode);
     }
@@ -152,7 +152,7 @@ public final class JSString extends JSPrimitive implements JSConstructorFactory.
     @Override
     public Object getOwnHelper(DynamicObject store, Object thisObj, long index, Node encapsulatingNode) {
         if (0 <= index && index < getStringLength(store)) {
-            return String.valueOf(getCharSequence(store).charAt((int) index));
+            return JSRuntime.charToString(getCharSequence(store).charAt((int) index));
         }
         return super.getOwnHelper(store, thisObj, Boundaries.stringValueOf(index), encapsulatingNode);
     }
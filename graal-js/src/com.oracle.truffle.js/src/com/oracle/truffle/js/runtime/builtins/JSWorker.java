@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.runtime.builtins;
+
+import com.oracle.truffle.api.object.DynamicObject;
+import com.oracle.truffle.api.object.Shape;
+import com.oracle.truffle.js.builtins.WorkerPrototypeBuiltins;
+import com.oracle.truffle.js.runtime.JSContext;
+import com.oracle.truffle.js.runtime.JSRealm;
+import com.oracle.truffle.js.runtime.WorkerJSAgent;
+import com.oracle.truffle.js.runtime.objects.JSObjectUtil;
+
+/**
+ * A worker: an agent that evaluates a script in its own realm on its own thread and communicates
+ * with its owner through structured-clone messages.
+ */
+public final class JSWorker extends JSNonProxy implements JSConstructorFactory.Default, PrototypeSupplier {
+
+    public static final JSWorker INSTANCE = new JSWorker();
+
+    public static final String CLASS_NAME = "Worker";
+    public static final String PROTOTYPE_NAME = "Worker.prototype";
+
+    private JSWorker() {
+    }
+
+    public static DynamicObject create(JSContext context, WorkerJSAgent agent) {
+        JSRealm realm = context.getRealm();
+        JSObjectFactory factory = context.getWorkerFactory();
+        DynamicObject obj = factory.initProto(new JSWorkerObject(factory.getShape(realm), agent), realm);
+        assert isJSWorker(obj);
+        return context.trackAllocation(obj);
+    }
+
+    public static WorkerJSAgent getAgent(DynamicObject obj) {
+        assert isJSWorker(obj);
+        return ((JSWorkerObject) obj).getAgent();
+    }
+
+    @Override
+    public DynamicObject createPrototype(final JSRealm realm, DynamicObject ctor) {
+        JSContext ctx = realm.getContext();
+        DynamicObject prototype = JSObjectUtil.createOrdinaryPrototypeObject(realm);
+        JSObjectUtil.putConstructorProperty(ctx, prototype, ctor);
+        JSObjectUtil.putFunctionsFromContainer(realm, prototype, WorkerPrototypeBuiltins.BUILTINS);
+        JSObjectUtil.putToStringTag(prototype, CLASS_NAME);
+        return prototype;
+    }
+
+    @Override
+    public Shape makeInitialShape(JSContext context, DynamicObject prototype) {
+        return JSObjectUtil.getProtoChildShape(prototype, JSWorker.INSTANCE, context);
+    }
+
+    public static JSConstructor createConstructor(JSRealm realm) {
+        return INSTANCE.createConstructorAndPrototype(realm);
+    }
+
+    @Override
+    public String getClassName() {
+        return CLASS_NAME;
+    }
+
+    @Override
+    public String getClassName(DynamicObject object) {
+        return getClassName();
+    }
+
+    @Override
+    public String toDisplayStringImpl(DynamicObject obj, int depth, boolean allowSideEffects, JSContext context) {
+        return "[" + getClassName() + "]";
+    }
+
+    public static boolean isJSWorker(Object obj) {
+        return obj instanceof JSWorkerObject;
+    }
+
+    @Override
+    public DynamicObject getIntrinsicDefaultProto(JSRealm realm) {
+        return realm.getWorkerPrototype();
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2018, 2020, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2018, 2021, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * The Universal Permissive License (UPL), Version 1.0
@@ -40,25 +40,50 @@
  */
 package com.oracle.truffle.js.runtime.objects;
 
+import com.oracle.js.parser.ir.Module;
 import com.oracle.truffle.api.TruffleFile;
 import com.oracle.truffle.api.source.Source;
 import com.oracle.truffle.js.lang.JavaScriptLanguage;
 import com.oracle.truffle.js.runtime.Errors;
+import com.oracle.truffle.js.runtime.JSContext;
+import com.oracle.truffle.js.runtime.JSException;
 import com.oracle.truffle.js.runtime.JSRealm;
 import com.oracle.truffle.js.runtime.UserScriptException;
+import com.oracle.truffle.js.runtime.util.JSFlightRecorder;
+import com.oracle.truffle.js.runtime.util.RuntimeEventType;
 
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.file.FileSystemException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 public class DefaultESModuleLoader implements JSModuleLoader {
 
     protected final JSRealm realm;
     protected final Map<String, JSModuleRecord> moduleMap = new HashMap<>();
+    /**
+     * Modules that are being read and parsed in the background, by canonical path. Also accessed by
+     * the module parser threads.
+     */
+    private final Map<String, Future<PreparsedModule>> pendingModules = new ConcurrentHashMap<>();
+    /** Canonical paths of the modules in the module map, for the module parser threads. */
+    private final Set<String> loadedModules = ConcurrentHashMap.newKeySet();
+    private ThreadPoolExecutor moduleParserPool;
+    private boolean disposed;
 
     public static DefaultESModuleLoader create(JSRealm realm) {
         return new DefaultESModuleLoader(realm);
@@ -81,27 +106,36 @@ public class DefaultESModuleLoader implements JSModuleLoader {
         }
     }
 
-    @Override
-    public JSModuleRecord resolveImportedModule(ScriptOrModule referrer, String specifier) {
+    /**
+     * Resolves the file of an imported module. The path of the returned file is used as the key
+     * of the module map.
+     *
+     * @return the module file, or {@code null} if the module does not originate from a file
+     */
+    protected TruffleFile resolveModuleFile(ScriptOrModule referrer, String specifier) throws IOException {
         String refPath = referrer == null ? null : referrer.getSource().getPath();
-        try {
-            TruffleFile moduleFile;
-            URI maybeUri = asURI(specifier);
-            if (refPath == null) {
-                if (maybeUri != null) {
-                    moduleFile = realm.getEnv().getPublicTruffleFile(maybeUri).getCanonicalFile();
-                } else {
-                    moduleFile = realm.getEnv().getPublicTruffleFile(specifier).getCanonicalFile();
-                }
+        URI maybeUri = asURI(specifier);
+        if (refPath == null) {
+            if (maybeUri != null) {
+                return realm.getEnv().getPublicTruffleFile(maybeUri).getCanonicalFile();
             } else {
-                TruffleFile refFile = realm.getEnv().getPublicTruffleFile(refPath);
-                if (maybeUri != null) {
-                    String uriFile = realm.getEnv().getPublicTruffleFile(maybeUri).getCanonicalFile().getPath();
-                    moduleFile = refFile.resolveSibling(uriFile).getCanonicalFile();
-                } else {
-                    moduleFile = refFile.resolveSibling(specifier).getCanonicalFile();
-                }
+                return realm.getEnv().getPublicTruffleFile(specifier).getCanonicalFile();
             }
+        } else {
+            TruffleFile refFile = realm.getEnv().getPublicTruffleFile(refPath);
+            if (maybeUri != null) {
+                String uriFile = realm.getEnv().getPublicTruffleFile(maybeUri).getCanonicalFile().getPath();
+                return refFile.resolveSibling(uriFile).getCanonicalFile();
+            } else {
+                return refFile.resolveSibling(specifier).getCanonicalFile();
+            }
+        }
+    }
+
+    @Override
+    public JSModuleRecord resolveImportedModule(ScriptOrModule referrer, String specifier) {
+        try {
+            TruffleFile moduleFile = resolveModuleFile(referrer, specifier);
             String canonicalPath = moduleFile.getPath();
             return loadModuleFromUrl(specifier, moduleFile, canonicalPath);
         } catch (FileSystemException fsex) {
@@ -129,12 +163,169 @@ public class DefaultESModuleLoader implements JSModuleLoader {
         if (existingModule != null) {
             return existingModule;
         }
-        Source source = Source.newBuilder(JavaScriptLanguage.ID, moduleFile).name(specifier).build();
-        JSModuleRecord newModule = realm.getContext().getEvaluator().parseModule(realm.getContext(), source, this);
+        Object event = JSFlightRecorder.begin(RuntimeEventType.MODULE_LOAD);
+        JSModuleRecord newModule = takePreparsedModule(specifier, canonicalPath);
+        if (newModule == null) {
+            Source source = Source.newBuilder(JavaScriptLanguage.ID, moduleFile).name(specifier).build();
+            newModule = realm.getContext().getEvaluator().parseModule(realm.getContext(), source, this);
+        }
+        JSFlightRecorder.commit(event, specifier, 0);
         moduleMap.put(canonicalPath, newModule);
+        loadedModules.add(canonicalPath);
+        prefetchRequestedModules(newModule);
         return newModule;
     }
 
+    /**
+     * Starts reading and parsing the modules requested by the given module on background threads,
+     * so that they are ready when they are resolved during linking. The background threads in turn
+     * prefetch the modules requested by the modules they parse (see
+     * {@link #canResolveConcurrently}). Resolution errors are ignored here; they are reported when
+     * the module is actually resolved.
+     */
+    protected final void prefetchRequestedModules(JSModuleRecord moduleRecord) {
+        int threads = realm.getContext().getContextOptions().getModuleParserThreads();
+        if (threads <= 0) {
+            return;
+        }
+        prefetchRequestedModules(moduleRecord, ((Module) moduleRecord.getModule()).getRequestedModules(), threads);
+    }
+
+    private void prefetchRequestedModules(ScriptOrModule referrer, List<String> specifiers, int threads) {
+        for (String specifier : specifiers) {
+            TruffleFile moduleFile;
+            try {
+                moduleFile = resolveModuleFile(referrer, specifier);
+            } catch (IOException | SecurityException | JSException e) {
+                continue;
+            }
+            if (moduleFile == null) {
+                continue;
+            }
+            String canonicalPath = moduleFile.getPath();
+            if (loadedModules.contains(canonicalPath) || pendingModules.containsKey(canonicalPath)) {
+                continue;
+            }
+            FutureTask<PreparsedModule> task = new FutureTask<>(() -> preparseModule(moduleFile, specifier, threads));
+            if (pendingModules.putIfAbsent(canonicalPath, task) == null) {
+                try {
+                    getModuleParserPool(threads).execute(task);
+                } catch (RejectedExecutionException e) {
+                    // the loader has been disposed
+                    pendingModules.remove(canonicalPath, task);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads and parses a module on a module parser thread and prefetches the modules it requests.
+     */
+    private PreparsedModule preparseModule(TruffleFile moduleFile, String specifier, int threads) throws IOException {
+        JSContext context = realm.getContext();
+        Source source = Source.newBuilder(JavaScriptLanguage.ID, moduleFile).name(specifier).build();
+        Object parsed = context.getEvaluator().preparseModule(context, source);
+        if (parsed != null && canResolveConcurrently()) {
+            prefetchRequestedModules(new ScriptOrModule(context, source), context.getEvaluator().getRequestedModules(parsed), threads);
+        }
+        return new PreparsedModule(source, parsed);
+    }
+
+    /**
+     * Returns whether {@link #resolveModuleFile} may be called on the module parser threads, i.e.,
+     * whether it only depends on the file system. Loaders that resolve modules with the help of
+     * the realm have to return {@code false}; then only the imports of the modules translated on
+     * the main thread are prefetched.
+     */
+    protected boolean canResolveConcurrently() {
+        return true;
+    }
+
+    private JSModuleRecord takePreparsedModule(String specifier, String canonicalPath) {
+        Future<PreparsedModule> pending = pendingModules.remove(canonicalPath);
+        if (pending == null) {
+            return null;
+        }
+        PreparsedModule preparsed;
+        try {
+            preparsed = pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | CancellationException e) {
+            // e.g. an I/O error: load the module again to report it
+            return null;
+        }
+        if (!preparsed.source.getName().equals(specifier)) {
+            // the source name has to reflect the specifier that resolved the module first
+            return null;
+        }
+        return realm.getContext().getEvaluator().parseModule(realm.getContext(), preparsed.source, preparsed.parsed, this);
+    }
+
+    private synchronized ThreadPoolExecutor getModuleParserPool(int threads) {
+        if (moduleParserPool == null) {
+            if (disposed) {
+                throw new RejectedExecutionException();
+            }
+            moduleParserPool = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), (Runnable r) -> {
+                Thread thread = new Thread(r, "graaljs-module-parser");
+                thread.setDaemon(true);
+                return thread;
+            });
+            moduleParserPool.allowCoreThreadTimeOut(true);
+        }
+        return moduleParserPool;
+    }
+
+    /**
+     * Stops the module parser threads. Called when the context of the realm is finalized.
+     */
+    public final synchronized void dispose() {
+        disposed = true;
+        if (moduleParserPool != null) {
+            moduleParserPool.shutdownNow();
+            moduleParserPool = null;
+        }
+        for (Future<PreparsedModule> pending : pendingModules.values()) {
+            pending.cancel(false);
+        }
+        pendingModules.clear();
+    }
+
+    /**
+     * Returns a copy of the module map, from canonical path to module record, that can be passed to
+     * {@link #restoreModuleMap} later.
+     */
+    public final Map<String, JSModuleRecord> copyModuleMap() {
+        return new HashMap<>(moduleMap);
+    }
+
+    /**
+     * Resets the module map to a copy taken by {@link #copyModuleMap}, so that all modules loaded
+     * since are forgotten. Modules that are still being prefetched are discarded as well.
+     */
+    public final void restoreModuleMap(Map<String, JSModuleRecord> modules) {
+        moduleMap.clear();
+        moduleMap.putAll(modules);
+        loadedModules.retainAll(modules.keySet());
+        for (Future<PreparsedModule> pending : pendingModules.values()) {
+            pending.cancel(false);
+        }
+        pendingModules.clear();
+    }
+
+    private static final class PreparsedModule {
+        final Source source;
+        final Object parsed;
+
+        PreparsedModule(Source source, Object parsed) {
+            this.source = source;
+            this.parsed = parsed;
+        }
+    }
+
     @Override
     public JSModuleRecord loadModule(Source source) {
         String path = source.getPath();
@@ -155,6 +346,16 @@ public class DefaultESModuleLoader implements JSModuleLoader {
                 throw Errors.createErrorFromException(e);
             }
         }
-        return moduleMap.computeIfAbsent(canonicalPath, (key) -> realm.getContext().getEvaluator().parseModule(realm.getContext(), source, this));
+        JSModuleRecord existingModule = moduleMap.get(canonicalPath);
+        if (existingModule != null) {
+            return existingModule;
+        }
+        Object event = JSFlightRecorder.begin(RuntimeEventType.MODULE_LOAD);
+        JSModuleRecord newModule = realm.getContext().getEvaluator().parseModule(realm.getContext(), source, this);
+        JSFlightRecorder.commit(event, source.getName(), 0);
+        moduleMap.put(canonicalPath, newModule);
+        loadedModules.add(canonicalPath);
+        prefetchRequestedModules(newModule);
+        return newModule;
     }
 }
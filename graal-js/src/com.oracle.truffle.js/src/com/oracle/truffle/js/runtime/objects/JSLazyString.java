@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2018, 2020, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2018, 2021, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * The Universal Permissive License (UPL), Version 1.0
@@ -40,7 +40,11 @@
  */
 package com.oracle.truffle.js.runtime.objects;
 
-import com.oracle.truffle.api.CompilerAsserts;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.TruffleLanguage;
 import com.oracle.truffle.api.interop.InteropLibrary;
@@ -177,12 +181,17 @@ public final class JSLazyString implements CharSequence, TruffleObject, JSLazySt
     private CharSequence left;
     private CharSequence right;
     private final int length;
+    private int depth;
 
     private JSLazyString(CharSequence left, CharSequence right, int length) {
         assert left.length() > 0 && right.length() > 0 && length == left.length() + right.length();
         this.left = left;
         this.right = right;
         this.length = length;
+        this.depth = Math.max(depth(left), depth(right)) + 1;
+        if (depth > JSConfig.MaxLazyStringDepth) {
+            rebalance();
+        }
     }
 
     private JSLazyString(CharSequence left, CharSequence right) {
@@ -213,66 +222,229 @@ public final class JSLazyString implements CharSequence, TruffleObject, JSLazySt
         return right == null;
     }
 
+    /**
+     * Flattens the rope by appending its leaves to a presized builder rather than copying them into
+     * a {@code char[]}. With compact strings (JDK 9+), both the leaves and the builder keep Latin-1
+     * content in one byte per character, so an all-Latin-1 rope is never inflated to UTF-16 and
+     * does not need to be compressed again when the resulting String is created.
+     */
     @TruffleBoundary
     private void flatten() {
-        char[] dst = new char[length];
-        flatten(this, 0, length, dst, 0);
-        left = new String(dst);
+        StringBuilder builder = new StringBuilder(length);
+        for (LeafIterator it = new LeafIterator(this); it.hasNext();) {
+            builder.append(it.next());
+        }
+        assert builder.length() == length;
+        left = builder.toString();
         right = null;
+        depth = 0;
     }
 
-    private static void flatten(CharSequence src, int srcBegin, int srcEnd, char[] dst, int dstBegin) {
-        CompilerAsserts.neverPartOfCompilation();
-        CharSequence str = src;
-        int from = srcBegin;
-        int to = srcEnd;
-        int dstFrom = dstBegin;
-        for (;;) {
-            assert 0 <= from && from <= to && to <= str.length();
-            if (str instanceof JSLazyString) {
-                JSLazyString lazyString = (JSLazyString) str;
-                CharSequence left = lazyString.left;
-                CharSequence right = lazyString.right;
-                int mid = left.length();
-
-                if (to - mid >= mid - from) {
-                    // right is longer, recurse left
-                    if (from < mid) {
-                        if (left instanceof String) {
-                            ((String) left).getChars(from, mid, dst, dstFrom);
-                        } else {
-                            flatten(left, from, mid, dst, dstFrom);
-                        }
-                        dstFrom += mid - from;
-                        from = 0;
-                    } else {
-                        from -= mid;
-                    }
-                    to -= mid;
-                    str = right;
-                } else {
-                    // left is longer, recurse right
-                    if (to > mid) {
-                        if (right instanceof String) {
-                            ((String) right).getChars(0, to - mid, dst, dstFrom + mid - from);
-                        } else {
-                            flatten(right, 0, to - mid, dst, dstFrom + mid - from);
-                        }
-                        to = mid;
-                    }
-                    str = left;
+    private static int depth(CharSequence str) {
+        return str instanceof JSLazyString ? ((JSLazyString) str).depth : 0;
+    }
+
+    /**
+     * Minimum length of a balanced rope of depth {@code i}: {@code MIN_BALANCED_LENGTH[i]} is the
+     * Fibonacci number F(i + 2).
+     */
+    private static final int[] MIN_BALANCED_LENGTH = minBalancedLengths();
+
+    private static int[] minBalancedLengths() {
+        ArrayList<Integer> lengths = new ArrayList<>();
+        long a = 1;
+        long b = 2;
+        while (a <= Integer.MAX_VALUE) {
+            lengths.add((int) a);
+            long next = a + b;
+            a = b;
+            b = next;
+        }
+        int[] result = new int[lengths.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = lengths.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * A rope is balanced if its length is at least F(depth + 2), which bounds its depth by about
+     * log<sub>phi</sub>(length).
+     */
+    private static boolean isBalanced(CharSequence str) {
+        if (!(str instanceof JSLazyString)) {
+            return true;
+        }
+        JSLazyString rope = (JSLazyString) str;
+        return rope.isFlat() || (rope.depth < MIN_BALANCED_LENGTH.length && rope.length >= MIN_BALANCED_LENGTH[rope.depth]);
+    }
+
+    /**
+     * Rebalances a rope that has become too deep, typically a left-leaning chain built by repeated
+     * {@code s += x}, using the algorithm of Boehm et al. ("Ropes: an Alternative to Strings").
+     * Balanced subtrees, e.g. those built by an earlier rebalancing, are kept as they are; only the
+     * unbalanced nodes above them are traversed. Their leaves and subtrees are merged, in order,
+     * into a forest of balanced ropes of increasing Fibonacci lengths, which is concatenated at the
+     * end. A rebalancing thus costs time proportional to the number of leaves added since the
+     * previous one plus the logarithm of the length.
+     *
+     * Adjacent short leaves are coalesced into chunks of {@link JSConfig#LazyStringChunkLength}
+     * characters. This copies the new short leaves and, if it is adjacent to them, the short last
+     * chunk of the previous rebalancing; longer leaves and balanced subtrees are never copied.
+     */
+    @TruffleBoundary
+    private void rebalance() {
+        CharSequence[] forest = new CharSequence[MIN_BALANCED_LENGTH.length];
+        StringBuilder pending = null;
+        CharSequence[] stack = new CharSequence[depth + 1];
+        int top = 0;
+        stack[top++] = this;
+        while (top > 0) {
+            CharSequence node = stack[--top];
+            if (!isBalanced(node)) {
+                JSLazyString rope = (JSLazyString) node;
+                stack[top++] = rope.right;
+                stack[top++] = rope.left;
+                continue;
+            }
+            CharSequence piece = node instanceof JSLazyString && ((JSLazyString) node).isFlat() ? ((JSLazyString) node).left : node;
+            if (!(piece instanceof JSLazyString) && piece.length() < JSConfig.LazyStringChunkLength) {
+                if (pending == null) {
+                    pending = new StringBuilder(JSConfig.LazyStringChunkLength);
+                }
+                pending.append(piece);
+                if (pending.length() >= JSConfig.LazyStringChunkLength) {
+                    addToForest(forest, pending.toString());
+                    pending = null;
                 }
-            } else if (str instanceof String) {
-                ((String) str).getChars(from, to, dst, dstFrom);
-                return;
             } else {
-                assert JSRuntime.isString(str) || str instanceof JSLazyIntWrapper;
-                str.toString().getChars(from, to, dst, dstFrom);
+                if (pending != null) {
+                    addToForest(forest, pending.toString());
+                    pending = null;
+                }
+                addToForest(forest, piece);
+            }
+        }
+        if (pending != null) {
+            addToForest(forest, pending.toString());
+        }
+        CharSequence result = null;
+        for (CharSequence tree : forest) {
+            if (tree != null) {
+                result = concat(tree, result);
+            }
+        }
+        assert result != null && result.length() == length;
+        if (result instanceof JSLazyString) {
+            JSLazyString rope = (JSLazyString) result;
+            left = rope.left;
+            right = rope.right;
+            depth = rope.depth;
+        } else {
+            assert result instanceof String;
+            left = result;
+            right = null;
+            depth = 0;
+        }
+    }
+
+    /**
+     * Adds a balanced rope to the forest, whose slot {@code i} holds a rope of a length in
+     * [{@code MIN_BALANCED_LENGTH[i]}, {@code MIN_BALANCED_LENGTH[i + 1]}). Ropes in higher slots
+     * precede those in lower slots.
+     */
+    private static void addToForest(CharSequence[] forest, CharSequence piece) {
+        int len = piece.length();
+        CharSequence tooShort = null;
+        int i = 0;
+        for (; i + 1 < forest.length && len >= MIN_BALANCED_LENGTH[i + 1]; i++) {
+            if (forest[i] != null) {
+                tooShort = concat(forest[i], tooShort);
+                forest[i] = null;
+            }
+        }
+        CharSequence insertee = concat(tooShort, piece);
+        for (;; i++) {
+            if (forest[i] != null) {
+                insertee = concat(forest[i], insertee);
+                forest[i] = null;
+            }
+            if (i + 1 == forest.length || insertee.length() < MIN_BALANCED_LENGTH[i + 1]) {
+                forest[i] = insertee;
                 return;
             }
         }
     }
 
+    private static CharSequence concat(CharSequence left, CharSequence right) {
+        if (left == null) {
+            return right;
+        } else if (right == null) {
+            return left;
+        }
+        return new JSLazyString(left, right, left.length() + right.length());
+    }
+
+    /**
+     * Appends the contents of this string to the given builder without flattening it.
+     */
+    @TruffleBoundary
+    public void appendTo(StringBuilder builder) {
+        if (isFlat()) {
+            builder.append((String) left);
+            return;
+        }
+        builder.ensureCapacity(builder.length() + length);
+        for (LeafIterator it = new LeafIterator(this); it.hasNext();) {
+            builder.append(it.next());
+        }
+    }
+
+    /**
+     * Returns an iterator over the leaves of this string, from left to right. Concatenating the
+     * leaves yields the contents of this string; the string itself is not flattened.
+     */
+    public Iterator<String> leafIterator() {
+        return new LeafIterator(this);
+    }
+
+    private static final class LeafIterator implements Iterator<String> {
+        private CharSequence[] stack;
+        private int top;
+
+        LeafIterator(JSLazyString root) {
+            this.stack = new CharSequence[Math.max(8, root.depth + 1)];
+            this.stack[top++] = root;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return top > 0;
+        }
+
+        @Override
+        public String next() {
+            if (top == 0) {
+                throw new NoSuchElementException();
+            }
+            CharSequence str = stack[--top];
+            stack[top] = null;
+            while (str instanceof JSLazyString && !((JSLazyString) str).isFlat()) {
+                JSLazyString lazyString = (JSLazyString) str;
+                if (top == stack.length) {
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                }
+                stack[top++] = lazyString.right;
+                str = lazyString.left;
+            }
+            if (str instanceof JSLazyString) {
+                return ((JSLazyString) str).getFlattenedString();
+            }
+            assert str instanceof String || str instanceof JSLazyIntWrapper;
+            return str.toString();
+        }
+    }
+
     @Override
     public char charAt(int index) {
         return toString().charAt(index);
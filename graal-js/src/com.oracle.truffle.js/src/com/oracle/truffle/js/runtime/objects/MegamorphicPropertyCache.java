@@ -0,0 +1,259 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.runtime.objects;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.oracle.truffle.api.Assumption;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.object.DynamicObject;
+import com.oracle.truffle.api.object.HiddenKey;
+import com.oracle.truffle.api.object.Property;
+import com.oracle.truffle.api.object.Shape;
+import com.oracle.truffle.js.runtime.JSRuntime;
+import com.oracle.truffle.js.runtime.builtins.JSAbstractArray;
+import com.oracle.truffle.js.runtime.builtins.JSClass;
+import com.oracle.truffle.js.runtime.builtins.JSObjectPrototype;
+import com.oracle.truffle.js.runtime.builtins.JSString;
+import com.oracle.truffle.js.runtime.util.DebugCounter;
+
+/**
+ * Property lookup cache shared by all megamorphic property accesses of a context: property reads,
+ * writes, and {@code in} and own property checks.
+ *
+ * Once a property cache node has seen more than {@code property-cache-limit} shapes, it falls
+ * back to a generic lookup that walks the prototype chain and consults the shape of every object
+ * on it. This cache remembers the result of such lookups in a fixed-size, direct-mapped table
+ * keyed by (receiver shape, key), similar to V8's megamorphic stub cache.
+ *
+ * An entry records the {@link Property} that was found and the object holding it. Own
+ * properties are valid for as long as the receiver has the cached shape, since shapes are
+ * immutable. Properties found on the prototype chain additionally depend on the prototype and
+ * property assumptions of the shapes along the chain, which are invalidated when a prototype is
+ * changed or a shadowing property is added, and on the shape of the holder.
+ *
+ * Only prototype chains of ordinary objects whose prototype is stored in the shape are cached;
+ * everything else takes the regular lookup path. The table is not synchronized: entries are
+ * immutable and a lost update merely results in a cache miss.
+ */
+public final class MegamorphicPropertyCache {
+
+    private final Entry[] entries;
+    private final int mask;
+
+    private static final DebugCounter hitCount = DebugCounter.create("Megamorphic property cache hits");
+    private static final DebugCounter missCount = DebugCounter.create("Megamorphic property cache misses");
+
+    public MegamorphicPropertyCache(int size) {
+        assert Integer.bitCount(size) == 1 : size;
+        this.entries = new Entry[size];
+        this.mask = size - 1;
+    }
+
+    private static final class Entry {
+        final Shape shape;
+        final Object key;
+        final Property property;
+        /** The prototype holding the property, or {@code null} for an own property. */
+        final DynamicObject holder;
+        final Shape holderShape;
+        final Assumption[] assumptions;
+
+        Entry(Shape shape, Object key, Property property, DynamicObject holder, Shape holderShape, Assumption[] assumptions) {
+            this.shape = shape;
+            this.key = key;
+            this.property = property;
+            this.holder = holder;
+            this.holderShape = holderShape;
+            this.assumptions = assumptions;
+        }
+
+        boolean matches(Shape receiverShape, Object propertyKey) {
+            return shape == receiverShape && (key == propertyKey || key.equals(propertyKey));
+        }
+
+        boolean isValid() {
+            if (holder == null) {
+                return true;
+            }
+            if (holder.getShape() != holderShape) {
+                return false;
+            }
+            for (Assumption assumption : assumptions) {
+                if (!assumption.isValid()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Looks up the value of the property {@code key} of {@code object}, starting at the object
+     * itself and continuing along its prototype chain.
+     *
+     * @return the value of the property, or {@code null} if the property could not be found or the
+     *         lookup could not be cached; the caller then has to perform a regular lookup.
+     */
+    @TruffleBoundary
+    public Object get(DynamicObject object, Object receiver, Object key, Node encapsulatingNode) {
+        Entry entry = find(object, key);
+        if (entry == null) {
+            return null;
+        }
+        DynamicObject store = entry.holder == null ? object : entry.holder;
+        return JSProperty.getValue(entry.property, store, receiver, encapsulatingNode);
+    }
+
+    /**
+     * Performs [[Set]] of the property {@code key} of {@code object} (with the object itself as
+     * receiver) if it is an own writable data property or an accessor property on the prototype
+     * chain. Other cases, e.g., an own accessor or inherited data property, or a new property, are
+     * left to the caller.
+     *
+     * @return {@code true} if the property has been set, {@code false} if the caller has to
+     *         perform a regular [[Set]].
+     */
+    @TruffleBoundary
+    public boolean set(DynamicObject object, Object key, Object value, boolean isStrict, Node encapsulatingNode) {
+        Entry entry = find(object, key);
+        if (entry == null) {
+            return false;
+        }
+        Property property = entry.property;
+        if (entry.holder == null) {
+            if (JSProperty.isData(property) && !JSProperty.isProxy(property) && JSProperty.isWritable(property)) {
+                JSProperty.setValue(property, object, object, value, isStrict, encapsulatingNode);
+                return true;
+            }
+        } else if (JSProperty.isAccessor(property)) {
+            JSProperty.setValue(property, entry.holder, object, value, isStrict, encapsulatingNode);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Checks if {@code object} has the property {@code key}, as an own property or, unless
+     * {@code own} is set, on its prototype chain.
+     *
+     * @return {@code true} if the property has been found, {@code false} if the caller has to
+     *         perform a regular lookup (absent properties are not cached).
+     */
+    @TruffleBoundary
+    public boolean has(DynamicObject object, Object key, boolean own) {
+        Entry entry = find(object, key);
+        return entry != null && (!own || entry.holder == null);
+    }
+
+    private Entry find(DynamicObject object, Object key) {
+        Shape shape = object.getShape();
+        int index = (System.identityHashCode(shape) ^ key.hashCode()) & mask;
+        Entry entry = entries[index];
+        if (entry != null && entry.matches(shape, key) && entry.isValid()) {
+            hitCount.inc();
+            return entry;
+        }
+        missCount.inc();
+        entry = lookup(object, shape, key);
+        if (entry != null) {
+            entries[index] = entry;
+        }
+        return entry;
+    }
+
+    private static Entry lookup(DynamicObject object, Shape shape, Object key) {
+        if (key instanceof HiddenKey || !isCacheable(shape, key)) {
+            return null;
+        }
+        Property property = shape.getProperty(key);
+        if (property != null) {
+            return new Entry(shape, key, property, null, null, null);
+        }
+        List<Assumption> assumptions = new ArrayList<>();
+        DynamicObject current = object;
+        Shape currentShape = shape;
+        while (true) {
+            if (!JSShape.isPrototypeInShape(currentShape)) {
+                return null;
+            }
+            assumptions.add(JSShape.getPrototypeAssumption(currentShape));
+            DynamicObject prototype = JSObject.getPrototype(current);
+            if (prototype == Null.instance) {
+                // not found; not worth caching
+                return null;
+            }
+            current = prototype;
+            currentShape = current.getShape();
+            if (!currentShape.isValid() || !isCacheable(currentShape, key)) {
+                return null;
+            }
+            assumptions.add(JSShape.getPropertyAssumption(currentShape, key, true));
+            property = currentShape.getProperty(key);
+            if (property != null) {
+                for (Assumption assumption : assumptions) {
+                    if (!assumption.isValid()) {
+                        return null;
+                    }
+                }
+                return new Entry(shape, key, property, current, currentShape, assumptions.toArray(new Assumption[assumptions.size()]));
+            }
+        }
+    }
+
+    /**
+     * Returns {@code true} if looking up {@code key} in an object of this shape only consults the
+     * shape, i.e., the object has ordinary [[GetOwnProperty]] semantics for this key.
+     */
+    private static boolean isCacheable(Shape shape, Object key) {
+        if (JSShape.hasExternalProperties(shape.getFlags())) {
+            return false;
+        }
+        JSClass jsclass = JSShape.getJSClass(shape);
+        if (jsclass.usesOrdinaryGetOwnProperty()) {
+            return true;
+        }
+        // these classes only treat array indices specially
+        return (jsclass instanceof JSAbstractArray || jsclass == JSObjectPrototype.INSTANCE || jsclass == JSString.INSTANCE) && !JSRuntime.isArrayIndex(key);
+    }
+}
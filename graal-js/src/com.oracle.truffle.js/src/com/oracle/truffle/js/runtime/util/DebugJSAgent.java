@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2018, 2019, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2018, 2021, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * The Universal Permissive License (UPL), Version 1.0
@@ -70,6 +70,8 @@ public class DebugJSAgent extends JSAgent {
 
     private boolean quit;
     private Object debugReceiveBroadcast;
+    /** The thread of a spawned agent; {@code null} for the main agent. */
+    private volatile Thread agentThread;
 
     @TruffleBoundary
     public DebugJSAgent(boolean canBlock, OptionValues optionValues) {
@@ -111,6 +113,9 @@ public class DebugJSAgent extends JSAgent {
                             Thread.sleep(1000);
                         } catch (InterruptedException e) {
                             executor.executeBroadcastCallback();
+                            if (executor.jsAgent.hasPendingJobs()) {
+                                executor.jsAgent.processAllPromises(true);
+                            }
                         }
                         if (executor.jsAgent.quit) {
                             return;
@@ -176,19 +181,20 @@ public class DebugJSAgent extends JSAgent {
         this.reportValues.push(value);
     }
 
-    @TruffleBoundary
-    public void leaving() {
-        quit = true;
+    /**
+     * Wakes up the thread of a spawned agent so that it settles its async waiters.
+     */
+    @Override
+    protected void asyncWaiterSettled() {
+        Thread thread = agentThread;
+        if (thread != null) {
+            thread.interrupt();
+        }
     }
 
-    @Override
     @TruffleBoundary
-    public void wakeAgent(int w) {
-        for (AgentExecutor e : spawnedAgent) {
-            if (e.jsAgent.getSignifier() == w) {
-                e.thread.interrupt();
-            }
-        }
+    public void leaving() {
+        quit = true;
     }
 
     private static final class AgentExecutor {
@@ -203,6 +209,7 @@ public class DebugJSAgent extends JSAgent {
             this.thread = thread;
             this.jsAgent = jsAgent;
             this.incoming = new ConcurrentLinkedDeque<>();
+            jsAgent.agentThread = thread;
         }
 
         @TruffleBoundary
@@ -213,8 +220,8 @@ public class DebugJSAgent extends JSAgent {
 
         @TruffleBoundary
         public void executeBroadcastCallback() {
-            assert jsAgent.debugReceiveBroadcast != null;
             while (incoming.size() > 0) {
+                assert jsAgent.debugReceiveBroadcast != null;
                 DynamicObject cb = (DynamicObject) jsAgent.debugReceiveBroadcast;
                 JSFunction.call(cb, cb, new Object[]{incoming.pop()});
             }
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2018, 2020, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2018, 2021, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * The Universal Permissive License (UPL), Version 1.0
@@ -48,6 +48,7 @@ import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 
 public final class DirectByteBufferHelper {
     private static final Class<? extends ByteBuffer> DIRECT_BYTE_BUFFER_CLASS = ByteBuffer.allocateDirect(0).getClass();
+    private static final Class<? extends ByteBuffer> READ_ONLY_DIRECT_BYTE_BUFFER_CLASS = ByteBuffer.allocateDirect(0).asReadOnlyBuffer().getClass();
 
     private DirectByteBufferHelper() {
     }
@@ -61,7 +62,15 @@ public final class DirectByteBufferHelper {
         return cast(allocateDirectImpl(length));
     }
 
+    /**
+     * Casts to the exact class of direct byte buffers. Read-only direct buffers (e.g., of read-only
+     * file mappings) are accepted, too; writing to them throws
+     * {@link java.nio.ReadOnlyBufferException}.
+     */
     public static ByteBuffer cast(ByteBuffer buffer) {
+        if (buffer != null && buffer.getClass() == READ_ONLY_DIRECT_BYTE_BUFFER_CLASS) {
+            return CompilerDirectives.castExact(buffer, READ_ONLY_DIRECT_BYTE_BUFFER_CLASS);
+        }
         return CompilerDirectives.castExact(buffer, DIRECT_BYTE_BUFFER_CLASS);
     }
 }
@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.runtime.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.nodes.NodeCost;
+import com.oracle.truffle.api.source.SourceSection;
+
+/**
+ * Records the state of the inline caches of a context (enabled by
+ * {@code --js.inline-cache-statistics}).
+ *
+ * Cache nodes report every rewrite of their cache, i.e. every new cache entry, every switch to
+ * the generic case and every removal of invalidated entries, together with the resulting state,
+ * the number of cached entries and the reason. Reports are only made on the slow path, which is
+ * not part of compiled code. The collected sites can be queried at runtime with
+ * {@code Graal.inlineCacheStatistics()}.
+ *
+ * Element accesses have separate caches for the receiver type and for the array type of the
+ * receiver, which are reported as two sites with the same source location.
+ */
+public final class InlineCacheStatistics {
+
+    public enum Kind {
+        PROPERTY_GET("propertyGet"),
+        PROPERTY_SET("propertySet"),
+        HAS_PROPERTY("hasProperty"),
+        ELEMENT_READ("elementRead"),
+        ELEMENT_WRITE("elementWrite"),
+        CALL("call");
+
+        private final String name;
+
+        Kind(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    /**
+     * Statistics of a single cache node. Sites are keyed by node, so they go away with the AST.
+     */
+    public static final class Site {
+        private final Kind kind;
+        private final Object key;
+        private final SourceSection sourceSection;
+        private NodeCost state;
+        private int depth;
+        private int rewrites;
+        private int megamorphicRewrites;
+        private String reason;
+
+        Site(Kind kind, Object key, SourceSection sourceSection) {
+            this.kind = kind;
+            this.key = key;
+            this.sourceSection = sourceSection;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        /** The property key of a property access, or {@code null}. */
+        public Object getKey() {
+            return key;
+        }
+
+        /** Formatted as {@code name:line:column}, or {@code null} if the node has no source. */
+        public String getLocation() {
+            if (sourceSection == null || !sourceSection.isAvailable()) {
+                return null;
+            }
+            return sourceSection.getSource().getName() + ":" + sourceSection.getStartLine() + ":" + sourceSection.getStartColumn();
+        }
+
+        public synchronized String getState() {
+            return state.name().toLowerCase(Locale.ROOT);
+        }
+
+        synchronized int getStateOrder() {
+            return state == NodeCost.MEGAMORPHIC ? 0 : state == NodeCost.POLYMORPHIC ? 1 : 2;
+        }
+
+        /** Number of cached entries after the last rewrite. */
+        public synchronized int getDepth() {
+            return depth;
+        }
+
+        public synchronized int getRewrites() {
+            return rewrites;
+        }
+
+        /** Number of times the cache went generic; more than one means it was reset in between. */
+        public synchronized int getMegamorphicRewrites() {
+            return megamorphicRewrites;
+        }
+
+        /** Reason of the last rewrite. */
+        public synchronized String getReason() {
+            return reason;
+        }
+
+        synchronized void update(NodeCost newState, int newDepth, String newReason) {
+            if (newState == NodeCost.MEGAMORPHIC && state != NodeCost.MEGAMORPHIC) {
+                megamorphicRewrites++;
+            }
+            state = newState;
+            depth = newDepth;
+            reason = newReason;
+            rewrites++;
+        }
+    }
+
+    private final Map<Node, Site> sites = new WeakHashMap<>();
+
+    /**
+     * Records a rewrite of the cache of {@code node}.
+     *
+     * @param key the property key, or {@code null} if the cache is not specific to a key
+     * @param state the cache state after the rewrite
+     * @param depth the number of cached entries after the rewrite
+     * @param reason the reason of the rewrite
+     */
+    @TruffleBoundary
+    public void record(Node node, Kind kind, Object key, NodeCost state, int depth, String reason) {
+        Site site;
+        synchronized (sites) {
+            site = sites.get(node);
+            if (site == null) {
+                site = new Site(kind, key, node.getEncapsulatingSourceSection());
+                sites.put(node, site);
+            }
+        }
+        site.update(state, depth, reason);
+    }
+
+    /**
+     * Records a rewrite of a cache without a generic case, like the receiver and array type caches
+     * of element accesses, which are polymorphic as soon as they have more than one entry.
+     */
+    public void record(Node node, Kind kind, int depth, String reason) {
+        record(node, kind, null, depth > 1 ? NodeCost.POLYMORPHIC : NodeCost.MONOMORPHIC, depth, reason);
+    }
+
+    /**
+     * Returns a snapshot of all sites, megamorphic and polymorphic sites with most rewrites first.
+     */
+    @TruffleBoundary
+    public List<Site> getSites() {
+        List<Site> result;
+        synchronized (sites) {
+            result = new ArrayList<>(sites.values());
+        }
+        Collections.sort(result, Comparator.comparingInt(Site::getStateOrder).thenComparing(Comparator.comparingInt(Site::getRewrites).reversed()));
+        return result;
+    }
+}
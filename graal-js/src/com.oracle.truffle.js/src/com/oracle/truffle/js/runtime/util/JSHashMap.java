@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2018, 2020, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2018, 2021, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * The Universal Permissive License (UPL), Version 1.0
@@ -40,12 +40,18 @@
  */
 package com.oracle.truffle.js.runtime.util;
 
-import java.util.HashMap;
+import java.util.Arrays;
 
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 
 /**
  * ES6-compliant hash map implementation.
+ *
+ * Entries are stored in insertion order in flat arrays, with the hash index kept as bucket heads
+ * and per-entry chain links (similar to V8's OrderedHashMap), so that no objects are allocated per
+ * entry. Removed entries leave a hole that is dropped when the table is rehashed. A rehashed or
+ * cleared table is linked to its replacement so that existing cursors can find their position in
+ * the new table.
  */
 public final class JSHashMap {
     public interface Cursor {
@@ -72,21 +78,20 @@ public final class JSHashMap {
         Cursor copy();
     }
 
-    private final HashMap<Object, Node> map;
-    private final Node head;
-    private Node tail;
+    private static final int INITIAL_CAPACITY = 4;
+    private static final int NO_ENTRY = -1;
+
+    private Table table;
+    private int size;
 
     @TruffleBoundary(allowInlining = true)
     public JSHashMap() {
-        this.map = new HashMap<>();
-        Node dummy = new Node(null, null, null, null);
-        this.head = dummy;
-        this.tail = dummy;
+        this.table = new Table(INITIAL_CAPACITY);
     }
 
     @TruffleBoundary(allowInlining = true)
     public int size() {
-        return map.size();
+        return size;
     }
 
     /**
@@ -94,172 +99,238 @@ public final class JSHashMap {
      */
     @TruffleBoundary
     public void put(Object key, Object value) {
-        Node newNode = new Node(key, value, null, null);
-        Node oldNode = map.putIfAbsent(key, newNode);
-        if (oldNode == null) {
-            newNode.setPrev(tail);
-            tail.setNext(newNode);
-            tail = newNode;
-        } else {
-            oldNode.setValue(value);
+        assert key != null && value != null;
+        int hash = hash(key);
+        int index = table.find(key, hash);
+        if (index != NO_ENTRY) {
+            table.values[index] = value;
+            return;
         }
+        if (table.used == table.capacity()) {
+            // drop holes left by removed entries, grow only if the table is mostly occupied
+            rehash(table.deleted >= (table.used >> 1) ? table.capacity() : table.capacity() << 1);
+        }
+        table.add(key, value, hash);
+        size++;
     }
 
     @TruffleBoundary
     public Object get(Object key) {
-        Node node = map.get(key);
-        return node == null ? null : node.getValue();
+        int index = table.find(key, hash(key));
+        return index == NO_ENTRY ? null : table.values[index];
     }
 
     @TruffleBoundary
     public boolean has(Object key) {
-        return map.containsKey(key);
+        return table.find(key, hash(key)) != NO_ENTRY;
     }
 
     @TruffleBoundary
     public boolean remove(Object key) {
-        Node node = map.remove(key);
-        if (node == null) {
+        int index = table.find(key, hash(key));
+        if (index == NO_ENTRY) {
             return false;
-        } else {
-            unlink(node);
-            return true;
         }
+        table.keys[index] = null;
+        table.values[index] = null;
+        table.deleted++;
+        size--;
+        if (size < (table.capacity() >> 2) && table.capacity() > INITIAL_CAPACITY) {
+            rehash(table.capacity() >> 1);
+        }
+        return true;
+    }
+
+    @TruffleBoundary
+    public void clear() {
+        Table newTable = new Table(INITIAL_CAPACITY);
+        table.cleared = true;
+        table.successor = newTable;
+        table = newTable;
+        size = 0;
+    }
+
+    private void rehash(int newCapacity) {
+        Table oldTable = table;
+        Table newTable = new Table(newCapacity);
+        for (int i = 0; i < oldTable.used; i++) {
+            Object key = oldTable.keys[i];
+            if (key != null) {
+                newTable.add(key, oldTable.values[i], oldTable.hashes[i]);
+            }
+        }
+        oldTable.successor = newTable;
+        table = newTable;
     }
 
-    private void unlink(Node node) {
-        Node next = node.getNext();
-        Node prev = node.getPrev();
-        prev.setNext(next);
-        if (next != null) {
-            next.setPrev(prev);
+    private static int hash(Object key) {
+        int h;
+        if (key instanceof Integer) {
+            h = (Integer) key;
         } else {
-            tail = prev;
+            h = key.hashCode();
         }
-        node.setEmpty();
+        return h ^ (h >>> 16);
     }
 
-    @TruffleBoundary
-    public void clear() {
-        map.clear();
-        for (Node current = head.getNext(); current != null; current = current.getNext()) {
-            current.setEmpty();
+    private static boolean keyEquals(Object key, Object other) {
+        if (key == other) {
+            return true;
+        } else if (key instanceof Integer) {
+            return other instanceof Integer && ((Integer) key).intValue() == ((Integer) other).intValue();
+        } else if (key instanceof String) {
+            return other instanceof String && key.equals(other);
+        } else {
+            return key.equals(other);
         }
-        head.setNext(null);
-        tail = head;
     }
 
     @TruffleBoundary
     @Override
     public String toString() {
-        return map.toString();
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < table.used; i++) {
+            Object key = table.keys[i];
+            if (key != null) {
+                if (sb.length() > 1) {
+                    sb.append(", ");
+                }
+                sb.append(key).append('=').append(table.values[i]);
+            }
+        }
+        return sb.append('}').toString();
     }
 
     public Cursor getEntries() {
-        return new CursorImpl(head);
+        return new CursorImpl(table, NO_ENTRY);
+    }
+
+    private static final class Table {
+        /** First entry index per bucket. */
+        final int[] buckets;
+        /** Next entry index in the same bucket, per entry. */
+        final int[] chain;
+        final int[] hashes;
+        /** Entry keys in insertion order; {@code null} for removed entries. */
+        final Object[] keys;
+        final Object[] values;
+        /** Number of entry slots in use, including removed entries. */
+        int used;
+        /** Number of removed entries. */
+        int deleted;
+        /** The table that replaced this one after a rehash or clear. */
+        Table successor;
+        boolean cleared;
+
+        Table(int capacity) {
+            // two entries per bucket on average
+            this.buckets = new int[Math.max(capacity >> 1, 1)];
+            Arrays.fill(buckets, NO_ENTRY);
+            this.chain = new int[capacity];
+            this.hashes = new int[capacity];
+            this.keys = new Object[capacity];
+            this.values = new Object[capacity];
+        }
+
+        int capacity() {
+            return keys.length;
+        }
+
+        int find(Object key, int hash) {
+            for (int index = buckets[hash & (buckets.length - 1)]; index != NO_ENTRY; index = chain[index]) {
+                if (hashes[index] == hash) {
+                    Object entryKey = keys[index];
+                    if (entryKey != null && keyEquals(key, entryKey)) {
+                        return index;
+                    }
+                }
+            }
+            return NO_ENTRY;
+        }
+
+        void add(Object key, Object value, int hash) {
+            int index = used++;
+            int bucket = hash & (buckets.length - 1);
+            keys[index] = key;
+            values[index] = value;
+            hashes[index] = hash;
+            chain[index] = buckets[bucket];
+            buckets[bucket] = index;
+        }
+
+        /**
+         * Translates an entry index of this (obsolete) table to the index in the successor table
+         * that precedes the next entry to be visited.
+         */
+        int translate(int index) {
+            if (cleared || index == NO_ENTRY) {
+                return NO_ENTRY;
+            }
+            int live = 0;
+            for (int i = 0; i < index; i++) {
+                if (keys[i] != null) {
+                    live++;
+                }
+            }
+            return keys[index] != null ? live : live - 1;
+        }
     }
 
     private static final class CursorImpl implements Cursor {
-        private Node current;
+        private Table table;
+        private int index;
 
-        CursorImpl(Node head) {
-            this.current = head;
+        CursorImpl(Table table, int index) {
+            this.table = table;
+            this.index = index;
         }
 
         @Override
         public boolean advance() {
-            if (current == null) {
+            if (table == null) {
                 return false;
+            }
+            while (table.successor != null) {
+                // the map has been rehashed or cleared since the last step
+                index = table.translate(index);
+                table = table.successor;
+            }
+            int next = index + 1;
+            while (next < table.used && table.keys[next] == null) {
+                next++;
+            }
+            if (next < table.used) {
+                index = next;
+                return true;
             } else {
-                // if current is no longer in the map, back up to a previous node still in the map
-                while (current.isEmpty() && current.getPrev() != null) {
-                    current = current.getPrev();
-                }
-                Node next = current.getNext();
-                assert next == null || next.getKey() != null;
-                current = next;
-                return next != null;
+                // exhausted, entries added later are not visited
+                table = null;
+                return false;
             }
         }
 
         @Override
         public Object getKey() {
-            Object key = current.getKey();
+            Object key = table.keys[index];
             assert key != null;
             return key;
         }
 
         @Override
         public Object getValue() {
-            Object value = current.getValue();
+            Object value = table.values[index];
             assert value != null;
             return value;
         }
 
         @Override
         public String toString() {
-            return "Cursor [current=" + current + "]";
+            return "Cursor [index=" + index + "]";
         }
 
         @Override
         public Cursor copy() {
-            return new CursorImpl(current);
-        }
-    }
-
-    private static final class Node {
-        private Object key;
-        private Object value;
-        private Node prev;
-        private Node next;
-
-        Node(Object key, Object value, Node prev, Node next) {
-            this.key = key;
-            this.value = value;
-            this.prev = prev;
-            this.next = next;
-        }
-
-        Object getKey() {
-            return key;
-        }
-
-        Object getValue() {
-            return value;
-        }
-
-        void setValue(Object value) {
-            this.value = value;
-        }
-
-        Node getPrev() {
-            return prev;
-        }
-
-        void setPrev(Node prev) {
-            this.prev = prev;
-        }
-
-        Node getNext() {
-            return next;
-        }
-
-        void setNext(Node next) {
-            this.next = next;
-        }
-
-        void setEmpty() {
-            this.key = null;
-            this.value = null;
-        }
-
-        boolean isEmpty() {
-            return this.key == null;
-        }
-
-        @Override
-        public String toString() {
-            return "Node [key=" + key + ", value=" + value + "]";
+            return new CursorImpl(table, index);
         }
     }
 }
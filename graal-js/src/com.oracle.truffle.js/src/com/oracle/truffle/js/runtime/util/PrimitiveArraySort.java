@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.runtime.util;
+
+import java.util.Arrays;
+
+/**
+ * In-place sorting of primitive arrays in the orders used by {@code Array.prototype.sort} and
+ * {@code %TypedArray%.prototype.sort}, without boxing the elements.
+ *
+ * Equal int and double elements (other than {@code -0} and {@code +0}) are indistinguishable, so
+ * these sorts do not need to be stable to be observably stable. If {@code parallel} is set, large
+ * ranges are sorted with {@link Arrays#parallelSort} on the common fork-join pool.
+ */
+public final class PrimitiveArraySort {
+
+    private static final int MAX_INT_DIGITS = 10;
+    private static final long[] POWERS_OF_TEN = {1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L, 1000000000L, 10000000000L};
+    /** Moves the keys of negative values below the keys of all non-negative values. */
+    private static final long NEGATIVE_KEY_BIAS = 1L << 40;
+
+    private PrimitiveArraySort() {
+    }
+
+    /**
+     * Sorts the given range in ascending or descending numeric order.
+     */
+    public static void sort(int[] array, int fromIndex, int toIndex, boolean descending, boolean parallel) {
+        if (parallel) {
+            Arrays.parallelSort(array, fromIndex, toIndex);
+        } else {
+            Arrays.sort(array, fromIndex, toIndex);
+        }
+        if (descending) {
+            reverse(array, fromIndex, toIndex);
+        }
+    }
+
+    /**
+     * Sorts the given range in ascending or descending numeric order, treating the elements as
+     * unsigned 32-bit integers.
+     */
+    public static void sortUnsigned(int[] array, int fromIndex, int toIndex, boolean descending, boolean parallel) {
+        flipSignBits(array, fromIndex, toIndex);
+        sort(array, fromIndex, toIndex, descending, parallel);
+        flipSignBits(array, fromIndex, toIndex);
+    }
+
+    /**
+     * Sorts the given range in the default order of {@code %TypedArray%.prototype.sort}, i.e.,
+     * ascending with {@code -0} before {@code +0} and {@code NaN}s last.
+     */
+    public static void sort(double[] array, int fromIndex, int toIndex, boolean parallel) {
+        if (parallel) {
+            Arrays.parallelSort(array, fromIndex, toIndex);
+        } else {
+            Arrays.sort(array, fromIndex, toIndex);
+        }
+    }
+
+    /**
+     * Sorts the given range in the order of the comparator {@code (a, b) => a - b} (or
+     * {@code b - a} if descending). That comparator treats {@code -0} and {@code +0} as equal and
+     * is inconsistent for {@code NaN}; if the range contains any of them, it is left unchanged and
+     * {@code false} is returned.
+     */
+    public static boolean sortNumeric(double[] array, int fromIndex, int toIndex, boolean descending, boolean parallel) {
+        for (int i = fromIndex; i < toIndex; i++) {
+            double value = array[i];
+            if (Double.isNaN(value) || Double.doubleToRawLongBits(value) == Long.MIN_VALUE) {
+                return false;
+            }
+        }
+        sort(array, fromIndex, toIndex, parallel);
+        if (descending) {
+            reverse(array, fromIndex, toIndex);
+        }
+        return true;
+    }
+
+    /**
+     * Sorts the given range in the default order of {@code Array.prototype.sort}, i.e., by
+     * comparing the decimal string representations of the elements. The elements are mapped to
+     * {@code long} keys that preserve this order, so no strings are created.
+     */
+    public static void sortAsStrings(int[] array, int fromIndex, int toIndex) {
+        long[] keys = new long[toIndex - fromIndex];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = stringOrderKey(array[fromIndex + i]);
+        }
+        Arrays.sort(keys);
+        for (int i = 0; i < keys.length; i++) {
+            array[fromIndex + i] = fromStringOrderKey(keys[i]);
+        }
+    }
+
+    /**
+     * Two digit strings compare like their right-padded (to {@value #MAX_INT_DIGITS} digits)
+     * values, with ties (one string being a prefix of the other) going to the shorter string. The
+     * key consists of the padded value followed by the number of digits in the lowest 4 bits.
+     */
+    static long stringOrderKey(int value) {
+        long magnitude = Math.abs((long) value);
+        int digits = 1;
+        while (digits < MAX_INT_DIGITS && magnitude >= POWERS_OF_TEN[digits]) {
+            digits++;
+        }
+        long key = ((magnitude * POWERS_OF_TEN[MAX_INT_DIGITS - digits]) << 4) | digits;
+        return value < 0 ? key - NEGATIVE_KEY_BIAS : key;
+    }
+
+    static int fromStringOrderKey(long orderKey) {
+        boolean negative = orderKey < 0;
+        long key = negative ? orderKey + NEGATIVE_KEY_BIAS : orderKey;
+        int digits = (int) (key & 0xF);
+        long magnitude = (key >>> 4) / POWERS_OF_TEN[MAX_INT_DIGITS - digits];
+        return (int) (negative ? -magnitude : magnitude);
+    }
+
+    private static void flipSignBits(int[] array, int fromIndex, int toIndex) {
+        for (int i = fromIndex; i < toIndex; i++) {
+            array[i] ^= Integer.MIN_VALUE;
+        }
+    }
+
+    private static void reverse(int[] array, int fromIndex, int toIndex) {
+        for (int i = fromIndex, j = toIndex - 1; i < j; i++, j--) {
+            int tmp = array[i];
+            array[i] = array[j];
+            array[j] = tmp;
+        }
+    }
+
+    private static void reverse(double[] array, int fromIndex, int toIndex) {
+        for (int i = fromIndex, j = toIndex - 1; i < j; i++, j--) {
+            double tmp = array[i];
+            array[i] = array[j];
+            array[j] = tmp;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.runtime.util;
+
+/**
+ * Types of runtime events emitted via {@link JSFlightRecorder}. The meaning of the subject and the
+ * value passed to {@link JSFlightRecorder#commit} depends on the type.
+ */
+public enum RuntimeEventType {
+    /** Parsing of a script or module. Subject: source name, value: source length. */
+    PARSE,
+    /** Translation of a parsed script or module to a Truffle AST. Subject and value as for PARSE. */
+    TRANSLATE,
+    /** Loading (reading and parsing) of a module. Subject: module specifier, value: unused. */
+    MODULE_LOAD,
+    /** Linking of a module graph. Subject: source name of the root module, value: unused. */
+    MODULE_LINK,
+    /** Draining of the promise job queue. Subject: unused, value: number of jobs run. */
+    PROMISE_JOBS,
+    /** Cleanup of FinalizationRegistries. Subject: unused, value: number of live registries. */
+    FINALIZATION_REGISTRY_CLEANUP,
+    /** Compilation of a regular expression. Subject: {@code /pattern/flags}, value: unused. */
+    REGEX_COMPILE,
+    /** Reallocation of a large array backing store. Subject: array type, value: new capacity. */
+    ARRAY_REALLOCATION
+}
@@ -44,6 +44,7 @@ import com.oracle.truffle.api.nodes.NodeCloneable;
 import com.oracle.truffle.api.profiles.BranchProfile;
 import com.oracle.truffle.js.runtime.Boundaries;
 import com.oracle.truffle.js.runtime.Errors;
+import com.oracle.truffle.js.runtime.objects.JSLazyString;
 
 /**
  * A wrapper around StringBuilder methods that takes care of profiling and checking that the string
@@ -87,6 +88,14 @@ public final class StringBuilderProfile extends NodeCloneable {
         Boundaries.builderAppend(builder, str);
     }
 
+    public void append(StringBuilder builder, JSLazyString str) {
+        if ((builder.length() + str.length()) > stringLengthLimit) {
+            errorBranch.enter();
+            throw Errors.createRangeErrorInvalidStringLength();
+        }
+        str.appendTo(builder);
+    }
+
     public void append(StringBuilder builder, char c) {
         if (builder.length() + 1 > stringLengthLimit) {
             errorBranch.enter();
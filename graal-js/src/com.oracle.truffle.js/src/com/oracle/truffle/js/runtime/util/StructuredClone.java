@@ -0,0 +1,450 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.runtime.util;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.object.DynamicObject;
+import com.oracle.truffle.js.runtime.BigInt;
+import com.oracle.truffle.js.runtime.Errors;
+import com.oracle.truffle.js.runtime.JSAgentWaiterList;
+import com.oracle.truffle.js.runtime.JSContext;
+import com.oracle.truffle.js.runtime.JSErrorType;
+import com.oracle.truffle.js.runtime.JSRuntime;
+import com.oracle.truffle.js.runtime.RegexCompilerInterface;
+import com.oracle.truffle.js.runtime.array.TypedArray;
+import com.oracle.truffle.js.runtime.array.TypedArrayFactory;
+import com.oracle.truffle.js.runtime.builtins.JSArray;
+import com.oracle.truffle.js.runtime.builtins.JSArrayBuffer;
+import com.oracle.truffle.js.runtime.builtins.JSArrayBufferView;
+import com.oracle.truffle.js.runtime.builtins.JSBigInt;
+import com.oracle.truffle.js.runtime.builtins.JSBoolean;
+import com.oracle.truffle.js.runtime.builtins.JSDataView;
+import com.oracle.truffle.js.runtime.builtins.JSDate;
+import com.oracle.truffle.js.runtime.builtins.JSError;
+import com.oracle.truffle.js.runtime.builtins.JSMap;
+import com.oracle.truffle.js.runtime.builtins.JSNumber;
+import com.oracle.truffle.js.runtime.builtins.JSOrdinary;
+import com.oracle.truffle.js.runtime.builtins.JSRegExp;
+import com.oracle.truffle.js.runtime.builtins.JSSet;
+import com.oracle.truffle.js.runtime.builtins.JSSharedArrayBuffer;
+import com.oracle.truffle.js.runtime.builtins.JSString;
+import com.oracle.truffle.js.runtime.objects.JSObject;
+import com.oracle.truffle.js.runtime.objects.Null;
+import com.oracle.truffle.js.runtime.objects.PropertyDescriptor;
+import com.oracle.truffle.js.runtime.objects.Undefined;
+
+/**
+ * Structured serialization of values (HTML StructuredSerializeWithTransfer and
+ * StructuredDeserializeWithTransfer). The serialized form does not refer to any object of the
+ * source realm, so it can be deserialized in a different realm and on a different thread.
+ *
+ * Supported are primitives, wrapper objects of primitives, plain objects, arrays, dates, regular
+ * expressions, maps, sets, errors, array buffers, shared array buffers, typed arrays and data
+ * views. Object identity (including cycles) is preserved within one serialized value.
+ */
+public final class StructuredClone {
+
+    private StructuredClone() {
+    }
+
+    /**
+     * Serializes {@code value}. The array buffers in {@code transferList} are detached and their
+     * backing stores are moved to the serialized form without copying.
+     */
+    @TruffleBoundary
+    public static Object serialize(Object value, Object[] transferList) {
+        Map<Object, Object> memory = new IdentityHashMap<>();
+        DynamicObject[] transferred = new DynamicObject[transferList.length];
+        for (int i = 0; i < transferList.length; i++) {
+            Object transferable = transferList[i];
+            if (!JSArrayBuffer.isJSHeapArrayBuffer(transferable) && !JSArrayBuffer.isJSDirectArrayBuffer(transferable)) {
+                throw Errors.createTypeError("Value not transferable: " + JSRuntime.safeToString(transferable));
+            }
+            DynamicObject arrayBuffer = (DynamicObject) transferable;
+            if (memory.containsKey(arrayBuffer)) {
+                throw Errors.createTypeError("ArrayBuffer occurs more than once in the transfer list");
+            }
+            if (JSArrayBuffer.isDetachedBuffer(arrayBuffer)) {
+                throw Errors.createTypeErrorDetachedBuffer();
+            }
+            memory.put(arrayBuffer, ArrayBufferRecord.transfer(arrayBuffer));
+            transferred[i] = arrayBuffer;
+        }
+        Object serialized = serializeValue(value, memory);
+        for (DynamicObject arrayBuffer : transferred) {
+            JSArrayBuffer.detachArrayBuffer(arrayBuffer);
+        }
+        return serialized;
+    }
+
+    /**
+     * Deserializes a value produced by {@link #serialize} into the current realm of
+     * {@code context}.
+     */
+    @TruffleBoundary
+    public static Object deserialize(JSContext context, Object serialized) {
+        return deserializeValue(context, serialized, new IdentityHashMap<>());
+    }
+
+    private static Object serializeValue(Object value, Map<Object, Object> memory) {
+        if (value == Undefined.instance || value == Null.instance || value instanceof Boolean || JSRuntime.isNumber(value) || value instanceof BigInt) {
+            return value;
+        } else if (JSRuntime.isString(value)) {
+            return JSRuntime.toStringIsString(value);
+        }
+        Object record = memory.get(value);
+        if (record != null) {
+            return record;
+        }
+        if (JSBoolean.isJSBoolean(value)) {
+            record = new PrimitiveWrapperRecord(JSBoolean.valueOf((DynamicObject) value));
+        } else if (JSNumber.isJSNumber(value)) {
+            record = new PrimitiveWrapperRecord(JSNumber.valueOf((DynamicObject) value));
+        } else if (JSBigInt.isJSBigInt(value)) {
+            record = new PrimitiveWrapperRecord(JSBigInt.valueOf((DynamicObject) value));
+        } else if (JSString.isJSString(value)) {
+            record = new PrimitiveWrapperRecord(JSString.getString((DynamicObject) value));
+        } else if (JSDate.isJSDate(value)) {
+            record = new DateRecord(JSDate.getTimeMillisField((DynamicObject) value));
+        } else if (JSRegExp.isJSRegExp(value)) {
+            Object compiledRegex = JSRegExp.getCompiledRegex((DynamicObject) value);
+            TRegexUtil.InteropReadStringMemberNode readString = TRegexUtil.InteropReadStringMemberNode.getUncached();
+            String pattern = readString.execute(compiledRegex, TRegexUtil.Props.CompiledRegex.PATTERN);
+            Object flags = TRegexUtil.InteropReadMemberNode.getUncached().execute(compiledRegex, TRegexUtil.Props.CompiledRegex.FLAGS);
+            record = new RegExpRecord(pattern, readString.execute(flags, TRegexUtil.Props.Flags.SOURCE));
+        } else if (JSArrayBuffer.isJSHeapArrayBuffer(value) || JSArrayBuffer.isJSDirectArrayBuffer(value)) {
+            DynamicObject arrayBuffer = (DynamicObject) value;
+            if (JSArrayBuffer.isDetachedBuffer(arrayBuffer)) {
+                throw Errors.createTypeErrorDetachedBuffer();
+            }
+            record = ArrayBufferRecord.copy(arrayBuffer);
+        } else if (JSSharedArrayBuffer.isJSSharedArrayBuffer(value)) {
+            DynamicObject sharedArrayBuffer = (DynamicObject) value;
+            record = new SharedArrayBufferRecord(JSSharedArrayBuffer.getDirectByteBuffer(sharedArrayBuffer), JSSharedArrayBuffer.getWaiterList(sharedArrayBuffer));
+        } else if (JSArrayBufferView.isJSArrayBufferView(value)) {
+            DynamicObject view = (DynamicObject) value;
+            Object buffer = serializeValue(JSArrayBufferView.getArrayBuffer(view), memory);
+            TypedArray arrayType = JSArrayBufferView.typedArrayGetArrayType(view);
+            record = new ViewRecord(buffer, arrayType.getFactory(), JSArrayBufferView.typedArrayGetOffset(view), arrayType.lengthInt(view));
+        } else if (JSDataView.isJSDataView(value)) {
+            DynamicObject view = (DynamicObject) value;
+            Object buffer = serializeValue(JSDataView.getArrayBuffer(view), memory);
+            record = new ViewRecord(buffer, null, JSDataView.typedArrayGetOffset(view), JSDataView.typedArrayGetLength(view));
+        } else if (JSMap.isJSMap(value) || JSSet.isJSSet(value)) {
+            return serializeCollection((DynamicObject) value, memory);
+        } else if (JSError.isJSError(value)) {
+            record = serializeError((DynamicObject) value);
+        } else if (JSArray.isJSArray(value) || JSOrdinary.isJSOrdinaryObject(value)) {
+            return serializeObject((DynamicObject) value, memory);
+        } else {
+            throw Errors.createTypeError(JSRuntime.safeToString(value) + " could not be cloned.");
+        }
+        memory.put(value, record);
+        return record;
+    }
+
+    private static Object serializeObject(DynamicObject object, Map<Object, Object> memory) {
+        boolean isArray = JSArray.isJSArray(object);
+        ObjectRecord record = new ObjectRecord(isArray, isArray ? JSArray.arrayGetLength(object) : 0);
+        memory.put(object, record);
+        List<String> keys = JSObject.enumerableOwnNames(object);
+        String[] recordKeys = new String[keys.size()];
+        Object[] recordValues = new Object[keys.size()];
+        for (int i = 0; i < recordKeys.length; i++) {
+            String key = keys.get(i);
+            recordKeys[i] = key;
+            recordValues[i] = serializeValue(JSObject.get(object, key), memory);
+        }
+        record.keys = recordKeys;
+        record.values = recordValues;
+        return record;
+    }
+
+    private static Object serializeCollection(DynamicObject collection, Map<Object, Object> memory) {
+        boolean isSet = JSSet.isJSSet(collection);
+        CollectionRecord record = new CollectionRecord(isSet);
+        memory.put(collection, record);
+        // copy the entries first, serialization of the elements may modify the collection
+        List<Object> entries = new ArrayList<>();
+        JSHashMap.Cursor cursor = (isSet ? JSSet.getInternalSet(collection) : JSMap.getInternalMap(collection)).getEntries();
+        while (cursor.advance()) {
+            entries.add(cursor.getKey());
+            if (!isSet) {
+                entries.add(cursor.getValue());
+            }
+        }
+        Object[] serializedEntries = new Object[entries.size()];
+        for (int i = 0; i < serializedEntries.length; i++) {
+            serializedEntries[i] = serializeValue(entries.get(i), memory);
+        }
+        record.entries = serializedEntries;
+        return record;
+    }
+
+    private static ErrorRecord serializeError(DynamicObject error) {
+        JSErrorType errorType = JSErrorType.Error;
+        Object name = JSObject.get(error, JSError.NAME);
+        if (JSRuntime.isString(name)) {
+            switch (JSRuntime.toStringIsString(name)) {
+                case "EvalError":
+                    errorType = JSErrorType.EvalError;
+                    break;
+                case "RangeError":
+                    errorType = JSErrorType.RangeError;
+                    break;
+                case "ReferenceError":
+                    errorType = JSErrorType.ReferenceError;
+                    break;
+                case "SyntaxError":
+                    errorType = JSErrorType.SyntaxError;
+                    break;
+                case "TypeError":
+                    errorType = JSErrorType.TypeError;
+                    break;
+                case "URIError":
+                    errorType = JSErrorType.URIError;
+                    break;
+                default:
+                    break;
+            }
+        }
+        PropertyDescriptor messageDesc = JSObject.getOwnProperty(error, JSError.MESSAGE);
+        String message = null;
+        if (messageDesc != null && messageDesc.isDataDescriptor()) {
+            message = JSRuntime.toString(messageDesc.getValue());
+        }
+        return new ErrorRecord(errorType, message);
+    }
+
+    private static Object deserializeValue(JSContext context, Object serialized, Map<Object, DynamicObject> memory) {
+        if (!(serialized instanceof SerializedRecord)) {
+            return serialized;
+        }
+        DynamicObject object = memory.get(serialized);
+        if (object != null) {
+            return object;
+        }
+        if (serialized instanceof ObjectRecord) {
+            ObjectRecord record = (ObjectRecord) serialized;
+            object = record.isArray ? JSArray.createEmpty(context, record.length) : JSOrdinary.create(context);
+            memory.put(serialized, object);
+            for (int i = 0; i < record.keys.length; i++) {
+                JSRuntime.createDataProperty(object, record.keys[i], deserializeValue(context, record.values[i], memory));
+            }
+            return object;
+        } else if (serialized instanceof CollectionRecord) {
+            CollectionRecord record = (CollectionRecord) serialized;
+            object = record.isSet ? JSSet.create(context) : JSMap.create(context);
+            memory.put(serialized, object);
+            JSHashMap internalMap = record.isSet ? JSSet.getInternalSet(object) : JSMap.getInternalMap(object);
+            for (int i = 0; i < record.entries.length; i += record.isSet ? 1 : 2) {
+                Object key = deserializeValue(context, record.entries[i], memory);
+                Object value = record.isSet ? key : deserializeValue(context, record.entries[i + 1], memory);
+                internalMap.put(key, value);
+            }
+            return object;
+        } else if (serialized instanceof ViewRecord) {
+            ViewRecord record = (ViewRecord) serialized;
+            DynamicObject arrayBuffer = (DynamicObject) deserializeValue(context, record.buffer, memory);
+            if (record.factory == null) {
+                object = JSDataView.createDataView(context, arrayBuffer, record.byteOffset, record.length);
+            } else {
+                TypedArray arrayType = record.factory.createArrayType(JSArrayBuffer.isJSDirectOrSharedArrayBuffer(arrayBuffer), record.byteOffset != 0);
+                object = JSArrayBufferView.createArrayBufferView(context, arrayBuffer, arrayType, record.byteOffset, record.length);
+            }
+        } else if (serialized instanceof PrimitiveWrapperRecord) {
+            Object value = ((PrimitiveWrapperRecord) serialized).value;
+            if (value instanceof Boolean) {
+                object = JSBoolean.create(context, (Boolean) value);
+            } else if (value instanceof BigInt) {
+                object = JSBigInt.create(context, (BigInt) value);
+            } else if (value instanceof String) {
+                object = JSString.create(context, (String) value);
+            } else {
+                object = JSNumber.create(context, (Number) value);
+            }
+        } else if (serialized instanceof DateRecord) {
+            object = JSDate.create(context, ((DateRecord) serialized).time);
+        } else if (serialized instanceof RegExpRecord) {
+            RegExpRecord record = (RegExpRecord) serialized;
+            object = JSRegExp.create(context, RegexCompilerInterface.compile(record.pattern, record.flags, context));
+        } else if (serialized instanceof ErrorRecord) {
+            ErrorRecord record = (ErrorRecord) serialized;
+            object = JSError.create(record.errorType, context.getRealm(), record.message == null ? Undefined.instance : record.message);
+        } else if (serialized instanceof ArrayBufferRecord) {
+            ArrayBufferRecord record = (ArrayBufferRecord) serialized;
+            object = record.heapBytes != null ? JSArrayBuffer.createArrayBuffer(context, record.heapBytes) : JSArrayBuffer.createDirectArrayBuffer(context, record.directBytes);
+        } else {
+            SharedArrayBufferRecord record = (SharedArrayBufferRecord) serialized;
+            object = JSSharedArrayBuffer.createSharedArrayBuffer(context, record.buffer);
+            JSSharedArrayBuffer.setWaiterList(object, record.waiterList);
+        }
+        memory.put(serialized, object);
+        return object;
+    }
+
+    private abstract static class SerializedRecord {
+    }
+
+    private static final class ObjectRecord extends SerializedRecord {
+        final boolean isArray;
+        final long length;
+        String[] keys;
+        Object[] values;
+
+        ObjectRecord(boolean isArray, long length) {
+            this.isArray = isArray;
+            this.length = length;
+        }
+    }
+
+    private static final class CollectionRecord extends SerializedRecord {
+        final boolean isSet;
+        /** Keys of a set, or alternating keys and values of a map. */
+        Object[] entries;
+
+        CollectionRecord(boolean isSet) {
+            this.isSet = isSet;
+        }
+    }
+
+    private static final class PrimitiveWrapperRecord extends SerializedRecord {
+        final Object value;
+
+        PrimitiveWrapperRecord(Object value) {
+            this.value = value;
+        }
+    }
+
+    private static final class DateRecord extends SerializedRecord {
+        final double time;
+
+        DateRecord(double time) {
+            this.time = time;
+        }
+    }
+
+    private static final class RegExpRecord extends SerializedRecord {
+        final String pattern;
+        final String flags;
+
+        RegExpRecord(String pattern, String flags) {
+            this.pattern = pattern;
+            this.flags = flags;
+        }
+    }
+
+    private static final class ErrorRecord extends SerializedRecord {
+        final JSErrorType errorType;
+        final String message;
+
+        ErrorRecord(JSErrorType errorType, String message) {
+            this.errorType = errorType;
+            this.message = message;
+        }
+    }
+
+    private static final class ViewRecord extends SerializedRecord {
+        final Object buffer;
+        /** Factory of the typed array, {@code null} for a {@code DataView}. */
+        final TypedArrayFactory factory;
+        final int byteOffset;
+        /** Element length of a typed array, byte length of a {@code DataView}. */
+        final int length;
+
+        ViewRecord(Object buffer, TypedArrayFactory factory, int byteOffset, int length) {
+            this.buffer = buffer;
+            this.factory = factory;
+            this.byteOffset = byteOffset;
+            this.length = length;
+        }
+    }
+
+    private static final class ArrayBufferRecord extends SerializedRecord {
+        final byte[] heapBytes;
+        final ByteBuffer directBytes;
+
+        private ArrayBufferRecord(byte[] heapBytes, ByteBuffer directBytes) {
+            this.heapBytes = heapBytes;
+            this.directBytes = directBytes;
+        }
+
+        static ArrayBufferRecord transfer(DynamicObject arrayBuffer) {
+            if (JSArrayBuffer.isJSHeapArrayBuffer(arrayBuffer)) {
+                return new ArrayBufferRecord(JSArrayBuffer.getByteArray(arrayBuffer), null);
+            } else {
+                return new ArrayBufferRecord(null, JSArrayBuffer.getDirectByteBuffer(arrayBuffer));
+            }
+        }
+
+        static ArrayBufferRecord copy(DynamicObject arrayBuffer) {
+            if (JSArrayBuffer.isJSHeapArrayBuffer(arrayBuffer)) {
+                byte[] bytes = JSArrayBuffer.getByteArray(arrayBuffer);
+                return new ArrayBufferRecord(Arrays.copyOf(bytes, bytes.length), null);
+            } else {
+                ByteBuffer source = JSArrayBuffer.getDirectByteBuffer(arrayBuffer);
+                ByteBuffer copy = DirectByteBufferHelper.allocateDirect(source.capacity());
+                ByteBuffer contents = source.duplicate();
+                contents.clear();
+                copy.put(contents);
+                copy.clear();
+                return new ArrayBufferRecord(null, copy);
+            }
+        }
+    }
+
+    private static final class SharedArrayBufferRecord extends SerializedRecord {
+        final ByteBuffer buffer;
+        final JSAgentWaiterList waiterList;
+
+        SharedArrayBufferRecord(ByteBuffer buffer, JSAgentWaiterList waiterList) {
+            this.buffer = buffer;
+            this.waiterList = waiterList;
+        }
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2018, 2020, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2018, 2021, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * The Universal Permissive License (UPL), Version 1.0
@@ -40,12 +40,14 @@
  */
 package com.oracle.truffle.js.runtime.util;
 
+import java.lang.ref.WeakReference;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
 import java.util.WeakHashMap;
 
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.object.DynamicObject;
 import com.oracle.truffle.api.object.HiddenKey;
 import com.oracle.truffle.js.nodes.access.HasHiddenKeyCacheNode;
@@ -57,6 +59,14 @@ import com.oracle.truffle.js.runtime.objects.JSShape;
 
 /**
  * JavaScript WeakMap.
+ *
+ * The entries are stored in the key objects, under a hidden property, so that a value is only
+ * reachable as long as its key is (Java has no ephemerons, and a value that references its key
+ * would otherwise keep the key alive). The weak map itself is only weakly referenced from its keys.
+ *
+ * Most keys are only ever contained in a single weak map, so the hidden property initially holds a
+ * single {@link InvertedEntry}. Only when the key is added to another weak map, the entry is
+ * replaced by an inverted {@link WeakHashMap} from weak maps to values.
  */
 public class WeakMap implements Map<DynamicObject, Object> {
     private static final HiddenKey INVERTED_WEAK_MAP_KEY = new HiddenKey("InvertedWeakMap");
@@ -72,6 +82,18 @@ public class WeakMap implements Map<DynamicObject, Object> {
         return HasHiddenKeyCacheNode.create(WeakMap.INVERTED_WEAK_MAP_KEY);
     }
 
+    /**
+     * The value of a key in a single weak map.
+     */
+    static final class InvertedEntry extends WeakReference<WeakMap> {
+        Object value;
+
+        InvertedEntry(WeakMap map, Object value) {
+            super(map);
+            this.value = value;
+        }
+    }
+
     private static DynamicObject checkKey(Object key) {
         if (!(key instanceof DynamicObject)) {
             throw new IllegalArgumentException("key must be instanceof DynamicObject");
@@ -79,50 +101,107 @@ public class WeakMap implements Map<DynamicObject, Object> {
         return (DynamicObject) key;
     }
 
+    private static Object getInvertedProperty(DynamicObject k) {
+        return JSDynamicObject.getOrNull(k, INVERTED_WEAK_MAP_KEY);
+    }
+
+    private static void setInvertedProperty(DynamicObject k, Object inverted) {
+        boolean wasExtensible = false;
+        assert (wasExtensible = ((JSDynamicObject.getObjectFlags(k) & JSShape.NOT_EXTENSIBLE_FLAG) == 0)) || Boolean.TRUE;
+        JSObjectUtil.putHiddenProperty(k, INVERTED_WEAK_MAP_KEY, inverted);
+        assert wasExtensible == ((JSDynamicObject.getObjectFlags(k) & JSShape.NOT_EXTENSIBLE_FLAG) == 0);
+    }
+
+    /**
+     * Returns the value of this map in the inverted map of a key, or {@code null} if absent.
+     *
+     * @param inverted the value of the key's hidden inverted map property
+     */
     @SuppressWarnings("unchecked")
-    private static Map<WeakMap, Object> getInvertedMap(DynamicObject k, boolean put) {
-        if (JSDynamicObject.hasProperty(k, INVERTED_WEAK_MAP_KEY)) {
-            return (WeakHashMap<WeakMap, Object>) JSDynamicObject.getOrNull(k, INVERTED_WEAK_MAP_KEY);
-        } else {
-            if (put) {
-                return putInvertedMap(k);
+    @TruffleBoundary(allowInlining = true)
+    public final Object invertedGet(Object inverted) {
+        if (inverted instanceof InvertedEntry) {
+            InvertedEntry entry = (InvertedEntry) inverted;
+            return entry.get() == this ? entry.value : null;
+        } else if (inverted != null) {
+            return ((WeakHashMap<WeakMap, Object>) inverted).get(this);
+        }
+        return null;
+    }
+
+    /**
+     * Sets the value of this map in the inverted map of a key.
+     *
+     * @param inverted the current value of the key's hidden inverted map property or {@code null}
+     */
+    @SuppressWarnings("unchecked")
+    @TruffleBoundary
+    public final Object invertedPut(DynamicObject key, Object inverted, Object value) {
+        if (inverted instanceof InvertedEntry) {
+            InvertedEntry entry = (InvertedEntry) inverted;
+            WeakMap entryMap = entry.get();
+            if (entryMap == this) {
+                Object oldValue = entry.value;
+                entry.value = value;
+                return oldValue;
+            } else if (entryMap == null) {
+                // the entry has been removed or its weak map is gone, replace it
+                setInvertedProperty(key, new InvertedEntry(this, value));
             } else {
-                return Collections.emptyMap();
+                WeakHashMap<WeakMap, Object> invertedMap = new WeakHashMap<>();
+                invertedMap.put(entryMap, entry.value);
+                invertedMap.put(this, value);
+                setInvertedProperty(key, invertedMap);
             }
+            return null;
+        } else if (inverted != null) {
+            return ((WeakHashMap<WeakMap, Object>) inverted).put(this, value);
+        } else {
+            setInvertedProperty(key, new InvertedEntry(this, value));
+            return null;
         }
     }
 
-    private static WeakHashMap<WeakMap, Object> putInvertedMap(DynamicObject k) {
-        WeakHashMap<WeakMap, Object> invertedMap = new WeakHashMap<>();
-        boolean wasExtensible = false;
-        assert (wasExtensible = ((JSDynamicObject.getObjectFlags(k) & JSShape.NOT_EXTENSIBLE_FLAG) == 0)) || Boolean.TRUE;
-        JSObjectUtil.putHiddenProperty(k, INVERTED_WEAK_MAP_KEY, invertedMap);
-        assert wasExtensible == ((JSDynamicObject.getObjectFlags(k) & JSShape.NOT_EXTENSIBLE_FLAG) == 0);
-        return invertedMap;
+    @SuppressWarnings("unchecked")
+    @TruffleBoundary
+    private Object invertedRemove(Object inverted) {
+        if (inverted instanceof InvertedEntry) {
+            InvertedEntry entry = (InvertedEntry) inverted;
+            if (entry.get() == this) {
+                Object oldValue = entry.value;
+                entry.clear();
+                entry.value = null;
+                return oldValue;
+            }
+            return null;
+        } else if (inverted != null) {
+            return ((WeakHashMap<WeakMap, Object>) inverted).remove(this);
+        }
+        return null;
     }
 
     @Override
     public boolean containsKey(Object key) {
         DynamicObject k = checkKey(key);
-        return getInvertedMap(k, false).containsKey(this);
+        return invertedGet(getInvertedProperty(k)) != null;
     }
 
     @Override
     public Object get(Object key) {
         DynamicObject k = checkKey(key);
-        return getInvertedMap(k, false).get(this);
+        return invertedGet(getInvertedProperty(k));
     }
 
     @Override
     public Object put(DynamicObject key, Object value) {
         DynamicObject k = checkKey(key);
-        return getInvertedMap(k, true).put(this, value);
+        return invertedPut(k, getInvertedProperty(k), value);
     }
 
     @Override
     public Object remove(Object key) {
         DynamicObject k = checkKey(key);
-        return getInvertedMap(k, false).remove(this);
+        return invertedRemove(getInvertedProperty(k));
     }
 
     @Override
@@ -165,6 +244,60 @@ public class WeakMap implements Map<DynamicObject, Object> {
         throw unsupported();
     }
 
+    /**
+     * Returns whether {@code key} is the hidden key under which the entries of a key object are
+     * stored. Its value is modified in place and has to be copied by realm snapshots.
+     */
+    public static boolean isInvertedKey(Object key) {
+        return key == INVERTED_WEAK_MAP_KEY;
+    }
+
+    /**
+     * Returns a copy of the entries of a key object, given the value of its hidden inverted map
+     * property, that can be put back into the key object later.
+     */
+    @SuppressWarnings("unchecked")
+    @TruffleBoundary
+    public static Object copyInverted(Object inverted) {
+        if (inverted instanceof InvertedEntry) {
+            InvertedEntry entry = (InvertedEntry) inverted;
+            return new InvertedEntry(entry.get(), entry.value);
+        } else if (inverted instanceof WeakHashMap<?, ?>) {
+            return new WeakHashMap<>((WeakHashMap<WeakMap, Object>) inverted);
+        }
+        return inverted;
+    }
+
+    /**
+     * Returns whether two values of the hidden inverted map property hold the same entries.
+     */
+    @TruffleBoundary
+    public static boolean invertedEquals(Object inverted, Object other) {
+        if (inverted instanceof InvertedEntry && other instanceof InvertedEntry) {
+            InvertedEntry entry = (InvertedEntry) inverted;
+            InvertedEntry otherEntry = (InvertedEntry) other;
+            return entry.get() == otherEntry.get() && entry.value == otherEntry.value;
+        } else if (inverted instanceof WeakHashMap<?, ?> && other instanceof WeakHashMap<?, ?>) {
+            return inverted.equals(other);
+        }
+        return inverted == other;
+    }
+
+    /**
+     * Returns the values of the entries of a key object, given the value of its hidden inverted
+     * map property.
+     */
+    @TruffleBoundary
+    public static Collection<?> invertedValues(Object inverted) {
+        if (inverted instanceof InvertedEntry) {
+            InvertedEntry entry = (InvertedEntry) inverted;
+            return entry.get() == null ? Collections.emptyList() : Collections.singletonList(entry.value);
+        } else if (inverted instanceof WeakHashMap<?, ?>) {
+            return ((WeakHashMap<?, ?>) inverted).values();
+        }
+        return Collections.emptyList();
+    }
+
     private static UnsupportedOperationException unsupported() {
         return new UnsupportedOperationException("Not supported by WeakMap");
     }
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2018, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2018, 2021, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * The Universal Permissive License (UPL), Version 1.0
@@ -40,15 +40,9 @@
  */
 package com.oracle.truffle.trufflenode;
 
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.Set;
-
 import com.oracle.truffle.js.runtime.JSAgent;
 
 public class NodeJSAgent extends JSAgent {
-    // The set of active agents, i.e., agents that entered an isolate
-    private static final Set<NodeJSAgent> agents = Collections.synchronizedSet(new HashSet<>());
     private Thread thread;
 
     NodeJSAgent() {
@@ -57,29 +51,12 @@ public class NodeJSAgent extends JSAgent {
 
     void setThread(Thread thread) {
         this.thread = thread;
-        if (thread == null) {
-            agents.remove(this);
-        } else {
-            agents.add(this);
-        }
     }
 
     Thread getThread() {
         return thread;
     }
 
-    @Override
-    public void wakeAgent(int w) {
-        synchronized (agents) {
-            for (NodeJSAgent agent : agents) {
-                if (agent.getSignifier() == w) {
-                    agent.thread.interrupt();
-                    break;
-                }
-            }
-        }
-    }
-
     @Override
     public boolean isTerminated() {
         throw new UnsupportedOperationException();